@@ -0,0 +1,42 @@
+package ind.arvind.benchmark;
+
+import org.openjdk.jmh.Main;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Entry point of the benchmarks jar. Accepts the usual JMH arguments and always attaches the GC
+ * profiler ({@code gc.alloc.rate.norm} is bytes allocated per op) and {@link StatementProfiler}
+ * ({@code sql.statements.norm} is SQL statements per op). Unless a mode or time unit is
+ * given explicitly it runs two passes: throughput in ops/s, then sampled latency in µs with
+ * p50/p90/p99 percentiles.
+ */
+public final class BenchmarkRunner {
+    private BenchmarkRunner() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions cli = new CommandLineOptions(args);
+        if (cli.shouldHelp() || cli.shouldList() || cli.shouldListWithParams()
+                || cli.shouldListProfilers() || cli.shouldListResultFormats()) {
+            Main.main(args);
+            return;
+        }
+        if (!cli.getBenchModes().isEmpty() || cli.getTimeUnit().hasValue()) {
+            new Runner(withProfilers(cli).build()).run();
+            return;
+        }
+        new Runner(withProfilers(cli).mode(Mode.Throughput).timeUnit(TimeUnit.SECONDS).build()).run();
+        new Runner(withProfilers(cli).mode(Mode.SampleTime).timeUnit(TimeUnit.MICROSECONDS).build()).run();
+    }
+
+    private static ChainedOptionsBuilder withProfilers(CommandLineOptions cli) {
+        return new OptionsBuilder().parent(cli).addProfiler(GCProfiler.class).addProfiler(StatementProfiler.class);
+    }
+}
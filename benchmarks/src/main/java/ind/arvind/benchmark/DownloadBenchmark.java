@@ -0,0 +1,45 @@
+package ind.arvind.benchmark;
+
+import ind.arvind.service.StorageService;
+import ind.arvind.storage.FileContent;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.util.Map;
+
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DownloadBenchmark {
+    @Param({"65536", "8388608"})
+    private int payloadSize;
+
+    private StorageBenchmarkContext context;
+    private StorageService storageService;
+    private Long fileId;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        context = StorageBenchmarkContext.start();
+        storageService = context.storageService();
+        fileId = context.upload(StorageBenchmarkContext.randomBytes(payloadSize), Map.of()).getId();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        context.close();
+    }
+
+    @Benchmark
+    public long streamFullContent() throws IOException {
+        try (FileContent content = storageService.openContent(fileId, StorageBenchmarkContext.OWNER);
+             WritableByteChannel sink = Channels.newChannel(OutputStream.nullOutputStream())) {
+            content.reader().transferTo(0, content.length(), sink);
+            return content.length();
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package ind.arvind.benchmark;
+
+import ind.arvind.dto.StoredFileResponseDto;
+import ind.arvind.entity.FileMetadata;
+import ind.arvind.entity.StorageBucket;
+import ind.arvind.entity.StoredFile;
+import ind.arvind.repository.projection.StoredFileRow;
+import ind.arvind.service.impl.StoredFileMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DtoMappingBenchmark {
+    @Param({"0", "10"})
+    private int metadataKeys;
+
+    private StoredFile entity;
+    private StoredFileRow row;
+    private Map<String, String> metadata;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Instant now = Instant.now();
+        metadata = StorageBenchmarkContext.metadata(metadataKeys, "value");
+        entity = StoredFile.builder()
+                .id(42L)
+                .filename("report.pdf")
+                .size(1024L)
+                .contentType("application/pdf")
+                .createdAt(now)
+                .updatedAt(now)
+                .owner(StorageBenchmarkContext.OWNER)
+                .storageBucket(StorageBucket.builder().name(StorageBenchmarkContext.BUCKET).build())
+                .build();
+        List<FileMetadata> rows = new ArrayList<>();
+        metadata.forEach((k, v) -> rows.add(FileMetadata.builder().storedFile(entity).metaKey(k).value(v).build()));
+        entity.setMetadata(rows);
+        row = new StoredFileRow(42L, "report.pdf", 1024L, "application/pdf", now, now,
+                StorageBenchmarkContext.OWNER, StorageBenchmarkContext.BUCKET);
+    }
+
+    @Benchmark
+    public StoredFileResponseDto fromEntity() {
+        return StoredFileMapper.toDto(entity);
+    }
+
+    @Benchmark
+    public StoredFileResponseDto fromRow() {
+        return StoredFileMapper.toDto(row, metadata);
+    }
+}
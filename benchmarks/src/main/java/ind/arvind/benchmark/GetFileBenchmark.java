@@ -0,0 +1,42 @@
+package ind.arvind.benchmark;
+
+import ind.arvind.dto.StoredFileResponseDto;
+import ind.arvind.service.StorageService;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GetFileBenchmark {
+    private static final int FILE_COUNT = 2_000;
+
+    @Param({"true", "false"})
+    private boolean cacheEnabled;
+
+    private StorageBenchmarkContext context;
+    private StorageService storageService;
+    private List<Long> fileIds;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        context = StorageBenchmarkContext.start("--storage.cache.enabled=" + cacheEnabled);
+        storageService = context.storageService();
+        fileIds = context.seedFiles(FILE_COUNT, 256, 5);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        context.close();
+    }
+
+    @Benchmark
+    public StoredFileResponseDto getFile() {
+        Long id = fileIds.get(ThreadLocalRandom.current().nextInt(fileIds.size()));
+        return storageService.getFile(id, StorageBenchmarkContext.OWNER);
+    }
+}
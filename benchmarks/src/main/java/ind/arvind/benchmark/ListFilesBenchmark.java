@@ -0,0 +1,49 @@
+package ind.arvind.benchmark;
+
+import ind.arvind.dto.PageResponseDto;
+import ind.arvind.dto.StoredFileResponseDto;
+import ind.arvind.service.StorageService;
+import ind.arvind.service.impl.PageTokens;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ListFilesBenchmark {
+    private static final int FILE_COUNT = 5_000;
+
+    @Param({"10", "100"})
+    private int pageSize;
+
+    private StorageBenchmarkContext context;
+    private StorageService storageService;
+    private List<Long> fileIds;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        context = StorageBenchmarkContext.start();
+        storageService = context.storageService();
+        fileIds = context.seedFiles(FILE_COUNT, 256, 5);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        context.close();
+    }
+
+    @Benchmark
+    public PageResponseDto<StoredFileResponseDto> listFirstPage() {
+        return storageService.listFiles(StorageBenchmarkContext.OWNER, null, pageSize);
+    }
+
+    @Benchmark
+    public PageResponseDto<StoredFileResponseDto> listRandomPage() {
+        long after = fileIds.get(ThreadLocalRandom.current().nextInt(fileIds.size() - pageSize));
+        return storageService.listFiles(StorageBenchmarkContext.OWNER, PageTokens.encode(after), pageSize);
+    }
+}
@@ -0,0 +1,58 @@
+package ind.arvind.benchmark;
+
+import ind.arvind.dto.FileMetadataUpdateDto;
+import ind.arvind.dto.MetadataUpdateMode;
+import ind.arvind.dto.StoredFileResponseDto;
+import ind.arvind.service.StorageService;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MetadataUpdateBenchmark {
+    private static final int FILE_COUNT = 500;
+    private static final int METADATA_KEYS = 20;
+    private static final int CHANGED_KEYS = 2;
+
+    @Param({"REPLACE", "DIFF"})
+    private MetadataUpdateMode mode;
+
+    private StorageBenchmarkContext context;
+    private StorageService storageService;
+    private List<Long> fileIds;
+    private final AtomicLong revision = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        context = StorageBenchmarkContext.start();
+        storageService = context.storageService();
+        fileIds = context.seedFiles(FILE_COUNT, 256, METADATA_KEYS);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        context.close();
+    }
+
+    // Typical edit: most keys unchanged, a couple of values bumped.
+    @Benchmark
+    public StoredFileResponseDto updateMetadata() {
+        Long id = fileIds.get(ThreadLocalRandom.current().nextInt(fileIds.size()));
+        Map<String, String> metadata = StorageBenchmarkContext.metadata(METADATA_KEYS, "seed");
+        String value = "r" + revision.incrementAndGet();
+        for (int k = 0; k < CHANGED_KEYS; k++) {
+            metadata.put("key-" + k, value);
+        }
+        FileMetadataUpdateDto update = new FileMetadataUpdateDto();
+        update.setMode(mode);
+        update.setMetadata(metadata);
+        return storageService.updateMetadata(id, update, StorageBenchmarkContext.OWNER);
+    }
+}
@@ -0,0 +1,24 @@
+package ind.arvind.benchmark;
+
+import ind.arvind.metrics.QueryCountInspector;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * {@link QueryCountInspector} that also keeps a JVM-wide total of the SQL statements Hibernate prepares.
+ * {@link StorageBenchmarkContext} registers it in place of the application's inspector and
+ * {@link StatementProfiler} turns the total into a per-op figure.
+ */
+final class StatementCounter extends QueryCountInspector {
+    private static final LongAdder STATEMENTS = new LongAdder();
+
+    @Override
+    public String inspect(String sql) {
+        STATEMENTS.increment();
+        return super.inspect(sql);
+    }
+
+    static long count() {
+        return STATEMENTS.sum();
+    }
+}
@@ -0,0 +1,38 @@
+package ind.arvind.benchmark;
+
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.infra.IterationParams;
+import org.openjdk.jmh.profile.InternalProfiler;
+import org.openjdk.jmh.results.AggregationPolicy;
+import org.openjdk.jmh.results.IterationResult;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.ScalarResult;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Reports {@code sql.statements.norm}, the SQL statements prepared per benchmark op, next to the GC
+ * profiler's {@code gc.alloc.rate.norm}. Batched statements count once per batch.
+ */
+public final class StatementProfiler implements InternalProfiler {
+    private long statementsBefore;
+
+    @Override
+    public String getDescription() {
+        return "SQL statements prepared per operation";
+    }
+
+    @Override
+    public void beforeIteration(BenchmarkParams benchmarkParams, IterationParams iterationParams) {
+        statementsBefore = StatementCounter.count();
+    }
+
+    @Override
+    public Collection<? extends Result> afterIteration(BenchmarkParams benchmarkParams, IterationParams iterationParams,
+                                                       IterationResult result) {
+        long ops = result.getMetadata().getAllOps();
+        double perOp = ops == 0 ? Double.NaN : (double) (StatementCounter.count() - statementsBefore) / ops;
+        return List.of(new ScalarResult("sql.statements.norm", perOp, "stmts/op", AggregationPolicy.AVG));
+    }
+}
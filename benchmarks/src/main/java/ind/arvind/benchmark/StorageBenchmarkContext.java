@@ -0,0 +1,103 @@
+package ind.arvind.benchmark;
+
+import ind.arvind.HopefulApplication;
+import ind.arvind.dto.FileUploadRequestDto;
+import ind.arvind.dto.StoredFileResponseDto;
+import ind.arvind.service.StorageService;
+import org.springframework.boot.Banner;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.support.GenericApplicationContext;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Boots the application without a web server against a private in-memory H2 database and a
+ * temp-dir blob store, so every benchmark trial starts from an empty, isolated state.
+ */
+final class StorageBenchmarkContext implements AutoCloseable {
+    static final String OWNER = "system";
+    static final String BUCKET = "my-bucket";
+    private static final String CONTENT_TYPE = "application/octet-stream";
+
+    private final Path blobRoot;
+    private final ConfigurableApplicationContext context;
+
+    private StorageBenchmarkContext(Path blobRoot, ConfigurableApplicationContext context) {
+        this.blobRoot = blobRoot;
+        this.context = context;
+    }
+
+    static StorageBenchmarkContext start(String... extraArgs) throws IOException {
+        Path blobRoot = Files.createTempDirectory("hopeful-bench-");
+        List<String> args = new ArrayList<>(List.of(
+                "--spring.datasource.url=jdbc:h2:mem:bench-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1",
+                "--spring.datasource.driver-class-name=org.h2.Driver",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.jpa.hibernate.ddl-auto=create-drop",
+                "--spring.jpa.show-sql=false",
+                "--storage.root-dir=" + blobRoot,
+                "--storage.tiering.cold-root-dir=" + blobRoot.resolve("cold"),
+                "--security.jwt.jwk-set-location=classpath:jwt/local-dev-jwks.json",
+                "--logging.level.root=WARN"));
+        args.addAll(List.of(extraArgs));
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(HopefulApplication.class)
+                .web(WebApplicationType.NONE)
+                .bannerMode(Banner.Mode.OFF)
+                .initializers((GenericApplicationContext ctx) -> ctx.registerBean(StatementCounter.class,
+                        definition -> definition.setPrimary(true)))
+                .run(args.toArray(String[]::new));
+        return new StorageBenchmarkContext(blobRoot, context);
+    }
+
+    StorageService storageService() {
+        return context.getBean(StorageService.class);
+    }
+
+    StoredFileResponseDto upload(byte[] content, Map<String, String> metadata) {
+        FileUploadRequestDto request = new FileUploadRequestDto();
+        request.setBucketName(BUCKET);
+        request.setFile(new ByteArrayMultipartFile("bench.bin", CONTENT_TYPE, content));
+        request.setMetadata(metadata);
+        return storageService().uploadFile(request, OWNER);
+    }
+
+    List<Long> seedFiles(int count, int size, int metadataKeys) {
+        List<Long> ids = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            ids.add(upload(randomBytes(size), metadata(metadataKeys, "v" + i)).getId());
+        }
+        return ids;
+    }
+
+    static byte[] randomBytes(int size) {
+        byte[] bytes = new byte[size];
+        ThreadLocalRandom.current().nextBytes(bytes);
+        return bytes;
+    }
+
+    static Map<String, String> metadata(int keys, String value) {
+        Map<String, String> metadata = new LinkedHashMap<>();
+        for (int k = 0; k < keys; k++) {
+            metadata.put("key-" + k, value);
+        }
+        return metadata;
+    }
+
+    @Override
+    public void close() throws IOException {
+        context.close();
+        FileSystemUtils.deleteRecursively(blobRoot);
+    }
+}
@@ -0,0 +1,42 @@
+package ind.arvind.benchmark;
+
+import ind.arvind.dto.StoredFileResponseDto;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UploadBenchmark {
+    @Param({"4096", "1048576"})
+    private int payloadSize;
+
+    private StorageBenchmarkContext context;
+    private byte[] payload;
+    private final AtomicLong sequence = new AtomicLong();
+    private final Map<String, String> metadata = StorageBenchmarkContext.metadata(5, "upload");
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        context = StorageBenchmarkContext.start();
+        payload = StorageBenchmarkContext.randomBytes(payloadSize);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        context.close();
+    }
+
+    // A fresh prefix per call keeps the content hash unique, so this measures a real write rather than a dedup hit.
+    @Benchmark
+    public StoredFileResponseDto uploadFile() {
+        byte[] content = payload.clone();
+        ByteBuffer.wrap(content).putLong(sequence.incrementAndGet());
+        return context.upload(content, metadata);
+    }
+}
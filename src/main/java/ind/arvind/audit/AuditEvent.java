@@ -0,0 +1,16 @@
+package ind.arvind.audit;
+
+import java.time.Instant;
+
+/**
+ * One served API request: who did what to which file, how many bytes moved and how long it took.
+ * {@code fileId} and {@code bucket} come from the route; {@code detail} is whatever the handler
+ * added, e.g. the ids affected by a bulk request.
+ */
+public record AuditEvent(Instant timestamp, String correlationId, String owner, String method, String route,
+                         String fileId, String bucket, int status, long bytesIn, long bytesOut, long latencyMicros,
+                         String detail) {
+
+    /** Request attribute a handler can set to add detail to the request's event. */
+    public static final String DETAIL_ATTRIBUTE = "ind.arvind.audit.AuditEvent.detail";
+}
@@ -0,0 +1,78 @@
+package ind.arvind.audit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+
+/**
+ * Appends events as JSON lines to {@code audit-<date>-<n>.jsonl}, starting a new file at midnight
+ * UTC and whenever the current one reaches the size limit. A batch is encoded in memory and
+ * written with a single call; there is no fsync, so a host crash can lose the last batches.
+ */
+final class AuditFileWriter implements Closeable {
+    private static final byte NEWLINE = '\n';
+
+    private final Path dir;
+    private final long maxFileSize;
+    private final ObjectMapper objectMapper;
+    private final Clock clock;
+    private final ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+    private FileChannel channel;
+    private LocalDate day;
+
+    AuditFileWriter(Path dir, long maxFileSize, ObjectMapper objectMapper, Clock clock) {
+        this.dir = dir;
+        this.maxFileSize = maxFileSize;
+        this.objectMapper = objectMapper;
+        this.clock = clock;
+    }
+
+    void append(List<AuditEvent> events) throws IOException {
+        encoded.reset();
+        for (AuditEvent event : events) {
+            objectMapper.writeValue(encoded, event);
+            encoded.write(NEWLINE);
+        }
+        FileChannel target = current(encoded.size());
+        ByteBuffer bytes = ByteBuffer.wrap(encoded.toByteArray());
+        while (bytes.hasRemaining()) {
+            target.write(bytes);
+        }
+    }
+
+    private FileChannel current(long incoming) throws IOException {
+        LocalDate today = LocalDate.now(clock.withZone(ZoneOffset.UTC));
+        if (channel != null && today.equals(day) && channel.size() + incoming <= maxFileSize) {
+            return channel;
+        }
+        close();
+        Files.createDirectories(dir);
+        Path file;
+        int index = 0;
+        do {
+            file = dir.resolve("audit-" + today + "-" + index++ + ".jsonl");
+        } while (Files.exists(file) && Files.size(file) + incoming > maxFileSize);
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        day = today;
+        return channel;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+    }
+}
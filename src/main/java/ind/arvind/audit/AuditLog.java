@@ -0,0 +1,107 @@
+package ind.arvind.audit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import ind.arvind.config.AuditProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Write-behind audit trail. Request threads only place events in a lock-free ring buffer; a single
+ * writer thread drains it in batches to rolling JSONL files. Events are never dropped while the
+ * application runs: if the writer falls a whole buffer behind, request threads wait for room
+ * (counted as {@code audit.backpressure}). On shutdown everything buffered is written out.
+ */
+@Component
+public class AuditLog implements DisposableBean {
+    private static final Logger log = LoggerFactory.getLogger(AuditLog.class);
+    private static final long BACKOFF_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+    private static final long JOIN_TIMEOUT_MILLIS = TimeUnit.SECONDS.toMillis(30);
+
+    private final AuditProperties properties;
+    private final AuditRingBuffer<AuditEvent> buffer;
+    private final AuditFileWriter fileWriter;
+    private final Counter written;
+    private final Counter failed;
+    private final Counter backpressure;
+    private final Thread writer;
+    private volatile boolean running = true;
+
+    public AuditLog(AuditProperties properties, ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.buffer = new AuditRingBuffer<>(properties.getBufferSize());
+        this.fileWriter = new AuditFileWriter(Path.of(properties.getDir()), properties.getMaxFileSize(), objectMapper,
+                Clock.systemUTC());
+        this.written = meterRegistry.counter("audit.events.written");
+        this.failed = meterRegistry.counter("audit.events.failed");
+        this.backpressure = meterRegistry.counter("audit.backpressure");
+        Gauge.builder("audit.buffer.size", buffer, AuditRingBuffer::size).register(meterRegistry);
+        this.writer = new Thread(this::drainLoop, "audit-writer");
+        this.writer.setDaemon(true);
+        if (properties.isEnabled()) {
+            this.writer.start();
+        }
+    }
+
+    public void record(AuditEvent event) {
+        if (!properties.isEnabled() || !running) {
+            return;
+        }
+        if (!buffer.offer(event)) {
+            backpressure.increment();
+            LockSupport.unpark(writer);
+            while (!buffer.offer(event)) {
+                LockSupport.parkNanos(BACKOFF_NANOS);
+            }
+        }
+    }
+
+    private void drainLoop() {
+        List<AuditEvent> batch = new ArrayList<>(properties.getBatchSize());
+        long idleNanos = properties.getFlushInterval().toNanos();
+        while (running || buffer.size() > 0) {
+            batch.clear();
+            if (buffer.drainTo(batch, properties.getBatchSize()) == 0) {
+                if (running) {
+                    LockSupport.parkNanos(idleNanos);
+                }
+                continue;
+            }
+            try {
+                fileWriter.append(batch);
+                written.increment(batch.size());
+            } catch (IOException | RuntimeException e) {
+                // The buffer has to keep draining or request threads would end up waiting on it.
+                failed.increment(batch.size());
+                log.error("Unable to write {} audit events", batch.size(), e);
+            }
+        }
+        try {
+            fileWriter.close();
+        } catch (IOException e) {
+            log.warn("Unable to close the audit file", e);
+        }
+    }
+
+    /** Runs after the web server has stopped, so no request can add events any more. */
+    @Override
+    public void destroy() throws InterruptedException {
+        running = false;
+        if (writer.isAlive()) {
+            LockSupport.unpark(writer);
+            writer.join(JOIN_TIMEOUT_MILLIS);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package ind.arvind.cache;
+
+import ind.arvind.config.StorageProperties;
+import ind.arvind.entity.FileCacheInvalidation;
+import ind.arvind.repository.FileCacheInvalidationRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Shares invalidations between nodes through the database they already have in common. Evictions
+ * are written to an invalidation log in the caller's transaction, so peers only see them once the
+ * change is committed; each node polls the log and drops the affected local entries. Polling
+ * re-reads a short look-back window so commits that land out of order are never missed.
+ */
+public class DatabaseInvalidationFileCacheTier implements FileCacheTier {
+    private static final Logger log = LoggerFactory.getLogger(DatabaseInvalidationFileCacheTier.class);
+    private final FileCacheInvalidationRepository invalidationRepository;
+    private final StorageProperties.Cache properties;
+    private final List<Consumer<Long>> listeners = new CopyOnWriteArrayList<>();
+    private volatile Instant watermark = Instant.now();
+    private volatile Instant lastPurge = Instant.now();
+
+    public DatabaseInvalidationFileCacheTier(FileCacheInvalidationRepository invalidationRepository,
+                                             StorageProperties.Cache properties) {
+        this.invalidationRepository = invalidationRepository;
+        this.properties = properties;
+    }
+
+    @Override
+    public Optional<FileCacheEntry> get(Long fileId) {
+        return Optional.empty();
+    }
+
+    @Override
+    public void put(FileCacheEntry entry) {
+    }
+
+    @Override
+    public void evict(Long fileId) {
+        invalidationRepository.save(FileCacheInvalidation.builder()
+                .storedFileId(fileId)
+                .createdAt(Instant.now())
+                .build());
+    }
+
+    @Override
+    public void onEviction(Consumer<Long> listener) {
+        listeners.add(listener);
+    }
+
+    @Scheduled(fixedDelayString = "${storage.cache.invalidation-poll-interval:PT1S}")
+    public void pollInvalidations() {
+        final Instant pollStart = Instant.now();
+        final List<Long> fileIds = invalidationRepository.findFileIdsInvalidatedSince(
+                watermark.minus(properties.getInvalidationLookback()));
+        fileIds.forEach(fileId -> listeners.forEach(listener -> listener.accept(fileId)));
+        watermark = pollStart;
+        if (lastPurge.plus(properties.getInvalidationRetention()).isBefore(pollStart)) {
+            int purged = invalidationRepository.deleteOlderThan(pollStart.minus(properties.getInvalidationRetention()));
+            log.debug("Purged {} old cache invalidations", purged);
+            lastPurge = pollStart;
+        }
+    }
+}
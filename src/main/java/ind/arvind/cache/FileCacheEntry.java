@@ -0,0 +1,16 @@
+package ind.arvind.cache;
+
+import ind.arvind.dto.StoredFileResponseDto;
+import ind.arvind.entity.ContentEncoding;
+
+/**
+ * {@code cacheControl} is the bucket's download policy at the time the entry was loaded; a policy
+ * change reaches cached entries within the cache TTL.
+ */
+public record FileCacheEntry(StoredFileResponseDto file, String storagePath, String checksum, ContentEncoding encoding,
+                             String cacheControl) {
+
+    public FileCacheEntry(StoredFileResponseDto file, String storagePath, String checksum, ContentEncoding encoding) {
+        this(file, storagePath, checksum, encoding, null);
+    }
+}
@@ -0,0 +1,16 @@
+package ind.arvind.cache;
+
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * Second cache tier behind the in-process cache. Implementations may hold shared entries (for
+ * example in a distributed cache) and must propagate {@link #evict} to every node, which then
+ * drops its local copy through the registered listener.
+ */
+public interface FileCacheTier {
+    Optional<FileCacheEntry> get(Long fileId);
+    void put(FileCacheEntry entry);
+    void evict(Long fileId);
+    void onEviction(Consumer<Long> listener);
+}
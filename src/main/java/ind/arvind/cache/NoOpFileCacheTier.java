@@ -0,0 +1,23 @@
+package ind.arvind.cache;
+
+import java.util.Optional;
+import java.util.function.Consumer;
+
+public class NoOpFileCacheTier implements FileCacheTier {
+    @Override
+    public Optional<FileCacheEntry> get(Long fileId) {
+        return Optional.empty();
+    }
+
+    @Override
+    public void put(FileCacheEntry entry) {
+    }
+
+    @Override
+    public void evict(Long fileId) {
+    }
+
+    @Override
+    public void onEviction(Consumer<Long> listener) {
+    }
+}
@@ -0,0 +1,66 @@
+package ind.arvind.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import ind.arvind.config.StorageProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Optional;
+
+/**
+ * Two-tier cache of stored file views keyed by file id. The first tier is a bounded in-process
+ * cache with size and TTL eviction; misses fall through to the configured {@link FileCacheTier}.
+ */
+@Component
+public class StoredFileCache {
+    private static final String CACHE_NAME = "storedFiles";
+
+    private final Cache<Long, FileCacheEntry> local;
+    private final FileCacheTier tier;
+
+    public StoredFileCache(StorageProperties storageProperties, FileCacheTier tier, MeterRegistry meterRegistry) {
+        StorageProperties.Cache properties = storageProperties.getCache();
+        this.local = Caffeine.newBuilder()
+                .maximumSize(properties.isEnabled() ? properties.getMaxSize() : 0)
+                .expireAfterWrite(properties.getTtl())
+                .recordStats()
+                .build();
+        this.tier = tier;
+        tier.onEviction(local::invalidate);
+        CaffeineCacheMetrics.monitor(meterRegistry, local, CACHE_NAME);
+    }
+
+    public Optional<FileCacheEntry> get(Long fileId) {
+        return Optional.ofNullable(local.getIfPresent(fileId))
+                .or(() -> tier.get(fileId).map(entry -> {
+                    local.put(fileId, entry);
+                    return entry;
+                }));
+    }
+
+    public void put(FileCacheEntry entry) {
+        local.put(entry.file().getId(), entry);
+        tier.put(entry);
+    }
+
+    /**
+     * Drops the entry everywhere. The local copy is evicted again after commit so that a reader
+     * which loaded the row before the change committed cannot leave a stale entry behind.
+     */
+    public void invalidate(Long fileId) {
+        local.invalidate(fileId);
+        tier.evict(fileId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    local.invalidate(fileId);
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package ind.arvind.config;
+
+import ind.arvind.metrics.QueryCountInspector;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs the transfer half of uploads and downloads on a dedicated, bounded executor so a slow
+ * client holds one of its threads rather than a container thread, and short metadata calls keep
+ * being served while large transfers are in flight.
+ *
+ * <p>The executor is deliberately not exposed as a bean: an {@code Executor} bean would replace
+ * Boot's {@code applicationTaskExecutor}.
+ */
+@Configuration
+public class AsyncTransferConfig implements WebMvcConfigurer, DisposableBean {
+    private static final Logger log = LoggerFactory.getLogger(AsyncTransferConfig.class);
+    private static final String EXECUTOR_NAME = "storage.io";
+    private static final String THREAD_NAME_PREFIX = "storage-io-";
+
+    private final StorageProperties.Async properties;
+    private final AsyncTaskExecutor executor;
+    private final Runnable shutdown;
+
+    public AsyncTransferConfig(StorageProperties storageProperties, MeterRegistry meterRegistry,
+                               QueryCountInspector queryCountInspector) {
+        this.properties = storageProperties.getAsync();
+        TaskDecorator withContext = task -> withMdc(withQueryCount(task, queryCountInspector));
+        if (properties.isVirtualThreads()) {
+            AtomicInteger active = new AtomicInteger();
+            SimpleAsyncTaskExecutor virtual = new SimpleAsyncTaskExecutor(THREAD_NAME_PREFIX);
+            virtual.setVirtualThreads(true);
+            virtual.setTaskDecorator(task -> {
+                Runnable decorated = withContext.decorate(task);
+                return () -> {
+                    active.incrementAndGet();
+                    try {
+                        decorated.run();
+                    } finally {
+                        active.decrementAndGet();
+                    }
+                };
+            });
+            Gauge.builder("executor.active", active, AtomicInteger::get)
+                    .tag("name", EXECUTOR_NAME)
+                    .description("Transfers currently running on virtual threads")
+                    .register(meterRegistry);
+            this.executor = virtual;
+            this.shutdown = virtual::close;
+            log.info("Async transfers run on virtual threads");
+        } else {
+            ThreadPoolTaskExecutor pool = new ThreadPoolTaskExecutor();
+            pool.setThreadNamePrefix(THREAD_NAME_PREFIX);
+            pool.setCorePoolSize(properties.getPoolSize());
+            pool.setMaxPoolSize(properties.getPoolSize());
+            pool.setQueueCapacity(properties.getQueueCapacity());
+            pool.setKeepAliveSeconds((int) properties.getKeepAlive().toSeconds());
+            pool.setAllowCoreThreadTimeOut(true);
+            pool.setTaskDecorator(withContext);
+            pool.initialize();
+            ExecutorServiceMetrics.monitor(meterRegistry, pool.getThreadPoolExecutor(), EXECUTOR_NAME);
+            this.executor = pool;
+            this.shutdown = pool::shutdown;
+            log.info("Async transfers run on up to {} threads with {} queued", properties.getPoolSize(),
+                    properties.getQueueCapacity());
+        }
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setTaskExecutor(executor);
+        configurer.setDefaultTimeout(properties.getRequestTimeout().toMillis());
+    }
+
+    @Override
+    public void destroy() {
+        shutdown.run();
+    }
+
+    /** Counts the transfer's statements towards the submitting request's query metric. */
+    private static Runnable withQueryCount(Runnable task, QueryCountInspector queryCountInspector) {
+        AtomicInteger count = queryCountInspector.current();
+        return () -> {
+            queryCountInspector.attach(count);
+            try {
+                task.run();
+            } finally {
+                queryCountInspector.detach();
+            }
+        };
+    }
+
+    /** Carries the submitting request's MDC, notably its correlation id, over to the transfer thread. */
+    private static Runnable withMdc(Runnable task) {
+        Map<String, String> context = MDC.getCopyOfContextMap();
+        return () -> {
+            if (context == null) {
+                MDC.clear();
+            } else {
+                MDC.setContextMap(context);
+            }
+            try {
+                task.run();
+            } finally {
+                MDC.clear();
+            }
+        };
+    }
+}
@@ -0,0 +1,27 @@
+package ind.arvind.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "audit")
+public class AuditProperties {
+    private static final int DEFAULT_BUFFER_SIZE = 65_536;
+    private static final int DEFAULT_BATCH_SIZE = 1024;
+    private static final long DEFAULT_MAX_FILE_SIZE = 256L * 1024 * 1024;
+
+    private boolean enabled = true;
+    private String dir = "data/audit";
+    /** Events held between request threads and the writer; rounded up to a power of two. */
+    private int bufferSize = DEFAULT_BUFFER_SIZE;
+    /** Events written per flush. */
+    private int batchSize = DEFAULT_BATCH_SIZE;
+    /** How long the writer sleeps when there is nothing to write. */
+    private Duration flushInterval = Duration.ofMillis(200);
+    /** A file is rolled over at this size as well as at midnight UTC. */
+    private long maxFileSize = DEFAULT_MAX_FILE_SIZE;
+}
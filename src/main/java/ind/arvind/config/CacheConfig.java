@@ -0,0 +1,27 @@
+package ind.arvind.config;
+
+import ind.arvind.cache.DatabaseInvalidationFileCacheTier;
+import ind.arvind.cache.FileCacheTier;
+import ind.arvind.cache.NoOpFileCacheTier;
+import ind.arvind.repository.FileCacheInvalidationRepository;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class CacheConfig {
+
+    @Bean
+    @ConditionalOnProperty(name = "storage.cache.tier", havingValue = "db")
+    public FileCacheTier databaseInvalidationFileCacheTier(FileCacheInvalidationRepository invalidationRepository,
+                                                           StorageProperties storageProperties) {
+        return new DatabaseInvalidationFileCacheTier(invalidationRepository, storageProperties.getCache());
+    }
+
+    @Bean
+    @ConditionalOnMissingBean(FileCacheTier.class)
+    public FileCacheTier noOpFileCacheTier() {
+        return new NoOpFileCacheTier();
+    }
+}
@@ -1,7 +1,9 @@
 package ind.arvind.config;
 
+import ind.arvind.filter.AuditFilter;
 import ind.arvind.filter.CorrelationIdFilter;
 import ind.arvind.filter.JwtAuthorizationFilter;
+import ind.arvind.filter.QueryCountFilter;
 import lombok.RequiredArgsConstructor;
 import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
@@ -12,13 +14,15 @@ import org.springframework.context.annotation.Configuration;
 public class FilterConfig {
     private final JwtAuthorizationFilter jwtAuthorizationFilter;
     private final CorrelationIdFilter correlationIdFilter;
+    private final QueryCountFilter queryCountFilter;
+    private final AuditFilter auditFilter;
 
     @Bean
     public FilterRegistrationBean<JwtAuthorizationFilter> jwtFilterRegistration() {
         FilterRegistrationBean<JwtAuthorizationFilter> registration = new FilterRegistrationBean<>();
         registration.setFilter(jwtAuthorizationFilter);
         registration.addUrlPatterns("/*");
-        registration.setOrder(1);
+        registration.setOrder(3);
         return registration;
     }
 
@@ -27,6 +31,25 @@ public class FilterConfig {
         FilterRegistrationBean<CorrelationIdFilter> registration = new FilterRegistrationBean<>();
         registration.setFilter(correlationIdFilter);
         registration.addUrlPatterns("/*");
+        registration.setOrder(1);
+        return registration;
+    }
+
+    @Bean
+    public FilterRegistrationBean<QueryCountFilter> queryCountFilterRegistration() {
+        FilterRegistrationBean<QueryCountFilter> registration = new FilterRegistrationBean<>();
+        registration.setFilter(queryCountFilter);
+        registration.addUrlPatterns("/*");
+        registration.setOrder(4);
+        return registration;
+    }
+
+    @Bean
+    public FilterRegistrationBean<AuditFilter> auditFilterRegistration() {
+        FilterRegistrationBean<AuditFilter> registration = new FilterRegistrationBean<>();
+        registration.setFilter(auditFilter);
+        registration.addUrlPatterns("/api/*");
+        // Ahead of authorization, so rejected requests are audited too
         registration.setOrder(2);
         return registration;
     }
@@ -0,0 +1,28 @@
+package ind.arvind.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "security.jwt")
+public class JwtProperties {
+    private static final long DEFAULT_CLAIMS_CACHE_MAX_SIZE = 100_000;
+
+    /** JWK set with the verification keys, e.g. {@code file:/etc/hopeful/jwks.json}. Required. */
+    private String jwkSetLocation;
+    /** Expected {@code iss}; not checked when unset. */
+    private String issuer;
+    /** Required {@code aud} entry; not checked when unset. */
+    private String audience;
+    /** Claim holding the owner name used by the storage API. */
+    private String principalClaim = "sub";
+    private Duration clockSkew = Duration.ofSeconds(30);
+    private Duration keySetRefreshInterval = Duration.ofMinutes(1);
+    /** Minimum gap between reloads triggered by a token signed with an unknown key id. */
+    private Duration unknownKeyReloadInterval = Duration.ofSeconds(10);
+    private long claimsCacheMaxSize = DEFAULT_CLAIMS_CACHE_MAX_SIZE;
+}
@@ -0,0 +1,56 @@
+package ind.arvind.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+
+/**
+ * Sends read-only transactions to a replica once {@code spring.datasource.replica.url} is set.
+ *
+ * <p>Both pools sit behind a {@link LazyConnectionDataSourceProxy}: a transaction borrows a
+ * connection only when it issues its first statement, from the replica if it was begun
+ * read-only. A {@code getFile} answered from the cache therefore borrows none at all. Reads that
+ * join a read-write transaction stay on the primary.
+ *
+ * <p>Reads that must not lag behind a write (job claims, the rows workers load right after claiming
+ * them, the cache invalidation poll) are declared read-write {@code @Transactional} on their
+ * repository methods. Inherited ones such as {@code findById} would otherwise run read-only on the
+ * replica when called outside a service transaction.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "spring.datasource.replica", name = "url")
+public class ReplicaDataSourceConfig {
+    private static final String REPLICA_PREFIX = "spring.datasource.replica";
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    @ConfigurationProperties(REPLICA_PREFIX + ".hikari")
+    public HikariDataSource replicaDataSource(Environment environment) {
+        DataSourceProperties properties = Binder.get(environment).bind(REPLICA_PREFIX, DataSourceProperties.class).get();
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSource") DataSource primary,
+                                 @Qualifier("replicaDataSource") DataSource replica) {
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(primary);
+        dataSource.setReadOnlyDataSource(replica);
+        return dataSource;
+    }
+}
@@ -0,0 +1,28 @@
+package ind.arvind.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "share")
+public class ShareProperties {
+    private static final int DEFAULT_WORKER_THREADS = 4;
+    private static final int DEFAULT_MAX_IN_FLIGHT_JOBS = 16;
+    private static final int DEFAULT_BATCH_SIZE = 500;
+    private static final int DEFAULT_MAX_ATTEMPTS = 5;
+
+    private int workerThreads = DEFAULT_WORKER_THREADS;
+    /** Jobs claimed from the outbox at once (running plus queued for a worker thread). */
+    private int maxInFlightJobs = DEFAULT_MAX_IN_FLIGHT_JOBS;
+    /** Recipients persisted and notified per transaction. */
+    private int batchSize = DEFAULT_BATCH_SIZE;
+    private Duration pollInterval = Duration.ofSeconds(1);
+    /** A RUNNING job not finished within this window is assumed orphaned by a dead node and requeued. */
+    private Duration leaseTimeout = Duration.ofMinutes(5);
+    private int maxAttempts = DEFAULT_MAX_ATTEMPTS;
+    private Duration retryBackoff = Duration.ofSeconds(30);
+}
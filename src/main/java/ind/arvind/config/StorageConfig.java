@@ -0,0 +1,17 @@
+package ind.arvind.config;
+
+import ind.arvind.storage.ByteBufferPool;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@RequiredArgsConstructor
+public class StorageConfig {
+    private final StorageProperties storageProperties;
+
+    @Bean
+    public ByteBufferPool ioBufferPool() {
+        return new ByteBufferPool(storageProperties.getIoBufferSize(), storageProperties.getIoBufferPoolSize());
+    }
+}
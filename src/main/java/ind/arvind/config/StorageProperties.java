@@ -0,0 +1,180 @@
+package ind.arvind.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.zip.Deflater;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "storage")
+public class StorageProperties {
+    private static final int DEFAULT_IO_BUFFER_SIZE = 64 * 1024;
+    private static final int DEFAULT_IO_BUFFER_POOL_SIZE = 64;
+
+    private String rootDir = "data/blobs";
+    private int ioBufferSize = DEFAULT_IO_BUFFER_SIZE;
+    private int ioBufferPoolSize = DEFAULT_IO_BUFFER_POOL_SIZE;
+    /** {@code Cache-Control} of downloads from buckets without a policy of their own. */
+    private String downloadCacheControl = "private, no-cache";
+    private Multipart multipart = new Multipart();
+    private Dedup dedup = new Dedup();
+    private Cache cache = new Cache();
+    private Compression compression = new Compression();
+    private Tiering tiering = new Tiering();
+    private Packing packing = new Packing();
+    private Async async = new Async();
+    private Usage usage = new Usage();
+    private Scrub scrub = new Scrub();
+    private Lifecycle lifecycle = new Lifecycle();
+
+    @Data
+    public static class Multipart {
+        private static final int DEFAULT_MAX_PARTS = 10_000;
+        private static final int DEFAULT_PURGE_BATCH_SIZE = 100;
+
+        private Duration expiry = Duration.ofHours(24);
+        private Duration purgeInterval = Duration.ofMinutes(15);
+        private int maxParts = DEFAULT_MAX_PARTS;
+        private int purgeBatchSize = DEFAULT_PURGE_BATCH_SIZE;
+    }
+
+    @Data
+    public static class Dedup {
+        /**
+         * Whether a client may claim content stored by another owner just by presenting its hash.
+         * Off by default: knowing a digest must not be enough to read someone else's file.
+         */
+        private boolean crossOwnerHashClaims = false;
+    }
+
+    @Data
+    public static class Cache {
+        private static final long DEFAULT_MAX_SIZE = 100_000;
+
+        private boolean enabled = true;
+        private long maxSize = DEFAULT_MAX_SIZE;
+        private Duration ttl = Duration.ofMinutes(5);
+        /** Second tier used to share invalidations between nodes: {@code none} or {@code db}. */
+        private String tier = "none";
+        private Duration invalidationPollInterval = Duration.ofSeconds(1);
+        private Duration invalidationLookback = Duration.ofSeconds(10);
+        private Duration invalidationRetention = Duration.ofHours(1);
+    }
+
+    @Data
+    public static class Compression {
+        private static final int DEFAULT_MIN_SIZE = 1024;
+
+        /** Deflate level for buckets with compression enabled; 1 trades a little ratio for much less CPU. */
+        private int level = Deflater.BEST_SPEED;
+        /** Uploads smaller than this are stored as-is, since gzip framing outweighs any saving. */
+        private long minSize = DEFAULT_MIN_SIZE;
+    }
+
+    @Data
+    public static class Tiering {
+        private static final int DEFAULT_MIGRATION_BATCH_SIZE = 100;
+
+        private boolean enabled = true;
+        /** Root of the cold tier; point it at cheaper disk than {@code storage.root-dir}. */
+        private String coldRootDir = "data/cold-blobs";
+        /** Content not read by any file for this long moves to the cold tier. */
+        private Duration coldAfter = Duration.ofDays(30);
+        /** Cold content is promoted once read this many times within one flush interval. */
+        private int promoteAfterReads = 1;
+        private Duration accessFlushInterval = Duration.ofSeconds(10);
+        private Duration migrationInterval = Duration.ofHours(1);
+        private int migrationBatchSize = DEFAULT_MIGRATION_BATCH_SIZE;
+    }
+
+    @Data
+    public static class Packing {
+        private static final int DEFAULT_MAX_BLOB_SIZE = 64 * 1024;
+        private static final long DEFAULT_SEGMENT_SIZE = 256L * 1024 * 1024;
+        private static final double DEFAULT_COMPACTION_GARBAGE_RATIO = 0.5;
+
+        private boolean enabled = true;
+        /** Blobs up to this size are appended to pack segments instead of getting a file each. */
+        private int maxBlobSize = DEFAULT_MAX_BLOB_SIZE;
+        private long segmentSize = DEFAULT_SEGMENT_SIZE;
+        private Duration compactionInterval = Duration.ofHours(1);
+        /** Sealed segments with at least this share of deleted bytes are rewritten. */
+        private double compactionGarbageRatio = DEFAULT_COMPACTION_GARBAGE_RATIO;
+        /** Segments sealed more recently may still receive rows from uploads that have not committed yet. */
+        private Duration compactionGrace = Duration.ofHours(1);
+    }
+
+    @Data
+    public static class Async {
+        private static final int DEFAULT_POOL_SIZE = 64;
+        private static final int DEFAULT_QUEUE_CAPACITY = 256;
+
+        /**
+         * Threads that run upload and download transfers once the container thread is released. A pool
+         * only grows past its core size once the queue is full, so this is core and maximum alike;
+         * threads idle for {@code keep-alive} still go away.
+         */
+        private int poolSize = DEFAULT_POOL_SIZE;
+        /** Transfers waiting for a thread; beyond this requests are turned away with 503. */
+        private int queueCapacity = DEFAULT_QUEUE_CAPACITY;
+        private Duration keepAlive = Duration.ofMinutes(1);
+        /** Upper bound on a single transfer; the container default of 30s is far too short for large files. */
+        private Duration requestTimeout = Duration.ofHours(1);
+        /** Run each transfer on its own virtual thread instead of the pool (JDK 21+). */
+        private boolean virtualThreads;
+    }
+
+    @Data
+    public static class Usage {
+        private static final int DEFAULT_COUNTER_SHARDS = 8;
+
+        /** Stripes per owner and bucket counter; more stripes means less contention on concurrent uploads. */
+        private int counterShards = DEFAULT_COUNTER_SHARDS;
+        /** Per-owner limits; 0 means unlimited. Bucket limits are part of the bucket policy. */
+        private long ownerQuotaBytes;
+        private long ownerQuotaFiles;
+    }
+
+    @Data
+    public static class Scrub {
+        private static final int DEFAULT_CHUNK_SIZE = 500;
+        private static final int DEFAULT_IO_CONCURRENCY = 4;
+        private static final long DEFAULT_MAX_BYTES_PER_SECOND = 32L * 1024 * 1024;
+
+        private boolean enabled = true;
+        /** How often every bucket, and the blob store as a whole, is scanned. */
+        private Duration interval = Duration.ofDays(7);
+        private Duration pollInterval = Duration.ofSeconds(5);
+        /** Files verified, and checkpointed, together. */
+        private int chunkSize = DEFAULT_CHUNK_SIZE;
+        /** Blobs read at once; size it to what the disks handle without starving uploads. */
+        private int ioConcurrency = DEFAULT_IO_CONCURRENCY;
+        /** Read bandwidth shared by all scrub readers of this node; 0 means unthrottled. */
+        private long maxBytesPerSecond = DEFAULT_MAX_BYTES_PER_SECOND;
+        /** Off, only existence and size are checked and no blob is read. */
+        private boolean verifyChecksums = true;
+        /** Blobs younger than this are never reported as orphans: their upload may not have committed yet. */
+        private Duration orphanGrace = Duration.ofHours(24);
+        /** A run whose node stopped reporting progress for this long is resumed by another. */
+        private Duration leaseTimeout = Duration.ofMinutes(5);
+    }
+
+    @Data
+    public static class Lifecycle {
+        private static final int DEFAULT_CHUNK_SIZE = 500;
+        private static final int DEFAULT_WORKER_THREADS = 2;
+
+        /** How often buckets with lifecycle rules are queued for expiry. */
+        private Duration interval = Duration.ofHours(1);
+        private Duration pollInterval = Duration.ofSeconds(5);
+        /** Files deleted per transaction. */
+        private int chunkSize = DEFAULT_CHUNK_SIZE;
+        private int workerThreads = DEFAULT_WORKER_THREADS;
+        private Duration leaseTimeout = Duration.ofMinutes(5);
+        /** Finished jobs are kept this long for status queries. */
+        private Duration jobRetention = Duration.ofDays(7);
+    }
+}
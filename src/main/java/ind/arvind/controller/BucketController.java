@@ -0,0 +1,57 @@
+package ind.arvind.controller;
+
+import ind.arvind.dto.BucketJobDto;
+import ind.arvind.dto.LifecyclePolicyDto;
+import ind.arvind.security.JwtPrincipal;
+import ind.arvind.service.BucketService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.net.URI;
+
+@RestController
+@RequestMapping(value = "/api/v1/storage", produces = { MediaType.APPLICATION_JSON_VALUE })
+@RequiredArgsConstructor
+public class BucketController {
+    private static final Logger log = LoggerFactory.getLogger(BucketController.class);
+    private static final String BUCKET_JOB_PATH = "/api/v1/storage/bucket-jobs/";
+    private final BucketService bucketService;
+
+    @DeleteMapping("/buckets/{bucketName}")
+    public ResponseEntity<BucketJobDto> deleteBucket(@PathVariable String bucketName,
+                                                     @RequestAttribute(JwtPrincipal.REQUEST_ATTRIBUTE) JwtPrincipal principal) {
+        log.info("Received delete request for bucket: {}", bucketName);
+        BucketJobDto job = bucketService.deleteBucket(bucketName, principal.owner());
+        log.info("Deletion of bucket {} queued as job {}", bucketName, job.getJobId());
+        return ResponseEntity.accepted()
+                .location(URI.create(BUCKET_JOB_PATH + job.getJobId()))
+                .body(job);
+    }
+
+    @GetMapping("/bucket-jobs/{jobId}")
+    public ResponseEntity<BucketJobDto> getBucketJob(@PathVariable String jobId,
+                                                     @RequestAttribute(JwtPrincipal.REQUEST_ATTRIBUTE) JwtPrincipal principal) {
+        log.info("Received bucket job status request for job: {}", jobId);
+        return ResponseEntity.ok(bucketService.getJob(jobId, principal.owner()));
+    }
+
+    @GetMapping("/buckets/{bucketName}/lifecycle")
+    public ResponseEntity<LifecyclePolicyDto> getLifecycle(@PathVariable String bucketName,
+                                                           @RequestAttribute(JwtPrincipal.REQUEST_ATTRIBUTE) JwtPrincipal principal) {
+        log.info("Received lifecycle request for bucket: {}", bucketName);
+        return ResponseEntity.ok(bucketService.getLifecycle(bucketName, principal.owner()));
+    }
+
+    @PutMapping(value = "/buckets/{bucketName}/lifecycle", consumes = { MediaType.APPLICATION_JSON_VALUE })
+    public ResponseEntity<LifecyclePolicyDto> updateLifecycle(@PathVariable String bucketName,
+                                                              @Valid @RequestBody LifecyclePolicyDto policyDto,
+                                                              @RequestAttribute(JwtPrincipal.REQUEST_ATTRIBUTE) JwtPrincipal principal) {
+        log.info("Received lifecycle update for bucket: {}", bucketName);
+        return ResponseEntity.ok(bucketService.updateLifecycle(bucketName, policyDto, principal.owner()));
+    }
+}
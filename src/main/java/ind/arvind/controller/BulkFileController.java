@@ -0,0 +1,58 @@
+package ind.arvind.controller;
+
+import ind.arvind.audit.AuditEvent;
+import ind.arvind.dto.BulkFileIdsDto;
+import ind.arvind.dto.BulkMetadataUpdateDto;
+import ind.arvind.dto.BulkItemStatus;
+import ind.arvind.dto.BulkItemResultDto;
+import ind.arvind.dto.BulkResponseDto;
+import ind.arvind.security.JwtPrincipal;
+import ind.arvind.service.BulkFileService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping(value = "/api/v1/storage/files/bulk",
+        consumes = { MediaType.APPLICATION_JSON_VALUE },
+        produces = { MediaType.APPLICATION_JSON_VALUE })
+@RequiredArgsConstructor
+public class BulkFileController {
+    private static final Logger log = LoggerFactory.getLogger(BulkFileController.class);
+    private final BulkFileService bulkFileService;
+
+    @PostMapping("/get")
+    public ResponseEntity<BulkResponseDto> getFiles(@RequestBody @Valid BulkFileIdsDto requestDto,
+                                                    @RequestAttribute(JwtPrincipal.REQUEST_ATTRIBUTE) JwtPrincipal principal) {
+        log.info("Received bulk get request for {} files", requestDto.getFileIds().size());
+        return ResponseEntity.ok(bulkFileService.getFiles(requestDto, principal.owner()));
+    }
+
+    @PostMapping("/delete")
+    public ResponseEntity<BulkResponseDto> deleteFiles(@RequestBody @Valid BulkFileIdsDto requestDto,
+                                                       @RequestAttribute(JwtPrincipal.REQUEST_ATTRIBUTE) JwtPrincipal principal,
+                                                       HttpServletRequest request) {
+        log.info("Received bulk delete request for {} files", requestDto.getFileIds().size());
+        BulkResponseDto response = bulkFileService.deleteFiles(requestDto, principal.owner());
+        request.setAttribute(AuditEvent.DETAIL_ATTRIBUTE, "deleted=" + response.getItems().stream()
+                .filter(item -> item.getStatus() == BulkItemStatus.OK)
+                .map(BulkItemResultDto::getFileId)
+                .toList());
+        log.info("Bulk delete finished: {} deleted, {} not deleted", response.getSucceeded(), response.getFailed());
+        return ResponseEntity.ok(response);
+    }
+
+    @PostMapping("/metadata")
+    public ResponseEntity<BulkResponseDto> updateMetadata(@RequestBody @Valid BulkMetadataUpdateDto requestDto,
+                                                          @RequestAttribute(JwtPrincipal.REQUEST_ATTRIBUTE) JwtPrincipal principal) {
+        log.info("Received bulk metadata update request for {} files", requestDto.getFileIds().size());
+        BulkResponseDto response = bulkFileService.updateMetadata(requestDto, principal.owner());
+        log.info("Bulk metadata update finished: {} updated, {} not updated", response.getSucceeded(), response.getFailed());
+        return ResponseEntity.ok(response);
+    }
+}
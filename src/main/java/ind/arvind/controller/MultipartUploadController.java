@@ -0,0 +1,74 @@
+package ind.arvind.controller;
+
+import ind.arvind.dto.MultipartUploadCompleteRequestDto;
+import ind.arvind.dto.MultipartUploadDto;
+import ind.arvind.dto.MultipartUploadInitRequestDto;
+import ind.arvind.dto.StoredFileResponseDto;
+import ind.arvind.dto.UploadPartDto;
+import ind.arvind.security.JwtPrincipal;
+import ind.arvind.service.MultipartUploadService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.InputStream;
+import java.util.concurrent.Callable;
+
+@RestController
+@RequestMapping("/api/v1/storage/uploads")
+@RequiredArgsConstructor
+public class MultipartUploadController {
+    private static final Logger log = LoggerFactory.getLogger(MultipartUploadController.class);
+    private final MultipartUploadService multipartUploadService;
+
+    @PostMapping
+    public ResponseEntity<MultipartUploadDto> initiate(@RequestBody @Valid MultipartUploadInitRequestDto requestDto,
+                                                       @RequestAttribute(JwtPrincipal.REQUEST_ATTRIBUTE) JwtPrincipal principal) {
+        log.info("Received multipart upload initiation for file: {}", requestDto.getFilename());
+        String owner = principal.owner();
+        MultipartUploadDto response = multipartUploadService.initiate(requestDto, owner);
+        return ResponseEntity.status(HttpStatus.CREATED).body(response);
+    }
+
+    /** The part body is read from the client on the transfer executor, so a slow sender does not hold a container thread. */
+    @PutMapping("/{uploadId}/parts/{partNumber}")
+    public Callable<ResponseEntity<UploadPartDto>> uploadPart(@PathVariable String uploadId,
+                                                              @PathVariable int partNumber,
+                                                              @RequestAttribute(JwtPrincipal.REQUEST_ATTRIBUTE) JwtPrincipal principal,
+                                                              InputStream content) {
+        log.info("Received part {} for upload: {}", partNumber, uploadId);
+        String owner = principal.owner();
+        return () -> ResponseEntity.ok(multipartUploadService.uploadPart(uploadId, partNumber, content, owner));
+    }
+
+    @GetMapping("/{uploadId}")
+    public ResponseEntity<MultipartUploadDto> getUpload(@PathVariable String uploadId,
+                                                        @RequestAttribute(JwtPrincipal.REQUEST_ATTRIBUTE) JwtPrincipal principal) {
+        String owner = principal.owner();
+        return ResponseEntity.ok(multipartUploadService.getUpload(uploadId, owner));
+    }
+
+    @PostMapping("/{uploadId}/complete")
+    public ResponseEntity<StoredFileResponseDto> complete(@PathVariable String uploadId,
+                                                          @RequestAttribute(JwtPrincipal.REQUEST_ATTRIBUTE) JwtPrincipal principal,
+                                                          @RequestBody(required = false) MultipartUploadCompleteRequestDto requestDto) {
+        log.info("Received completion request for upload: {}", uploadId);
+        String owner = principal.owner();
+        StoredFileResponseDto response = multipartUploadService.complete(uploadId, requestDto, owner);
+        log.info("Upload {} completed as file: {} (ID: {})", uploadId, response.getFilename(), response.getId());
+        return ResponseEntity.ok(response);
+    }
+
+    @DeleteMapping("/{uploadId}")
+    public ResponseEntity<Void> abort(@PathVariable String uploadId,
+                                      @RequestAttribute(JwtPrincipal.REQUEST_ATTRIBUTE) JwtPrincipal principal) {
+        log.info("Received abort request for upload: {}", uploadId);
+        String owner = principal.owner();
+        multipartUploadService.abort(uploadId, owner);
+        return ResponseEntity.noContent().build();
+    }
+}
@@ -0,0 +1,50 @@
+package ind.arvind.controller;
+
+import ind.arvind.dto.PageResponseDto;
+import ind.arvind.dto.ScrubFindingDto;
+import ind.arvind.dto.ScrubRunDto;
+import ind.arvind.security.JwtPrincipal;
+import ind.arvind.service.ScrubService;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.net.URI;
+
+@RestController
+@RequestMapping(value = "/api/v1/storage", produces = { MediaType.APPLICATION_JSON_VALUE })
+@RequiredArgsConstructor
+public class ScrubController {
+    private static final Logger log = LoggerFactory.getLogger(ScrubController.class);
+    private static final String SCRUB_RUN_PATH = "/api/v1/storage/scrub/";
+    private final ScrubService scrubService;
+
+    @PostMapping("/buckets/{bucketName}/scrub")
+    public ResponseEntity<ScrubRunDto> startScrub(@PathVariable String bucketName,
+                                                  @RequestAttribute(JwtPrincipal.REQUEST_ATTRIBUTE) JwtPrincipal principal) {
+        log.info("Received scrub request for bucket: {}", bucketName);
+        ScrubRunDto run = scrubService.startBucketScrub(bucketName, principal.owner());
+        return ResponseEntity.accepted()
+                .location(URI.create(SCRUB_RUN_PATH + run.getRunId()))
+                .body(run);
+    }
+
+    @GetMapping("/scrub/{runId}")
+    public ResponseEntity<ScrubRunDto> getScrubRun(@PathVariable Long runId,
+                                                   @RequestAttribute(JwtPrincipal.REQUEST_ATTRIBUTE) JwtPrincipal principal) {
+        log.info("Received scrub status request for run: {}", runId);
+        return ResponseEntity.ok(scrubService.getRun(runId, principal.owner()));
+    }
+
+    @GetMapping("/scrub/{runId}/findings")
+    public ResponseEntity<PageResponseDto<ScrubFindingDto>> getScrubFindings(@PathVariable Long runId,
+                                                                             @RequestParam(required = false) String pageToken,
+                                                                             @RequestParam(defaultValue = "100") int size,
+                                                                             @RequestAttribute(JwtPrincipal.REQUEST_ATTRIBUTE) JwtPrincipal principal) {
+        log.info("Received scrub findings request for run: {}", runId);
+        return ResponseEntity.ok(scrubService.getFindings(runId, principal.owner(), pageToken, size));
+    }
+}
@@ -1,5 +1,8 @@
 package ind.arvind.controller;
 
+import ind.arvind.dto.FolderShareDto;
+import ind.arvind.dto.PageResponseDto;
+import ind.arvind.dto.ShareJobDto;
 import ind.arvind.dto.ShareRequestDto;
 import ind.arvind.service.ShareService;
 import jakarta.validation.Valid;
@@ -9,7 +12,7 @@ import org.slf4j.LoggerFactory;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
+import java.net.URI;
 
 @RestController
 @RequestMapping("/")
@@ -18,21 +21,32 @@ public class ShareController {
     private static final Logger log = LoggerFactory.getLogger(ShareController.class);
     private static final String LOG_SHARE_REQUEST = "Received share request for folderpath: {}";
     private static final String LOG_GET_EMAILS_REQUEST = "Received get shared emails request for folderpath: {}";
+    private static final String SHARE_JOB_PATH = "/share/jobs/";
     private final ShareService shareService;
 
     @PostMapping("share")
-    public ResponseEntity<Void> share(@Valid @RequestBody ShareRequestDto requestDto) {
+    public ResponseEntity<ShareJobDto> share(@Valid @RequestBody ShareRequestDto requestDto) {
         log.info(LOG_SHARE_REQUEST, requestDto.getFolderpath());
-        shareService.share(requestDto);
-        log.info("Share request processed for folderpath: {}", requestDto.getFolderpath());
-        return ResponseEntity.ok().build();
+        ShareJobDto job = shareService.share(requestDto);
+        log.info("Share request queued as job {} for folderpath: {}", job.getJobId(), requestDto.getFolderpath());
+        return ResponseEntity.accepted()
+                .location(URI.create(SHARE_JOB_PATH + job.getJobId()))
+                .body(job);
+    }
+
+    @GetMapping("share/jobs/{jobId}")
+    public ResponseEntity<ShareJobDto> getShareJob(@PathVariable String jobId) {
+        log.info("Received share job status request for job: {}", jobId);
+        return ResponseEntity.ok(shareService.getJob(jobId));
     }
 
     @GetMapping("shared-emails")
-    public ResponseEntity<List<String>> getSharedEmails(@RequestParam("folderpath") String folderpath) {
+    public ResponseEntity<PageResponseDto<FolderShareDto>> getSharedEmails(@RequestParam("folderpath") String folderpath,
+                                                                         @RequestParam(required = false) String pageToken,
+                                                                         @RequestParam(defaultValue = "100") int size) {
         log.info(LOG_GET_EMAILS_REQUEST, folderpath);
-        List<String> emails = shareService.getSharedEmails(folderpath);
-        log.info("Returning {} shared emails for folderpath: {}", emails.size(), folderpath);
+        PageResponseDto<FolderShareDto> emails = shareService.getSharedEmails(folderpath, pageToken, size);
+        log.info("Returning {} shared emails for folderpath: {}", emails.getSize(), folderpath);
         return ResponseEntity.ok(emails);
     }
 }
@@ -1,75 +1,129 @@
 package ind.arvind.controller;
 
+import ind.arvind.controller.support.DownloadResponseWriter;
+import ind.arvind.dto.ArchiveRequestDto;
+import ind.arvind.dto.BucketPolicyDto;
+import ind.arvind.dto.FileFromHashRequestDto;
 import ind.arvind.dto.FileUploadRequestDto;
 import ind.arvind.dto.FileMetadataUpdateDto;
+import ind.arvind.dto.FileSearchRequestDto;
+import ind.arvind.dto.PageResponseDto;
 import ind.arvind.dto.StoredFileResponseDto;
+import ind.arvind.security.JwtPrincipal;
 import ind.arvind.service.StorageService;
+import ind.arvind.storage.ContentVersion;
+import ind.arvind.storage.FileContent;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.WebAsyncTask;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.http.MediaType;
-import java.util.List;
+import java.io.IOException;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Callable;
 
 @RestController
 @RequestMapping("/api/v1/storage")
 @RequiredArgsConstructor
 public class StorageController {
     private static final Logger log = LoggerFactory.getLogger(StorageController.class);
-    private static final String LOG_JWT_STUB = "JWT extraction is stubbed. Replace with real implementation.";
+    private static final String ARCHIVE_DEFAULT_NAME = "files";
+    private static final CacheControl METADATA_CACHE_CONTROL = CacheControl.noCache().cachePrivate();
     private final StorageService storageService;
+    private final DownloadResponseWriter downloadResponseWriter;
 
     @PostMapping(value = "/upload",
             consumes = { MediaType.MULTIPART_FORM_DATA_VALUE },
             produces = { MediaType.APPLICATION_JSON_VALUE })
-    public ResponseEntity<StoredFileResponseDto> uploadFile(
+    public Callable<ResponseEntity<StoredFileResponseDto>> uploadFile(
             @RequestPart("file") @Valid MultipartFile file,
-            @RequestPart("bucketName") String bucketName,
+            @RequestParam("bucketName") String bucketName,
             @RequestPart(value = "metadata", required = false) Map<String, String> metadata,
-            @RequestHeader("Authorization") String authHeader) {
+            @RequestAttribute(JwtPrincipal.REQUEST_ATTRIBUTE) JwtPrincipal principal) {
         log.info("Received upload request for file: {}", file.getOriginalFilename());
-        String owner = extractOwnerFromJwt(authHeader);
+        String owner = principal.owner();
 
         FileUploadRequestDto requestDto = new FileUploadRequestDto();
         requestDto.setFile(file);
         requestDto.setBucketName(bucketName);
         requestDto.setMetadata(metadata);
 
-        StoredFileResponseDto response = storageService.uploadFile(requestDto, owner);
-        log.info("File uploaded: {} (ID: {})", response.getFilename(), response.getId());
+        // The container has already spooled the multipart body; hashing, compressing and storing it runs off its thread.
+        return () -> {
+            StoredFileResponseDto response = storageService.uploadFile(requestDto, owner);
+            log.info("File uploaded: {} (ID: {})", response.getFilename(), response.getId());
+            return ResponseEntity.ok(response);
+        };
+    }
+
+    @PostMapping(value = "/files/from-hash",
+            consumes = { MediaType.APPLICATION_JSON_VALUE },
+            produces = { MediaType.APPLICATION_JSON_VALUE })
+    public ResponseEntity<StoredFileResponseDto> createFromHash(@RequestBody @Valid FileFromHashRequestDto requestDto,
+                                                                @RequestAttribute(JwtPrincipal.REQUEST_ATTRIBUTE) JwtPrincipal principal) {
+        log.info("Received create-from-hash request for file: {}", requestDto.getFilename());
+        String owner = principal.owner();
+        StoredFileResponseDto response = storageService.createFromHash(requestDto, owner);
+        log.info("File created from existing content: {} (ID: {})", response.getFilename(), response.getId());
         return ResponseEntity.ok(response);
     }
 
     @GetMapping("/files")
-    public ResponseEntity<List<StoredFileResponseDto>> listFiles(@RequestHeader("Authorization") String authHeader,
-                                                                @RequestParam(defaultValue = "0") int page,
-                                                                @RequestParam(defaultValue = "10") int size) {
+    public ResponseEntity<PageResponseDto<StoredFileResponseDto>> listFiles(@RequestAttribute(JwtPrincipal.REQUEST_ATTRIBUTE) JwtPrincipal principal,
+                                                                           @RequestParam(required = false) String pageToken,
+                                                                           @RequestParam(defaultValue = "10") int size) {
         log.info("Received list files request for owner extracted from JWT.");
-        String owner = extractOwnerFromJwt(authHeader);
-        List<StoredFileResponseDto> files = storageService.listFiles(owner, page, size);
-        log.info("Returning {} files for owner {}", files.size(), owner);
+        String owner = principal.owner();
+        PageResponseDto<StoredFileResponseDto> files = storageService.listFiles(owner, pageToken, size);
+        log.info("Returning {} files for owner {}", files.getSize(), owner);
+        return ResponseEntity.ok(files);
+    }
+
+    @PostMapping(value = "/files/search",
+            consumes = { MediaType.APPLICATION_JSON_VALUE },
+            produces = { MediaType.APPLICATION_JSON_VALUE })
+    public ResponseEntity<PageResponseDto<StoredFileResponseDto>> searchFiles(@RequestAttribute(JwtPrincipal.REQUEST_ATTRIBUTE) JwtPrincipal principal,
+                                                                             @RequestBody @Valid FileSearchRequestDto criteria,
+                                                                             @RequestParam(required = false) String pageToken,
+                                                                             @RequestParam(defaultValue = "10") int size) {
+        log.info("Received search files request for owner extracted from JWT.");
+        String owner = principal.owner();
+        PageResponseDto<StoredFileResponseDto> files = storageService.searchFiles(owner, criteria, pageToken, size);
+        log.info("Returning {} matching files for owner {}", files.getSize(), owner);
         return ResponseEntity.ok(files);
     }
 
     @GetMapping("/files/{fileId}")
     public ResponseEntity<StoredFileResponseDto> getFile(@PathVariable Long fileId,
-                                                         @RequestHeader("Authorization") String authHeader) {
+                                                         @RequestAttribute(JwtPrincipal.REQUEST_ATTRIBUTE) JwtPrincipal principal) {
         log.info("Received get file request for fileId: {}", fileId);
-        String owner = extractOwnerFromJwt(authHeader);
+        String owner = principal.owner();
         StoredFileResponseDto response = storageService.getFile(fileId, owner);
         log.info("Returning file: {} (ID: {})", response.getFilename(), response.getId());
-        return ResponseEntity.ok(response);
+        // With validators set, Spring answers a matching If-None-Match/If-Modified-Since with 304 and skips the body.
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok().cacheControl(METADATA_CACHE_CONTROL);
+        Optional.ofNullable(response.getUpdatedAt()).ifPresent(updatedAt -> builder
+                .eTag("W/\"" + response.getId() + "-" + updatedAt.toEpochMilli() + "\"")
+                .lastModified(updatedAt));
+        return builder.body(response);
     }
 
     @DeleteMapping("/files/{fileId}")
     public ResponseEntity<Void> deleteFile(@PathVariable Long fileId,
-                                           @RequestHeader("Authorization") String authHeader) {
+                                           @RequestAttribute(JwtPrincipal.REQUEST_ATTRIBUTE) JwtPrincipal principal) {
         log.info("Received delete file request for fileId: {}", fileId);
-        String owner = extractOwnerFromJwt(authHeader);
+        String owner = principal.owner();
         storageService.deleteFile(fileId, owner);
         log.info("File deleted: {}", fileId);
         return ResponseEntity.noContent().build();
@@ -77,31 +131,84 @@ public class StorageController {
 
     @PutMapping("/files/{fileId}/metadata")
     public ResponseEntity<StoredFileResponseDto> updateMetadata(@PathVariable Long fileId,
-                                                                @RequestHeader("Authorization") String authHeader,
+                                                                @RequestAttribute(JwtPrincipal.REQUEST_ATTRIBUTE) JwtPrincipal principal,
                                                                 @RequestBody @Valid FileMetadataUpdateDto metadataDto) {
         log.info("Received update metadata request for fileId: {}", fileId);
-        String owner = extractOwnerFromJwt(authHeader);
+        String owner = principal.owner();
         StoredFileResponseDto response = storageService.updateMetadata(fileId, metadataDto, owner);
         log.info("Metadata updated for file: {} (ID: {})", response.getFilename(), response.getId());
         return ResponseEntity.ok(response);
     }
 
+    @PutMapping("/buckets/{bucketName}/policy")
+    public ResponseEntity<BucketPolicyDto> updateBucketPolicy(@PathVariable String bucketName,
+                                                              @RequestAttribute(JwtPrincipal.REQUEST_ATTRIBUTE) JwtPrincipal principal,
+                                                              @RequestBody @Valid BucketPolicyDto policyDto) {
+        log.info("Received update policy request for bucket: {}", bucketName);
+        String owner = principal.owner();
+        BucketPolicyDto response = storageService.updateBucketPolicy(bucketName, policyDto, owner);
+        log.info("Policy updated for bucket: {}", bucketName);
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Revalidations are answered from the cached file view without opening the blob. Responses the
+     * container can sendfile complete on this thread; any other body is copied on the transfer executor.
+     */
     @GetMapping("/files/{fileId}/download")
-    public ResponseEntity<?> downloadFile(@PathVariable Long fileId,
-                                          @RequestHeader("Authorization") String authHeader) {
-        String owner = extractOwnerFromJwt(authHeader);
-        StoredFileResponseDto fileDto = storageService.getFile(fileId, owner);
-        byte[] fileContent = storageService.getFileContent(fileId, owner);
-        return ResponseEntity.ok()
-                .header("Content-Disposition", "attachment; filename=\"" + fileDto.getFilename() + "\"")
-                .contentType(MediaType.parseMediaType(fileDto.getContentType()))
-                .body(fileContent);
+    public WebAsyncTask<Void> downloadFile(@PathVariable Long fileId,
+                                           @RequestAttribute(JwtPrincipal.REQUEST_ATTRIBUTE) JwtPrincipal principal,
+                                           HttpServletRequest request,
+                                           HttpServletResponse response) throws IOException {
+        String owner = principal.owner();
+        ContentVersion version = storageService.describeContent(fileId, owner);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, version.cacheControl());
+        if (downloadResponseWriter.notModified(version, request, response)) {
+            log.debug("File {} not modified", fileId);
+            return null;
+        }
+        FileContent content = storageService.openContent(fileId, owner);
+        Optional<DownloadResponseWriter.Body> body;
+        try {
+            body = downloadResponseWriter.prepare(content, request, response);
+        } catch (IOException | RuntimeException e) {
+            content.close();
+            throw e;
+        }
+        if (body.isEmpty()) {
+            content.close();
+            return null;
+        }
+        WebAsyncTask<Void> transfer = new WebAsyncTask<>(() -> {
+            try (content) {
+                body.get().write();
+            }
+            return null;
+        });
+        // Also covers a transfer that never ran because the executor turned it away or it timed out.
+        transfer.onCompletion(() -> closeQuietly(content));
+        return transfer;
+    }
+
+    @PostMapping(value = "/archive", consumes = { MediaType.APPLICATION_JSON_VALUE })
+    public StreamingResponseBody downloadArchive(@RequestBody @Valid ArchiveRequestDto requestDto,
+                                                 @RequestAttribute(JwtPrincipal.REQUEST_ATTRIBUTE) JwtPrincipal principal,
+                                                 HttpServletResponse response) {
+        log.info("Received {} archive request", requestDto.getFormat());
+        String owner = principal.owner();
+        String archiveName = Optional.ofNullable(requestDto.getFilter())
+                .map(FileSearchRequestDto::getBucketName)
+                .orElse(ARCHIVE_DEFAULT_NAME) + "." + requestDto.getFormat().getExtension();
+        response.setContentType(requestDto.getFormat().getContentType());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(archiveName).build().toString());
+        return out -> storageService.streamArchive(requestDto, owner, out);
     }
 
-    // Stub for extracting owner from JWT
-    private String extractOwnerFromJwt(String authHeader) {
-        log.warn(LOG_JWT_STUB);
-        // TODO: Implement JWT parsing and validation
-        return "system";
+    private static void closeQuietly(FileContent content) {
+        try {
+            content.close();
+        } catch (IOException e) {
+            log.warn("Unable to close content of file {}", content.file().getId(), e);
+        }
     }
 }
@@ -0,0 +1,32 @@
+package ind.arvind.controller;
+
+import ind.arvind.dto.UsageDto;
+import ind.arvind.security.JwtPrincipal;
+import ind.arvind.service.UsageService;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping(value = "/api/v1/storage", produces = { MediaType.APPLICATION_JSON_VALUE })
+@RequiredArgsConstructor
+public class UsageController {
+    private static final Logger log = LoggerFactory.getLogger(UsageController.class);
+    private final UsageService usageService;
+
+    @GetMapping("/usage")
+    public ResponseEntity<UsageDto> getUsage(@RequestAttribute(JwtPrincipal.REQUEST_ATTRIBUTE) JwtPrincipal principal) {
+        log.info("Received usage request");
+        return ResponseEntity.ok(usageService.getOwnerUsage(principal.owner()));
+    }
+
+    @GetMapping("/buckets/{bucketName}/usage")
+    public ResponseEntity<UsageDto> getBucketUsage(@PathVariable String bucketName,
+                                                   @RequestAttribute(JwtPrincipal.REQUEST_ATTRIBUTE) JwtPrincipal principal) {
+        log.info("Received usage request for bucket: {}", bucketName);
+        return ResponseEntity.ok(usageService.getBucketUsage(bucketName, principal.owner()));
+    }
+}
@@ -0,0 +1,315 @@
+package ind.arvind.controller.support;
+
+import ind.arvind.metrics.StorageMetrics;
+import ind.arvind.storage.ContentVersion;
+import ind.arvind.storage.FileContent;
+import ind.arvind.storage.FileRegion;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeTypeUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+
+/**
+ * Writes stored file content to the servlet response, honouring {@code Range} and
+ * {@code If-Range}. Whole-file and single-range responses are handed to the container's
+ * sendfile support when available; everything else is copied channel to channel. Compressed
+ * blobs go out untouched with {@code Content-Encoding} when the client accepts it and asked for
+ * the whole file, and are inflated on the fly otherwise.
+ *
+ * <p>{@link #notModified} answers {@code If-None-Match} and {@code If-Modified-Since} from the
+ * stored hash and creation time alone, so a revalidation never opens the blob.
+ *
+ * <p>{@link #prepare} sets status and headers on the calling thread and hands back whatever copying
+ * is left, so the controller can run it off the container thread.
+ */
+@Component
+@RequiredArgsConstructor
+public class DownloadResponseWriter {
+    private static final Logger log = LoggerFactory.getLogger(DownloadResponseWriter.class);
+    private static final String SENDFILE_SUPPORTED = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+    private static final String BYTES = "bytes";
+    private static final String CRLF = "\r\n";
+    private static final String QUALITY_ZERO = ";q=0";
+    private static final String WEAK_PREFIX = "W/";
+    private static final String ANY_ETAG = "*";
+    private final StorageMetrics storageMetrics;
+
+    public void write(FileContent stored, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        final Optional<Body> body = prepare(stored, request, response);
+        if (body.isPresent()) {
+            body.get().write();
+        }
+    }
+
+    /**
+     * Writes a {@code 304} with the validators of the representation the client would get, and
+     * returns true, when the client's copy is current. {@code If-None-Match} takes precedence over
+     * {@code If-Modified-Since} and is compared weakly, so the identity and encoded ETags both match.
+     */
+    public boolean notModified(ContentVersion version, HttpServletRequest request, HttpServletResponse response) {
+        final Enumeration<String> ifNoneMatch = request.getHeaders(HttpHeaders.IF_NONE_MATCH);
+        final boolean current = ifNoneMatch != null && ifNoneMatch.hasMoreElements()
+                ? etagMatches(ifNoneMatch, version)
+                : unmodifiedSince(version, request);
+        if (!current) {
+            return false;
+        }
+        String etag = version.checksum();
+        if (version.isEncoded()) {
+            response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+            if (request.getHeader(HttpHeaders.RANGE) == null && accepts(request, version.encoding().getToken())) {
+                etag = etag + "-" + version.encoding().getToken();
+            }
+        }
+        response.setHeader(HttpHeaders.ETAG, strongEtag(etag));
+        Optional.ofNullable(version.lastModified())
+                .ifPresent(lastModified -> response.setDateHeader(HttpHeaders.LAST_MODIFIED, lastModified.toEpochMilli()));
+        response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+        return true;
+    }
+
+    private static boolean etagMatches(Enumeration<String> headers, ContentVersion version) {
+        if (version.checksum() == null) {
+            return false;
+        }
+        final String identity = strongEtag(version.checksum());
+        final String encoded = version.isEncoded()
+                ? strongEtag(version.checksum() + "-" + version.encoding().getToken())
+                : identity;
+        while (headers.hasMoreElements()) {
+            for (String candidate : headers.nextElement().split(",")) {
+                String tag = candidate.trim();
+                tag = tag.startsWith(WEAK_PREFIX) ? tag.substring(WEAK_PREFIX.length()) : tag;
+                if (tag.equals(ANY_ETAG) || tag.equals(identity) || tag.equals(encoded)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static boolean unmodifiedSince(ContentVersion version, HttpServletRequest request) {
+        if (version.lastModified() == null) {
+            return false;
+        }
+        try {
+            final long since = request.getDateHeader(HttpHeaders.IF_MODIFIED_SINCE);
+            return since >= 0 && version.lastModified().getEpochSecond() <= since / 1000;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Writes status and headers. Returns the body still to be copied, or empty when nothing is left
+     * to write on this request: an error status or a body the container sends by itself.
+     */
+    public Optional<Body> prepare(FileContent stored, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        if (stored.isEncoded()) {
+            response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+            if (request.getHeader(HttpHeaders.RANGE) == null && accepts(request, stored.encoding().getToken())) {
+                return writeEncoded(stored, request, response);
+            }
+        }
+        final FileContent content = stored.decoded();
+        final long length = content.length();
+        writeValidators(content, response);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, BYTES);
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, contentDisposition(content.file().getFilename()));
+
+        final List<HttpRange> ranges;
+        try {
+            ranges = requestedRanges(content, request);
+            validate(ranges, length);
+        } catch (IllegalArgumentException e) {
+            log.warn("Unsatisfiable range for file {}: {}", content.file().getId(), e.getMessage());
+            response.setHeader(HttpHeaders.CONTENT_RANGE, BYTES + " */" + length);
+            response.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+            return Optional.empty();
+        }
+
+        if (ranges.isEmpty()) {
+            response.setStatus(HttpServletResponse.SC_OK);
+            response.setContentType(content.file().getContentType());
+            response.setContentLengthLong(length);
+            return send(content, 0, length, request, response);
+        } else if (ranges.size() == 1) {
+            final long start = ranges.get(0).getRangeStart(length);
+            final long end = ranges.get(0).getRangeEnd(length);
+            response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+            response.setContentType(content.file().getContentType());
+            response.setHeader(HttpHeaders.CONTENT_RANGE, contentRange(start, end, length));
+            response.setContentLengthLong(end - start + 1);
+            return send(content, start, end - start + 1, request, response);
+        }
+        final String boundary = new String(MimeTypeUtils.generateMultipartBoundary(), StandardCharsets.US_ASCII);
+        response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+        response.setContentType("multipart/byteranges; boundary=" + boundary);
+        return Optional.of(() -> writeMultipart(content, ranges, boundary, response));
+    }
+
+    /** Whole stored representation; its ETag differs from the identity one as the bytes differ. */
+    private Optional<Body> writeEncoded(FileContent content, HttpServletRequest request, HttpServletResponse response) {
+        final String token = content.encoding().getToken();
+        Optional.ofNullable(content.checksum())
+                .ifPresent(checksum -> response.setHeader(HttpHeaders.ETAG, strongEtag(checksum + "-" + token)));
+        Optional.ofNullable(content.lastModified())
+                .ifPresent(lastModified -> response.setDateHeader(HttpHeaders.LAST_MODIFIED, lastModified.toEpochMilli()));
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, contentDisposition(content.file().getFilename()));
+        response.setHeader(HttpHeaders.CONTENT_ENCODING, token);
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setContentType(content.file().getContentType());
+        response.setContentLengthLong(content.length());
+        return send(content, 0, content.length(), request, response);
+    }
+
+    private static boolean accepts(HttpServletRequest request, String token) {
+        final Enumeration<String> headers = request.getHeaders(HttpHeaders.ACCEPT_ENCODING);
+        while (headers != null && headers.hasMoreElements()) {
+            for (String coding : headers.nextElement().split(",")) {
+                final String normalized = coding.replace(" ", "").toLowerCase(Locale.ROOT);
+                if ((normalized.equals(token) || normalized.startsWith(token + ";"))
+                        && !normalized.matches(".*" + QUALITY_ZERO + "(\\.0*)?$")) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private void writeValidators(FileContent content, HttpServletResponse response) {
+        Optional.ofNullable(content.checksum())
+                .ifPresent(checksum -> response.setHeader(HttpHeaders.ETAG, strongEtag(checksum)));
+        Optional.ofNullable(content.lastModified())
+                .ifPresent(lastModified -> response.setDateHeader(HttpHeaders.LAST_MODIFIED, lastModified.toEpochMilli()));
+    }
+
+    private List<HttpRange> requestedRanges(FileContent content, HttpServletRequest request) {
+        final String range = request.getHeader(HttpHeaders.RANGE);
+        if (range == null || !ifRangeMatches(content, request)) {
+            return List.of();
+        }
+        return HttpRange.parseRanges(range);
+    }
+
+    private boolean ifRangeMatches(FileContent content, HttpServletRequest request) {
+        final String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange == null) {
+            return true;
+        }
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            return content.checksum() != null && ifRange.equals(strongEtag(content.checksum()));
+        }
+        try {
+            final long since = request.getDateHeader(HttpHeaders.IF_RANGE);
+            return content.lastModified() != null && content.lastModified().getEpochSecond() == since / 1000;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    private static void validate(List<HttpRange> ranges, long length) {
+        long total = 0;
+        for (HttpRange range : ranges) {
+            final long start = range.getRangeStart(length);
+            final long end = range.getRangeEnd(length);
+            if (start >= length || start > end) {
+                throw new IllegalArgumentException("Range starts beyond end of file");
+            }
+            total += end - start + 1;
+        }
+        if (ranges.size() > 1 && total > length) {
+            throw new IllegalArgumentException("Total length of requested ranges exceeds file length");
+        }
+    }
+
+    private Optional<Body> send(FileContent content, long position, long count, HttpServletRequest request,
+                                HttpServletResponse response) {
+        final Optional<FileRegion> region = content.reader().fileRegion();
+        if (region.isPresent() && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORTED))) {
+            final long start = region.get().offset() + position;
+            request.setAttribute(SENDFILE_FILENAME, region.get().path().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, start + count);
+            recordBytesOut(content, count);
+            return Optional.empty();
+        }
+        return Optional.of(() -> {
+            try (StorageMetrics.Transfer ignored = storageMetrics.startDownload()) {
+                final OutputStream out = response.getOutputStream();
+                content.reader().transferTo(position, count, Channels.newChannel(out));
+                out.flush();
+            }
+            recordBytesOut(content, count);
+        });
+    }
+
+    private void writeMultipart(FileContent content, List<HttpRange> ranges, String boundary,
+                                HttpServletResponse response) throws IOException {
+        final long length = content.length();
+        final OutputStream out = response.getOutputStream();
+        final WritableByteChannel channel = Channels.newChannel(out);
+        try (StorageMetrics.Transfer ignored = storageMetrics.startDownload()) {
+            for (HttpRange range : ranges) {
+                final long start = range.getRangeStart(length);
+                final long end = range.getRangeEnd(length);
+                final String partHeader = CRLF + "--" + boundary + CRLF
+                        + HttpHeaders.CONTENT_TYPE + ": " + content.file().getContentType() + CRLF
+                        + HttpHeaders.CONTENT_RANGE + ": " + contentRange(start, end, length) + CRLF + CRLF;
+                out.write(partHeader.getBytes(StandardCharsets.US_ASCII));
+                content.reader().transferTo(start, end - start + 1, channel);
+                recordBytesOut(content, end - start + 1);
+            }
+            out.write((CRLF + "--" + boundary + "--" + CRLF).getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+        }
+    }
+
+    private void recordBytesOut(FileContent content, long bytes) {
+        storageMetrics.recordBytesOut(content.file().getBucketName(), content.file().getOwner(), bytes);
+    }
+
+    private static String contentDisposition(String filename) {
+        final ContentDisposition.Builder builder = ContentDisposition.attachment();
+        if (filename != null && StandardCharsets.US_ASCII.newEncoder().canEncode(filename)) {
+            builder.filename(filename);
+        } else if (filename != null) {
+            builder.filename(filename, StandardCharsets.UTF_8);
+        }
+        return builder.build().toString();
+    }
+
+    private static String contentRange(long start, long end, long length) {
+        return BYTES + " " + start + "-" + end + "/" + length;
+    }
+
+    public static String strongEtag(String checksum) {
+        return "\"" + checksum + "\"";
+    }
+
+    /** Response bytes still to be copied after {@link #prepare}. */
+    @FunctionalInterface
+    public interface Body {
+        void write() throws IOException;
+    }
+}
@@ -0,0 +1,25 @@
+package ind.arvind.controller.support;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+/** A full transfer queue is a transient overload, so clients are told to retry rather than shown a server error. */
+@RestControllerAdvice
+public class TransferRejectedHandler {
+    private static final Logger log = LoggerFactory.getLogger(TransferRejectedHandler.class);
+    private static final String RETRY_AFTER_SECONDS = "1";
+
+    @ExceptionHandler(TaskRejectedException.class)
+    public ResponseEntity<Void> transferRejected(TaskRejectedException e) {
+        log.warn("Transfer executor saturated, rejecting request: {}", e.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS)
+                .build();
+    }
+}
@@ -0,0 +1,15 @@
+package ind.arvind.dto;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+@Getter
+@RequiredArgsConstructor
+public enum ArchiveFormat {
+    ZIP("application/zip", "zip"),
+    /** Plain ustar with PAX records for long names and sizes; entries are never compressed. */
+    TAR("application/x-tar", "tar");
+
+    private final String contentType;
+    private final String extension;
+}
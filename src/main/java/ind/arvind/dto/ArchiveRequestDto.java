@@ -0,0 +1,22 @@
+package ind.arvind.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+import java.util.List;
+
+/** Selects files either by id or by search filter (a filter with only {@code bucketName} archives the whole bucket). */
+@Data
+public class ArchiveRequestDto {
+    public static final int MAX_FILE_IDS = 1000;
+
+    @NotNull(message = "format must not be null")
+    private ArchiveFormat format = ArchiveFormat.ZIP;
+
+    @Size(max = MAX_FILE_IDS, message = "too many fileIds")
+    private List<Long> fileIds;
+
+    @Valid
+    private FileSearchRequestDto filter;
+}
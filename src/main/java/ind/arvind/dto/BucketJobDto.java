@@ -0,0 +1,19 @@
+package ind.arvind.dto;
+
+import lombok.Data;
+import java.time.Instant;
+
+@Data
+public class BucketJobDto {
+    private String jobId;
+    private String bucketName;
+    private String type;
+    private String status;
+    private Long totalFiles;
+    private long filesDeleted;
+    private long bytesDeleted;
+    private String lastError;
+    private Instant createdAt;
+    private Instant updatedAt;
+    private Instant finishedAt;
+}
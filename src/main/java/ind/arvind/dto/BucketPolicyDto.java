@@ -0,0 +1,26 @@
+package ind.arvind.dto;
+
+import ind.arvind.entity.ContentEncoding;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+@Data
+public class BucketPolicyDto {
+    @NotNull(message = "compression must not be null")
+    private ContentEncoding compression;
+
+    /** {@code null} means unlimited. */
+    @Positive(message = "quotaBytes must be positive")
+    private Long quotaBytes;
+
+    @Positive(message = "quotaFiles must be positive")
+    private Long quotaFiles;
+
+    /** {@code Cache-Control} sent with downloads, e.g. {@code private, max-age=3600}; {@code null} means the default. */
+    @Size(max = 255, message = "cacheControl must be at most 255 characters")
+    @Pattern(regexp = "[\\x20-\\x7e]*", message = "cacheControl must be printable ASCII")
+    private String cacheControl;
+}
@@ -0,0 +1,16 @@
+package ind.arvind.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+import java.util.List;
+
+@Data
+public class BulkFileIdsDto {
+    public static final int MAX_FILE_IDS = 1000;
+
+    @NotEmpty(message = "fileIds must not be empty")
+    @Size(max = MAX_FILE_IDS, message = "too many fileIds")
+    private List<@NotNull Long> fileIds;
+}
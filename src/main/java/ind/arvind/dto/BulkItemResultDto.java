@@ -0,0 +1,15 @@
+package ind.arvind.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkItemResultDto {
+    private Long fileId;
+    private BulkItemStatus status;
+    /** Only set by bulk get. */
+    private StoredFileResponseDto file;
+}
@@ -0,0 +1,9 @@
+package ind.arvind.dto;
+
+public enum BulkItemStatus {
+    OK,
+    /** The id does not exist or belongs to another owner; the two are deliberately not told apart. */
+    NOT_FOUND,
+    /** The chunk holding the item was rolled back; retrying the item may succeed. */
+    FAILED
+}
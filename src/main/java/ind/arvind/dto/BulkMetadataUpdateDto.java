@@ -0,0 +1,21 @@
+package ind.arvind.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+import java.util.List;
+import java.util.Map;
+
+/** Applies the same metadata to every listed file. */
+@Data
+public class BulkMetadataUpdateDto {
+    @NotEmpty(message = "fileIds must not be empty")
+    @Size(max = BulkFileIdsDto.MAX_FILE_IDS, message = "too many fileIds")
+    private List<@NotNull Long> fileIds;
+
+    @NotNull
+    private Map<String, String> metadata;
+
+    private MetadataUpdateMode mode = MetadataUpdateMode.REPLACE;
+}
@@ -0,0 +1,12 @@
+package ind.arvind.dto;
+
+import lombok.Data;
+import java.util.List;
+
+/** Per-item outcome of a bulk request, in the order the ids were given (duplicates collapsed). */
+@Data
+public class BulkResponseDto {
+    private List<BulkItemResultDto> items;
+    private int succeeded;
+    private int failed;
+}
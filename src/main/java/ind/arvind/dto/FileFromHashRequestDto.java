@@ -0,0 +1,23 @@
+package ind.arvind.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Pattern;
+import lombok.Data;
+import java.util.Map;
+
+@Data
+public class FileFromHashRequestDto {
+    @NotBlank
+    private String bucketName;
+
+    @NotBlank
+    private String filename;
+
+    private String contentType;
+
+    @NotBlank
+    @Pattern(regexp = "^[0-9a-f]{64}(-[0-9]+)?$", message = "sha256 must be a lowercase hex SHA-256 digest")
+    private String sha256;
+
+    private Map<String, String> metadata;
+}
@@ -8,4 +8,6 @@ import java.util.Map;
 public class FileMetadataUpdateDto {
     @NotNull
     private Map<String, String> metadata;
+
+    private MetadataUpdateMode mode = MetadataUpdateMode.REPLACE;
 }
@@ -0,0 +1,21 @@
+package ind.arvind.dto;
+
+import jakarta.validation.Valid;
+import lombok.Data;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class FileSearchRequestDto {
+    private String bucketName;
+
+    private String contentType;
+
+    private Instant createdFrom;
+
+    private Instant createdTo;
+
+    @Valid
+    private List<MetadataPredicateDto> metadata = new ArrayList<>();
+}
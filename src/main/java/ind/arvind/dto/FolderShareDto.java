@@ -0,0 +1,12 @@
+package ind.arvind.dto;
+
+import lombok.Data;
+import java.time.Instant;
+
+@Data
+public class FolderShareDto {
+    private String email;
+    private String permission;
+    private Instant createdAt;
+    private Instant expiresAt;
+}
@@ -0,0 +1,15 @@
+package ind.arvind.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+import java.util.List;
+
+@Data
+public class LifecyclePolicyDto {
+    /** Replaces the bucket's rules; an empty list removes them. */
+    @NotNull(message = "rules must not be null")
+    @Size(max = 100, message = "At most 100 rules per bucket")
+    private List<@Valid LifecycleRuleDto> rules;
+}
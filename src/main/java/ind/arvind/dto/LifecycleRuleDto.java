@@ -0,0 +1,24 @@
+package ind.arvind.dto;
+
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.PositiveOrZero;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+@Data
+public class LifecycleRuleDto {
+    /** Only files whose name starts with this expire; {@code null} matches every name. */
+    @Size(max = 255, message = "prefix must be at most 255 characters")
+    private String prefix;
+
+    /** Only files carrying this metadata key, and value when given, expire. */
+    @Size(max = 255, message = "metadataKey must be at most 255 characters")
+    private String metadataKey;
+
+    @Size(max = 255, message = "metadataValue must be at most 255 characters")
+    private String metadataValue;
+
+    @NotNull(message = "expireAfterDays must not be null")
+    @PositiveOrZero(message = "expireAfterDays must not be negative")
+    private Integer expireAfterDays;
+}
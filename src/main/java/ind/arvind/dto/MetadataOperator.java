@@ -0,0 +1,8 @@
+package ind.arvind.dto;
+
+public enum MetadataOperator {
+    EQ,
+    PREFIX,
+    /** Lexicographic range on the value: {@code from} inclusive, {@code to} exclusive, either bound optional. */
+    RANGE
+}
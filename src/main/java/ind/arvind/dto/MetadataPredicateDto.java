@@ -0,0 +1,20 @@
+package ind.arvind.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+@Data
+public class MetadataPredicateDto {
+    @NotBlank
+    private String key;
+
+    @NotNull
+    private MetadataOperator op;
+
+    private String value;
+
+    private String from;
+
+    private String to;
+}
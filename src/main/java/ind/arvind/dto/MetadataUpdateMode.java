@@ -0,0 +1,8 @@
+package ind.arvind.dto;
+
+public enum MetadataUpdateMode {
+    /** Drop every existing key with one bulk delete and batch-insert the new set. */
+    REPLACE,
+    /** Same end state as {@link #REPLACE}, but only removed, changed and added keys are written. */
+    DIFF
+}
@@ -0,0 +1,13 @@
+package ind.arvind.dto;
+
+import lombok.Data;
+import java.util.List;
+import java.util.Map;
+
+@Data
+public class MultipartUploadCompleteRequestDto {
+    private Map<String, String> metadata;
+
+    /** Optional client view of the parts; when present it must match what the server received. */
+    private List<UploadPartDto> parts;
+}
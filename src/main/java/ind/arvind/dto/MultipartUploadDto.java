@@ -0,0 +1,16 @@
+package ind.arvind.dto;
+
+import lombok.Data;
+import java.time.Instant;
+import java.util.List;
+
+@Data
+public class MultipartUploadDto {
+    private String uploadId;
+    private String bucketName;
+    private String filename;
+    private String contentType;
+    private Instant createdAt;
+    private Instant expiresAt;
+    private List<UploadPartDto> parts;
+}
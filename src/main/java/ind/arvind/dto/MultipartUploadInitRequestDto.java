@@ -0,0 +1,15 @@
+package ind.arvind.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import lombok.Data;
+
+@Data
+public class MultipartUploadInitRequestDto {
+    @NotBlank
+    private String bucketName;
+
+    @NotBlank
+    private String filename;
+
+    private String contentType;
+}
@@ -0,0 +1,11 @@
+package ind.arvind.dto;
+
+import lombok.Data;
+import java.util.List;
+
+@Data
+public class PageResponseDto<T> {
+    private List<T> items;
+    private int size;
+    private String nextPageToken;
+}
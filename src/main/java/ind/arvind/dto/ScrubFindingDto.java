@@ -0,0 +1,13 @@
+package ind.arvind.dto;
+
+import lombok.Data;
+import java.time.Instant;
+
+@Data
+public class ScrubFindingDto {
+    private String kind;
+    private Long fileId;
+    private String storagePath;
+    private String detail;
+    private Instant detectedAt;
+}
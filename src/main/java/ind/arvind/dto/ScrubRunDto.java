@@ -0,0 +1,18 @@
+package ind.arvind.dto;
+
+import lombok.Data;
+import java.time.Instant;
+
+@Data
+public class ScrubRunDto {
+    private Long runId;
+    private String bucketName;
+    private String status;
+    private long filesChecked;
+    private long bytesChecked;
+    private long findingCount;
+    private String lastError;
+    private Instant createdAt;
+    private Instant updatedAt;
+    private Instant finishedAt;
+}
@@ -0,0 +1,18 @@
+package ind.arvind.dto;
+
+import lombok.Data;
+import java.time.Instant;
+
+@Data
+public class ShareJobDto {
+    private String jobId;
+    private String folderpath;
+    private String status;
+    private int totalRecipients;
+    private int processedRecipients;
+    private int notifiedRecipients;
+    private int attempts;
+    private String lastError;
+    private Instant createdAt;
+    private Instant updatedAt;
+}
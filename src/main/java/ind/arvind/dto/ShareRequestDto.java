@@ -1,11 +1,16 @@
 package ind.arvind.dto;
 
+import ind.arvind.entity.FolderShare;
+import ind.arvind.entity.SharePermission;
+import jakarta.validation.constraints.Future;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Size;
 import lombok.Data;
 
+import java.time.Instant;
 import java.util.List;
 
 @Data
@@ -13,10 +18,16 @@ public class ShareRequestDto {
     @NotNull(message = "folderpath must not be null")
     @NotBlank(message = "folderpath must not be blank")
     @Pattern(regexp = "^(https?|ftp)://[^\s/$.?#].[^\s]*$", message = "folderpath must be a valid URL")
+    @Size(max = FolderShare.MAX_FOLDER_PATH_LENGTH, message = "folderpath is too long")
     private String folderpath;
 
     @NotNull(message = "emails must not be null")
     @NotEmpty(message = "emails must not be empty")
     private List<@NotBlank(message = "email must not be blank") String> emails;
+
+    private SharePermission permission = SharePermission.READ;
+
+    @Future(message = "expiresAt must be in the future")
+    private Instant expiresAt;
 }
 
@@ -0,0 +1,12 @@
+package ind.arvind.dto;
+
+import lombok.Data;
+import java.time.Instant;
+
+@Data
+public class UploadPartDto {
+    private Integer partNumber;
+    private Long size;
+    private String sha256;
+    private Instant uploadedAt;
+}
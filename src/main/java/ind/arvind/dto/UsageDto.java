@@ -0,0 +1,21 @@
+package ind.arvind.dto;
+
+import ind.arvind.entity.UsageScope;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/** Current usage of an owner or bucket; sizes are logical (decoded) bytes. */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UsageDto {
+    private UsageScope scope;
+    /** Owner or bucket name. */
+    private String name;
+    private long fileCount;
+    private long byteCount;
+    /** {@code null} when unlimited. */
+    private Long quotaFiles;
+    private Long quotaBytes;
+}
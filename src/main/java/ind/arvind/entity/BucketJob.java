@@ -0,0 +1,71 @@
+package ind.arvind.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import java.time.Instant;
+
+/**
+ * A background delete over a bucket's files. Files are removed in chunks, each committed with the
+ * job's counters, so a job picked up again after a crash simply carries on with what is left.
+ */
+@Entity
+@Table(name = "bucket_job", indexes = {
+        @Index(name = "idx_bucket_job_status", columnList = "job_status, id"),
+        @Index(name = "idx_bucket_job_bucket", columnList = "bucket_id, job_type, job_status")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BucketJob {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "job_id", nullable = false, unique = true, length = 36)
+    private String jobId;
+
+    @Column(name = "bucket_id", nullable = false)
+    private Long bucketId;
+
+    /** Kept on the job so it can still be reported once the bucket is gone. */
+    @Column(name = "bucket_name", nullable = false)
+    private String bucketName;
+
+    @Column(name = "owner", nullable = false)
+    private String owner;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "job_type", nullable = false, length = 16)
+    private BucketJobType type;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "job_status", nullable = false, length = 16)
+    private BucketJobStatus status;
+
+    /** Files in the bucket when a deletion was requested; unknown for expiry. */
+    @Column(name = "total_files")
+    private Long totalFiles;
+
+    @Column(name = "files_deleted", nullable = false)
+    private long filesDeleted;
+
+    @Column(name = "bytes_deleted", nullable = false)
+    private long bytesDeleted;
+
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    @Column(name = "updated_at", nullable = false)
+    private Instant updatedAt;
+
+    @Column(name = "claimed_at")
+    private Instant claimedAt;
+
+    @Column(name = "finished_at")
+    private Instant finishedAt;
+}
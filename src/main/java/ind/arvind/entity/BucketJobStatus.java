@@ -0,0 +1,8 @@
+package ind.arvind.entity;
+
+public enum BucketJobStatus {
+    PENDING,
+    RUNNING,
+    COMPLETED,
+    FAILED
+}
@@ -0,0 +1,8 @@
+package ind.arvind.entity;
+
+public enum BucketJobType {
+    /** Empties the bucket, then removes it. */
+    DELETE_BUCKET,
+    /** Deletes the files matched by the bucket's lifecycle rules. */
+    EXPIRE
+}
@@ -0,0 +1,46 @@
+package ind.arvind.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import java.time.Instant;
+
+@Entity
+@Table(name = "content_blob", indexes = {
+        @Index(name = "idx_content_blob_storage_path", columnList = "storage_path")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ContentBlob {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "checksum_sha256", nullable = false, unique = true, length = 80)
+    private String checksum;
+
+    @Column(name = "storage_path", nullable = false)
+    private String storagePath;
+
+    @Column(name = "blob_size", nullable = false)
+    private Long size;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "content_encoding", length = 16)
+    private ContentEncoding contentEncoding;
+
+    @Column(name = "stored_size")
+    private Long storedSize;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "storage_tier", length = 16)
+    private StorageTier tier;
+
+    @Column(name = "ref_count", nullable = false)
+    private Long refCount;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+}
@@ -0,0 +1,14 @@
+package ind.arvind.entity;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/** How a blob's bytes are encoded on disk; the token doubles as the HTTP {@code Content-Encoding}. */
+@Getter
+@RequiredArgsConstructor
+public enum ContentEncoding {
+    IDENTITY("identity"),
+    GZIP("gzip");
+
+    private final String token;
+}
@@ -0,0 +1,26 @@
+package ind.arvind.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import java.time.Instant;
+
+@Entity
+@Table(name = "file_cache_invalidation", indexes = {
+        @Index(name = "idx_file_cache_invalidation_created_at", columnList = "created_at")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class FileCacheInvalidation {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "stored_file_id", nullable = false)
+    private Long storedFileId;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+}
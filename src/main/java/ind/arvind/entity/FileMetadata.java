@@ -4,7 +4,11 @@ import jakarta.persistence.*;
 import lombok.*;
 
 @Entity
-@Table(name = "file_metadata")
+@Table(name = "file_metadata", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_file_metadata_file_key", columnNames = {"stored_file_id", "meta_key"})
+}, indexes = {
+        @Index(name = "idx_file_metadata_key_value", columnList = "meta_key, meta_value, stored_file_id")
+})
 @Getter
 @Setter
 @NoArgsConstructor
@@ -12,10 +16,11 @@ import lombok.*;
 @Builder
 public class FileMetadata {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "file_metadata_seq")
+    @SequenceGenerator(name = "file_metadata_seq", sequenceName = "file_metadata_seq", allocationSize = 50)
     private Long id;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "stored_file_id")
     private StoredFile storedFile;
 
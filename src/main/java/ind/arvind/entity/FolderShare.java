@@ -0,0 +1,44 @@
+package ind.arvind.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import java.time.Instant;
+
+@Entity
+@Table(name = "folder_share", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_folder_share_folder_grantee", columnNames = {"folder_path", "grantee_email"})
+}, indexes = {
+        @Index(name = "idx_folder_share_folder_id", columnList = "folder_path, id")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class FolderShare {
+    public static final int MAX_FOLDER_PATH_LENGTH = 1024;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "folder_share_seq")
+    @SequenceGenerator(name = "folder_share_seq", sequenceName = "folder_share_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "folder_path", nullable = false, length = MAX_FOLDER_PATH_LENGTH)
+    private String folderPath;
+
+    @Column(name = "grantee_email", nullable = false, length = 320)
+    private String granteeEmail;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "permission", nullable = false, length = 16)
+    private SharePermission permission;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    @Column(name = "updated_at", nullable = false)
+    private Instant updatedAt;
+
+    @Column(name = "expires_at")
+    private Instant expiresAt;
+}
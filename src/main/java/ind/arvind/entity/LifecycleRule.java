@@ -0,0 +1,42 @@
+package ind.arvind.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import java.time.Instant;
+
+/**
+ * Expires a bucket's files once they are {@code expireAfterDays} old. The optional filename prefix
+ * and metadata entry narrow the rule down; a rule without either applies to every file.
+ */
+@Entity
+@Table(name = "lifecycle_rule")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class LifecycleRule {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "storage_bucket_id", nullable = false)
+    private StorageBucket storageBucket;
+
+    @Column(name = "filename_prefix")
+    private String filenamePrefix;
+
+    @Column(name = "meta_key")
+    private String metadataKey;
+
+    /** Only meaningful with a key; {@code null} matches any value. */
+    @Column(name = "meta_value")
+    private String metadataValue;
+
+    @Column(name = "expire_after_days", nullable = false)
+    private int expireAfterDays;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+}
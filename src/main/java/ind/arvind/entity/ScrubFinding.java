@@ -0,0 +1,40 @@
+package ind.arvind.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import java.time.Instant;
+
+@Entity
+@Table(name = "scrub_finding", indexes = {
+        @Index(name = "idx_scrub_finding_run", columnList = "run_id, id")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ScrubFinding {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "run_id", nullable = false)
+    private Long runId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "kind", nullable = false, length = 32)
+    private ScrubFindingKind kind;
+
+    /** Null for orphans, which by definition belong to no file. */
+    @Column(name = "file_id")
+    private Long fileId;
+
+    @Column(name = "storage_path", nullable = false)
+    private String storagePath;
+
+    @Column(name = "detail", length = 1000)
+    private String detail;
+
+    @Column(name = "detected_at", nullable = false)
+    private Instant detectedAt;
+}
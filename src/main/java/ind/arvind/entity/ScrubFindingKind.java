@@ -0,0 +1,14 @@
+package ind.arvind.entity;
+
+public enum ScrubFindingKind {
+    /** The file's blob is not on disk. */
+    MISSING,
+    /** The blob is shorter or longer than recorded. */
+    SIZE_MISMATCH,
+    /** The blob's decoded bytes do not hash to the file's checksum. */
+    CHECKSUM_MISMATCH,
+    /** The blob exists but could not be read or decoded. */
+    UNREADABLE,
+    /** A blob on disk that no file, content or pending upload part refers to. */
+    ORPHAN
+}
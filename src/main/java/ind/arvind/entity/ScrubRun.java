@@ -0,0 +1,63 @@
+package ind.arvind.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import java.time.Instant;
+
+/**
+ * One integrity scan, either of a bucket's files or, when {@code bucketId} is null, of the blob
+ * store for blobs nothing refers to. The checkpoint is the last file id (or blob location) whose
+ * results were committed, so a run picked up again after a crash or restart carries on from there.
+ */
+@Entity
+@Table(name = "scrub_run", indexes = {
+        @Index(name = "idx_scrub_run_status", columnList = "run_status, id"),
+        @Index(name = "idx_scrub_run_bucket", columnList = "bucket_id, run_status")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ScrubRun {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "bucket_id")
+    private Long bucketId;
+
+    @Column(name = "owner")
+    private String owner;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "run_status", nullable = false, length = 16)
+    private ScrubStatus status;
+
+    @Column(name = "checkpoint", length = 1024)
+    private String checkpoint;
+
+    @Column(name = "files_checked", nullable = false)
+    private long filesChecked;
+
+    @Column(name = "bytes_checked", nullable = false)
+    private long bytesChecked;
+
+    @Column(name = "finding_count", nullable = false)
+    private long findingCount;
+
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    @Column(name = "updated_at", nullable = false)
+    private Instant updatedAt;
+
+    @Column(name = "claimed_at")
+    private Instant claimedAt;
+
+    @Column(name = "finished_at")
+    private Instant finishedAt;
+}
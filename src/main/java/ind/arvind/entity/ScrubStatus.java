@@ -0,0 +1,8 @@
+package ind.arvind.entity;
+
+public enum ScrubStatus {
+    PENDING,
+    RUNNING,
+    COMPLETED,
+    FAILED
+}
@@ -0,0 +1,89 @@
+package ind.arvind.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Outbox row for one share request. Recipients are kept as a single newline-separated column so
+ * that enqueueing costs one insert regardless of how many addresses the request carries.
+ */
+@Entity
+@Table(name = "share_job", indexes = {
+        @Index(name = "idx_share_job_status_available", columnList = "job_status, available_at")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ShareJob {
+    private static final String RECIPIENT_SEPARATOR = "\n";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "job_id", nullable = false, unique = true, length = 36)
+    private String jobId;
+
+    @Column(name = "folder_path", nullable = false, length = FolderShare.MAX_FOLDER_PATH_LENGTH)
+    private String folderpath;
+
+    @JdbcTypeCode(SqlTypes.LONG32VARCHAR)
+    @Column(name = "recipients", nullable = false)
+    private String recipients;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "permission", nullable = false, length = 16)
+    private SharePermission permission;
+
+    @Column(name = "share_expires_at")
+    private Instant shareExpiresAt;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "job_status", nullable = false, length = 16)
+    private ShareJobStatus status;
+
+    @Column(name = "total_recipients", nullable = false)
+    private int totalRecipients;
+
+    /** Recipients whose grants are committed. */
+    @Column(name = "processed_recipients", nullable = false)
+    private int processedRecipients;
+
+    /** Recipients told about their grant; trails {@link #processedRecipients} until notification catches up. */
+    @Column(name = "notified_recipients", nullable = false)
+    private int notifiedRecipients;
+
+    @Column(name = "attempts", nullable = false)
+    private int attempts;
+
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    @Column(name = "updated_at", nullable = false)
+    private Instant updatedAt;
+
+    @Column(name = "available_at", nullable = false)
+    private Instant availableAt;
+
+    @Column(name = "claimed_at")
+    private Instant claimedAt;
+
+    public static String joinRecipients(Collection<String> emails) {
+        return String.join(RECIPIENT_SEPARATOR, emails);
+    }
+
+    public List<String> recipientList() {
+        return Arrays.asList(recipients.split(RECIPIENT_SEPARATOR));
+    }
+}
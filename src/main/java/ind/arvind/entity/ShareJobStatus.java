@@ -0,0 +1,8 @@
+package ind.arvind.entity;
+
+public enum ShareJobStatus {
+    PENDING,
+    RUNNING,
+    COMPLETED,
+    FAILED
+}
@@ -0,0 +1,6 @@
+package ind.arvind.entity;
+
+public enum SharePermission {
+    READ,
+    WRITE
+}
@@ -29,6 +29,26 @@ public class StorageBucket {
     @Column(name = "bucket_owner", nullable = false)
     private String owner;
 
-    @OneToMany(mappedBy = "storageBucket", cascade = CascadeType.ALL, orphanRemoval = true)
+    /** Encoding applied to new uploads; {@code null} (buckets created before this column) means identity. */
+    @Enumerated(EnumType.STRING)
+    @Column(name = "compression", length = 16)
+    private ContentEncoding compression;
+
+    /** {@code Cache-Control} sent with downloads; {@code null} means the configured default. */
+    @Column(name = "cache_control")
+    private String cacheControl;
+
+    /** Limits on the files stored in the bucket; {@code null} means unlimited. */
+    @Column(name = "quota_bytes")
+    private Long quotaBytes;
+
+    @Column(name = "quota_files")
+    private Long quotaFiles;
+
+    /** Set once deletion is requested; from then on the bucket takes no new files. */
+    @Column(name = "deletion_requested_at")
+    private Instant deletionRequestedAt;
+
+    @OneToMany(mappedBy = "storageBucket", fetch = FetchType.LAZY, cascade = CascadeType.ALL, orphanRemoval = true)
     private List<StoredFile> files;
 }
@@ -0,0 +1,7 @@
+package ind.arvind.entity;
+
+/** Where a blob lives: {@code HOT} is the primary store, {@code COLD} a cheaper, compressed one for rarely read content. */
+public enum StorageTier {
+    HOT,
+    COLD
+}
@@ -6,7 +6,16 @@ import java.time.Instant;
 import java.util.List;
 
 @Entity
-@Table(name = "stored_file")
+@Table(name = "stored_file", indexes = {
+        @Index(name = "idx_stored_file_owner_id", columnList = "file_owner, id"),
+        @Index(name = "idx_stored_file_owner_checksum", columnList = "file_owner, checksum_sha256"),
+        @Index(name = "idx_stored_file_owner_bucket_id", columnList = "file_owner, storage_bucket_id, id"),
+        @Index(name = "idx_stored_file_owner_type_id", columnList = "file_owner, content_type, id"),
+        @Index(name = "idx_stored_file_owner_created", columnList = "file_owner, created_at"),
+        @Index(name = "idx_stored_file_checksum_accessed", columnList = "checksum_sha256, last_accessed_at"),
+        @Index(name = "idx_stored_file_bucket_id", columnList = "storage_bucket_id, id"),
+        @Index(name = "idx_stored_file_storage_path", columnList = "storage_path")
+})
 @Getter
 @Setter
 @NoArgsConstructor
@@ -29,7 +38,32 @@ public class StoredFile {
     @Column(name = "storage_path", nullable = false)
     private String storagePath;
 
-    @OneToMany(mappedBy = "storedFile", cascade = CascadeType.ALL, orphanRemoval = true)
+    @Column(name = "checksum_sha256", length = 80)
+    private String checksum;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "content_encoding", length = 16)
+    private ContentEncoding contentEncoding;
+
+    /** Bytes on disk; differs from {@link #size} when the blob is encoded. */
+    @Column(name = "stored_size")
+    private Long storedSize;
+
+    @Column(name = "write_cpu_nanos")
+    private Long writeCpuNanos;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "storage_tier", length = 16)
+    private StorageTier tier;
+
+    /** Maintained from buffered counters, so it may trail the latest reads by one flush interval. */
+    @Column(name = "last_accessed_at")
+    private Instant lastAccessedAt;
+
+    @Column(name = "access_count")
+    private Long accessCount;
+
+    @OneToMany(mappedBy = "storedFile", fetch = FetchType.LAZY, cascade = CascadeType.ALL, orphanRemoval = true)
     private List<FileMetadata> metadata;
 
     @Column(name = "created_at", nullable = false)
@@ -41,7 +75,8 @@ public class StoredFile {
     @Column(name = "file_owner", nullable = false)
     private String owner;
 
-    @ManyToOne
+    /** Lazy; the repository's entity graphs say which use cases join it. */
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "storage_bucket_id")
     private StorageBucket storageBucket;
 }
@@ -0,0 +1,41 @@
+package ind.arvind.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import java.time.Instant;
+
+@Entity
+@Table(name = "upload_part", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_upload_part_session_number", columnNames = {"upload_session_id", "part_number"})
+}, indexes = {
+        @Index(name = "idx_upload_part_storage_path", columnList = "storage_path")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class UploadPart {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "upload_session_id", nullable = false)
+    private UploadSession session;
+
+    @Column(name = "part_number", nullable = false)
+    private Integer partNumber;
+
+    @Column(name = "part_size", nullable = false)
+    private Long size;
+
+    @Column(name = "checksum_sha256", nullable = false, length = 64)
+    private String checksum;
+
+    @Column(name = "storage_path", nullable = false)
+    private String storagePath;
+
+    @Column(name = "uploaded_at", nullable = false)
+    private Instant uploadedAt;
+}
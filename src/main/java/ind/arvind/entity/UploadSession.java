@@ -0,0 +1,43 @@
+package ind.arvind.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import java.time.Instant;
+
+@Entity
+@Table(name = "upload_session", indexes = {
+        @Index(name = "idx_upload_session_expires_at", columnList = "expires_at"),
+        @Index(name = "idx_upload_session_bucket", columnList = "storage_bucket_id")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class UploadSession {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "upload_id", nullable = false, unique = true, length = 36)
+    private String uploadId;
+
+    @Column(name = "file_name", nullable = false)
+    private String filename;
+
+    @Column(name = "content_type", nullable = false)
+    private String contentType;
+
+    @Column(name = "upload_owner", nullable = false)
+    private String owner;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "storage_bucket_id", nullable = false)
+    private StorageBucket storageBucket;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    @Column(name = "expires_at", nullable = false)
+    private Instant expiresAt;
+}
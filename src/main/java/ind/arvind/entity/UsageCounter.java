@@ -0,0 +1,40 @@
+package ind.arvind.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * One stripe of the running file and byte totals of an owner or bucket. Writers add their delta to
+ * a random stripe so concurrent uploads do not queue on a single row; readers sum the stripes.
+ */
+@Entity
+@Table(name = "usage_counter", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_usage_counter_scope_shard", columnNames = {"usage_scope", "scope_key", "shard"})
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class UsageCounter {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "usage_counter_seq")
+    @SequenceGenerator(name = "usage_counter_seq", sequenceName = "usage_counter_seq", allocationSize = 50)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "usage_scope", nullable = false, length = 16)
+    private UsageScope scope;
+
+    @Column(name = "scope_key", nullable = false)
+    private String scopeKey;
+
+    @Column(name = "shard", nullable = false)
+    private int shard;
+
+    @Column(name = "file_count", nullable = false)
+    private long fileCount;
+
+    @Column(name = "byte_count", nullable = false)
+    private long byteCount;
+}
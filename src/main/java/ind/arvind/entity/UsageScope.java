@@ -0,0 +1,10 @@
+package ind.arvind.entity;
+
+public enum UsageScope {
+    /** Keyed by owner. */
+    OWNER,
+    /** Keyed by bucket id. */
+    BUCKET,
+    /** Markers that coordinate the counters themselves; they carry no usage. */
+    SYSTEM
+}
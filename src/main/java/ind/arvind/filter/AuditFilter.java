@@ -0,0 +1,189 @@
+package ind.arvind.filter;
+
+import ind.arvind.audit.AuditEvent;
+import ind.arvind.audit.AuditLog;
+import ind.arvind.security.JwtPrincipal;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.MDC;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Records an {@link AuditEvent} for every API request once its response is complete, which for
+ * async transfers is when the transfer finishes rather than when the container thread returns.
+ */
+@Component
+@RequiredArgsConstructor
+public class AuditFilter extends OncePerRequestFilter {
+    private static final String CORRELATION_ID = "X-Correlation-Id";
+    private static final String UNMATCHED_ROUTE = "UNKNOWN";
+    private static final String FILE_ID_VARIABLE = "fileId";
+    private static final String BUCKET_VARIABLE = "bucketName";
+    private final AuditLog auditLog;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        final long startNanos = System.nanoTime();
+        final String correlationId = MDC.get(CORRELATION_ID);
+        final CountingResponse counting = new CountingResponse(response);
+        try {
+            filterChain.doFilter(request, counting);
+        } finally {
+            if (request.isAsyncStarted()) {
+                // Whichever ends the request first writes the record: a timed-out or failed transfer
+                // may never reach onComplete, and its error status may not be set yet when it fails.
+                AtomicBoolean recorded = new AtomicBoolean();
+                request.getAsyncContext().addListener(new AsyncListener() {
+                    @Override
+                    public void onComplete(AsyncEvent event) {
+                        recordOnce(counting.getStatus());
+                    }
+
+                    @Override
+                    public void onTimeout(AsyncEvent event) {
+                        recordOnce(errorStatus(counting, HttpServletResponse.SC_SERVICE_UNAVAILABLE));
+                    }
+
+                    @Override
+                    public void onError(AsyncEvent event) {
+                        recordOnce(errorStatus(counting, HttpServletResponse.SC_INTERNAL_SERVER_ERROR));
+                    }
+
+                    private void recordOnce(int status) {
+                        if (recorded.compareAndSet(false, true)) {
+                            record(request, counting, status, correlationId, startNanos);
+                        }
+                    }
+
+                    @Override
+                    public void onStartAsync(AsyncEvent event) {
+                    }
+                });
+            } else {
+                record(request, counting, counting.getStatus(), correlationId, startNanos);
+            }
+        }
+    }
+
+    private static int errorStatus(HttpServletResponse response, int fallback) {
+        return response.getStatus() >= HttpServletResponse.SC_BAD_REQUEST ? response.getStatus() : fallback;
+    }
+
+    private void record(HttpServletRequest request, CountingResponse response, int status, String correlationId,
+                        long startNanos) {
+        final Object principal = request.getAttribute(JwtPrincipal.REQUEST_ATTRIBUTE);
+        final Map<?, ?> variables = (Map<?, ?>) request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+        final Object bucket = variables != null && variables.get(BUCKET_VARIABLE) != null
+                ? variables.get(BUCKET_VARIABLE)
+                : request.getParameter(BUCKET_VARIABLE);
+        auditLog.record(new AuditEvent(
+                Instant.now(),
+                correlationId,
+                principal instanceof JwtPrincipal jwt ? jwt.owner() : null,
+                request.getMethod(),
+                Objects.toString(request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE), UNMATCHED_ROUTE),
+                variables == null ? null : Objects.toString(variables.get(FILE_ID_VARIABLE), null),
+                Objects.toString(bucket, null),
+                status,
+                Math.max(0, request.getContentLengthLong()),
+                response.bytesOut(),
+                TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startNanos),
+                Objects.toString(request.getAttribute(AuditEvent.DETAIL_ATTRIBUTE), null)));
+    }
+
+    /**
+     * Counts the bytes written through the response stream. Bodies the container sends by itself
+     * (sendfile) never pass through it, so the declared content length is kept as well.
+     */
+    private static final class CountingResponse extends HttpServletResponseWrapper {
+        private long declaredLength;
+        private CountingOutputStream out;
+
+        private CountingResponse(HttpServletResponse response) {
+            super(response);
+        }
+
+        @Override
+        public void setContentLength(int length) {
+            declaredLength = length;
+            super.setContentLength(length);
+        }
+
+        @Override
+        public void setContentLengthLong(long length) {
+            declaredLength = length;
+            super.setContentLengthLong(length);
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            if (out == null) {
+                out = new CountingOutputStream(super.getOutputStream());
+            }
+            return out;
+        }
+
+        long bytesOut() {
+            return Math.max(declaredLength, out == null ? 0 : out.count);
+        }
+    }
+
+    private static final class CountingOutputStream extends ServletOutputStream {
+        private final ServletOutputStream delegate;
+        private long count;
+
+        private CountingOutputStream(ServletOutputStream delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            delegate.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            delegate.write(b, off, len);
+            count += len;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            delegate.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            delegate.close();
+        }
+
+        @Override
+        public boolean isReady() {
+            return delegate.isReady();
+        }
+
+        @Override
+        public void setWriteListener(WriteListener writeListener) {
+            delegate.setWriteListener(writeListener);
+        }
+    }
+}
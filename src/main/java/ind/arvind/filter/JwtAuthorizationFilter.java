@@ -1,24 +1,45 @@
 package ind.arvind.filter;
 
+import ind.arvind.security.InvalidTokenException;
+import ind.arvind.security.JwtPrincipal;
+import ind.arvind.security.JwtVerifier;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 import java.io.IOException;
 
 @Component
+@RequiredArgsConstructor
 public class JwtAuthorizationFilter extends OncePerRequestFilter {
+    private static final Logger log = LoggerFactory.getLogger(JwtAuthorizationFilter.class);
+    private static final String BEARER_PREFIX = "Bearer ";
+    private static final String WWW_AUTHENTICATE_INVALID = "Bearer error=\"invalid_token\"";
+    private final JwtVerifier jwtVerifier;
+
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
             throws ServletException, IOException {
         String authHeader = request.getHeader("Authorization");
-        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+        if (authHeader == null || !authHeader.startsWith(BEARER_PREFIX)) {
             response.sendError(HttpServletResponse.SC_UNAUTHORIZED, "Missing or invalid Authorization header");
             return;
         }
-        // TODO: Validate JWT token here
+        JwtPrincipal principal;
+        try {
+            principal = jwtVerifier.verify(authHeader.substring(BEARER_PREFIX.length()).trim());
+        } catch (InvalidTokenException e) {
+            log.debug("Rejected bearer token: {}", e.getMessage());
+            response.setHeader("WWW-Authenticate", WWW_AUTHENTICATE_INVALID);
+            response.sendError(HttpServletResponse.SC_UNAUTHORIZED, "Invalid token");
+            return;
+        }
+        request.setAttribute(JwtPrincipal.REQUEST_ATTRIBUTE, principal);
         filterChain.doFilter(request, response);
     }
 }
@@ -0,0 +1,86 @@
+package ind.arvind.filter;
+
+import ind.arvind.metrics.QueryCountInspector;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Component
+@RequiredArgsConstructor
+public class QueryCountFilter extends OncePerRequestFilter {
+    private static final String METRIC_NAME = "http.server.requests.queries";
+    private static final String UNMATCHED_URI = "UNKNOWN";
+    private final QueryCountInspector queryCountInspector;
+    private final MeterRegistry meterRegistry;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        queryCountInspector.start();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            if (request.isAsyncStarted()) {
+                // The transfer thread keeps adding to this count; it is recorded once the request ends.
+                AtomicInteger count = queryCountInspector.current();
+                queryCountInspector.detach();
+                AtomicBoolean recorded = new AtomicBoolean();
+                String method = request.getMethod();
+                Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+                request.getAsyncContext().addListener(new AsyncListener() {
+                    @Override
+                    public void onComplete(AsyncEvent event) {
+                        recordOnce();
+                    }
+
+                    @Override
+                    public void onTimeout(AsyncEvent event) {
+                        recordOnce();
+                    }
+
+                    @Override
+                    public void onError(AsyncEvent event) {
+                        recordOnce();
+                    }
+
+                    @Override
+                    public void onStartAsync(AsyncEvent event) {
+                    }
+
+                    private void recordOnce() {
+                        if (recorded.compareAndSet(false, true)) {
+                            record(method, pattern, count.get());
+                        }
+                    }
+                });
+            } else {
+                record(request.getMethod(), request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE),
+                        queryCountInspector.stop());
+            }
+        }
+    }
+
+    private void record(String method, Object pattern, int queries) {
+        DistributionSummary.builder(METRIC_NAME)
+                .description("SQL statements executed per request")
+                .tag("method", method)
+                .tag("uri", Objects.toString(pattern, UNMATCHED_URI))
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(queries);
+    }
+}
@@ -0,0 +1,54 @@
+package ind.arvind.metrics;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Counts the SQL statements Hibernate prepares on the current thread between {@link #start()} and
+ * {@link #stop()}. Statements issued outside a counting scope are passed through untouched. A request
+ * that continues on another thread takes its count along with {@link #current()} and {@link #attach}.
+ */
+@Component
+public class QueryCountInspector implements StatementInspector {
+    private final ThreadLocal<AtomicInteger> counter = new ThreadLocal<>();
+
+    public void start() {
+        counter.set(new AtomicInteger());
+    }
+
+    public int stop() {
+        AtomicInteger count = counter.get();
+        counter.remove();
+        return count == null ? 0 : count.get();
+    }
+
+    /** The count of the current thread's scope, or null outside one. */
+    public AtomicInteger current() {
+        return counter.get();
+    }
+
+    /** Adds the current thread's statements to {@code count} until {@link #detach()}; null counts nothing. */
+    public void attach(AtomicInteger count) {
+        if (count == null) {
+            counter.remove();
+        } else {
+            counter.set(count);
+        }
+    }
+
+    /** Leaves the scope without ending it; whoever holds the count reads it later. */
+    public void detach() {
+        counter.remove();
+    }
+
+    @Override
+    public String inspect(String sql) {
+        AtomicInteger count = counter.get();
+        if (count != null) {
+            count.incrementAndGet();
+        }
+        return sql;
+    }
+}
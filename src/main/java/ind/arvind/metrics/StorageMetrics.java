@@ -0,0 +1,103 @@
+package ind.arvind.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.BaseUnits;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Transfer counters tagged by bucket and owner. Throughput is {@code rate()} over the byte counters;
+ * the active-transfer gauges show how many streams are in flight in each direction.
+ */
+@Component
+public class StorageMetrics {
+    static final String BYTES_IN = "storage.bytes.in";
+    static final String BYTES_OUT = "storage.bytes.out";
+    static final String ACTIVE_TRANSFERS = "storage.transfers.active";
+    static final String COMPRESSION_RATIO = "storage.compression.ratio";
+    static final String COMPRESSION_CPU = "storage.compression.cpu";
+    static final String TIER_MIGRATIONS = "storage.tier.migrations";
+    static final String TIER_MIGRATED_BYTES = "storage.tier.migrated";
+    private static final String TAG_BUCKET = "bucket";
+    private static final String TAG_OWNER = "owner";
+    private static final String TAG_DIRECTION = "direction";
+    private static final String TAG_TIER = "tier";
+
+    private final MeterRegistry meterRegistry;
+    private final AtomicInteger activeUploads;
+    private final AtomicInteger activeDownloads;
+
+    public StorageMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        this.activeUploads = meterRegistry.gauge(ACTIVE_TRANSFERS, Tags.of(TAG_DIRECTION, "upload"), new AtomicInteger());
+        this.activeDownloads = meterRegistry.gauge(ACTIVE_TRANSFERS, Tags.of(TAG_DIRECTION, "download"), new AtomicInteger());
+    }
+
+    public void recordBytesIn(String bucket, String owner, long bytes) {
+        transferCounter(BYTES_IN, bucket, owner).increment(bytes);
+    }
+
+    public void recordBytesOut(String bucket, String owner, long bytes) {
+        transferCounter(BYTES_OUT, bucket, owner).increment(bytes);
+    }
+
+    /** Ratio is decoded over stored bytes, so 5.0 means the blob takes a fifth of its plain size. */
+    public void recordCompression(String bucket, long decodedBytes, long storedBytes, long cpuNanos) {
+        if (storedBytes > 0) {
+            DistributionSummary.builder(COMPRESSION_RATIO)
+                    .tag(TAG_BUCKET, String.valueOf(bucket))
+                    .register(meterRegistry)
+                    .record((double) decodedBytes / storedBytes);
+        }
+        Timer.builder(COMPRESSION_CPU)
+                .tag(TAG_BUCKET, String.valueOf(bucket))
+                .register(meterRegistry)
+                .record(cpuNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /** Counts blobs moved into {@code tier} and the decoded bytes they hold. */
+    public void recordTierMigration(String tier, long bytes) {
+        meterRegistry.counter(TIER_MIGRATIONS, TAG_TIER, tier).increment();
+        Counter.builder(TIER_MIGRATED_BYTES)
+                .baseUnit(BaseUnits.BYTES)
+                .tag(TAG_TIER, tier)
+                .register(meterRegistry)
+                .increment(bytes);
+    }
+
+    public Transfer startUpload() {
+        return new Transfer(activeUploads);
+    }
+
+    public Transfer startDownload() {
+        return new Transfer(activeDownloads);
+    }
+
+    private Counter transferCounter(String name, String bucket, String owner) {
+        return Counter.builder(name)
+                .baseUnit(BaseUnits.BYTES)
+                .tag(TAG_BUCKET, String.valueOf(bucket))
+                .tag(TAG_OWNER, String.valueOf(owner))
+                .register(meterRegistry);
+    }
+
+    public static final class Transfer implements AutoCloseable {
+        private final AtomicInteger active;
+
+        private Transfer(AtomicInteger active) {
+            this.active = active;
+            active.incrementAndGet();
+        }
+
+        @Override
+        public void close() {
+            active.decrementAndGet();
+        }
+    }
+}
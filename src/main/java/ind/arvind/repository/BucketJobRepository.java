@@ -0,0 +1,63 @@
+package ind.arvind.repository;
+
+import ind.arvind.entity.BucketJob;
+import ind.arvind.entity.BucketJobStatus;
+import ind.arvind.entity.BucketJobType;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface BucketJobRepository extends JpaRepository<BucketJob, Long> {
+    // Workers read jobs right after claiming them, so outside a read-only service call this goes to the primary.
+    @Transactional
+    Optional<BucketJob> findByJobId(String jobId);
+
+    Optional<BucketJob> findFirstByBucketIdAndTypeAndStatusIn(Long bucketId, BucketJobType type,
+                                                               Collection<BucketJobStatus> statuses);
+
+    @Transactional
+    @Query("select j.jobId from BucketJob j where j.status = :status order by j.id")
+    List<String> findJobIdsByStatus(@Param("status") BucketJobStatus status, Limit limit);
+
+    // Also called from afterCommit of the enqueuing transaction, which can no longer be joined.
+    @Modifying
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    @Query("update BucketJob j set j.status = :running, j.claimedAt = :now, j.updatedAt = :now "
+            + "where j.jobId = :jobId and j.status = :pending")
+    int claim(@Param("jobId") String jobId, @Param("pending") BucketJobStatus pending,
+              @Param("running") BucketJobStatus running, @Param("now") Instant now);
+
+    @Modifying
+    @Transactional
+    @Query("update BucketJob j set j.status = :pending, j.claimedAt = null, j.updatedAt = :now "
+            + "where j.status = :running and j.claimedAt < :cutoff")
+    int releaseStale(@Param("pending") BucketJobStatus pending, @Param("running") BucketJobStatus running,
+                     @Param("cutoff") Instant cutoff, @Param("now") Instant now);
+
+    /** Adds a committed chunk to the job's counters; also renews its lease. */
+    @Modifying
+    @Query("update BucketJob j set j.filesDeleted = j.filesDeleted + :files, j.bytesDeleted = j.bytesDeleted + :bytes, "
+            + "j.claimedAt = :now, j.updatedAt = :now where j.jobId = :jobId")
+    int recordProgress(@Param("jobId") String jobId, @Param("files") long files, @Param("bytes") long bytes,
+                       @Param("now") Instant now);
+
+    @Modifying
+    @Transactional
+    @Query("update BucketJob j set j.status = :status, j.lastError = :error, j.claimedAt = null, j.finishedAt = :now, "
+            + "j.updatedAt = :now where j.jobId = :jobId")
+    int finish(@Param("jobId") String jobId, @Param("status") BucketJobStatus status, @Param("error") String error,
+               @Param("now") Instant now);
+
+    @Modifying
+    @Transactional
+    @Query("delete from BucketJob j where j.status in :statuses and j.finishedAt < :cutoff")
+    int deleteFinishedBefore(@Param("statuses") Collection<BucketJobStatus> statuses, @Param("cutoff") Instant cutoff);
+}
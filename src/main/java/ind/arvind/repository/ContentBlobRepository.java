@@ -0,0 +1,44 @@
+package ind.arvind.repository;
+
+import ind.arvind.entity.ContentBlob;
+import ind.arvind.entity.StorageTier;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface ContentBlobRepository extends JpaRepository<ContentBlob, Long> {
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select b from ContentBlob b where b.checksum = :checksum")
+    Optional<ContentBlob> lockByChecksum(@Param("checksum") String checksum);
+
+    Optional<ContentBlob> findByChecksum(String checksum);
+
+    /** Removes a row registered for an upload that then rolled back. */
+    @Modifying
+    @Query("delete from ContentBlob b where b.checksum = :checksum and b.refCount <= 0")
+    int deleteUnreferenced(@Param("checksum") String checksum);
+
+    List<ContentBlob> findByStoragePathStartingWith(String prefix);
+
+    boolean existsByStoragePathStartingWith(String prefix);
+
+    @Query("select b.storagePath from ContentBlob b where b.storagePath in :paths")
+    List<String> findStoragePathsIn(@Param("paths") Collection<String> paths);
+
+    List<ContentBlob> findByIdGreaterThanOrderById(Long afterId, Limit limit);
+
+    /** Content outside {@code tier} that no file has read, or been created on, since {@code cutoff}. */
+    @Query("select b from ContentBlob b where (b.tier is null or b.tier <> :tier) and b.createdAt < :cutoff "
+            + "and b.id > :afterId and not exists (select f.id from StoredFile f "
+            + "where f.checksum = b.checksum and coalesce(f.lastAccessedAt, f.createdAt) >= :cutoff) order by b.id")
+    List<ContentBlob> findUnreadSince(@Param("tier") StorageTier tier, @Param("cutoff") Instant cutoff,
+                                      @Param("afterId") long afterId, Limit limit);
+}
@@ -1,9 +0,0 @@
-package ind.arvind.repository;
-
-import ind.arvind.entity.Email;
-import org.springframework.data.jpa.repository.JpaRepository;
-import org.springframework.stereotype.Repository;
-
-@Repository
-public interface EmailRepository extends JpaRepository<Email, Integer> {
-}
@@ -0,0 +1,22 @@
+package ind.arvind.repository;
+
+import ind.arvind.entity.FileCacheInvalidation;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+import java.time.Instant;
+import java.util.List;
+
+public interface FileCacheInvalidationRepository extends JpaRepository<FileCacheInvalidation, Long> {
+    // Polled from the primary: an invalidation a lagging replica has not seen yet would fall behind the watermark.
+    @Transactional
+    @Query("select distinct i.storedFileId from FileCacheInvalidation i where i.createdAt > :since")
+    List<Long> findFileIdsInvalidatedSince(@Param("since") Instant since);
+
+    @Modifying
+    @Transactional
+    @Query("delete from FileCacheInvalidation i where i.createdAt < :cutoff")
+    int deleteOlderThan(@Param("cutoff") Instant cutoff);
+}
@@ -1,9 +1,37 @@
 package ind.arvind.repository;
 
 import ind.arvind.entity.FileMetadata;
+import ind.arvind.repository.projection.FileMetadataRow;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import java.util.Collection;
 import java.util.List;
 
 public interface FileMetadataRepository extends JpaRepository<FileMetadata, Long> {
     List<FileMetadata> findByStoredFileId(Long storedFileId);
+
+    @Modifying
+    @Query("delete from FileMetadata m where m.storedFile.id = :storedFileId")
+    int deleteByStoredFileId(@Param("storedFileId") Long storedFileId);
+
+    @Modifying
+    @Query("delete from FileMetadata m where m.storedFile.id = :storedFileId and m.metaKey in :metaKeys")
+    int deleteByStoredFileIdAndMetaKeyIn(@Param("storedFileId") Long storedFileId, @Param("metaKeys") Collection<String> metaKeys);
+
+    @Query("select new ind.arvind.repository.projection.FileMetadataRow(m.storedFile.id, m.metaKey, m.value) "
+            + "from FileMetadata m where m.storedFile.id in :storedFileIds")
+    List<FileMetadataRow> findRowsByStoredFileIdIn(@Param("storedFileIds") Collection<Long> storedFileIds);
+
+    @Query("select m from FileMetadata m where m.storedFile.id in :storedFileIds")
+    List<FileMetadata> findByStoredFileIdIn(@Param("storedFileIds") Collection<Long> storedFileIds);
+
+    @Modifying
+    @Query("delete from FileMetadata m where m.storedFile.id in :storedFileIds")
+    int deleteByStoredFileIdIn(@Param("storedFileIds") Collection<Long> storedFileIds);
+
+    @Modifying
+    @Query("delete from FileMetadata m where m.id in :ids")
+    int deleteByIdIn(@Param("ids") Collection<Long> ids);
 }
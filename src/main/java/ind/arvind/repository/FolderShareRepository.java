@@ -0,0 +1,22 @@
+package ind.arvind.repository;
+
+import ind.arvind.entity.FolderShare;
+import ind.arvind.repository.projection.FolderShareRow;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+public interface FolderShareRepository extends JpaRepository<FolderShare, Long> {
+    List<FolderShare> findByFolderPathAndGranteeEmailIn(String folderPath, Collection<String> granteeEmails);
+
+    @Query("select new ind.arvind.repository.projection.FolderShareRow(s.id, s.granteeEmail, s.permission, s.createdAt, s.expiresAt) "
+            + "from FolderShare s "
+            + "where s.folderPath = :folderPath and s.id > :afterId and (s.expiresAt is null or s.expiresAt > :now) "
+            + "order by s.id")
+    List<FolderShareRow> findActivePage(@Param("folderPath") String folderPath, @Param("now") Instant now,
+                                        @Param("afterId") long afterId, Limit limit);
+}
@@ -0,0 +1,16 @@
+package ind.arvind.repository;
+
+import ind.arvind.entity.LifecycleRule;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import java.util.List;
+
+public interface LifecycleRuleRepository extends JpaRepository<LifecycleRule, Long> {
+    List<LifecycleRule> findByStorageBucketIdOrderById(Long bucketId);
+
+    @Modifying
+    @Query("delete from LifecycleRule r where r.storageBucket.id = :bucketId")
+    int deleteByBucketId(@Param("bucketId") Long bucketId);
+}
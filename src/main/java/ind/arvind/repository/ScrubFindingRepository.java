@@ -0,0 +1,10 @@
+package ind.arvind.repository;
+
+import ind.arvind.entity.ScrubFinding;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import java.util.List;
+
+public interface ScrubFindingRepository extends JpaRepository<ScrubFinding, Long> {
+    List<ScrubFinding> findByRunIdAndIdGreaterThanOrderById(Long runId, Long afterId, Limit limit);
+}
@@ -0,0 +1,71 @@
+package ind.arvind.repository;
+
+import ind.arvind.entity.ScrubRun;
+import ind.arvind.entity.ScrubStatus;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface ScrubRunRepository extends JpaRepository<ScrubRun, Long> {
+    // The worker reads its run right after the claim; read-write so that read is not left to a lagging replica.
+    @Override
+    @Transactional
+    Optional<ScrubRun> findById(Long id);
+
+    /** The unfinished run of a bucket, or of the orphan scan when {@code bucketId} is null. */
+    @Query("select r from ScrubRun r where (r.bucketId = :bucketId or (:bucketId is null and r.bucketId is null)) "
+            + "and r.status in :statuses")
+    Optional<ScrubRun> findActive(@Param("bucketId") Long bucketId, @Param("statuses") Collection<ScrubStatus> statuses);
+
+    @Transactional
+    @Query("select r.id from ScrubRun r where r.status = :status order by r.id")
+    List<Long> findIdsByStatus(@Param("status") ScrubStatus status, Limit limit);
+
+    // Also called from afterCommit of the enqueuing transaction, which can no longer be joined.
+    @Modifying
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    @Query("update ScrubRun r set r.status = :running, r.claimedAt = :now, r.updatedAt = :now "
+            + "where r.id = :id and r.status = :pending")
+    int claim(@Param("id") Long id, @Param("pending") ScrubStatus pending, @Param("running") ScrubStatus running,
+              @Param("now") Instant now);
+
+    @Modifying
+    @Transactional
+    @Query("update ScrubRun r set r.status = :pending, r.claimedAt = null, r.updatedAt = :now "
+            + "where r.status = :running and r.claimedAt < :cutoff")
+    int releaseStale(@Param("pending") ScrubStatus pending, @Param("running") ScrubStatus running,
+                     @Param("cutoff") Instant cutoff, @Param("now") Instant now);
+
+    /** Extends the lease of a run still held under {@code lease}; 0 once another node took it over. */
+    @Modifying
+    @Transactional
+    @Query("update ScrubRun r set r.claimedAt = :now, r.updatedAt = :now "
+            + "where r.id = :id and r.status = :running and r.claimedAt = :lease")
+    int renew(@Param("id") Long id, @Param("running") ScrubStatus running, @Param("lease") Instant lease,
+              @Param("now") Instant now);
+
+    /** Commits a chunk's checkpoint and counters and renews the lease, like {@link #renew}. */
+    @Modifying
+    @Query("update ScrubRun r set r.checkpoint = :checkpoint, r.filesChecked = r.filesChecked + :files, "
+            + "r.bytesChecked = r.bytesChecked + :bytes, r.findingCount = r.findingCount + :findings, "
+            + "r.claimedAt = :now, r.updatedAt = :now "
+            + "where r.id = :id and r.status = :running and r.claimedAt = :lease")
+    int recordProgress(@Param("id") Long id, @Param("checkpoint") String checkpoint, @Param("files") long files,
+                       @Param("bytes") long bytes, @Param("findings") long findings,
+                       @Param("running") ScrubStatus running, @Param("lease") Instant lease, @Param("now") Instant now);
+
+    @Modifying
+    @Transactional
+    @Query("update ScrubRun r set r.status = :status, r.lastError = :error, r.claimedAt = null, r.finishedAt = :now, "
+            + "r.updatedAt = :now where r.id = :id and r.status = :running and r.claimedAt = :lease")
+    int finish(@Param("id") Long id, @Param("running") ScrubStatus running, @Param("lease") Instant lease,
+               @Param("status") ScrubStatus status, @Param("error") String error, @Param("now") Instant now);
+}
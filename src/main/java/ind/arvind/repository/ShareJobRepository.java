@@ -0,0 +1,59 @@
+package ind.arvind.repository;
+
+import ind.arvind.entity.ShareJob;
+import ind.arvind.entity.ShareJobStatus;
+import org.springframework.data.domain.Limit;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+public interface ShareJobRepository extends JpaRepository<ShareJob, Long> {
+    // Read-write so the worker, which reads its job right after claiming it, is answered by the primary.
+    @Transactional
+    Optional<ShareJob> findByJobId(String jobId);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select j from ShareJob j where j.jobId = :jobId")
+    Optional<ShareJob> lockByJobId(@Param("jobId") String jobId);
+
+    @Transactional
+    @Query("select j.jobId from ShareJob j where j.status = :status and j.availableAt <= :now order by j.availableAt")
+    List<String> findAvailableJobIds(@Param("status") ShareJobStatus status, @Param("now") Instant now, Limit limit);
+
+    // Also called from afterCommit of the enqueuing transaction, which can no longer be joined.
+    @Modifying
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    @Query("update ShareJob j set j.status = :running, j.claimedAt = :now, j.updatedAt = :now "
+            + "where j.jobId = :jobId and j.status = :pending")
+    int claim(@Param("jobId") String jobId, @Param("pending") ShareJobStatus pending,
+              @Param("running") ShareJobStatus running, @Param("now") Instant now);
+
+    @Modifying
+    @Transactional
+    @Query("update ShareJob j set j.status = :pending, j.claimedAt = null, j.updatedAt = :now "
+            + "where j.status = :running and j.claimedAt < :cutoff")
+    int releaseStale(@Param("pending") ShareJobStatus pending, @Param("running") ShareJobStatus running,
+                     @Param("cutoff") Instant cutoff, @Param("now") Instant now);
+
+    /** Renews the lease as well; returns 0 once the job is no longer held under {@code lease}. */
+    @Modifying
+    @Query("update ShareJob j set j.processedRecipients = :processed, j.claimedAt = :now, j.updatedAt = :now "
+            + "where j.jobId = :jobId and j.status = :running and j.claimedAt = :lease")
+    int recordProgress(@Param("jobId") String jobId, @Param("processed") int processed,
+                       @Param("running") ShareJobStatus running, @Param("lease") Instant lease, @Param("now") Instant now);
+
+    /** Advances the notification cursor and renews the lease, under the same fence as {@link #recordProgress}. */
+    @Modifying
+    @Query("update ShareJob j set j.notifiedRecipients = :notified, j.claimedAt = :now, j.updatedAt = :now "
+            + "where j.jobId = :jobId and j.status = :running and j.claimedAt = :lease")
+    int recordNotified(@Param("jobId") String jobId, @Param("notified") int notified,
+                       @Param("running") ShareJobStatus running, @Param("lease") Instant lease, @Param("now") Instant now);
+}
@@ -2,8 +2,21 @@ package ind.arvind.repository;
 
 import ind.arvind.entity.StorageBucket;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import java.util.List;
 import java.util.Optional;
 
 public interface StorageBucketRepository extends JpaRepository<StorageBucket, Long> {
     Optional<StorageBucket> findByName(String name);
+
+    @Query("select b from StorageBucket b where b.deletionRequestedAt is null "
+            + "and exists (select r.id from LifecycleRule r where r.storageBucket = b)")
+    List<StorageBucket> findWithLifecycleRules();
+
+    /** Bulk delete: the bucket's files must already be gone, the cascade does not run. */
+    @Modifying
+    @Query("delete from StorageBucket b where b.id = :id")
+    int deleteBucketById(@Param("id") Long id);
 }
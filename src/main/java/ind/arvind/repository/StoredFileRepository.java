@@ -1,11 +1,142 @@
 package ind.arvind.repository;
 
+import ind.arvind.entity.ContentEncoding;
+import ind.arvind.entity.StorageTier;
 import ind.arvind.entity.StoredFile;
+import ind.arvind.repository.projection.ArchiveEntryRow;
+import ind.arvind.repository.projection.ScrubRow;
+import ind.arvind.repository.projection.StoredContentRow;
+import ind.arvind.repository.projection.StoredFileRow;
+import ind.arvind.repository.projection.UsageRow;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
-public interface StoredFileRepository extends JpaRepository<StoredFile, Long> {
-    List<StoredFile> findByOwner(String owner);
+public interface StoredFileRepository extends JpaRepository<StoredFile, Long>, StoredFileSearchRepository {
     List<StoredFile> findByStorageBucketId(Long bucketId);
-}
 
+    /** A file as returned by the API: bucket and metadata joined into the one select. */
+    @EntityGraph(attributePaths = {"storageBucket", "metadata"})
+    Optional<StoredFile> findWithMetadataById(Long id);
+
+    /** A file about to be changed; metadata stays unloaded so bulk statements can replace it. */
+    @EntityGraph(attributePaths = "storageBucket")
+    Optional<StoredFile> findWithBucketById(Long id);
+
+    /** Keyset page of a bucket's files for the scrubber; rows only, so a large bucket never loads its entities. */
+    @Query("select new ind.arvind.repository.projection.ScrubRow(f.id, f.storagePath, f.checksum, f.size, "
+            + "f.storedSize, f.contentEncoding) "
+            + "from StoredFile f where f.storageBucket.id = :bucketId and f.id > :afterId order by f.id")
+    List<ScrubRow> findScrubPage(@Param("bucketId") Long bucketId, @Param("afterId") long afterId, Limit limit);
+
+    // Read-write, so it is answered by the primary: a lagging replica may still show a moved blob's old path.
+    @Transactional
+    @Query("select new ind.arvind.repository.projection.ScrubRow(f.id, f.storagePath, f.checksum, f.size, "
+            + "f.storedSize, f.contentEncoding) from StoredFile f where f.id = :id")
+    Optional<ScrubRow> findScrubRow(@Param("id") Long id);
+    boolean existsByOwnerAndChecksum(String owner, String checksum);
+
+    @Query("select distinct f.storagePath from StoredFile f where f.storagePath in :paths")
+    List<String> findStoragePathsIn(@Param("paths") Collection<String> paths);
+
+    @Query("select new ind.arvind.repository.projection.StoredFileRow(f.id, f.filename, f.size, f.contentType, "
+            + "f.createdAt, f.updatedAt, f.owner, b.name) "
+            + "from StoredFile f left join f.storageBucket b "
+            + "where f.owner = :owner and f.id > :afterId order by f.id")
+    List<StoredFileRow> findPageByOwner(@Param("owner") String owner, @Param("afterId") long afterId, Limit limit);
+
+    @Query("select new ind.arvind.repository.projection.ArchiveEntryRow(f.id, f.filename, f.size, f.contentType, "
+            + "f.updatedAt, b.name, f.storagePath, f.contentEncoding) "
+            + "from StoredFile f left join f.storageBucket b "
+            + "where f.owner = :owner and f.id in :ids and f.id > :afterId order by f.id")
+    List<ArchiveEntryRow> findArchivePageByIds(@Param("owner") String owner, @Param("ids") Collection<Long> ids,
+                                               @Param("afterId") long afterId, Limit limit);
+
+    // Read-write, so it is answered by the primary: a replica may not have seen the blob move yet.
+    @Transactional
+    @Query("select new ind.arvind.repository.projection.ArchiveEntryRow(f.id, f.filename, f.size, f.contentType, "
+            + "f.updatedAt, b.name, f.storagePath, f.contentEncoding) "
+            + "from StoredFile f left join f.storageBucket b where f.owner = :owner and f.id = :id")
+    Optional<ArchiveEntryRow> findArchiveEntry(@Param("owner") String owner, @Param("id") Long id);
+
+    @Modifying
+    @Query("update StoredFile f set f.accessCount = coalesce(f.accessCount, 0) + :reads, f.lastAccessedAt = :accessedAt "
+            + "where f.id in :ids")
+    int recordReads(@Param("ids") Collection<Long> ids, @Param("reads") long reads, @Param("accessedAt") Instant accessedAt);
+
+    @Query("select distinct f.checksum from StoredFile f where f.id in :ids and f.tier = :tier and f.checksum is not null")
+    List<String> findChecksumsByIdInAndTier(@Param("ids") Collection<Long> ids, @Param("tier") StorageTier tier);
+
+    @Query("select f.id from StoredFile f where f.checksum = :checksum and f.storagePath = :storagePath")
+    List<Long> findIdsByContent(@Param("checksum") String checksum, @Param("storagePath") String storagePath);
+
+    /** Repoints every file sharing the content after its blob moved; {@code updatedAt} is left alone as the content is unchanged. */
+    @Modifying
+    @Query("update StoredFile f set f.storagePath = :target, f.contentEncoding = :encoding, f.storedSize = :storedSize, "
+            + "f.tier = :tier where f.checksum = :checksum and f.storagePath = :source")
+    int moveContent(@Param("checksum") String checksum, @Param("source") String source, @Param("target") String target,
+                    @Param("encoding") ContentEncoding encoding, @Param("storedSize") long storedSize,
+                    @Param("tier") StorageTier tier);
+
+    @Query("select new ind.arvind.repository.projection.StoredFileRow(f.id, f.filename, f.size, f.contentType, "
+            + "f.createdAt, f.updatedAt, f.owner, b.name) "
+            + "from StoredFile f left join f.storageBucket b "
+            + "where f.owner = :owner and f.id in :ids")
+    List<StoredFileRow> findRowsByOwnerAndIdIn(@Param("owner") String owner, @Param("ids") Collection<Long> ids);
+
+    @Query("select new ind.arvind.repository.projection.StoredContentRow(f.id, f.checksum, f.storagePath, f.size, "
+            + "f.storageBucket.id, f.owner) from StoredFile f where f.owner = :owner and f.id in :ids")
+    List<StoredContentRow> findContentByOwnerAndIdIn(@Param("owner") String owner, @Param("ids") Collection<Long> ids);
+
+    @Query("select f.id from StoredFile f where f.owner = :owner and f.id in :ids")
+    List<Long> findIdsByOwnerAndIdIn(@Param("owner") String owner, @Param("ids") Collection<Long> ids);
+
+    boolean existsByStorageBucketId(Long bucketId);
+
+    /** The first files of a bucket; deleting them brings the next ones to the front, so no keyset is needed. */
+    @Query("select new ind.arvind.repository.projection.StoredContentRow(f.id, f.checksum, f.storagePath, f.size, "
+            + "f.storageBucket.id, f.owner) from StoredFile f where f.storageBucket.id = :bucketId order by f.id")
+    List<StoredContentRow> findContentInBucket(@Param("bucketId") Long bucketId, Limit limit);
+
+    /**
+     * Keyset page of a bucket's files created before {@code cutoff}, optionally narrowed to a filename
+     * pattern and a metadata entry. The pattern is a LIKE pattern escaped with {@code !}.
+     */
+    @Query("select new ind.arvind.repository.projection.StoredContentRow(f.id, f.checksum, f.storagePath, f.size, "
+            + "f.storageBucket.id, f.owner) from StoredFile f where f.storageBucket.id = :bucketId "
+            + "and f.id > :afterId and f.createdAt < :cutoff "
+            + "and (:filenamePattern is null or f.filename like :filenamePattern escape '!') "
+            + "and (:metaKey is null or exists (select m.id from FileMetadata m where m.storedFile = f "
+            + "and m.metaKey = :metaKey and (:metaValue is null or m.value = :metaValue))) order by f.id")
+    List<StoredContentRow> findContentExpiring(@Param("bucketId") Long bucketId, @Param("cutoff") Instant cutoff,
+                                               @Param("filenamePattern") String filenamePattern,
+                                               @Param("metaKey") String metaKey, @Param("metaValue") String metaValue,
+                                               @Param("afterId") long afterId, Limit limit);
+
+    /** Bulk delete: metadata rows must already be gone, the cascade does not run. */
+    @Modifying
+    @Query("delete from StoredFile f where f.id in :ids")
+    int deleteByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query("update StoredFile f set f.updatedAt = :updatedAt where f.id in :ids")
+    int touch(@Param("ids") Collection<Long> ids, @Param("updatedAt") Instant updatedAt);
+
+    /** Full scan; only used to seed the usage counters once. */
+    @Query("select new ind.arvind.repository.projection.UsageRow(f.owner, count(f), coalesce(sum(f.size), 0)) "
+            + "from StoredFile f group by f.owner")
+    List<UsageRow> sumUsageByOwner();
+
+    /** Full scan; only used to seed the usage counters once. */
+    @Query("select new ind.arvind.repository.projection.UsageRow(cast(f.storageBucket.id as String), count(f), "
+            + "coalesce(sum(f.size), 0)) from StoredFile f where f.storageBucket is not null group by f.storageBucket.id")
+    List<UsageRow> sumUsageByBucket();
+}
@@ -0,0 +1,11 @@
+package ind.arvind.repository;
+
+import ind.arvind.dto.FileSearchRequestDto;
+import ind.arvind.repository.projection.ArchiveEntryRow;
+import ind.arvind.repository.projection.StoredFileRow;
+import java.util.List;
+
+public interface StoredFileSearchRepository {
+    List<StoredFileRow> searchPage(String owner, FileSearchRequestDto criteria, long afterId, int limit);
+    List<ArchiveEntryRow> archivePage(String owner, FileSearchRequestDto criteria, long afterId, int limit);
+}
@@ -0,0 +1,111 @@
+package ind.arvind.repository;
+
+import ind.arvind.dto.FileSearchRequestDto;
+import ind.arvind.dto.MetadataPredicateDto;
+import ind.arvind.entity.FileMetadata;
+import ind.arvind.entity.StorageBucket;
+import ind.arvind.entity.StoredFile;
+import ind.arvind.repository.projection.ArchiveEntryRow;
+import ind.arvind.repository.projection.StoredFileRow;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Subquery;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Builds the search as one keyset-paged statement: scalar filters go on {@code stored_file}, and each
+ * metadata predicate becomes a correlated EXISTS on {@code file_metadata} so a file must satisfy all of them.
+ */
+public class StoredFileSearchRepositoryImpl implements StoredFileSearchRepository {
+    private static final char LIKE_ESCAPE = '\\';
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<StoredFileRow> searchPage(String owner, FileSearchRequestDto criteria, long afterId, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<StoredFileRow> query = cb.createQuery(StoredFileRow.class);
+        Root<StoredFile> file = query.from(StoredFile.class);
+        Join<StoredFile, StorageBucket> bucket = file.join("storageBucket", JoinType.LEFT);
+        query.select(cb.construct(StoredFileRow.class, file.get("id"), file.get("filename"), file.get("size"),
+                        file.get("contentType"), file.get("createdAt"), file.get("updatedAt"), file.get("owner"),
+                        bucket.get("name")))
+                .where(filters(cb, query, file, bucket, owner, criteria, afterId))
+                .orderBy(cb.asc(file.get("id")));
+        return entityManager.createQuery(query).setMaxResults(limit).getResultList();
+    }
+
+    @Override
+    public List<ArchiveEntryRow> archivePage(String owner, FileSearchRequestDto criteria, long afterId, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<ArchiveEntryRow> query = cb.createQuery(ArchiveEntryRow.class);
+        Root<StoredFile> file = query.from(StoredFile.class);
+        Join<StoredFile, StorageBucket> bucket = file.join("storageBucket", JoinType.LEFT);
+        query.select(cb.construct(ArchiveEntryRow.class, file.get("id"), file.get("filename"), file.get("size"),
+                        file.get("contentType"), file.get("updatedAt"), bucket.get("name"), file.get("storagePath"),
+                        file.get("contentEncoding")))
+                .where(filters(cb, query, file, bucket, owner, criteria, afterId))
+                .orderBy(cb.asc(file.get("id")));
+        return entityManager.createQuery(query).setMaxResults(limit).getResultList();
+    }
+
+    private Predicate[] filters(CriteriaBuilder cb, CriteriaQuery<?> query, Root<StoredFile> file,
+                                Join<StoredFile, StorageBucket> bucket, String owner, FileSearchRequestDto criteria,
+                                long afterId) {
+        List<Predicate> where = new ArrayList<>();
+        where.add(cb.equal(file.get("owner"), owner));
+        where.add(cb.greaterThan(file.get("id"), afterId));
+        if (criteria.getBucketName() != null) {
+            where.add(cb.equal(bucket.get("name"), criteria.getBucketName()));
+        }
+        if (criteria.getContentType() != null) {
+            where.add(cb.equal(file.get("contentType"), criteria.getContentType()));
+        }
+        if (criteria.getCreatedFrom() != null) {
+            where.add(cb.greaterThanOrEqualTo(file.get("createdAt"), criteria.getCreatedFrom()));
+        }
+        if (criteria.getCreatedTo() != null) {
+            where.add(cb.lessThan(file.get("createdAt"), criteria.getCreatedTo()));
+        }
+        for (MetadataPredicateDto predicate : criteria.getMetadata()) {
+            where.add(cb.exists(metadataSubquery(cb, query, file, predicate)));
+        }
+        return where.toArray(Predicate[]::new);
+    }
+
+    private Subquery<Integer> metadataSubquery(CriteriaBuilder cb, CriteriaQuery<?> query, Root<StoredFile> file,
+                                               MetadataPredicateDto predicate) {
+        Subquery<Integer> subquery = query.subquery(Integer.class);
+        Root<FileMetadata> metadata = subquery.from(FileMetadata.class);
+        Path<String> value = metadata.get("value");
+        List<Predicate> where = new ArrayList<>();
+        where.add(cb.equal(metadata.get("storedFile").get("id"), file.get("id")));
+        where.add(cb.equal(metadata.get("metaKey"), predicate.getKey()));
+        switch (predicate.getOp()) {
+            case EQ -> where.add(cb.equal(value, predicate.getValue()));
+            case PREFIX -> where.add(cb.like(value, escapeLike(predicate.getValue()) + "%", LIKE_ESCAPE));
+            case RANGE -> {
+                if (predicate.getFrom() != null) {
+                    where.add(cb.greaterThanOrEqualTo(value, predicate.getFrom()));
+                }
+                if (predicate.getTo() != null) {
+                    where.add(cb.lessThan(value, predicate.getTo()));
+                }
+            }
+        }
+        return subquery.select(cb.literal(1)).where(where.toArray(Predicate[]::new));
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
@@ -0,0 +1,23 @@
+package ind.arvind.repository;
+
+import ind.arvind.entity.UploadPart;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface UploadPartRepository extends JpaRepository<UploadPart, Long> {
+    List<UploadPart> findBySessionIdOrderByPartNumber(Long sessionId);
+
+    Optional<UploadPart> findBySessionIdAndPartNumber(Long sessionId, Integer partNumber);
+
+    @Query("select p.storagePath from UploadPart p where p.storagePath in :paths")
+    List<String> findStoragePathsIn(@Param("paths") Collection<String> paths);
+
+    @Modifying
+    @Query("delete from UploadPart p where p.session.id = :sessionId")
+    int deleteBySessionId(@Param("sessionId") Long sessionId);
+}
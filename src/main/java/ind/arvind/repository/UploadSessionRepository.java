@@ -0,0 +1,31 @@
+package ind.arvind.repository;
+
+import ind.arvind.entity.UploadSession;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+public interface UploadSessionRepository extends JpaRepository<UploadSession, Long> {
+    Optional<UploadSession> findByUploadIdAndOwner(String uploadId, String owner);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select s from UploadSession s where s.uploadId = :uploadId")
+    Optional<UploadSession> lockByUploadId(@Param("uploadId") String uploadId);
+
+    boolean existsByStorageBucketId(Long bucketId);
+
+    /** Ends the bucket's open uploads; the purge job then discards them with their parts. */
+    @Modifying
+    @Query("update UploadSession s set s.expiresAt = :now where s.storageBucket.id = :bucketId and s.expiresAt > :now")
+    int expireByBucketId(@Param("bucketId") Long bucketId, @Param("now") Instant now);
+
+    @Query("select s.uploadId from UploadSession s where s.expiresAt < :now order by s.expiresAt")
+    List<String> findExpiredUploadIds(@Param("now") Instant now, Limit limit);
+}
@@ -0,0 +1,31 @@
+package ind.arvind.repository;
+
+import ind.arvind.entity.UsageCounter;
+import ind.arvind.entity.UsageScope;
+import ind.arvind.repository.projection.UsageTotals;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface UsageCounterRepository extends JpaRepository<UsageCounter, Long> {
+    /** Returns 0 when the stripe does not exist yet. */
+    @Modifying
+    @Query("update UsageCounter c set c.fileCount = c.fileCount + :files, c.byteCount = c.byteCount + :bytes "
+            + "where c.scope = :scope and c.scopeKey = :scopeKey and c.shard = :shard")
+    int add(@Param("scope") UsageScope scope, @Param("scopeKey") String scopeKey, @Param("shard") int shard,
+            @Param("files") long files, @Param("bytes") long bytes);
+
+    @Query("select new ind.arvind.repository.projection.UsageTotals(coalesce(sum(c.fileCount), 0), "
+            + "coalesce(sum(c.byteCount), 0)) from UsageCounter c where c.scope = :scope and c.scopeKey = :scopeKey")
+    UsageTotals sumByScope(@Param("scope") UsageScope scope, @Param("scopeKey") String scopeKey);
+
+    @Query("select c.shard from UsageCounter c where c.scope = :scope and c.scopeKey = :scopeKey")
+    List<Integer> findShards(@Param("scope") UsageScope scope, @Param("scopeKey") String scopeKey);
+
+    @Modifying
+    @Query("delete from UsageCounter c where c.scope = :scope and c.scopeKey = :scopeKey")
+    int deleteByScope(@Param("scope") UsageScope scope, @Param("scopeKey") String scopeKey);
+}
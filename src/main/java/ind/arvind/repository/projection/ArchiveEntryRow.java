@@ -0,0 +1,8 @@
+package ind.arvind.repository.projection;
+
+import ind.arvind.entity.ContentEncoding;
+import java.time.Instant;
+
+public record ArchiveEntryRow(Long id, String filename, Long size, String contentType, Instant updatedAt,
+                              String bucketName, String storagePath, ContentEncoding contentEncoding) {
+}
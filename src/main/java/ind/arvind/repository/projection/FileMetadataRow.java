@@ -0,0 +1,4 @@
+package ind.arvind.repository.projection;
+
+public record FileMetadataRow(Long storedFileId, String metaKey, String value) {
+}
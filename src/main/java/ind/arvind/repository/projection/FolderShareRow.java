@@ -0,0 +1,8 @@
+package ind.arvind.repository.projection;
+
+import ind.arvind.entity.SharePermission;
+import java.time.Instant;
+
+public record FolderShareRow(Long id, String granteeEmail, SharePermission permission, Instant createdAt,
+                             Instant expiresAt) {
+}
@@ -0,0 +1,8 @@
+package ind.arvind.repository.projection;
+
+import ind.arvind.entity.ContentEncoding;
+
+/** What the scrubber needs to verify one file's blob without loading the entity. */
+public record ScrubRow(Long id, String storagePath, String checksum, Long size, Long storedSize,
+                       ContentEncoding contentEncoding) {
+}
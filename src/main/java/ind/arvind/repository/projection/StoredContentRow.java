@@ -0,0 +1,5 @@
+package ind.arvind.repository.projection;
+
+/** Just enough of a file to release its content reference and its usage. */
+public record StoredContentRow(Long id, String checksum, String storagePath, Long size, Long bucketId, String owner) {
+}
@@ -0,0 +1,7 @@
+package ind.arvind.repository.projection;
+
+import java.time.Instant;
+
+public record StoredFileRow(Long id, String filename, Long size, String contentType, Instant createdAt,
+                            Instant updatedAt, String owner, String bucketName) {
+}
@@ -0,0 +1,4 @@
+package ind.arvind.repository.projection;
+
+public record UsageRow(String scopeKey, Long fileCount, Long byteCount) {
+}
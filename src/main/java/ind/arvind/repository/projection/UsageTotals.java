@@ -0,0 +1,4 @@
+package ind.arvind.repository.projection;
+
+public record UsageTotals(Long fileCount, Long byteCount) {
+}
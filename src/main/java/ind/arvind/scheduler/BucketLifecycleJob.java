@@ -0,0 +1,37 @@
+package ind.arvind.scheduler;
+
+import ind.arvind.service.BucketService;
+import ind.arvind.service.impl.BucketJobWorker;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+public class BucketLifecycleJob {
+    private static final Logger log = LoggerFactory.getLogger(BucketLifecycleJob.class);
+    private final BucketJobWorker bucketJobWorker;
+    private final BucketService bucketService;
+
+    @Scheduled(fixedDelayString = "${storage.lifecycle.poll-interval:PT5S}")
+    public void dispatchJobs() {
+        int released = bucketJobWorker.releaseStale();
+        if (released > 0) {
+            log.warn("Requeued {} bucket jobs whose lease expired", released);
+        }
+        int dispatched = bucketJobWorker.dispatch();
+        if (dispatched > 0) {
+            log.debug("Dispatched {} bucket jobs", dispatched);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${storage.lifecycle.interval:PT1H}", initialDelayString = "${storage.lifecycle.interval:PT1H}")
+    public void scheduleExpiry() {
+        int queued = bucketService.scheduleExpiry();
+        if (queued > 0) {
+            log.info("Queued lifecycle expiry for {} buckets", queued);
+        }
+    }
+}
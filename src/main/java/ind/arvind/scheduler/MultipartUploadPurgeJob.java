@@ -0,0 +1,23 @@
+package ind.arvind.scheduler;
+
+import ind.arvind.service.MultipartUploadService;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+public class MultipartUploadPurgeJob {
+    private static final Logger log = LoggerFactory.getLogger(MultipartUploadPurgeJob.class);
+    private final MultipartUploadService multipartUploadService;
+
+    @Scheduled(fixedDelayString = "${storage.multipart.purge-interval:PT15M}")
+    public void purgeExpiredUploads() {
+        int purged = multipartUploadService.purgeExpired();
+        if (purged > 0) {
+            log.info("Purged {} expired multipart uploads", purged);
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package ind.arvind.scheduler;
+
+import ind.arvind.service.PackCompactionService;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+
+/** Compaction rewrites whole segments, so it runs on a thread of its own instead of the shared scheduler. */
+@Component
+@RequiredArgsConstructor
+public class PackCompactionJob {
+    private static final Logger log = LoggerFactory.getLogger(PackCompactionJob.class);
+    private static final String THREAD_NAME_PREFIX = "compaction-";
+
+    private final PackCompactionService packCompactionService;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(new CustomizableThreadFactory(THREAD_NAME_PREFIX));
+    private final Semaphore queued = new Semaphore(1);
+
+    @Scheduled(fixedDelayString = "${storage.packing.compaction-interval:PT1H}",
+            initialDelayString = "${storage.packing.compaction-interval:PT1H}")
+    public void compactPackSegments() {
+        if (!queued.tryAcquire()) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    int compacted = packCompactionService.compact();
+                    if (compacted > 0) {
+                        log.info("Compacted {} pack segments", compacted);
+                    }
+                } catch (RuntimeException e) {
+                    log.error("Pack compaction failed", e);
+                } finally {
+                    queued.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            queued.release();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
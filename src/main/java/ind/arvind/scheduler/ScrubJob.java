@@ -0,0 +1,39 @@
+package ind.arvind.scheduler;
+
+import ind.arvind.config.StorageProperties;
+import ind.arvind.service.ScrubService;
+import ind.arvind.service.impl.ScrubWorker;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+public class ScrubJob {
+    private static final Logger log = LoggerFactory.getLogger(ScrubJob.class);
+    private final ScrubWorker scrubWorker;
+    private final ScrubService scrubService;
+    private final StorageProperties storageProperties;
+
+    @Scheduled(fixedDelayString = "${storage.scrub.poll-interval:PT5S}")
+    public void dispatchRuns() {
+        int released = scrubWorker.releaseStale();
+        if (released > 0) {
+            log.warn("Requeued {} scrub runs whose lease expired", released);
+        }
+        scrubWorker.dispatch();
+    }
+
+    @Scheduled(fixedDelayString = "${storage.scrub.interval:P7D}", initialDelayString = "${storage.scrub.interval:P7D}")
+    public void scheduleRuns() {
+        if (!storageProperties.getScrub().isEnabled()) {
+            return;
+        }
+        int queued = scrubService.scheduleAll();
+        if (queued > 0) {
+            log.info("Queued {} scrub runs", queued);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package ind.arvind.scheduler;
+
+import ind.arvind.service.impl.ShareJobWorker;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+public class ShareOutboxPollJob {
+    private static final Logger log = LoggerFactory.getLogger(ShareOutboxPollJob.class);
+    private final ShareJobWorker shareJobWorker;
+
+    @Scheduled(fixedDelayString = "${share.poll-interval:PT1S}")
+    public void drainOutbox() {
+        int released = shareJobWorker.releaseStale();
+        if (released > 0) {
+            log.warn("Requeued {} share jobs whose lease expired", released);
+        }
+        int dispatched = shareJobWorker.dispatch();
+        if (dispatched > 0) {
+            log.debug("Dispatched {} share jobs", dispatched);
+        }
+    }
+}
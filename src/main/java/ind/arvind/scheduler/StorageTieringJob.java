@@ -0,0 +1,78 @@
+package ind.arvind.scheduler;
+
+import ind.arvind.service.TieringService;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Flushes and migrations copy blobs between tiers, so they run on a thread of their own instead of
+ * holding up the shared scheduler. They still run one at a time, as a promotion and a demotion of
+ * the same content must not race.
+ */
+@Component
+@RequiredArgsConstructor
+public class StorageTieringJob {
+    private static final Logger log = LoggerFactory.getLogger(StorageTieringJob.class);
+    private static final String THREAD_NAME_PREFIX = "tiering-";
+
+    private final TieringService tieringService;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(new CustomizableThreadFactory(THREAD_NAME_PREFIX));
+    private final Semaphore flushQueued = new Semaphore(1);
+    private final Semaphore demotionQueued = new Semaphore(1);
+
+    @Scheduled(fixedDelayString = "${storage.tiering.access-flush-interval:PT10S}")
+    public void flushAccessCounts() {
+        submit(flushQueued, () -> {
+            int flushed = tieringService.flushAccessCounts();
+            if (flushed > 0) {
+                log.debug("Flushed read counts of {} files", flushed);
+            }
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${storage.tiering.migration-interval:PT1H}",
+            initialDelayString = "${storage.tiering.migration-interval:PT1H}")
+    public void demoteUnreadContent() {
+        submit(demotionQueued, () -> {
+            int demoted = tieringService.demoteUnreadContent();
+            if (demoted > 0) {
+                log.info("Moved {} unread blobs to the cold tier", demoted);
+            }
+        });
+    }
+
+    /** Queues {@code task} unless it is already queued or running. */
+    private void submit(Semaphore queued, Runnable task) {
+        if (!queued.tryAcquire()) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    task.run();
+                } catch (RuntimeException e) {
+                    log.error("Tiering task failed", e);
+                } finally {
+                    queued.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            queued.release();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
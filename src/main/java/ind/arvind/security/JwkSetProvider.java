@@ -0,0 +1,109 @@
+package ind.arvind.security;
+
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKSet;
+import ind.arvind.config.JwtProperties;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.text.ParseException;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+
+/**
+ * Verification keys loaded from a local JWK set. The set is re-read periodically, and early when a
+ * token names a key id we have not seen (rate limited), so keys can be rotated by rewriting the file
+ * without a restart or any per-request network call.
+ */
+@Component
+public class JwkSetProvider {
+    private static final Logger log = LoggerFactory.getLogger(JwkSetProvider.class);
+    private static final String ERR_NO_LOCATION = "security.jwt.jwk-set-location must be set";
+
+    private final ResourceLoader resourceLoader;
+    private final JwtProperties jwtProperties;
+    private final List<Runnable> keyRemovalListeners = new CopyOnWriteArrayList<>();
+    private volatile JWKSet keySet = new JWKSet();
+    private volatile Instant lastReload = Instant.EPOCH;
+
+    public JwkSetProvider(ResourceLoader resourceLoader, JwtProperties jwtProperties) {
+        this.resourceLoader = resourceLoader;
+        this.jwtProperties = jwtProperties;
+    }
+
+    @PostConstruct
+    public void init() throws IOException, ParseException {
+        String location = jwtProperties.getJwkSetLocation();
+        if (location == null || location.isBlank()) {
+            throw new IllegalStateException(ERR_NO_LOCATION);
+        }
+        keySet = load();
+        lastReload = Instant.now();
+        log.info("Loaded {} JWT verification keys from {}", keySet.getKeys().size(), location);
+    }
+
+    public Optional<JWK> find(String keyId) {
+        JWK key = lookup(keyId);
+        if (key == null && keyId != null && reloadAllowed()) {
+            reload();
+            key = lookup(keyId);
+        }
+        return Optional.ofNullable(key);
+    }
+
+    public void onKeyRemoval(Runnable listener) {
+        keyRemovalListeners.add(listener);
+    }
+
+    @Scheduled(fixedDelayString = "${security.jwt.key-set-refresh-interval:PT1M}")
+    public synchronized void reload() {
+        try {
+            JWKSet loaded = load();
+            Set<String> previous = keyIds(keySet);
+            Set<String> current = keyIds(loaded);
+            keySet = loaded;
+            lastReload = Instant.now();
+            if (!current.containsAll(previous)) {
+                log.info("JWT verification keys removed; dropping cached tokens");
+                keyRemovalListeners.forEach(Runnable::run);
+            }
+        } catch (IOException | ParseException e) {
+            log.error("Unable to reload JWT verification keys from {}; keeping the current set",
+                    jwtProperties.getJwkSetLocation(), e);
+        }
+    }
+
+    private JWK lookup(String keyId) {
+        List<JWK> keys = keySet.getKeys();
+        if (keyId == null) {
+            return keys.size() == 1 ? keys.get(0) : null;
+        }
+        return keySet.getKeyByKeyId(keyId);
+    }
+
+    private boolean reloadAllowed() {
+        return lastReload.plus(jwtProperties.getUnknownKeyReloadInterval()).isBefore(Instant.now());
+    }
+
+    private JWKSet load() throws IOException, ParseException {
+        Resource resource = resourceLoader.getResource(jwtProperties.getJwkSetLocation());
+        try (InputStream in = resource.getInputStream()) {
+            return JWKSet.load(in);
+        }
+    }
+
+    private static Set<String> keyIds(JWKSet set) {
+        return set.getKeys().stream().map(JWK::getKeyID).collect(Collectors.toSet());
+    }
+}
@@ -0,0 +1,8 @@
+package ind.arvind.security;
+
+import java.time.Instant;
+
+public record JwtPrincipal(String owner, Instant expiresAt) {
+    /** Request attribute under which {@code JwtAuthorizationFilter} exposes the verified principal. */
+    public static final String REQUEST_ATTRIBUTE = "ind.arvind.security.JwtPrincipal";
+}
@@ -0,0 +1,143 @@
+package ind.arvind.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.JWSVerifier;
+import com.nimbusds.jose.crypto.factories.DefaultJWSVerifierFactory;
+import com.nimbusds.jose.jwk.AsymmetricJWK;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.SecretJWK;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import ind.arvind.config.JwtProperties;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Date;
+
+/**
+ * Verifies bearer tokens locally. A verified token's principal is cached under the SHA-256 of the
+ * token until the token expires, so repeat requests skip parsing and signature checks entirely.
+ */
+@Component
+public class JwtVerifier {
+    private static final String DIGEST_ALGORITHM = "SHA-256";
+
+    private final JwkSetProvider jwkSetProvider;
+    private final JwtProperties jwtProperties;
+    private final DefaultJWSVerifierFactory verifierFactory = new DefaultJWSVerifierFactory();
+    private final Cache<String, JwtPrincipal> principals;
+
+    public JwtVerifier(JwkSetProvider jwkSetProvider, JwtProperties jwtProperties) {
+        this.jwkSetProvider = jwkSetProvider;
+        this.jwtProperties = jwtProperties;
+        this.principals = Caffeine.newBuilder()
+                .maximumSize(jwtProperties.getClaimsCacheMaxSize())
+                .expireAfter(new UntilTokenExpiry())
+                .build();
+        jwkSetProvider.onKeyRemoval(principals::invalidateAll);
+    }
+
+    public JwtPrincipal verify(String token) {
+        String cacheKey = digest(token);
+        JwtPrincipal cached = principals.getIfPresent(cacheKey);
+        if (cached != null) {
+            return cached;
+        }
+        JwtPrincipal principal = parseAndVerify(token);
+        principals.put(cacheKey, principal);
+        return principal;
+    }
+
+    private JwtPrincipal parseAndVerify(String token) {
+        try {
+            SignedJWT jwt = SignedJWT.parse(token);
+            JWSHeader header = jwt.getHeader();
+            JWK jwk = jwkSetProvider.find(header.getKeyID())
+                    .orElseThrow(() -> new InvalidTokenException("Unknown signing key"));
+            if (jwk.getAlgorithm() != null && !jwk.getAlgorithm().equals(header.getAlgorithm())) {
+                throw new InvalidTokenException("Algorithm does not match signing key");
+            }
+            JWSVerifier verifier = verifierFactory.createJWSVerifier(header, toKey(jwk));
+            if (!jwt.verify(verifier)) {
+                throw new InvalidTokenException("Invalid signature");
+            }
+            return toPrincipal(jwt.getJWTClaimsSet());
+        } catch (ParseException e) {
+            throw new InvalidTokenException("Malformed token", e);
+        } catch (JOSEException e) {
+            throw new InvalidTokenException("Unverifiable token", e);
+        }
+    }
+
+    private JwtPrincipal toPrincipal(JWTClaimsSet claims) throws ParseException {
+        Instant now = Instant.now();
+        Duration skew = jwtProperties.getClockSkew();
+        Date expiration = claims.getExpirationTime();
+        if (expiration == null || now.isAfter(expiration.toInstant().plus(skew))) {
+            throw new InvalidTokenException("Token expired");
+        }
+        Date notBefore = claims.getNotBeforeTime();
+        if (notBefore != null && now.isBefore(notBefore.toInstant().minus(skew))) {
+            throw new InvalidTokenException("Token not yet valid");
+        }
+        if (jwtProperties.getIssuer() != null && !jwtProperties.getIssuer().equals(claims.getIssuer())) {
+            throw new InvalidTokenException("Unexpected issuer");
+        }
+        if (jwtProperties.getAudience() != null
+                && (claims.getAudience() == null || !claims.getAudience().contains(jwtProperties.getAudience()))) {
+            throw new InvalidTokenException("Unexpected audience");
+        }
+        String owner = claims.getStringClaim(jwtProperties.getPrincipalClaim());
+        if (owner == null || owner.isBlank()) {
+            throw new InvalidTokenException("Missing principal claim");
+        }
+        return new JwtPrincipal(owner, expiration.toInstant());
+    }
+
+    private static Key toKey(JWK jwk) throws JOSEException {
+        if (jwk instanceof AsymmetricJWK asymmetric) {
+            return asymmetric.toPublicKey();
+        }
+        if (jwk instanceof SecretJWK secret) {
+            return secret.toSecretKey();
+        }
+        throw new InvalidTokenException("Unsupported signing key type");
+    }
+
+    private static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance(DIGEST_ALGORITHM).digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static final class UntilTokenExpiry implements Expiry<String, JwtPrincipal> {
+        @Override
+        public long expireAfterCreate(String key, JwtPrincipal principal, long currentTime) {
+            return Math.max(0, Duration.between(Instant.now(), principal.expiresAt()).toNanos());
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, JwtPrincipal principal, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, principal, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, JwtPrincipal principal, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package ind.arvind.service;
+
+import ind.arvind.dto.BucketJobDto;
+import ind.arvind.dto.LifecyclePolicyDto;
+
+public interface BucketService {
+    /** Stops the bucket taking new files and queues its deletion; returns the job already queued if any. */
+    BucketJobDto deleteBucket(String bucketName, String owner);
+    BucketJobDto getJob(String jobId, String owner);
+    LifecyclePolicyDto getLifecycle(String bucketName, String owner);
+    LifecyclePolicyDto updateLifecycle(String bucketName, LifecyclePolicyDto policyDto, String owner);
+    /** Queues expiry for every bucket with lifecycle rules; returns the jobs queued. */
+    int scheduleExpiry();
+}
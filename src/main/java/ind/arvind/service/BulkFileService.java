@@ -0,0 +1,11 @@
+package ind.arvind.service;
+
+import ind.arvind.dto.BulkFileIdsDto;
+import ind.arvind.dto.BulkMetadataUpdateDto;
+import ind.arvind.dto.BulkResponseDto;
+
+public interface BulkFileService {
+    BulkResponseDto getFiles(BulkFileIdsDto requestDto, String owner);
+    BulkResponseDto deleteFiles(BulkFileIdsDto requestDto, String owner);
+    BulkResponseDto updateMetadata(BulkMetadataUpdateDto requestDto, String owner);
+}
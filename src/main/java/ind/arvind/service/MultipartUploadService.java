@@ -0,0 +1,17 @@
+package ind.arvind.service;
+
+import ind.arvind.dto.MultipartUploadCompleteRequestDto;
+import ind.arvind.dto.MultipartUploadDto;
+import ind.arvind.dto.MultipartUploadInitRequestDto;
+import ind.arvind.dto.StoredFileResponseDto;
+import ind.arvind.dto.UploadPartDto;
+import java.io.InputStream;
+
+public interface MultipartUploadService {
+    MultipartUploadDto initiate(MultipartUploadInitRequestDto requestDto, String owner);
+    UploadPartDto uploadPart(String uploadId, int partNumber, InputStream content, String owner);
+    MultipartUploadDto getUpload(String uploadId, String owner);
+    StoredFileResponseDto complete(String uploadId, MultipartUploadCompleteRequestDto requestDto, String owner);
+    void abort(String uploadId, String owner);
+    int purgeExpired();
+}
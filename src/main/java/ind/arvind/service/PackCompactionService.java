@@ -0,0 +1,6 @@
+package ind.arvind.service;
+
+public interface PackCompactionService {
+    /** Rewrites the live blobs of mostly-deleted pack segments and removes the segments; returns how many went. */
+    int compact();
+}
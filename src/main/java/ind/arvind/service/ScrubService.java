@@ -0,0 +1,14 @@
+package ind.arvind.service;
+
+import ind.arvind.dto.PageResponseDto;
+import ind.arvind.dto.ScrubFindingDto;
+import ind.arvind.dto.ScrubRunDto;
+
+public interface ScrubService {
+    /** Queues a scan of the bucket, or returns the one already queued or running. */
+    ScrubRunDto startBucketScrub(String bucketName, String owner);
+    ScrubRunDto getRun(Long runId, String owner);
+    PageResponseDto<ScrubFindingDto> getFindings(Long runId, String owner, String pageToken, int size);
+    /** Queues a scan of every bucket and an orphan scan of the blob store; returns the runs queued. */
+    int scheduleAll();
+}
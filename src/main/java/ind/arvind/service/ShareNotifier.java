@@ -0,0 +1,7 @@
+package ind.arvind.service;
+
+import java.util.List;
+
+public interface ShareNotifier {
+    void notifyRecipients(String folderpath, List<String> emails);
+}
@@ -1,10 +1,13 @@
 package ind.arvind.service;
 
+import ind.arvind.dto.FolderShareDto;
+import ind.arvind.dto.PageResponseDto;
+import ind.arvind.dto.ShareJobDto;
 import ind.arvind.dto.ShareRequestDto;
-import java.util.List;
 
 public interface ShareService {
-    void share(ShareRequestDto requestDto);
-    List<String> getSharedEmails(String folderpath);
+    ShareJobDto share(ShareRequestDto requestDto);
+    ShareJobDto getJob(String jobId);
+    PageResponseDto<FolderShareDto> getSharedEmails(String folderpath, String pageToken, int size);
 }
 
@@ -1,15 +1,36 @@
 package ind.arvind.service;
 
+import ind.arvind.dto.ArchiveRequestDto;
+import ind.arvind.dto.BucketPolicyDto;
+import ind.arvind.dto.FileFromHashRequestDto;
 import ind.arvind.dto.FileUploadRequestDto;
 import ind.arvind.dto.FileMetadataUpdateDto;
+import ind.arvind.dto.FileSearchRequestDto;
+import ind.arvind.dto.PageResponseDto;
 import ind.arvind.dto.StoredFileResponseDto;
-import java.util.List;
+import ind.arvind.storage.BlobWriteResult;
+import ind.arvind.storage.ContentVersion;
+import ind.arvind.storage.FileContent;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Map;
 
 public interface StorageService {
     StoredFileResponseDto uploadFile(FileUploadRequestDto requestDto, String owner);
-    List<StoredFileResponseDto> listFiles(String owner, int page, int size);
+    StoredFileResponseDto registerFile(String bucketName, String filename, String contentType,
+                                       Map<String, String> metadata, BlobWriteResult blob, String owner);
+    StoredFileResponseDto createFromHash(FileFromHashRequestDto requestDto, String owner);
+    PageResponseDto<StoredFileResponseDto> listFiles(String owner, String pageToken, int size);
+    PageResponseDto<StoredFileResponseDto> searchFiles(String owner, FileSearchRequestDto criteria, String pageToken, int size);
     StoredFileResponseDto getFile(Long fileId, String owner);
+    BucketPolicyDto updateBucketPolicy(String bucketName, BucketPolicyDto policyDto, String owner);
     void deleteFile(Long fileId, String owner);
     StoredFileResponseDto updateMetadata(Long fileId, FileMetadataUpdateDto metadataDto, String owner);
-    byte[] getFileContent(Long fileId, String owner);
+    FileContent openContent(Long fileId, String owner);
+
+    /** Validators and cache policy of a file's content; does not touch the blob store. */
+    ContentVersion describeContent(Long fileId, String owner);
+
+    /** Validates the selection, then writes the archive to {@code out} entry by entry. */
+    void streamArchive(ArchiveRequestDto requestDto, String owner, OutputStream out) throws IOException;
 }
@@ -0,0 +1,9 @@
+package ind.arvind.service;
+
+public interface TieringService {
+    /** Writes buffered read counts to the files and promotes cold content that is being read again. */
+    int flushAccessCounts();
+
+    /** Moves content that has not been read for {@code storage.tiering.cold-after} to the cold tier. */
+    int demoteUnreadContent();
+}
@@ -0,0 +1,8 @@
+package ind.arvind.service;
+
+import ind.arvind.dto.UsageDto;
+
+public interface UsageService {
+    UsageDto getOwnerUsage(String owner);
+    UsageDto getBucketUsage(String bucketName, String owner);
+}
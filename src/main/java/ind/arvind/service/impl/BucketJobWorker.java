@@ -0,0 +1,238 @@
+package ind.arvind.service.impl;
+
+import ind.arvind.config.StorageProperties;
+import ind.arvind.entity.BucketJob;
+import ind.arvind.entity.BucketJobStatus;
+import ind.arvind.entity.BucketJobType;
+import ind.arvind.entity.LifecycleRule;
+import ind.arvind.entity.UsageScope;
+import ind.arvind.repository.BucketJobRepository;
+import ind.arvind.repository.LifecycleRuleRepository;
+import ind.arvind.repository.StorageBucketRepository;
+import ind.arvind.repository.StoredFileRepository;
+import ind.arvind.repository.UploadSessionRepository;
+import ind.arvind.repository.UsageCounterRepository;
+import ind.arvind.repository.projection.StoredContentRow;
+import ind.arvind.service.MultipartUploadService;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.function.LongFunction;
+
+/**
+ * Runs bucket deletions and lifecycle expiry. Files go in chunks of {@code storage.lifecycle.chunk-size}:
+ * each chunk is deleted with bulk statements, its content released and the job's counters advanced
+ * in one short transaction, so no delete ever holds locks on a whole bucket. Jobs are claimed like
+ * share jobs and a job abandoned by a stopped node is resumed once its lease expires.
+ */
+@Slf4j
+@Component
+public class BucketJobWorker {
+    private static final String THREAD_NAME_PREFIX = "bucket-worker-";
+    private static final int MAX_ERROR_LENGTH = 1000;
+    private static final char LIKE_ESCAPE = '!';
+
+    private final BucketJobRepository bucketJobRepository;
+    private final StoredFileRepository storedFileRepository;
+    private final StorageBucketRepository storageBucketRepository;
+    private final LifecycleRuleRepository lifecycleRuleRepository;
+    private final UploadSessionRepository uploadSessionRepository;
+    private final UsageCounterRepository usageCounterRepository;
+    private final StoredFileRemover storedFileRemover;
+    private final MultipartUploadService multipartUploadService;
+    private final StorageProperties.Lifecycle lifecycleProperties;
+    private final TransactionTemplate transactionTemplate;
+    private final ExecutorService executor;
+    private final Semaphore inFlight;
+
+    public BucketJobWorker(BucketJobRepository bucketJobRepository, StoredFileRepository storedFileRepository,
+                           StorageBucketRepository storageBucketRepository, LifecycleRuleRepository lifecycleRuleRepository,
+                           UploadSessionRepository uploadSessionRepository, UsageCounterRepository usageCounterRepository,
+                           StoredFileRemover storedFileRemover, MultipartUploadService multipartUploadService,
+                           StorageProperties storageProperties, TransactionTemplate transactionTemplate) {
+        this.bucketJobRepository = bucketJobRepository;
+        this.storedFileRepository = storedFileRepository;
+        this.storageBucketRepository = storageBucketRepository;
+        this.lifecycleRuleRepository = lifecycleRuleRepository;
+        this.uploadSessionRepository = uploadSessionRepository;
+        this.usageCounterRepository = usageCounterRepository;
+        this.storedFileRemover = storedFileRemover;
+        this.multipartUploadService = multipartUploadService;
+        this.lifecycleProperties = storageProperties.getLifecycle();
+        this.transactionTemplate = transactionTemplate;
+        int threads = Math.max(1, lifecycleProperties.getWorkerThreads());
+        this.executor = Executors.newFixedThreadPool(threads, new CustomizableThreadFactory(THREAD_NAME_PREFIX));
+        this.inFlight = new Semaphore(threads);
+    }
+
+    public int dispatch() {
+        int free = inFlight.availablePermits();
+        if (free == 0) {
+            return 0;
+        }
+        Instant now = Instant.now();
+        List<String> jobIds = bucketJobRepository.findJobIdsByStatus(BucketJobStatus.PENDING, Limit.of(free));
+        int dispatched = 0;
+        for (String jobId : jobIds) {
+            if (!inFlight.tryAcquire()) {
+                break;
+            }
+            if (bucketJobRepository.claim(jobId, BucketJobStatus.PENDING, BucketJobStatus.RUNNING, now) == 0) {
+                inFlight.release();
+                continue;
+            }
+            try {
+                executor.execute(() -> {
+                    try {
+                        process(jobId);
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+                dispatched++;
+            } catch (RejectedExecutionException e) {
+                inFlight.release();
+                log.warn("Bucket worker pool is shutting down; job {} is resumed once its lease expires", jobId);
+                break;
+            }
+        }
+        return dispatched;
+    }
+
+    public int releaseStale() {
+        Instant now = Instant.now();
+        return bucketJobRepository.releaseStale(BucketJobStatus.PENDING, BucketJobStatus.RUNNING,
+                now.minus(lifecycleProperties.getLeaseTimeout()), now);
+    }
+
+    void process(String jobId) {
+        BucketJob job = bucketJobRepository.findByJobId(jobId).orElse(null);
+        if (job == null || job.getStatus() != BucketJobStatus.RUNNING) {
+            log.warn("Bucket job {} is no longer claimable", jobId);
+            return;
+        }
+        try {
+            long deleted = job.getType() == BucketJobType.DELETE_BUCKET ? deleteBucket(job) : expire(job);
+            bucketJobRepository.finish(jobId, BucketJobStatus.COMPLETED, null, Instant.now());
+            log.info("Bucket job {} ({} of bucket {}) completed after deleting {} files", jobId, job.getType(),
+                    job.getBucketName(), deleted);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.info("Bucket job {} interrupted; it is resumed once its lease expires", jobId);
+        } catch (RuntimeException e) {
+            log.error("Bucket job {} failed", jobId, e);
+            bucketJobRepository.finish(jobId, BucketJobStatus.FAILED, truncate(String.valueOf(e.getMessage())), Instant.now());
+        }
+    }
+
+    /**
+     * Empties the bucket, then removes it with its rules and counters. Uploads that were already past
+     * the bucket check when deletion was requested may still land, so emptying repeats until the
+     * final transaction finds no files left.
+     */
+    private long deleteBucket(BucketJob job) throws InterruptedException {
+        Long bucketId = job.getBucketId();
+        long deleted = 0;
+        do {
+            deleted += deleteInChunks(job, afterId -> storedFileRepository.findContentInBucket(bucketId,
+                    Limit.of(chunkSize())));
+            while (uploadSessionRepository.existsByStorageBucketId(bucketId)) {
+                if (multipartUploadService.purgeExpired() == 0) {
+                    throw new IllegalStateException("Uploads into bucket " + job.getBucketName() + " could not be purged");
+                }
+            }
+        } while (!Boolean.TRUE.equals(transactionTemplate.execute(status -> dropBucket(bucketId))));
+        return deleted;
+    }
+
+    private boolean dropBucket(Long bucketId) {
+        if (storedFileRepository.existsByStorageBucketId(bucketId)) {
+            return false;
+        }
+        lifecycleRuleRepository.deleteByBucketId(bucketId);
+        usageCounterRepository.deleteByScope(UsageScope.BUCKET, bucketId.toString());
+        storageBucketRepository.deleteBucketById(bucketId);
+        return true;
+    }
+
+    private long expire(BucketJob job) throws InterruptedException {
+        Instant now = Instant.now();
+        long deleted = 0;
+        for (LifecycleRule rule : lifecycleRuleRepository.findByStorageBucketIdOrderById(job.getBucketId())) {
+            Instant cutoff = now.minus(Duration.ofDays(rule.getExpireAfterDays()));
+            String filenamePattern = rule.getFilenamePrefix() == null ? null : likePrefix(rule.getFilenamePrefix());
+            deleted += deleteInChunks(job, afterId -> storedFileRepository.findContentExpiring(job.getBucketId(), cutoff,
+                    filenamePattern, rule.getMetadataKey(), rule.getMetadataValue(), afterId, Limit.of(chunkSize())));
+        }
+        return deleted;
+    }
+
+    /**
+     * Deletes what {@code nextChunk} returns until it runs dry, passing it the id the previous chunk
+     * ended at. Deleted files drop out of a lookup on their own; a filtered lookup still starts after
+     * that id, so files it passed over are not walked again for every chunk.
+     */
+    private long deleteInChunks(BucketJob job, LongFunction<List<StoredContentRow>> nextChunk) throws InterruptedException {
+        long deleted = 0;
+        long afterId = 0;
+        List<StoredContentRow> removed;
+        do {
+            if (Thread.currentThread().isInterrupted()) {
+                throw new InterruptedException();
+            }
+            long from = afterId;
+            removed = transactionTemplate.execute(status -> {
+                List<StoredContentRow> files = nextChunk.apply(from);
+                if (files.isEmpty()) {
+                    return files;
+                }
+                storedFileRemover.remove(files);
+                bucketJobRepository.recordProgress(job.getJobId(), files.size(),
+                        files.stream().mapToLong(StoredContentRow::size).sum(), Instant.now());
+                return files;
+            });
+            if (removed == null || removed.isEmpty()) {
+                break;
+            }
+            afterId = removed.get(removed.size() - 1).id();
+            deleted += removed.size();
+        } while (removed.size() == chunkSize());
+        return deleted;
+    }
+
+    private int chunkSize() {
+        return Math.max(1, lifecycleProperties.getChunkSize());
+    }
+
+    private static String likePrefix(String prefix) {
+        StringBuilder pattern = new StringBuilder(prefix.length() + 1);
+        for (char c : prefix.toCharArray()) {
+            if (c == '%' || c == '_' || c == LIKE_ESCAPE) {
+                pattern.append(LIKE_ESCAPE);
+            }
+            pattern.append(c);
+        }
+        return pattern.append('%').toString();
+    }
+
+    private static String truncate(String message) {
+        return message.length() <= MAX_ERROR_LENGTH ? message : message.substring(0, MAX_ERROR_LENGTH);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // Interrupted jobs keep their lease; whatever chunks they committed stay deleted.
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,200 @@
+package ind.arvind.service.impl;
+
+import ind.arvind.config.StorageProperties;
+import ind.arvind.dto.BucketJobDto;
+import ind.arvind.dto.LifecyclePolicyDto;
+import ind.arvind.dto.LifecycleRuleDto;
+import ind.arvind.entity.BucketJob;
+import ind.arvind.entity.BucketJobStatus;
+import ind.arvind.entity.BucketJobType;
+import ind.arvind.entity.LifecycleRule;
+import ind.arvind.entity.StorageBucket;
+import ind.arvind.repository.BucketJobRepository;
+import ind.arvind.repository.LifecycleRuleRepository;
+import ind.arvind.repository.StorageBucketRepository;
+import ind.arvind.repository.UploadSessionRepository;
+import ind.arvind.service.BucketService;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Instant;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+@Service
+@RequiredArgsConstructor
+public class BucketServiceImpl implements BucketService {
+    private static final Logger log = LoggerFactory.getLogger(BucketServiceImpl.class);
+    private static final String ERR_BUCKET_NOT_FOUND = "Bucket not found";
+    private static final String ERR_JOB_NOT_FOUND = "Bucket job not found";
+    private static final Set<BucketJobStatus> ACTIVE = EnumSet.of(BucketJobStatus.PENDING, BucketJobStatus.RUNNING);
+    private static final Set<BucketJobStatus> FINISHED = EnumSet.of(BucketJobStatus.COMPLETED, BucketJobStatus.FAILED);
+
+    private final StorageBucketRepository storageBucketRepository;
+    private final BucketJobRepository bucketJobRepository;
+    private final LifecycleRuleRepository lifecycleRuleRepository;
+    private final UploadSessionRepository uploadSessionRepository;
+    private final UsageCounters usageCounters;
+    private final BucketJobWorker bucketJobWorker;
+    private final StorageProperties storageProperties;
+
+    @Override
+    @Transactional
+    public BucketJobDto deleteBucket(String bucketName, String owner) {
+        log.info("Requesting deletion of bucket: {} for owner: {}", bucketName, owner);
+        StorageBucket bucket = findBucket(bucketName, owner);
+        Instant now = Instant.now();
+        if (bucket.getDeletionRequestedAt() == null) {
+            bucket.setDeletionRequestedAt(now);
+            uploadSessionRepository.expireByBucketId(bucket.getId(), now);
+        }
+        BucketJob job = bucketJobRepository.findFirstByBucketIdAndTypeAndStatusIn(bucket.getId(), BucketJobType.DELETE_BUCKET, ACTIVE)
+                .orElseGet(() -> enqueue(bucket, BucketJobType.DELETE_BUCKET,
+                        usageCounters.bucketUsage(bucket.getId()).fileCount()));
+        dispatchAfterCommit();
+        return toDto(job);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public BucketJobDto getJob(String jobId, String owner) {
+        return bucketJobRepository.findByJobId(jobId)
+                .filter(job -> job.getOwner().equals(owner))
+                .map(BucketServiceImpl::toDto)
+                .orElseThrow(() -> {
+                    log.error("{}: {}", ERR_JOB_NOT_FOUND, jobId);
+                    return new NoSuchElementException(ERR_JOB_NOT_FOUND);
+                });
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public LifecyclePolicyDto getLifecycle(String bucketName, String owner) {
+        return toPolicyDto(lifecycleRuleRepository.findByStorageBucketIdOrderById(findBucket(bucketName, owner).getId()));
+    }
+
+    @Override
+    @Transactional
+    public LifecyclePolicyDto updateLifecycle(String bucketName, LifecyclePolicyDto policyDto, String owner) {
+        log.info("Replacing lifecycle rules of bucket: {} for owner: {}", bucketName, owner);
+        StorageBucket bucket = findBucket(bucketName, owner);
+        if (bucket.getDeletionRequestedAt() != null) {
+            throw new IllegalArgumentException("Bucket is being deleted");
+        }
+        Instant now = Instant.now();
+        List<LifecycleRule> rules = policyDto.getRules().stream().map(rule -> {
+            if (rule.getMetadataValue() != null && rule.getMetadataKey() == null) {
+                throw new IllegalArgumentException("metadataValue requires metadataKey");
+            }
+            return LifecycleRule.builder()
+                    .storageBucket(bucket)
+                    .filenamePrefix(emptyToNull(rule.getPrefix()))
+                    .metadataKey(emptyToNull(rule.getMetadataKey()))
+                    .metadataValue(rule.getMetadataValue())
+                    .expireAfterDays(rule.getExpireAfterDays())
+                    .createdAt(now)
+                    .build();
+        }).toList();
+        lifecycleRuleRepository.deleteByBucketId(bucket.getId());
+        return toPolicyDto(lifecycleRuleRepository.saveAll(rules));
+    }
+
+    @Override
+    @Transactional
+    public int scheduleExpiry() {
+        Instant now = Instant.now();
+        int removed = bucketJobRepository.deleteFinishedBefore(FINISHED,
+                now.minus(storageProperties.getLifecycle().getJobRetention()));
+        if (removed > 0) {
+            log.info("Removed {} finished bucket jobs", removed);
+        }
+        int queued = 0;
+        for (StorageBucket bucket : storageBucketRepository.findWithLifecycleRules()) {
+            if (bucketJobRepository.findFirstByBucketIdAndTypeAndStatusIn(bucket.getId(), BucketJobType.EXPIRE, ACTIVE).isEmpty()) {
+                enqueue(bucket, BucketJobType.EXPIRE, null);
+                queued++;
+            }
+        }
+        dispatchAfterCommit();
+        return queued;
+    }
+
+    private StorageBucket findBucket(String bucketName, String owner) {
+        return storageBucketRepository.findByName(bucketName)
+                .filter(b -> b.getOwner().equals(owner))
+                .orElseThrow(() -> {
+                    log.error("{}: {}", ERR_BUCKET_NOT_FOUND, bucketName);
+                    return new IllegalArgumentException(ERR_BUCKET_NOT_FOUND);
+                });
+    }
+
+    private BucketJob enqueue(StorageBucket bucket, BucketJobType type, Long totalFiles) {
+        Instant now = Instant.now();
+        return bucketJobRepository.save(BucketJob.builder()
+                .jobId(UUID.randomUUID().toString())
+                .bucketId(bucket.getId())
+                .bucketName(bucket.getName())
+                .owner(bucket.getOwner())
+                .type(type)
+                .status(BucketJobStatus.PENDING)
+                .totalFiles(totalFiles)
+                .createdAt(now)
+                .updatedAt(now)
+                .build());
+    }
+
+    // Hands the new job to a worker straight away instead of waiting for the next poll.
+    private void dispatchAfterCommit() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                bucketJobWorker.dispatch();
+            }
+        });
+    }
+
+    private static String emptyToNull(String value) {
+        return Optional.ofNullable(value).filter(v -> !v.isEmpty()).orElse(null);
+    }
+
+    private static LifecyclePolicyDto toPolicyDto(List<LifecycleRule> rules) {
+        LifecyclePolicyDto dto = new LifecyclePolicyDto();
+        dto.setRules(rules.stream().map(rule -> {
+            LifecycleRuleDto ruleDto = new LifecycleRuleDto();
+            ruleDto.setPrefix(rule.getFilenamePrefix());
+            ruleDto.setMetadataKey(rule.getMetadataKey());
+            ruleDto.setMetadataValue(rule.getMetadataValue());
+            ruleDto.setExpireAfterDays(rule.getExpireAfterDays());
+            return ruleDto;
+        }).toList());
+        return dto;
+    }
+
+    private static BucketJobDto toDto(BucketJob job) {
+        BucketJobDto dto = new BucketJobDto();
+        dto.setJobId(job.getJobId());
+        dto.setBucketName(job.getBucketName());
+        dto.setType(job.getType().name());
+        dto.setStatus(job.getStatus().name());
+        dto.setTotalFiles(job.getTotalFiles());
+        dto.setFilesDeleted(job.getFilesDeleted());
+        dto.setBytesDeleted(job.getBytesDeleted());
+        dto.setLastError(job.getLastError());
+        dto.setCreatedAt(job.getCreatedAt());
+        dto.setUpdatedAt(job.getUpdatedAt());
+        dto.setFinishedAt(job.getFinishedAt());
+        return dto;
+    }
+}
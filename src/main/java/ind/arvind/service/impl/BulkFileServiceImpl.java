@@ -0,0 +1,172 @@
+package ind.arvind.service.impl;
+
+import ind.arvind.cache.StoredFileCache;
+import ind.arvind.dto.BulkFileIdsDto;
+import ind.arvind.dto.BulkItemResultDto;
+import ind.arvind.dto.BulkItemStatus;
+import ind.arvind.dto.BulkMetadataUpdateDto;
+import ind.arvind.dto.BulkResponseDto;
+import ind.arvind.dto.MetadataUpdateMode;
+import ind.arvind.dto.StoredFileResponseDto;
+import ind.arvind.entity.FileMetadata;
+import ind.arvind.entity.StoredFile;
+import ind.arvind.repository.FileMetadataRepository;
+import ind.arvind.repository.StoredFileRepository;
+import ind.arvind.repository.projection.FileMetadataRow;
+import ind.arvind.repository.projection.StoredContentRow;
+import ind.arvind.repository.projection.StoredFileRow;
+import ind.arvind.service.BulkFileService;
+import io.micrometer.core.annotation.Timed;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Bulk variants of the single-file operations. Ids are processed in chunks: each chunk loads its
+ * rows with one owner-scoped query and applies the change with bulk statements in its own
+ * transaction, so a failing chunk only fails its own items and a large request never holds locks
+ * for its whole duration.
+ */
+@Service
+@RequiredArgsConstructor
+@Timed(value = "storage.service.bulk", histogram = true)
+public class BulkFileServiceImpl implements BulkFileService {
+    private static final Logger log = LoggerFactory.getLogger(BulkFileServiceImpl.class);
+    private static final int CHUNK_SIZE = 200;
+
+    private final StoredFileRepository storedFileRepository;
+    private final FileMetadataRepository fileMetadataRepository;
+    private final StoredFileRemover storedFileRemover;
+    private final StoredFileCache storedFileCache;
+    private final TransactionTemplate transactionTemplate;
+
+    @Override
+    public BulkResponseDto getFiles(BulkFileIdsDto requestDto, String owner) {
+        List<Long> ids = distinct(requestDto.getFileIds());
+        log.info("Bulk get of {} files for owner: {}", ids.size(), owner);
+        Map<Long, BulkItemResultDto> results = new HashMap<>();
+        for (List<Long> chunk : chunks(ids)) {
+            List<StoredFileRow> rows = storedFileRepository.findRowsByOwnerAndIdIn(owner, chunk);
+            Map<Long, Map<String, String>> metadata = fileMetadataRepository
+                    .findRowsByStoredFileIdIn(rows.stream().map(StoredFileRow::id).toList()).stream()
+                    .collect(Collectors.groupingBy(FileMetadataRow::storedFileId,
+                            Collectors.toMap(FileMetadataRow::metaKey, FileMetadataRow::value)));
+            for (StoredFileRow row : rows) {
+                StoredFileResponseDto file = StoredFileMapper.toDto(row, metadata.getOrDefault(row.id(), Collections.emptyMap()));
+                results.put(row.id(), new BulkItemResultDto(row.id(), BulkItemStatus.OK, file));
+            }
+        }
+        return toResponse(ids, results);
+    }
+
+    @Override
+    public BulkResponseDto deleteFiles(BulkFileIdsDto requestDto, String owner) {
+        List<Long> ids = distinct(requestDto.getFileIds());
+        log.info("Bulk delete of {} files for owner: {}", ids.size(), owner);
+        return inChunks(ids, chunk -> {
+            List<StoredContentRow> files = storedFileRepository.findContentByOwnerAndIdIn(owner, chunk);
+            storedFileRemover.remove(files);
+            return files.stream().map(StoredContentRow::id).toList();
+        });
+    }
+
+    @Override
+    public BulkResponseDto updateMetadata(BulkMetadataUpdateDto requestDto, String owner) {
+        List<Long> ids = distinct(requestDto.getFileIds());
+        Map<String, String> metadata = requestDto.getMetadata();
+        log.info("Bulk {} metadata update of {} files for owner: {}", requestDto.getMode(), ids.size(), owner);
+        return inChunks(ids, chunk -> {
+            List<Long> found = storedFileRepository.findIdsByOwnerAndIdIn(owner, chunk);
+            if (found.isEmpty()) {
+                return found;
+            }
+            if (requestDto.getMode() == MetadataUpdateMode.DIFF) {
+                diffMetadata(found, metadata);
+            } else {
+                fileMetadataRepository.deleteByStoredFileIdIn(found);
+                fileMetadataRepository.saveAll(toMetadataRows(found, metadata));
+            }
+            storedFileRepository.touch(found, Instant.now());
+            found.forEach(storedFileCache::invalidate);
+            return found;
+        });
+    }
+
+    /** One read for the whole chunk, one delete for every removed key, and batched writes for the rest. */
+    private void diffMetadata(List<Long> fileIds, Map<String, String> metadata) {
+        Map<Long, Map<String, String>> added = new HashMap<>();
+        fileIds.forEach(id -> added.put(id, new LinkedHashMap<>(metadata)));
+        List<Long> removed = new ArrayList<>();
+        for (FileMetadata row : fileMetadataRepository.findByStoredFileIdIn(fileIds)) {
+            String value = added.get(row.getStoredFile().getId()).remove(row.getMetaKey());
+            if (value == null) {
+                removed.add(row.getId());
+            } else if (!value.equals(row.getValue())) {
+                row.setValue(value);
+            }
+        }
+        if (!removed.isEmpty()) {
+            fileMetadataRepository.deleteByIdIn(removed);
+        }
+        List<FileMetadata> rows = new ArrayList<>();
+        added.forEach((id, entries) -> rows.addAll(toMetadataRows(List.of(id), entries)));
+        if (!rows.isEmpty()) {
+            fileMetadataRepository.saveAll(rows);
+        }
+    }
+
+    private List<FileMetadata> toMetadataRows(List<Long> fileIds, Map<String, String> metadata) {
+        List<FileMetadata> rows = new ArrayList<>(fileIds.size() * metadata.size());
+        for (Long id : fileIds) {
+            StoredFile file = storedFileRepository.getReferenceById(id);
+            metadata.forEach((key, value) -> rows.add(FileMetadata.builder().storedFile(file).metaKey(key).value(value).build()));
+        }
+        return rows;
+    }
+
+    /** Runs {@code action} per chunk in its own transaction; it returns the ids it changed. */
+    private BulkResponseDto inChunks(List<Long> ids, Function<List<Long>, List<Long>> action) {
+        Map<Long, BulkItemResultDto> results = new HashMap<>();
+        for (List<Long> chunk : chunks(ids)) {
+            try {
+                List<Long> changed = transactionTemplate.execute(status -> action.apply(chunk));
+                Optional.ofNullable(changed).orElse(List.of())
+                        .forEach(id -> results.put(id, new BulkItemResultDto(id, BulkItemStatus.OK, null)));
+            } catch (RuntimeException e) {
+                log.error("Bulk chunk of {} files failed, starting at id {}", chunk.size(), chunk.get(0), e);
+                chunk.forEach(id -> results.put(id, new BulkItemResultDto(id, BulkItemStatus.FAILED, null)));
+            }
+        }
+        return toResponse(ids, results);
+    }
+
+    private static BulkResponseDto toResponse(List<Long> ids, Map<Long, BulkItemResultDto> results) {
+        List<BulkItemResultDto> items = ids.stream()
+                .map(id -> results.getOrDefault(id, new BulkItemResultDto(id, BulkItemStatus.NOT_FOUND, null)))
+                .toList();
+        BulkResponseDto response = new BulkResponseDto();
+        response.setItems(items);
+        response.setSucceeded((int) items.stream().filter(item -> item.getStatus() == BulkItemStatus.OK).count());
+        response.setFailed(items.size() - response.getSucceeded());
+        return response;
+    }
+
+    private static List<Long> distinct(List<Long> ids) {
+        return List.copyOf(new LinkedHashSet<>(ids));
+    }
+
+    private static List<List<Long>> chunks(List<Long> ids) {
+        List<List<Long>> chunks = new ArrayList<>();
+        for (int i = 0; i < ids.size(); i += CHUNK_SIZE) {
+            chunks.add(ids.subList(i, Math.min(ids.size(), i + CHUNK_SIZE)));
+        }
+        return chunks;
+    }
+}
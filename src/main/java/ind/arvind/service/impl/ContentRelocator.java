@@ -0,0 +1,64 @@
+package ind.arvind.service.impl;
+
+import ind.arvind.cache.StoredFileCache;
+import ind.arvind.entity.ContentBlob;
+import ind.arvind.repository.ContentBlobRepository;
+import ind.arvind.repository.StoredFileRepository;
+import ind.arvind.storage.BlobCleaner;
+import ind.arvind.storage.BlobWriteResult;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * Points stored content at a fresh copy of its blob. The registry row and every file sharing the
+ * content are repointed in one transaction and the old blob is dropped after commit; a relocation
+ * that loses a race with a delete or another relocation discards the copy instead.
+ */
+@Component
+@RequiredArgsConstructor
+public class ContentRelocator {
+    private static final Logger log = LoggerFactory.getLogger(ContentRelocator.class);
+    private final ContentBlobRepository contentBlobRepository;
+    private final StoredFileRepository storedFileRepository;
+    private final StoredFileCache storedFileCache;
+    private final BlobCleaner blobCleaner;
+    private final TransactionTemplate transactionTemplate;
+
+    public boolean relocate(ContentBlob blob, BlobWriteResult copy) {
+        String checksum = blob.getChecksum();
+        String source = blob.getStoragePath();
+        Boolean moved;
+        try {
+            moved = transactionTemplate.execute(status -> contentBlobRepository.lockByChecksum(checksum)
+                    .filter(current -> current.getStoragePath().equals(source))
+                    .map(current -> {
+                        blobCleaner.discardOnRollback(copy.location());
+                        current.setStoragePath(copy.location());
+                        current.setContentEncoding(copy.encoding());
+                        current.setStoredSize(copy.storedSize());
+                        current.setTier(copy.tier());
+                        List<Long> fileIds = storedFileRepository.findIdsByContent(checksum, source);
+                        storedFileRepository.moveContent(checksum, source, copy.location(), copy.encoding(),
+                                copy.storedSize(), copy.tier());
+                        fileIds.forEach(storedFileCache::invalidate);
+                        blobCleaner.deleteAfterCommit(source);
+                        return true;
+                    })
+                    .orElse(false));
+        } catch (RuntimeException e) {
+            log.warn("Unable to relocate content {} to {}", checksum, copy.location(), e);
+            return false;
+        }
+        if (!Boolean.TRUE.equals(moved)) {
+            log.info("Content {} changed while being copied to {}; dropping the copy", checksum, copy.location());
+            blobCleaner.deleteQuietly(copy.location());
+            return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,33 @@
+package ind.arvind.service.impl;
+
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Buffers per-file read counts in memory so that serving a file never costs a database write.
+ * The counts are drained and written in bulk by {@code TieringService#flushAccessCounts}; reads
+ * buffered when a node stops are lost, which the tiering heuristics tolerate.
+ */
+@Component
+public class FileAccessTracker {
+    private final ConcurrentHashMap<Long, Long> reads = new ConcurrentHashMap<>();
+
+    public void record(Long fileId) {
+        reads.merge(fileId, 1L, Long::sum);
+    }
+
+    /** Removes and returns the buffered counts; reads recorded concurrently land in the next drain. */
+    public Map<Long, Long> drain() {
+        Map<Long, Long> drained = new HashMap<>();
+        for (Long fileId : reads.keySet()) {
+            Long count = reads.remove(fileId);
+            if (count != null) {
+                drained.put(fileId, count);
+            }
+        }
+        return drained;
+    }
+}
@@ -0,0 +1,22 @@
+package ind.arvind.service.impl;
+
+import ind.arvind.service.ShareNotifier;
+import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
+import io.github.resilience4j.retry.annotation.Retry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+@Slf4j
+@Component
+public class LoggingShareNotifier implements ShareNotifier {
+
+    @Override
+    @Retry(name = "shareServiceRetry")
+    @CircuitBreaker(name = "shareServiceCB")
+    public void notifyRecipients(String folderpath, List<String> emails) {
+        // Simulate sending notification (e.g., email)
+        log.info("Notifying {} recipients of shared folder {}", emails.size(), folderpath);
+    }
+}
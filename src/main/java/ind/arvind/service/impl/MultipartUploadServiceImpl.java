@@ -0,0 +1,283 @@
+package ind.arvind.service.impl;
+
+import ind.arvind.config.StorageProperties;
+import ind.arvind.dto.MultipartUploadCompleteRequestDto;
+import ind.arvind.dto.MultipartUploadDto;
+import ind.arvind.dto.MultipartUploadInitRequestDto;
+import ind.arvind.dto.StoredFileResponseDto;
+import ind.arvind.dto.UploadPartDto;
+import ind.arvind.entity.StorageBucket;
+import ind.arvind.entity.UploadPart;
+import ind.arvind.entity.UploadSession;
+import ind.arvind.metrics.StorageMetrics;
+import ind.arvind.repository.StorageBucketRepository;
+import ind.arvind.repository.UploadPartRepository;
+import ind.arvind.repository.UploadSessionRepository;
+import ind.arvind.service.MultipartUploadService;
+import ind.arvind.service.StorageService;
+import ind.arvind.storage.BlobCleaner;
+import ind.arvind.storage.BlobStore;
+import ind.arvind.storage.BlobWriteResult;
+import io.micrometer.core.annotation.Timed;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+@Service
+@RequiredArgsConstructor
+@Timed(value = "storage.multipart", histogram = true)
+public class MultipartUploadServiceImpl implements MultipartUploadService {
+    private static final Logger log = LoggerFactory.getLogger(MultipartUploadServiceImpl.class);
+    private static final String ERR_BUCKET_NOT_FOUND = "Bucket not found";
+    private static final String ERR_UPLOAD_NOT_FOUND = "Upload not found";
+    private static final String DEFAULT_CONTENT_TYPE = "application/octet-stream";
+    private static final String DIGEST_ALGORITHM = "SHA-256";
+
+    private final UploadSessionRepository uploadSessionRepository;
+    private final UploadPartRepository uploadPartRepository;
+    private final StorageBucketRepository storageBucketRepository;
+    private final StorageService storageService;
+    private final BlobStore blobStore;
+    private final BlobCleaner blobCleaner;
+    private final StorageProperties storageProperties;
+    private final TransactionTemplate transactionTemplate;
+    private final StorageMetrics storageMetrics;
+
+    @Override
+    @Transactional
+    public MultipartUploadDto initiate(MultipartUploadInitRequestDto requestDto, String owner) {
+        log.info("Initiating multipart upload of {} for owner: {} in bucket: {}", requestDto.getFilename(), owner, requestDto.getBucketName());
+        StorageBucket bucket = storageBucketRepository.findByName(requestDto.getBucketName())
+                .filter(b -> b.getDeletionRequestedAt() == null)
+                .orElseThrow(() -> {
+                    log.error("{}: {}", ERR_BUCKET_NOT_FOUND, requestDto.getBucketName());
+                    return new IllegalArgumentException(ERR_BUCKET_NOT_FOUND);
+                });
+        Instant now = Instant.now();
+        UploadSession session = uploadSessionRepository.save(UploadSession.builder()
+                .uploadId(UUID.randomUUID().toString())
+                .filename(requestDto.getFilename())
+                .contentType(Optional.ofNullable(requestDto.getContentType()).orElse(DEFAULT_CONTENT_TYPE))
+                .owner(owner)
+                .storageBucket(bucket)
+                .createdAt(now)
+                .expiresAt(now.plus(storageProperties.getMultipart().getExpiry()))
+                .build());
+        log.info("Multipart upload initiated: {}", session.getUploadId());
+        return toDto(session, List.of());
+    }
+
+    @Override
+    public UploadPartDto uploadPart(String uploadId, int partNumber, InputStream content, String owner) {
+        validatePartNumber(partNumber);
+        uploadSessionRepository.findByUploadIdAndOwner(uploadId, owner)
+                .filter(this::isActive)
+                .orElseThrow(() -> notFound(uploadId));
+        BlobWriteResult blob;
+        try (StorageMetrics.Transfer ignored = storageMetrics.startUpload()) {
+            blob = blobStore.write(content);
+        } catch (IOException e) {
+            log.error("Error storing part {} of upload {}", partNumber, uploadId, e);
+            throw new RuntimeException("Error storing upload part", e);
+        }
+        try {
+            return transactionTemplate.execute(status -> recordPart(uploadId, partNumber, blob, owner));
+        } catch (RuntimeException e) {
+            blobCleaner.deleteQuietly(blob.location());
+            throw e;
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public MultipartUploadDto getUpload(String uploadId, String owner) {
+        UploadSession session = uploadSessionRepository.findByUploadIdAndOwner(uploadId, owner)
+                .filter(this::isActive)
+                .orElseThrow(() -> notFound(uploadId));
+        return toDto(session, uploadPartRepository.findBySessionIdOrderByPartNumber(session.getId()));
+    }
+
+    @Override
+    @Transactional
+    public StoredFileResponseDto complete(String uploadId, MultipartUploadCompleteRequestDto requestDto, String owner) {
+        log.info("Completing multipart upload {} for owner: {}", uploadId, owner);
+        UploadSession session = lockSession(uploadId, owner)
+                .filter(this::isActive)
+                .orElseThrow(() -> notFound(uploadId));
+        List<UploadPart> parts = uploadPartRepository.findBySessionIdOrderByPartNumber(session.getId());
+        validateParts(parts, Optional.ofNullable(requestDto).map(MultipartUploadCompleteRequestDto::getParts).orElse(null));
+        String location;
+        try {
+            // Segments stay where they are; the composed blob only references them.
+            location = blobStore.compose(parts.stream().map(UploadPart::getStoragePath).collect(Collectors.toList()));
+        } catch (IOException e) {
+            log.error("Error assembling upload {}", uploadId, e);
+            throw new RuntimeException("Error assembling upload", e);
+        }
+        // The parts stay with the session if registration fails, so only the manifest is discarded.
+        blobCleaner.discardManifestOnRollback(location);
+        long size = parts.stream().mapToLong(UploadPart::getSize).sum();
+        BlobWriteResult blob = new BlobWriteResult(location, size, combinedChecksum(parts));
+        StoredFileResponseDto response = storageService.registerFile(session.getStorageBucket().getName(),
+                session.getFilename(), session.getContentType(),
+                Optional.ofNullable(requestDto).map(MultipartUploadCompleteRequestDto::getMetadata).orElse(null),
+                blob, owner);
+        uploadPartRepository.deleteBySessionId(session.getId());
+        uploadSessionRepository.delete(session);
+        log.info("Multipart upload {} completed as file {} ({} parts, {} bytes)", uploadId, response.getId(), parts.size(), size);
+        return response;
+    }
+
+    @Override
+    @Transactional
+    public void abort(String uploadId, String owner) {
+        log.info("Aborting multipart upload {} for owner: {}", uploadId, owner);
+        UploadSession session = lockSession(uploadId, owner).orElseThrow(() -> notFound(uploadId));
+        discard(session);
+    }
+
+    @Override
+    public int purgeExpired() {
+        Instant now = Instant.now();
+        List<String> expired = uploadSessionRepository.findExpiredUploadIds(now,
+                Limit.of(storageProperties.getMultipart().getPurgeBatchSize()));
+        int purged = 0;
+        for (String uploadId : expired) {
+            Boolean discarded = transactionTemplate.execute(status -> uploadSessionRepository.lockByUploadId(uploadId)
+                    .filter(session -> session.getExpiresAt().isBefore(now))
+                    .map(session -> {
+                        discard(session);
+                        return true;
+                    })
+                    .orElse(false));
+            if (Boolean.TRUE.equals(discarded)) {
+                purged++;
+            }
+        }
+        return purged;
+    }
+
+    private UploadPartDto recordPart(String uploadId, int partNumber, BlobWriteResult blob, String owner) {
+        UploadSession session = lockSession(uploadId, owner)
+                .filter(this::isActive)
+                .orElseThrow(() -> notFound(uploadId));
+        Optional<UploadPart> existing = uploadPartRepository.findBySessionIdAndPartNumber(session.getId(), partNumber);
+        existing.map(UploadPart::getStoragePath).ifPresent(blobCleaner::deleteAfterCommit);
+        UploadPart part = existing.orElseGet(() -> UploadPart.builder().session(session).partNumber(partNumber).build());
+        part.setSize(blob.size());
+        part.setChecksum(blob.sha256());
+        part.setStoragePath(blob.location());
+        part.setUploadedAt(Instant.now());
+        storageMetrics.recordBytesIn(session.getStorageBucket().getName(), owner, blob.size());
+        log.info("Stored part {} of upload {} ({} bytes)", partNumber, uploadId, blob.size());
+        return toDto(uploadPartRepository.save(part));
+    }
+
+    private void discard(UploadSession session) {
+        List<UploadPart> parts = uploadPartRepository.findBySessionIdOrderByPartNumber(session.getId());
+        uploadPartRepository.deleteBySessionId(session.getId());
+        uploadSessionRepository.delete(session);
+        parts.forEach(part -> blobCleaner.deleteAfterCommit(part.getStoragePath()));
+    }
+
+    private Optional<UploadSession> lockSession(String uploadId, String owner) {
+        return uploadSessionRepository.lockByUploadId(uploadId).filter(session -> session.getOwner().equals(owner));
+    }
+
+    private boolean isActive(UploadSession session) {
+        return session.getExpiresAt().isAfter(Instant.now());
+    }
+
+    private void validatePartNumber(int partNumber) {
+        int maxParts = storageProperties.getMultipart().getMaxParts();
+        if (partNumber < 1 || partNumber > maxParts) {
+            throw new IllegalArgumentException("Part number must be between 1 and " + maxParts);
+        }
+    }
+
+    private static void validateParts(List<UploadPart> parts, List<UploadPartDto> expected) {
+        if (parts.isEmpty()) {
+            throw new IllegalArgumentException("Upload has no parts");
+        }
+        for (int i = 0; i < parts.size(); i++) {
+            if (parts.get(i).getPartNumber() != i + 1) {
+                throw new IllegalArgumentException("Upload is missing part " + (i + 1));
+            }
+        }
+        if (expected == null) {
+            return;
+        }
+        if (expected.size() != parts.size()) {
+            throw new IllegalArgumentException("Expected " + expected.size() + " parts but received " + parts.size());
+        }
+        for (UploadPartDto part : expected) {
+            if (part.getPartNumber() == null || part.getPartNumber() < 1 || part.getPartNumber() > parts.size()) {
+                throw new IllegalArgumentException("Unknown part " + part.getPartNumber());
+            }
+            UploadPart received = parts.get(part.getPartNumber() - 1);
+            if (part.getSha256() != null && !part.getSha256().equalsIgnoreCase(received.getChecksum())) {
+                throw new IllegalArgumentException("Checksum mismatch for part " + part.getPartNumber());
+            }
+        }
+    }
+
+    /**
+     * Single-part uploads keep their plain SHA-256. Multi-part uploads get a digest over the part
+     * digests suffixed with the part count, so completion never has to re-read the content. Such
+     * content therefore never deduplicates against the same bytes uploaded in one piece.
+     */
+    private static String combinedChecksum(List<UploadPart> parts) {
+        if (parts.size() == 1) {
+            return parts.get(0).getChecksum();
+        }
+        try {
+            MessageDigest digest = MessageDigest.getInstance(DIGEST_ALGORITHM);
+            parts.forEach(part -> digest.update(HexFormat.of().parseHex(part.getChecksum())));
+            return HexFormat.of().formatHex(digest.digest()) + "-" + parts.size();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(DIGEST_ALGORITHM + " not available", e);
+        }
+    }
+
+    private static NoSuchElementException notFound(String uploadId) {
+        log.error("{}: {}", ERR_UPLOAD_NOT_FOUND, uploadId);
+        return new NoSuchElementException(ERR_UPLOAD_NOT_FOUND);
+    }
+
+    private static MultipartUploadDto toDto(UploadSession session, List<UploadPart> parts) {
+        MultipartUploadDto dto = new MultipartUploadDto();
+        dto.setUploadId(session.getUploadId());
+        dto.setBucketName(session.getStorageBucket().getName());
+        dto.setFilename(session.getFilename());
+        dto.setContentType(session.getContentType());
+        dto.setCreatedAt(session.getCreatedAt());
+        dto.setExpiresAt(session.getExpiresAt());
+        dto.setParts(parts.stream().map(MultipartUploadServiceImpl::toDto).collect(Collectors.toList()));
+        return dto;
+    }
+
+    private static UploadPartDto toDto(UploadPart part) {
+        UploadPartDto dto = new UploadPartDto();
+        dto.setPartNumber(part.getPartNumber());
+        dto.setSize(part.getSize());
+        dto.setSha256(part.getChecksum());
+        dto.setUploadedAt(part.getUploadedAt());
+        return dto;
+    }
+}
@@ -0,0 +1,93 @@
+package ind.arvind.service.impl;
+
+import ind.arvind.config.StorageProperties;
+import ind.arvind.entity.ContentBlob;
+import ind.arvind.entity.ContentEncoding;
+import ind.arvind.repository.ContentBlobRepository;
+import ind.arvind.service.PackCompactionService;
+import ind.arvind.storage.BlobStore;
+import ind.arvind.storage.BlobWriteResult;
+import ind.arvind.storage.PackSegment;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Reclaims the space deleted files leave in pack segments. Live blobs of a segment are appended to
+ * the active segment and switched over one by one, so readers keep working throughout; a reader
+ * that still holds the old location gets it refreshed once the segment is gone.
+ */
+@Service
+@RequiredArgsConstructor
+public class PackCompactionServiceImpl implements PackCompactionService {
+    private static final Logger log = LoggerFactory.getLogger(PackCompactionServiceImpl.class);
+
+    private final ContentBlobRepository contentBlobRepository;
+    private final BlobStore blobStore;
+    private final ContentRelocator contentRelocator;
+    private final StorageProperties storageProperties;
+
+    @Override
+    public int compact() {
+        StorageProperties.Packing packing = storageProperties.getPacking();
+        List<PackSegment> segments;
+        try {
+            segments = blobStore.sealedPackSegments();
+        } catch (IOException e) {
+            log.warn("Unable to list pack segments", e);
+            return 0;
+        }
+        Instant sealedBefore = Instant.now().minus(packing.getCompactionGrace());
+        int compacted = 0;
+        for (PackSegment segment : segments) {
+            if (segment.sealedAt().isAfter(sealedBefore)) {
+                continue;
+            }
+            List<ContentBlob> live = contentBlobRepository.findByStoragePathStartingWith(segment.locationPrefix());
+            long liveBytes = live.stream().mapToLong(PackCompactionServiceImpl::storedSize).sum();
+            if (!live.isEmpty() && liveBytes > segment.size() * (1 - packing.getCompactionGarbageRatio())) {
+                continue;
+            }
+            if (compact(segment, live)) {
+                log.info("Compacted pack segment {}: kept {} blobs ({} of {} bytes)", segment.locationPrefix(),
+                        live.size(), liveBytes, segment.size());
+                compacted++;
+            }
+        }
+        return compacted;
+    }
+
+    private boolean compact(PackSegment segment, List<ContentBlob> live) {
+        for (ContentBlob blob : live) {
+            try {
+                String location = blobStore.transfer(blob.getStoragePath(), segment.tier());
+                ContentEncoding encoding = Optional.ofNullable(blob.getContentEncoding()).orElse(ContentEncoding.IDENTITY);
+                contentRelocator.relocate(blob, new BlobWriteResult(location, blob.getSize(), blob.getChecksum(),
+                        encoding, storedSize(blob), 0, segment.tier()));
+            } catch (IOException | RuntimeException e) {
+                log.warn("Unable to move content {} out of pack segment {}", blob.getChecksum(), segment.locationPrefix(), e);
+            }
+        }
+        // Anything that lost a race or failed above keeps the segment alive until the next run.
+        if (contentBlobRepository.existsByStoragePathStartingWith(segment.locationPrefix())) {
+            return false;
+        }
+        try {
+            blobStore.deletePackSegment(segment);
+            return true;
+        } catch (IOException e) {
+            log.warn("Unable to delete pack segment {}", segment.locationPrefix(), e);
+            return false;
+        }
+    }
+
+    private static long storedSize(ContentBlob blob) {
+        return Optional.ofNullable(blob.getStoredSize()).orElse(blob.getSize());
+    }
+}
@@ -0,0 +1,31 @@
+package ind.arvind.service.impl;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Opaque continuation tokens for keyset pagination. A token encodes the last id of the previous
+ * page; an absent token starts from the beginning.
+ */
+public final class PageTokens {
+    private static final long FIRST_PAGE = 0L;
+    private static final String ERR_INVALID_TOKEN = "Invalid page token";
+
+    private PageTokens() {
+    }
+
+    public static String encode(long lastId) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(Long.toString(lastId).getBytes(StandardCharsets.US_ASCII));
+    }
+
+    public static long decode(String token) {
+        if (token == null || token.isBlank()) {
+            return FIRST_PAGE;
+        }
+        try {
+            return Long.parseLong(new String(Base64.getUrlDecoder().decode(token), StandardCharsets.US_ASCII));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(ERR_INVALID_TOKEN, e);
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package ind.arvind.service.impl;
+
+import ind.arvind.dto.PageResponseDto;
+import ind.arvind.dto.ScrubFindingDto;
+import ind.arvind.dto.ScrubRunDto;
+import ind.arvind.entity.ScrubFinding;
+import ind.arvind.entity.ScrubRun;
+import ind.arvind.entity.ScrubStatus;
+import ind.arvind.entity.StorageBucket;
+import ind.arvind.repository.ScrubFindingRepository;
+import ind.arvind.repository.ScrubRunRepository;
+import ind.arvind.repository.StorageBucketRepository;
+import ind.arvind.service.ScrubService;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Instant;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.Set;
+
+@Service
+@RequiredArgsConstructor
+public class ScrubServiceImpl implements ScrubService {
+    private static final Logger log = LoggerFactory.getLogger(ScrubServiceImpl.class);
+    private static final String ERR_BUCKET_NOT_FOUND = "Bucket not found";
+    private static final String ERR_RUN_NOT_FOUND = "Scrub run not found";
+    private static final Set<ScrubStatus> ACTIVE = EnumSet.of(ScrubStatus.PENDING, ScrubStatus.RUNNING);
+    private static final int MAX_PAGE_SIZE = 1000;
+
+    private final ScrubRunRepository scrubRunRepository;
+    private final ScrubFindingRepository scrubFindingRepository;
+    private final StorageBucketRepository storageBucketRepository;
+    private final ScrubWorker scrubWorker;
+
+    @Override
+    @Transactional
+    public ScrubRunDto startBucketScrub(String bucketName, String owner) {
+        StorageBucket bucket = storageBucketRepository.findByName(bucketName)
+                .filter(b -> b.getOwner().equals(owner) && b.getDeletionRequestedAt() == null)
+                .orElseThrow(() -> {
+                    log.error("{}: {}", ERR_BUCKET_NOT_FOUND, bucketName);
+                    return new IllegalArgumentException(ERR_BUCKET_NOT_FOUND);
+                });
+        ScrubRun run = enqueue(bucket.getId(), bucket.getOwner()).orElseGet(() ->
+                scrubRunRepository.findActive(bucket.getId(), ACTIVE).orElseThrow());
+        dispatchAfterCommit();
+        return toDto(run, bucket.getName());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public ScrubRunDto getRun(Long runId, String owner) {
+        ScrubRun run = findRun(runId, owner);
+        return toDto(run, storageBucketRepository.findById(run.getBucketId()).map(StorageBucket::getName).orElse(null));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public PageResponseDto<ScrubFindingDto> getFindings(Long runId, String owner, String pageToken, int size) {
+        findRun(runId, owner);
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        List<ScrubFinding> rows = scrubFindingRepository.findByRunIdAndIdGreaterThanOrderById(runId,
+                PageTokens.decode(pageToken), Limit.of(pageSize + 1));
+        boolean hasMore = rows.size() > pageSize;
+        List<ScrubFinding> page = hasMore ? rows.subList(0, pageSize) : rows;
+        PageResponseDto<ScrubFindingDto> response = new PageResponseDto<>();
+        response.setItems(page.stream().map(ScrubServiceImpl::toDto).toList());
+        response.setSize(page.size());
+        response.setNextPageToken(hasMore ? PageTokens.encode(page.get(page.size() - 1).getId()) : null);
+        return response;
+    }
+
+    @Override
+    @Transactional
+    public int scheduleAll() {
+        int queued = 0;
+        for (StorageBucket bucket : storageBucketRepository.findAll()) {
+            if (bucket.getDeletionRequestedAt() == null && enqueue(bucket.getId(), bucket.getOwner()).isPresent()) {
+                queued++;
+            }
+        }
+        if (enqueue(null, null).isPresent()) {
+            queued++;
+        }
+        dispatchAfterCommit();
+        return queued;
+    }
+
+    // A bucket with a scan already queued or running does not get a second one.
+    private Optional<ScrubRun> enqueue(Long bucketId, String owner) {
+        if (scrubRunRepository.findActive(bucketId, ACTIVE).isPresent()) {
+            return Optional.empty();
+        }
+        Instant now = Instant.now();
+        return Optional.of(scrubRunRepository.save(ScrubRun.builder()
+                .bucketId(bucketId)
+                .owner(owner)
+                .status(ScrubStatus.PENDING)
+                .createdAt(now)
+                .updatedAt(now)
+                .build()));
+    }
+
+    // Orphan scans cover every owner's blobs and are not exposed through the API.
+    private ScrubRun findRun(Long runId, String owner) {
+        return scrubRunRepository.findById(runId)
+                .filter(run -> run.getBucketId() != null && owner.equals(run.getOwner()))
+                .orElseThrow(() -> {
+                    log.error("{}: {}", ERR_RUN_NOT_FOUND, runId);
+                    return new NoSuchElementException(ERR_RUN_NOT_FOUND);
+                });
+    }
+
+    private void dispatchAfterCommit() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                scrubWorker.dispatch();
+            }
+        });
+    }
+
+    private static ScrubRunDto toDto(ScrubRun run, String bucketName) {
+        ScrubRunDto dto = new ScrubRunDto();
+        dto.setRunId(run.getId());
+        dto.setBucketName(bucketName);
+        dto.setStatus(run.getStatus().name());
+        dto.setFilesChecked(run.getFilesChecked());
+        dto.setBytesChecked(run.getBytesChecked());
+        dto.setFindingCount(run.getFindingCount());
+        dto.setLastError(run.getLastError());
+        dto.setCreatedAt(run.getCreatedAt());
+        dto.setUpdatedAt(run.getUpdatedAt());
+        dto.setFinishedAt(run.getFinishedAt());
+        return dto;
+    }
+
+    private static ScrubFindingDto toDto(ScrubFinding finding) {
+        ScrubFindingDto dto = new ScrubFindingDto();
+        dto.setKind(finding.getKind().name());
+        dto.setFileId(finding.getFileId());
+        dto.setStoragePath(finding.getStoragePath());
+        dto.setDetail(finding.getDetail());
+        dto.setDetectedAt(finding.getDetectedAt());
+        return dto;
+    }
+}
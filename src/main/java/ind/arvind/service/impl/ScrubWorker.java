@@ -0,0 +1,531 @@
+package ind.arvind.service.impl;
+
+import ind.arvind.config.StorageProperties;
+import ind.arvind.entity.ContentBlob;
+import ind.arvind.entity.ScrubFinding;
+import ind.arvind.entity.ScrubFindingKind;
+import ind.arvind.entity.ScrubRun;
+import ind.arvind.entity.ScrubStatus;
+import ind.arvind.repository.ContentBlobRepository;
+import ind.arvind.repository.ScrubFindingRepository;
+import ind.arvind.repository.ScrubRunRepository;
+import ind.arvind.repository.StoredFileRepository;
+import ind.arvind.repository.UploadPartRepository;
+import ind.arvind.repository.projection.ScrubRow;
+import ind.arvind.storage.BlobEntry;
+import ind.arvind.storage.BlobReader;
+import ind.arvind.storage.BlobStore;
+import ind.arvind.storage.ContentCodecs;
+import ind.arvind.storage.IoThrottle;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.NoSuchFileException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Runs integrity scans. A node works on one run at a time: its coordinator thread pages through the
+ * run in keyset order, verifies each chunk on a fork-join pool sized to {@code storage.scrub.io-concurrency},
+ * and commits the chunk's findings together with the new checkpoint. Runs are claimed like share
+ * jobs, so one abandoned by a stopped node is resumed from its checkpoint once the lease expires.
+ * The lease is renewed with each checkpoint and, while a slow chunk is still being read, on a timer;
+ * a node that lost its lease anyway stops without writing to the run again.
+ */
+@Slf4j
+@Component
+public class ScrubWorker {
+    private static final String THREAD_NAME_PREFIX = "scrub-";
+    private static final String IO_THREAD_NAME_PREFIX = "scrub-io-";
+    private static final String DIGEST_ALGORITHM = "SHA-256";
+    private static final String COMPOSITE_CHECKSUM_SEPARATOR = "-";
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    private final ScrubRunRepository scrubRunRepository;
+    private final ScrubFindingRepository scrubFindingRepository;
+    private final StoredFileRepository storedFileRepository;
+    private final ContentBlobRepository contentBlobRepository;
+    private final UploadPartRepository uploadPartRepository;
+    private final BlobStore blobStore;
+    private final StorageProperties.Scrub scrubProperties;
+    private final TransactionTemplate transactionTemplate;
+    private final IoThrottle throttle;
+    private final ExecutorService coordinator;
+    private final ForkJoinPool ioPool;
+    private final Semaphore running = new Semaphore(1);
+
+    public ScrubWorker(ScrubRunRepository scrubRunRepository, ScrubFindingRepository scrubFindingRepository,
+                       StoredFileRepository storedFileRepository, ContentBlobRepository contentBlobRepository,
+                       UploadPartRepository uploadPartRepository, BlobStore blobStore,
+                       StorageProperties storageProperties, TransactionTemplate transactionTemplate) {
+        this.scrubRunRepository = scrubRunRepository;
+        this.scrubFindingRepository = scrubFindingRepository;
+        this.storedFileRepository = storedFileRepository;
+        this.contentBlobRepository = contentBlobRepository;
+        this.uploadPartRepository = uploadPartRepository;
+        this.blobStore = blobStore;
+        this.scrubProperties = storageProperties.getScrub();
+        this.transactionTemplate = transactionTemplate;
+        this.throttle = new IoThrottle(scrubProperties.getMaxBytesPerSecond());
+        this.coordinator = Executors.newSingleThreadExecutor(new CustomizableThreadFactory(THREAD_NAME_PREFIX));
+        this.ioPool = new ForkJoinPool(Math.max(1, scrubProperties.getIoConcurrency()), pool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName(IO_THREAD_NAME_PREFIX + thread.getPoolIndex());
+            return thread;
+        }, null, false);
+    }
+
+    public int dispatch() {
+        if (!running.tryAcquire()) {
+            return 0;
+        }
+        Long runId = null;
+        Instant now = leaseTime();
+        for (Long candidate : scrubRunRepository.findIdsByStatus(ScrubStatus.PENDING, Limit.of(1))) {
+            if (scrubRunRepository.claim(candidate, ScrubStatus.PENDING, ScrubStatus.RUNNING, now) > 0) {
+                runId = candidate;
+            }
+        }
+        if (runId == null) {
+            running.release();
+            return 0;
+        }
+        Long claimed = runId;
+        try {
+            coordinator.execute(() -> {
+                try {
+                    process(claimed, now);
+                } finally {
+                    running.release();
+                }
+            });
+            return 1;
+        } catch (RejectedExecutionException e) {
+            running.release();
+            log.warn("Scrub worker is shutting down; run {} is resumed once its lease expires", claimed);
+            return 0;
+        }
+    }
+
+    public int releaseStale() {
+        Instant now = Instant.now();
+        return scrubRunRepository.releaseStale(ScrubStatus.PENDING, ScrubStatus.RUNNING,
+                now.minus(scrubProperties.getLeaseTimeout()), now);
+    }
+
+    void process(Long runId, Instant claimedAt) {
+        ScrubRun run = scrubRunRepository.findById(runId).orElse(null);
+        if (run == null || run.getStatus() != ScrubStatus.RUNNING || !claimedAt.equals(run.getClaimedAt())) {
+            log.warn("Scrub run {} is no longer claimable", runId);
+            return;
+        }
+        log.info("Scrub run {} {} from checkpoint {}", runId,
+                run.getBucketId() == null ? "scanning for orphans" : "scanning bucket " + run.getBucketId(),
+                run.getCheckpoint());
+        Lease lease = new Lease(runId, claimedAt);
+        try {
+            if (run.getBucketId() == null) {
+                scanOrphans(run, lease);
+            } else {
+                scanBucket(run, lease);
+            }
+            finish(lease, ScrubStatus.COMPLETED, null);
+            log.info("Scrub run {} completed", runId);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.info("Scrub run {} interrupted; it resumes from its last checkpoint", runId);
+        } catch (LeaseLostException e) {
+            log.warn("Scrub run {} was taken over by another node; stopping", runId);
+        } catch (IOException | RuntimeException e) {
+            log.error("Scrub run {} failed", runId, e);
+            finish(lease, ScrubStatus.FAILED, truncate(String.valueOf(e.getMessage())));
+        }
+    }
+
+    private void finish(Lease lease, ScrubStatus status, String error) {
+        if (scrubRunRepository.finish(lease.runId, ScrubStatus.RUNNING, lease.claimedAt, status, error, Instant.now()) == 0) {
+            log.warn("Scrub run {} was taken over by another node; its outcome is left to that node", lease.runId);
+        }
+    }
+
+    private void scanBucket(ScrubRun run, Lease lease) throws InterruptedException {
+        int chunkSize = Math.max(1, scrubProperties.getChunkSize());
+        long afterId = run.getCheckpoint() == null ? 0 : Long.parseLong(run.getCheckpoint());
+        List<ScrubRow> page;
+        do {
+            if (Thread.currentThread().isInterrupted()) {
+                throw new InterruptedException();
+            }
+            page = storedFileRepository.findScrubPage(run.getBucketId(), afterId, Limit.of(chunkSize));
+            if (page.isEmpty()) {
+                break;
+            }
+            // Files sharing deduplicated content share a blob, which is read once per chunk.
+            Map<String, List<ScrubRow>> byLocation = new LinkedHashMap<>();
+            page.forEach(row -> byLocation.computeIfAbsent(row.storagePath(), path -> new ArrayList<>()).add(row));
+            List<Callable<Verification>> tasks = byLocation.values().stream()
+                    .<Callable<Verification>>map(rows -> () -> verify(rows.get(0)))
+                    .toList();
+            List<Future<Verification>> results = verifyAll(tasks, lease);
+
+            Instant now = Instant.now();
+            List<ScrubFinding> findings = new ArrayList<>();
+            long bytes = 0;
+            int i = 0;
+            for (List<ScrubRow> rows : byLocation.values()) {
+                Verification verification = outcome(results.get(i++));
+                bytes += verification.bytesRead();
+                if (verification.kind() != null) {
+                    rows.forEach(row -> findings.add(finding(run.getId(), verification.kind(), row.id(),
+                            row.storagePath(), verification.detail(), now)));
+                }
+            }
+            afterId = page.get(page.size() - 1).id();
+            commitChunk(lease, String.valueOf(afterId), page.size(), bytes, findings);
+        } while (page.size() == chunkSize);
+    }
+
+    /**
+     * Lists the blob store and reports blobs past the grace period that nothing refers to: no file,
+     * no content, no pending upload part and no composed blob. Orphans are only reported; deleting
+     * them is left to an operator, since a false positive here would lose data.
+     */
+    private void scanOrphans(ScrubRun run, Lease lease) throws IOException, InterruptedException {
+        int chunkSize = Math.max(1, scrubProperties.getChunkSize());
+        Instant cutoff = Instant.now().minus(scrubProperties.getOrphanGrace());
+        String after = run.getCheckpoint();
+        Set<String> composedSegments = null;
+        List<BlobEntry> page;
+        do {
+            if (Thread.currentThread().isInterrupted()) {
+                throw new InterruptedException();
+            }
+            page = blobStore.listBlobs(after, chunkSize);
+            if (page.isEmpty()) {
+                break;
+            }
+            Map<String, BlobEntry> candidates = new LinkedHashMap<>();
+            page.stream()
+                    .filter(entry -> entry.lastModified().isBefore(cutoff))
+                    .forEach(entry -> candidates.put(entry.location(), entry));
+            if (!candidates.isEmpty()) {
+                referenced(candidates.keySet()).forEach(candidates::remove);
+            }
+            if (!candidates.isEmpty()) {
+                if (composedSegments == null) {
+                    composedSegments = composedSegments(lease);
+                }
+                candidates.keySet().removeAll(composedSegments);
+            }
+            Instant now = Instant.now();
+            List<ScrubFinding> findings = candidates.values().stream()
+                    .map(entry -> finding(run.getId(), ScrubFindingKind.ORPHAN, null, entry.location(),
+                            entry.storedSize() + " bytes, last modified " + entry.lastModified(), now))
+                    .toList();
+            after = page.get(page.size() - 1).location();
+            commitChunk(lease, after, page.size(), 0, findings);
+        } while (page.size() == chunkSize);
+    }
+
+    private Set<String> referenced(Collection<String> locations) {
+        Set<String> referenced = new HashSet<>(contentBlobRepository.findStoragePathsIn(locations));
+        referenced.addAll(storedFileRepository.findStoragePathsIn(locations));
+        referenced.addAll(uploadPartRepository.findStoragePathsIn(locations));
+        return referenced;
+    }
+
+    // Only needed once a page has unreferenced blobs, which on a healthy store is rare.
+    private Set<String> composedSegments(Lease lease) throws IOException {
+        Set<String> segments = new HashSet<>();
+        long afterId = 0;
+        List<ContentBlob> page;
+        do {
+            page = contentBlobRepository.findByIdGreaterThanOrderById(afterId, Limit.of(scrubProperties.getChunkSize()));
+            for (ContentBlob blob : page) {
+                segments.addAll(blobStore.segments(blob.getStoragePath()));
+                afterId = blob.getId();
+            }
+            lease.renewIfDue();
+        } while (page.size() == scrubProperties.getChunkSize());
+        return segments;
+    }
+
+    /** Verifies a chunk on the I/O pool, renewing the lease while its reads outlast a third of it. */
+    private List<Future<Verification>> verifyAll(List<Callable<Verification>> tasks, Lease lease)
+            throws InterruptedException {
+        List<Future<Verification>> results = tasks.stream().<Future<Verification>>map(ioPool::submit).toList();
+        try {
+            for (Future<Verification> result : results) {
+                while (!result.isDone()) {
+                    try {
+                        result.get(Math.max(1, lease.renewEvery.toMillis()), TimeUnit.MILLISECONDS);
+                    } catch (TimeoutException e) {
+                        lease.renewIfDue();
+                    } catch (ExecutionException e) {
+                        // Reported by outcome()
+                    }
+                }
+            }
+        } finally {
+            results.forEach(result -> result.cancel(true));
+        }
+        return results;
+    }
+
+    private void commitChunk(Lease lease, String checkpoint, long files, long bytes, List<ScrubFinding> findings) {
+        Instant renewed = leaseTime();
+        boolean kept = Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+            if (scrubRunRepository.recordProgress(lease.runId, checkpoint, files, bytes, findings.size(),
+                    ScrubStatus.RUNNING, lease.claimedAt, renewed) == 0) {
+                status.setRollbackOnly();
+                return false;
+            }
+            if (!findings.isEmpty()) {
+                scrubFindingRepository.saveAll(findings);
+            }
+            return true;
+        }));
+        if (!kept) {
+            throw new LeaseLostException();
+        }
+        lease.claimedAt = renewed;
+        if (!findings.isEmpty()) {
+            log.warn("Scrub run {} found {} problems up to {}", lease.runId, findings.size(), checkpoint);
+        }
+    }
+
+    Verification verify(ScrubRow row) throws InterruptedIOException {
+        String location = row.storagePath();
+        if (!blobStore.exists(location)) {
+            return missing(row);
+        }
+        long expected = Optional.ofNullable(row.storedSize()).orElse(row.size());
+        try (BlobReader reader = blobStore.openReader(location)) {
+            if (reader.length() != expected) {
+                return Verification.problem(ScrubFindingKind.SIZE_MISMATCH,
+                        "Blob holds " + reader.length() + " bytes, expected " + expected);
+            }
+            if (!scrubProperties.isVerifyChecksums() || row.checksum() == null) {
+                return Verification.ok(0);
+            }
+            if (row.checksum().contains(COMPOSITE_CHECKSUM_SEPARATOR)) {
+                return verifyComposite(row, reader);
+            }
+            HashingChannel content = new HashingChannel();
+            ContentCodecs.decode(reader, row.contentEncoding(), row.size()).transferTo(0, row.size(), content);
+            String actual = content.hex();
+            return actual.equals(row.checksum())
+                    ? Verification.ok(content.bytes)
+                    : Verification.problem(ScrubFindingKind.CHECKSUM_MISMATCH, "Content hashes to " + actual, content.bytes);
+        } catch (InterruptedIOException e) {
+            throw e;
+        } catch (NoSuchFileException e) {
+            return missing(row);
+        } catch (IOException | RuntimeException e) {
+            // An interrupted file channel closes itself; that says nothing about the blob.
+            if (Thread.currentThread().isInterrupted() || e instanceof ClosedByInterruptException) {
+                throw new InterruptedIOException("Scrub interrupted");
+            }
+            return Verification.problem(ScrubFindingKind.UNREADABLE, truncate(e.getClass().getSimpleName() + ": " + e.getMessage()));
+        }
+    }
+
+    /**
+     * Tiering and compaction move blobs while a chunk is read, so a blob is only reported missing if the
+     * file still points at it. A file deleted since the page was read has nothing left to verify.
+     */
+    private Verification missing(ScrubRow row) throws InterruptedIOException {
+        Optional<ScrubRow> current = storedFileRepository.findScrubRow(row.id());
+        if (current.isEmpty()) {
+            return Verification.ok(0);
+        }
+        if (!current.get().storagePath().equals(row.storagePath())) {
+            return verify(current.get());
+        }
+        return Verification.problem(ScrubFindingKind.MISSING, "Blob not found");
+    }
+
+    /**
+     * Multipart files carry the digest of their parts' digests, suffixed with the part count. Parts
+     * are the segments of the composed blob, so each is hashed on its own; content that has since
+     * been rewritten as a single blob can only be checked for size and readability.
+     */
+    private Verification verifyComposite(ScrubRow row, BlobReader reader) throws IOException {
+        List<String> segments = blobStore.segments(row.storagePath());
+        if (segments.isEmpty()) {
+            HashingChannel content = new HashingChannel();
+            ContentCodecs.decode(reader, row.contentEncoding(), row.size()).transferTo(0, row.size(), content);
+            return Verification.ok(content.bytes);
+        }
+        MessageDigest parts = newDigest();
+        long bytes = 0;
+        for (String segment : segments) {
+            try (BlobReader segmentReader = blobStore.openReader(segment)) {
+                HashingChannel part = new HashingChannel();
+                segmentReader.transferTo(0, segmentReader.length(), part);
+                parts.update(part.digest.digest());
+                bytes += part.bytes;
+            }
+        }
+        String actual = HexFormat.of().formatHex(parts.digest()) + COMPOSITE_CHECKSUM_SEPARATOR + segments.size();
+        return actual.equals(row.checksum())
+                ? Verification.ok(bytes)
+                : Verification.problem(ScrubFindingKind.CHECKSUM_MISMATCH, "Parts hash to " + actual, bytes);
+    }
+
+    private static Verification outcome(Future<Verification> result) throws InterruptedException {
+        try {
+            return result.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof InterruptedIOException) {
+                throw new InterruptedException("Scrub interrupted");
+            }
+            throw new IllegalStateException("Verification failed", e.getCause());
+        }
+    }
+
+    private static ScrubFinding finding(Long runId, ScrubFindingKind kind, Long fileId, String location, String detail,
+                                        Instant now) {
+        return ScrubFinding.builder()
+                .runId(runId)
+                .kind(kind)
+                .fileId(fileId)
+                .storagePath(location)
+                .detail(detail)
+                .detectedAt(now)
+                .build();
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance(DIGEST_ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(DIGEST_ALGORITHM + " not available", e);
+        }
+    }
+
+    // Stored timestamps keep microseconds, so a lease compares equal to what the database read back.
+    private static Instant leaseTime() {
+        return Instant.now().truncatedTo(ChronoUnit.MICROS);
+    }
+
+    private static String truncate(String message) {
+        return message.length() <= MAX_ERROR_LENGTH ? message : message.substring(0, MAX_ERROR_LENGTH);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // Interrupted runs keep their lease and checkpoint, and are resumed once the lease expires.
+        coordinator.shutdownNow();
+        ioPool.shutdownNow();
+    }
+
+    /** The claim a run is processed under; renewing it fails once another node has taken the run over. */
+    private final class Lease {
+        private final Long runId;
+        private final Duration renewEvery = scrubProperties.getLeaseTimeout().dividedBy(3);
+        private Instant claimedAt;
+
+        private Lease(Long runId, Instant claimedAt) {
+            this.runId = runId;
+            this.claimedAt = claimedAt;
+        }
+
+        private void renewIfDue() {
+            Instant now = leaseTime();
+            if (now.isBefore(claimedAt.plus(renewEvery))) {
+                return;
+            }
+            if (scrubRunRepository.renew(runId, ScrubStatus.RUNNING, claimedAt, now) == 0) {
+                throw new LeaseLostException();
+            }
+            claimedAt = now;
+        }
+    }
+
+    private static final class LeaseLostException extends RuntimeException {
+    }
+
+    /** Outcome of checking one blob; {@code kind} is null when the blob is sound. */
+    record Verification(ScrubFindingKind kind, String detail, long bytesRead) {
+        static Verification ok(long bytesRead) {
+            return new Verification(null, null, bytesRead);
+        }
+
+        static Verification problem(ScrubFindingKind kind, String detail) {
+            return new Verification(kind, detail, 0);
+        }
+
+        static Verification problem(ScrubFindingKind kind, String detail, long bytesRead) {
+            return new Verification(kind, detail, bytesRead);
+        }
+    }
+
+    /**
+     * Hashes what is written to it, paced by the shared throttle. Compressed blobs are paced on their
+     * decoded bytes, which over-counts what is read from disk and so errs on the gentle side.
+     */
+    private final class HashingChannel implements WritableByteChannel {
+        private final MessageDigest digest = newDigest();
+        private long bytes;
+
+        @Override
+        public int write(ByteBuffer src) throws IOException {
+            int length = src.remaining();
+            try {
+                throttle.acquire(length);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Scrub interrupted");
+            }
+            digest.update(src);
+            bytes += length;
+            return length;
+        }
+
+        String hex() {
+            return HexFormat.of().formatHex(digest.digest());
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
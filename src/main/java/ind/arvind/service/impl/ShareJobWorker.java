@@ -0,0 +1,237 @@
+package ind.arvind.service.impl;
+
+import ind.arvind.config.ShareProperties;
+import ind.arvind.entity.FolderShare;
+import ind.arvind.entity.ShareJob;
+import ind.arvind.entity.ShareJobStatus;
+import ind.arvind.repository.FolderShareRepository;
+import ind.arvind.repository.ShareJobRepository;
+import ind.arvind.service.ShareNotifier;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Drains the share outbox. Jobs are claimed with a conditional update so several nodes can poll the
+ * same table, and at most {@code share.max-in-flight-jobs} are held by this node at a time. Each job
+ * is processed in batches: a batch's grants and progress are committed first, and only then are its
+ * recipients notified and the notification cursor advanced. A retried or requeued job resumes both
+ * where they stopped, so nobody is told about a grant that was rolled back, and notification is
+ * at-least-once per batch.
+ *
+ * <p>A job's {@code claimedAt} is its lease: every batch renews it, and every write after the claim
+ * is made only while it still holds the value this worker set, so a worker whose lease expired and
+ * was taken over stops instead of overwriting the new holder's state.
+ */
+@Slf4j
+@Component
+public class ShareJobWorker {
+    private static final String THREAD_NAME_PREFIX = "share-worker-";
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    private final ShareJobRepository shareJobRepository;
+    private final FolderShareRepository folderShareRepository;
+    private final ShareNotifier shareNotifier;
+    private final ShareProperties shareProperties;
+    private final TransactionTemplate transactionTemplate;
+    private final ExecutorService executor;
+    private final Semaphore inFlight;
+
+    public ShareJobWorker(ShareJobRepository shareJobRepository, FolderShareRepository folderShareRepository,
+                          ShareNotifier shareNotifier, ShareProperties shareProperties,
+                          TransactionTemplate transactionTemplate) {
+        this.shareJobRepository = shareJobRepository;
+        this.folderShareRepository = folderShareRepository;
+        this.shareNotifier = shareNotifier;
+        this.shareProperties = shareProperties;
+        this.transactionTemplate = transactionTemplate;
+        this.executor = Executors.newFixedThreadPool(shareProperties.getWorkerThreads(),
+                new CustomizableThreadFactory(THREAD_NAME_PREFIX));
+        this.inFlight = new Semaphore(shareProperties.getMaxInFlightJobs());
+    }
+
+    public int dispatch() {
+        int free = inFlight.availablePermits();
+        if (free == 0) {
+            return 0;
+        }
+        Instant now = leaseTime();
+        List<String> jobIds = shareJobRepository.findAvailableJobIds(ShareJobStatus.PENDING, now, Limit.of(free));
+        int dispatched = 0;
+        for (String jobId : jobIds) {
+            if (!inFlight.tryAcquire()) {
+                break;
+            }
+            if (shareJobRepository.claim(jobId, ShareJobStatus.PENDING, ShareJobStatus.RUNNING, now) == 0) {
+                inFlight.release();
+                continue;
+            }
+            try {
+                executor.execute(() -> {
+                    try {
+                        process(jobId, now);
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+                dispatched++;
+            } catch (RejectedExecutionException e) {
+                inFlight.release();
+                log.warn("Share worker pool is shutting down; job {} is requeued once its lease expires", jobId);
+                break;
+            }
+        }
+        return dispatched;
+    }
+
+    public int releaseStale() {
+        Instant now = Instant.now();
+        return shareJobRepository.releaseStale(ShareJobStatus.PENDING, ShareJobStatus.RUNNING,
+                now.minus(shareProperties.getLeaseTimeout()), now);
+    }
+
+    void process(String jobId, Instant claimedAt) {
+        ShareJob job = shareJobRepository.findByJobId(jobId).orElse(null);
+        if (job == null || !holds(job, claimedAt)) {
+            log.warn("Share job {} is no longer claimable", jobId);
+            return;
+        }
+        List<String> recipients = job.recipientList();
+        int batchSize = Math.max(1, shareProperties.getBatchSize());
+        int granted = job.getProcessedRecipients();
+        RuntimeException notifyError = null;
+        Instant lease = claimedAt;
+        try {
+            for (int from = Math.min(job.getNotifiedRecipients(), granted); from < recipients.size(); from += batchSize) {
+                int to = Math.min(from + batchSize, recipients.size());
+                if (to > granted) {
+                    List<String> ungranted = recipients.subList(Math.max(from, granted), to);
+                    Instant held = lease;
+                    Instant renewed = leaseTime();
+                    boolean kept = Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+                        if (shareJobRepository.recordProgress(jobId, to, ShareJobStatus.RUNNING, held, renewed) == 0) {
+                            status.setRollbackOnly();
+                            return false;
+                        }
+                        saveGrants(job, ungranted);
+                        return true;
+                    }));
+                    if (!kept) {
+                        log.warn("Share job {} lost its lease after {} recipients; leaving it to its new holder", jobId, granted);
+                        return;
+                    }
+                    granted = to;
+                    lease = renewed;
+                }
+                // Once a notification fails the remaining grants are still saved; the retry notifies from the cursor.
+                if (notifyError != null) {
+                    continue;
+                }
+                try {
+                    shareNotifier.notifyRecipients(job.getFolderpath(), recipients.subList(from, to));
+                } catch (RuntimeException e) {
+                    notifyError = e;
+                    continue;
+                }
+                Instant held = lease;
+                Instant renewed = leaseTime();
+                if (transactionTemplate.execute(status ->
+                        shareJobRepository.recordNotified(jobId, to, ShareJobStatus.RUNNING, held, renewed)) == 0) {
+                    log.warn("Share job {} lost its lease after notifying {} recipients; leaving it to its new holder", jobId, to);
+                    return;
+                }
+                lease = renewed;
+            }
+            if (notifyError != null) {
+                throw notifyError;
+            }
+            Instant held = lease;
+            transactionTemplate.executeWithoutResult(status -> finish(jobId, held));
+            log.info("Share job {} completed for {} recipients", jobId, recipients.size());
+        } catch (RuntimeException e) {
+            log.error("Share job {} failed", jobId, e);
+            Instant held = lease;
+            transactionTemplate.executeWithoutResult(status -> fail(jobId, held, e));
+        }
+    }
+
+    // Re-sharing with an existing grantee refreshes its permission and expiry instead of adding a row.
+    private void saveGrants(ShareJob job, List<String> batch) {
+        Instant now = Instant.now();
+        Set<String> existing = new HashSet<>();
+        for (FolderShare share : folderShareRepository.findByFolderPathAndGranteeEmailIn(job.getFolderpath(), batch)) {
+            share.setPermission(job.getPermission());
+            share.setExpiresAt(job.getShareExpiresAt());
+            share.setUpdatedAt(now);
+            existing.add(share.getGranteeEmail());
+        }
+        List<FolderShare> created = batch.stream()
+                .filter(email -> !existing.contains(email))
+                .map(email -> FolderShare.builder()
+                        .folderPath(job.getFolderpath())
+                        .granteeEmail(email)
+                        .permission(job.getPermission())
+                        .expiresAt(job.getShareExpiresAt())
+                        .createdAt(now)
+                        .updatedAt(now)
+                        .build())
+                .toList();
+        if (!created.isEmpty()) {
+            folderShareRepository.saveAll(created);
+        }
+    }
+
+    private void finish(String jobId, Instant lease) {
+        shareJobRepository.lockByJobId(jobId).filter(job -> holds(job, lease)).ifPresent(job -> {
+            job.setStatus(ShareJobStatus.COMPLETED);
+            job.setClaimedAt(null);
+            job.setLastError(null);
+            job.setUpdatedAt(Instant.now());
+        });
+    }
+
+    private void fail(String jobId, Instant lease, RuntimeException error) {
+        shareJobRepository.lockByJobId(jobId).filter(job -> holds(job, lease)).ifPresent(job -> {
+            Instant now = Instant.now();
+            int attempts = job.getAttempts() + 1;
+            boolean exhausted = attempts >= shareProperties.getMaxAttempts();
+            job.setAttempts(attempts);
+            job.setStatus(exhausted ? ShareJobStatus.FAILED : ShareJobStatus.PENDING);
+            job.setClaimedAt(null);
+            job.setLastError(truncate(String.valueOf(error.getMessage())));
+            job.setAvailableAt(now.plus(shareProperties.getRetryBackoff().multipliedBy(attempts)));
+            job.setUpdatedAt(now);
+        });
+    }
+
+    private static boolean holds(ShareJob job, Instant lease) {
+        return job.getStatus() == ShareJobStatus.RUNNING && lease.equals(job.getClaimedAt());
+    }
+
+    // Stored timestamps keep microseconds, so a lease compared for equality must not carry more.
+    private static Instant leaseTime() {
+        return Instant.now().truncatedTo(ChronoUnit.MICROS);
+    }
+
+    private static String truncate(String message) {
+        return message.length() <= MAX_ERROR_LENGTH ? message : message.substring(0, MAX_ERROR_LENGTH);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
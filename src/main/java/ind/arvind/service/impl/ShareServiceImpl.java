@@ -1,49 +1,129 @@
 package ind.arvind.service.impl;
 
+import ind.arvind.dto.FolderShareDto;
+import ind.arvind.dto.PageResponseDto;
+import ind.arvind.dto.ShareJobDto;
 import ind.arvind.dto.ShareRequestDto;
+import ind.arvind.entity.ShareJob;
+import ind.arvind.entity.ShareJobStatus;
+import ind.arvind.repository.FolderShareRepository;
+import ind.arvind.repository.ShareJobRepository;
+import ind.arvind.repository.projection.FolderShareRow;
 import ind.arvind.service.ShareService;
 import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
 import io.github.resilience4j.retry.annotation.Retry;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
-import ind.arvind.entity.Email;
-import ind.arvind.repository.EmailRepository;
 
+import java.time.Instant;
 import java.util.*;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
+@Timed(value = "share.service", histogram = true)
 public class ShareServiceImpl implements ShareService {
-    private final EmailRepository emailRepository;
+    private static final String ERR_JOB_NOT_FOUND = "Share job not found";
+    private static final int MAX_PAGE_SIZE = 1000;
+
+    private final FolderShareRepository folderShareRepository;
+    private final ShareJobRepository shareJobRepository;
+    private final ShareJobWorker shareJobWorker;
 
     @Override
-    @Retry(name = "shareServiceRetry")
-    @CircuitBreaker(name = "shareServiceCB")
-    public void share(ShareRequestDto requestDto) {
-        // Simulate sending notification (e.g., email)
-        log.info("Sharing folder {} with emails {}", requestDto.getFolderpath(), requestDto.getEmails());
-        if (requestDto.getEmails() != null) {
-            for (String emailId : requestDto.getEmails()) {
-                Email email = new Email();
-                email.setEmailId(emailId);
-                emailRepository.save(email);
-            }
+    @Transactional
+    public ShareJobDto share(ShareRequestDto requestDto) {
+        Set<String> recipients = new LinkedHashSet<>();
+        for (String emailId : requestDto.getEmails()) {
+            recipients.add(emailId.trim());
         }
+        log.info("Queueing share of folder {} with {} recipients", requestDto.getFolderpath(), recipients.size());
+        Instant now = Instant.now();
+        ShareJob job = shareJobRepository.save(ShareJob.builder()
+                .jobId(UUID.randomUUID().toString())
+                .folderpath(requestDto.getFolderpath())
+                .recipients(ShareJob.joinRecipients(recipients))
+                .permission(requestDto.getPermission())
+                .shareExpiresAt(requestDto.getExpiresAt())
+                .status(ShareJobStatus.PENDING)
+                .totalRecipients(recipients.size())
+                .createdAt(now)
+                .updatedAt(now)
+                .availableAt(now)
+                .build());
+        dispatchAfterCommit();
+        return toDto(job);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public ShareJobDto getJob(String jobId) {
+        return shareJobRepository.findByJobId(jobId)
+                .map(this::toDto)
+                .orElseThrow(() -> {
+                    log.error("{}: {}", ERR_JOB_NOT_FOUND, jobId);
+                    return new NoSuchElementException(ERR_JOB_NOT_FOUND);
+                });
     }
 
     @Override
     @Retry(name = "shareServiceRetry")
     @CircuitBreaker(name = "shareServiceCB")
-    public List<String> getSharedEmails(String folderpath) {
-        List<Email> emails = emailRepository.findAll();
-        List<String> emailIds = new ArrayList<>();
-        for (Email email : emails) {
-            emailIds.add(email.getEmailId());
+    @Transactional(readOnly = true)
+    public PageResponseDto<FolderShareDto> getSharedEmails(String folderpath, String pageToken, int size) {
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        List<FolderShareRow> rows = folderShareRepository.findActivePage(folderpath, Instant.now(),
+                PageTokens.decode(pageToken), Limit.of(pageSize + 1));
+        boolean hasMore = rows.size() > pageSize;
+        List<FolderShareRow> page = hasMore ? rows.subList(0, pageSize) : rows;
+        PageResponseDto<FolderShareDto> response = new PageResponseDto<>();
+        response.setItems(page.stream().map(this::toDto).toList());
+        response.setSize(page.size());
+        response.setNextPageToken(hasMore ? PageTokens.encode(page.get(page.size() - 1).id()) : null);
+        return response;
+    }
+
+    // Hands the new job to a worker straight away instead of waiting for the next poll.
+    private void dispatchAfterCommit() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
         }
-        return emailIds;
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                shareJobWorker.dispatch();
+            }
+        });
+    }
+
+    private FolderShareDto toDto(FolderShareRow row) {
+        FolderShareDto dto = new FolderShareDto();
+        dto.setEmail(row.granteeEmail());
+        dto.setPermission(row.permission().name());
+        dto.setCreatedAt(row.createdAt());
+        dto.setExpiresAt(row.expiresAt());
+        return dto;
+    }
+
+    private ShareJobDto toDto(ShareJob job) {
+        ShareJobDto dto = new ShareJobDto();
+        dto.setJobId(job.getJobId());
+        dto.setFolderpath(job.getFolderpath());
+        dto.setStatus(job.getStatus().name());
+        dto.setTotalRecipients(job.getTotalRecipients());
+        dto.setProcessedRecipients(job.getProcessedRecipients());
+        dto.setNotifiedRecipients(job.getNotifiedRecipients());
+        dto.setAttempts(job.getAttempts());
+        dto.setLastError(job.getLastError());
+        dto.setCreatedAt(job.getCreatedAt());
+        dto.setUpdatedAt(job.getUpdatedAt());
+        return dto;
     }
 }
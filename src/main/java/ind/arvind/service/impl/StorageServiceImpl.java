@@ -1,103 +1,301 @@
 package ind.arvind.service.impl;
 
+import ind.arvind.cache.FileCacheEntry;
+import ind.arvind.cache.StoredFileCache;
+import ind.arvind.config.StorageProperties;
+import ind.arvind.dto.ArchiveFormat;
+import ind.arvind.dto.ArchiveRequestDto;
+import ind.arvind.dto.BucketPolicyDto;
+import ind.arvind.dto.FileFromHashRequestDto;
 import ind.arvind.dto.FileUploadRequestDto;
 import ind.arvind.dto.FileMetadataUpdateDto;
+import ind.arvind.dto.FileSearchRequestDto;
+import ind.arvind.dto.MetadataOperator;
+import ind.arvind.dto.MetadataPredicateDto;
+import ind.arvind.dto.MetadataUpdateMode;
+import ind.arvind.dto.PageResponseDto;
 import ind.arvind.dto.StoredFileResponseDto;
+import ind.arvind.entity.ContentEncoding;
 import ind.arvind.entity.FileMetadata;
 import ind.arvind.entity.StoredFile;
 import ind.arvind.entity.StorageBucket;
+import ind.arvind.entity.StorageTier;
+import ind.arvind.metrics.StorageMetrics;
 import ind.arvind.repository.FileMetadataRepository;
 import ind.arvind.repository.StoredFileRepository;
 import ind.arvind.repository.StorageBucketRepository;
+import ind.arvind.repository.projection.ArchiveEntryRow;
+import ind.arvind.repository.projection.FileMetadataRow;
+import ind.arvind.repository.projection.StoredFileRow;
 import ind.arvind.service.StorageService;
+import ind.arvind.storage.ArchiveWriter;
+import ind.arvind.storage.BlobCleaner;
+import ind.arvind.storage.BlobReader;
+import ind.arvind.storage.BlobStore;
+import ind.arvind.storage.BlobWriteResult;
+import ind.arvind.storage.CompressedContentTypes;
+import ind.arvind.storage.ContentCodecs;
+import ind.arvind.storage.ContentBlobRegistry;
+import ind.arvind.storage.ContentVersion;
+import ind.arvind.storage.FileContent;
+import ind.arvind.storage.TarArchiveWriter;
+import ind.arvind.storage.ZipArchiveWriter;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.time.Instant;
 import java.util.*;
 import java.util.stream.Collectors;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.NoSuchFileException;
 
 @Service
 @RequiredArgsConstructor
+@Timed(value = "storage.service", histogram = true)
 public class StorageServiceImpl implements StorageService {
     private static final Logger log = LoggerFactory.getLogger(StorageServiceImpl.class);
     private static final String ERR_BUCKET_NOT_FOUND = "Bucket not found";
     private static final String ERR_FILE_NOT_FOUND = "File not found";
+    private static final String ERR_CONTENT_NOT_FOUND = "Content not found";
+    private static final int MAX_PAGE_SIZE = 1000;
+    private static final int MAX_SEARCH_PREDICATES = 10;
+    private static final String ERR_TOO_MANY_PREDICATES = "Too many metadata predicates";
+    private static final String ERR_INVALID_PREDICATE = "Metadata predicate is missing its value or bounds";
+    private static final String DEFAULT_CONTENT_TYPE = "application/octet-stream";
+    private static final int ARCHIVE_PAGE_SIZE = 200;
+    private static final String ERR_ARCHIVE_SELECTION = "Exactly one of fileIds or filter must be given";
 
     private final StoredFileRepository storedFileRepository;
     private final FileMetadataRepository fileMetadataRepository;
     private final StorageBucketRepository storageBucketRepository;
+    private final BlobStore blobStore;
+    private final BlobCleaner blobCleaner;
+    private final ContentBlobRegistry contentBlobRegistry;
+    private final StorageProperties storageProperties;
+    private final StoredFileCache storedFileCache;
+    private final StorageMetrics storageMetrics;
+    private final FileAccessTracker fileAccessTracker;
+    private final UsageCounters usageCounters;
+    private final TransactionTemplate transactionTemplate;
 
+    /**
+     * Writes the content with no transaction open, so a slow upload holds no connection, and then
+     * registers it in a short transaction of its own. A blob whose registration fails is deleted.
+     */
     @Override
-    @Transactional
     public StoredFileResponseDto uploadFile(FileUploadRequestDto requestDto, String owner) {
-        log.info("Uploading file: {} for owner: {} in bucket: {}", requestDto.getFile().getOriginalFilename(), owner, requestDto.getBucketName());
-        StorageBucket bucket = storageBucketRepository.findByName(requestDto.getBucketName())
+        log.info("Uploading file for owner: {} in bucket: {}", owner, requestDto.getBucketName());
+        StorageBucket bucket = findBucket(requestDto.getBucketName());
+        MultipartFile file = requestDto.getFile();
+        usageCounters.checkQuota(bucket, owner, file.getSize());
+        BlobWriteResult blob = writeBlob(file, chooseEncoding(bucket, file));
+        storageMetrics.recordBytesIn(bucket.getName(), owner, blob.size());
+        if (blob.encoding() != ContentEncoding.IDENTITY) {
+            storageMetrics.recordCompression(bucket.getName(), blob.size(), blob.storedSize(), blob.writeCpuNanos());
+        }
+        try {
+            // The bucket is resolved again: it may have been deleted while the content was written.
+            return transactionTemplate.execute(status -> saveStoredFile(findBucket(requestDto.getBucketName()),
+                    file.getOriginalFilename(), file.getContentType(), requestDto.getMetadata(), blob, owner));
+        } catch (RuntimeException e) {
+            blobCleaner.deleteQuietly(blob.location());
+            throw e;
+        }
+    }
+
+    @Override
+    @Transactional
+    public StoredFileResponseDto registerFile(String bucketName, String filename, String contentType,
+                                              Map<String, String> metadata, BlobWriteResult blob, String owner) {
+        log.info("Registering stored blob {} as file: {} for owner: {}", blob.location(), filename, owner);
+        StorageBucket bucket = findBucket(bucketName);
+        usageCounters.checkQuota(bucket, owner, blob.size());
+        return saveStoredFile(bucket, filename, contentType, metadata, blob, owner);
+    }
+
+    @Override
+    @Transactional
+    public StoredFileResponseDto createFromHash(FileFromHashRequestDto requestDto, String owner) {
+        log.info("Creating file: {} for owner: {} from content hash {}", requestDto.getFilename(), owner, requestDto.getSha256());
+        StorageBucket bucket = findBucket(requestDto.getBucketName());
+        if (!storageProperties.getDedup().isCrossOwnerHashClaims()
+                && !storedFileRepository.existsByOwnerAndChecksum(owner, requestDto.getSha256())) {
+            log.info("{} for owner {}: {}", ERR_CONTENT_NOT_FOUND, owner, requestDto.getSha256());
+            throw new NoSuchElementException(ERR_CONTENT_NOT_FOUND);
+        }
+        BlobWriteResult blob = contentBlobRegistry.acquireExisting(requestDto.getSha256())
+                .orElseThrow(() -> {
+                    log.info("{}: {}", ERR_CONTENT_NOT_FOUND, requestDto.getSha256());
+                    return new NoSuchElementException(ERR_CONTENT_NOT_FOUND);
+                });
+        usageCounters.checkQuota(bucket, owner, blob.size());
+        return persistStoredFile(bucket, requestDto.getFilename(), requestDto.getContentType(), requestDto.getMetadata(), blob, owner);
+    }
+
+    @Override
+    @Transactional
+    public BucketPolicyDto updateBucketPolicy(String bucketName, BucketPolicyDto policyDto, String owner) {
+        log.info("Updating policy of bucket: {} for owner: {}", bucketName, owner);
+        StorageBucket bucket = storageBucketRepository.findByName(bucketName)
+                .filter(b -> b.getOwner().equals(owner))
                 .orElseThrow(() -> {
-                    log.error("{}: {}", ERR_BUCKET_NOT_FOUND, requestDto.getBucketName());
+                    log.error("{}: {}", ERR_BUCKET_NOT_FOUND, bucketName);
                     return new IllegalArgumentException(ERR_BUCKET_NOT_FOUND);
                 });
-        MultipartFile file = requestDto.getFile();
+        bucket.setCompression(policyDto.getCompression());
+        bucket.setQuotaBytes(policyDto.getQuotaBytes());
+        bucket.setQuotaFiles(policyDto.getQuotaFiles());
+        bucket.setCacheControl(policyDto.getCacheControl());
+        log.info("Bucket {} now stores new uploads as {} (quota: {} bytes, {} files)", bucketName,
+                policyDto.getCompression(), policyDto.getQuotaBytes(), policyDto.getQuotaFiles());
+        return toPolicyDto(bucket);
+    }
+
+    private static BucketPolicyDto toPolicyDto(StorageBucket bucket) {
+        BucketPolicyDto dto = new BucketPolicyDto();
+        dto.setCompression(Optional.ofNullable(bucket.getCompression()).orElse(ContentEncoding.IDENTITY));
+        dto.setQuotaBytes(bucket.getQuotaBytes());
+        dto.setQuotaFiles(bucket.getQuotaFiles());
+        dto.setCacheControl(bucket.getCacheControl());
+        return dto;
+    }
+
+    /** Small and already-compressed uploads are stored as-is whatever the bucket asks for. */
+    private ContentEncoding chooseEncoding(StorageBucket bucket, MultipartFile file) {
+        ContentEncoding requested = Optional.ofNullable(bucket.getCompression()).orElse(ContentEncoding.IDENTITY);
+        if (requested == ContentEncoding.IDENTITY
+                || file.getSize() < storageProperties.getCompression().getMinSize()
+                || CompressedContentTypes.isCompressed(file.getContentType())) {
+            return ContentEncoding.IDENTITY;
+        }
+        return requested;
+    }
+
+    // A bucket being deleted takes no new files, so it is treated as already gone.
+    private StorageBucket findBucket(String bucketName) {
+        return storageBucketRepository.findByName(bucketName)
+                .filter(bucket -> bucket.getDeletionRequestedAt() == null)
+                .orElseThrow(() -> {
+                    log.error("{}: {}", ERR_BUCKET_NOT_FOUND, bucketName);
+                    return new IllegalArgumentException(ERR_BUCKET_NOT_FOUND);
+                });
+    }
+
+    private StoredFileResponseDto saveStoredFile(StorageBucket bucket, String filename, String contentType,
+                                                 Map<String, String> metadata, BlobWriteResult blob, String owner) {
+        return persistStoredFile(bucket, filename, contentType, metadata, contentBlobRegistry.acquire(blob), owner);
+    }
+
+    private StoredFileResponseDto persistStoredFile(StorageBucket bucket, String filename, String contentType,
+                                                    Map<String, String> metadata, BlobWriteResult blob, String owner) {
         StoredFile storedFile = StoredFile.builder()
-                .filename(file.getOriginalFilename())
-                .size(file.getSize())
-                .contentType(Optional.ofNullable(file.getContentType()).orElse("application/octet-stream"))
-                .storagePath("/storage/" + UUID.randomUUID())
+                .filename(filename)
+                .size(blob.size())
+                .contentType(Optional.ofNullable(contentType).orElse(DEFAULT_CONTENT_TYPE))
+                .storagePath(blob.location())
+                .checksum(blob.sha256())
+                .contentEncoding(blob.encoding())
+                .storedSize(blob.storedSize())
+                .writeCpuNanos(blob.writeCpuNanos())
+                .tier(blob.tier())
                 .createdAt(Instant.now())
                 .updatedAt(Instant.now())
                 .owner(owner)
                 .storageBucket(bucket)
                 .build();
         StoredFile persistedFile = storedFileRepository.save(storedFile);
-        if (Optional.ofNullable(requestDto.getMetadata()).isPresent()) {
-            List<FileMetadata> metadataList = requestDto.getMetadata().entrySet().stream()
-                    .map(e -> FileMetadata.builder().storedFile(persistedFile).metaKey(e.getKey()).value(e.getValue()).build())
-                    .collect(Collectors.toList());
+        usageCounters.record(owner, bucket.getId(), 1, blob.size());
+        if (Optional.ofNullable(metadata).isPresent()) {
+            List<FileMetadata> metadataList = toMetadataRows(persistedFile, metadata);
             fileMetadataRepository.saveAll(metadataList);
             storedFile.setMetadata(metadataList);
         }
         log.info("File uploaded successfully: {} (ID: {})", storedFile.getFilename(), storedFile.getId());
-        return toDto(storedFile);
+        return StoredFileMapper.toDto(storedFile);
     }
 
     @Override
-    public List<StoredFileResponseDto> listFiles(String owner, int page, int size) {
-        log.info("Listing files for owner: {}", owner);
-        List<StoredFile> files = storedFileRepository.findByOwner(owner); // Add paging if needed
-        return files.stream().map(this::toDto).collect(Collectors.toList());
+    @Transactional(readOnly = true)
+    public PageResponseDto<StoredFileResponseDto> listFiles(String owner, String pageToken, int size) {
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        log.info("Listing files for owner: {} (page size {})", owner, pageSize);
+        List<StoredFileRow> rows = storedFileRepository.findPageByOwner(owner, PageTokens.decode(pageToken), Limit.of(pageSize + 1));
+        return toPage(rows, pageSize);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public PageResponseDto<StoredFileResponseDto> searchFiles(String owner, FileSearchRequestDto criteria, String pageToken, int size) {
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        validateSearch(criteria);
+        log.info("Searching files for owner: {} with {} metadata predicates (page size {})", owner, criteria.getMetadata().size(), pageSize);
+        List<StoredFileRow> rows = storedFileRepository.searchPage(owner, criteria, PageTokens.decode(pageToken), pageSize + 1);
+        return toPage(rows, pageSize);
+    }
+
+    private void validateSearch(FileSearchRequestDto criteria) {
+        if (criteria.getMetadata().size() > MAX_SEARCH_PREDICATES) {
+            throw new IllegalArgumentException(ERR_TOO_MANY_PREDICATES);
+        }
+        for (MetadataPredicateDto predicate : criteria.getMetadata()) {
+            boolean valid = predicate.getOp() == MetadataOperator.RANGE
+                    ? predicate.getFrom() != null || predicate.getTo() != null
+                    : predicate.getValue() != null;
+            if (!valid) {
+                log.error("{}: {}", ERR_INVALID_PREDICATE, predicate);
+                throw new IllegalArgumentException(ERR_INVALID_PREDICATE);
+            }
+        }
+    }
+
+    private PageResponseDto<StoredFileResponseDto> toPage(List<StoredFileRow> rows, int pageSize) {
+        boolean hasMore = rows.size() > pageSize;
+        List<StoredFileRow> page = hasMore ? rows.subList(0, pageSize) : rows;
+        Map<Long, Map<String, String>> metadata = loadMetadata(page.stream().map(StoredFileRow::id).toList());
+        PageResponseDto<StoredFileResponseDto> response = new PageResponseDto<>();
+        response.setItems(page.stream()
+                .map(row -> StoredFileMapper.toDto(row, metadata.getOrDefault(row.id(), Collections.emptyMap())))
+                .collect(Collectors.toList()));
+        response.setSize(page.size());
+        response.setNextPageToken(hasMore ? PageTokens.encode(page.get(page.size() - 1).id()) : null);
+        return response;
+    }
+
+    private Map<Long, Map<String, String>> loadMetadata(List<Long> fileIds) {
+        if (fileIds.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        return fileMetadataRepository.findRowsByStoredFileIdIn(fileIds).stream()
+                .collect(Collectors.groupingBy(FileMetadataRow::storedFileId,
+                        Collectors.toMap(FileMetadataRow::metaKey, FileMetadataRow::value)));
     }
 
     @Override
+    @Transactional(readOnly = true)
     public StoredFileResponseDto getFile(Long fileId, String owner) {
         log.info("Retrieving file: {} for owner: {}", fileId, owner);
-        StoredFile file = storedFileRepository.findById(fileId)
-                .filter(f -> f.getOwner().equals(owner))
-                .orElseThrow(() -> {
-                    log.error("{}: {}", ERR_FILE_NOT_FOUND, fileId);
-                    return new NoSuchElementException(ERR_FILE_NOT_FOUND);
-                });
-        return toDto(file);
+        return findCachedFile(fileId, owner).file();
     }
 
     @Override
     @Transactional
     public void deleteFile(Long fileId, String owner) {
         log.info("Deleting file: {} for owner: {}", fileId, owner);
-        StoredFile file = storedFileRepository.findById(fileId)
-                .filter(f -> f.getOwner().equals(owner))
-                .orElseThrow(() -> {
-                    log.error("{}: {}", ERR_FILE_NOT_FOUND, fileId);
-                    return new NoSuchElementException(ERR_FILE_NOT_FOUND);
-                });
+        StoredFile file = findOwnedFile(fileId, owner);
         storedFileRepository.delete(file);
+        storedFileCache.invalidate(fileId);
+        contentBlobRegistry.release(file.getChecksum(), file.getStoragePath());
+        usageCounters.record(owner, Optional.ofNullable(file.getStorageBucket()).map(StorageBucket::getId).orElse(null),
+                -1, -file.getSize());
         log.info("File deleted: {}", fileId);
     }
 
@@ -105,67 +303,222 @@ public class StorageServiceImpl implements StorageService {
     @Transactional
     public StoredFileResponseDto updateMetadata(Long fileId, FileMetadataUpdateDto metadataDto, String owner) {
         log.info("Updating metadata for file: {} by owner: {}", fileId, owner);
-        StoredFile file = storedFileRepository.findById(fileId)
-                .filter(f -> f.getOwner().equals(owner))
-                .orElseThrow(() -> {
-                    log.error("{}: {}", ERR_FILE_NOT_FOUND, fileId);
-                    return new NoSuchElementException(ERR_FILE_NOT_FOUND);
-                });
-        fileMetadataRepository.deleteAll(file.getMetadata());
-        List<FileMetadata> metadataList = metadataDto.getMetadata().entrySet().stream()
-                .map(e -> FileMetadata.builder().storedFile(file).metaKey(e.getKey()).value(e.getValue()).build())
-                .collect(Collectors.toList());
-        fileMetadataRepository.saveAll(metadataList);
-        if (file.getMetadata() == null) {
-            file.setMetadata(new ArrayList<>());
-        } else {
-            file.getMetadata().clear();
-        }
-        file.getMetadata().addAll(metadataList);
+        StoredFile file = findOwnedFile(fileId, owner);
+        storedFileCache.invalidate(fileId);
+        Map<String, String> metadata = metadataDto.getMode() == MetadataUpdateMode.DIFF
+                ? diffMetadata(file, metadataDto.getMetadata())
+                : replaceMetadata(file, metadataDto.getMetadata());
         file.setUpdatedAt(Instant.now());
         storedFileRepository.save(file);
         log.info("Metadata updated for file: {}", fileId);
-        return toDto(file);
+        return StoredFileMapper.toDto(file, metadata);
     }
 
-    @Override
-    public byte[] getFileContent(Long fileId, String owner) {
-        log.info("Retrieving file content for fileId: {} and owner: {}", fileId, owner);
-        StoredFile file = storedFileRepository.findById(fileId)
-                .filter(f -> f.getOwner().equals(owner))
-                .orElseThrow(() -> {
-                    log.error("File not found or access denied: {}", fileId);
-                    return new NoSuchElementException("File not found or access denied");
-                });
-        Path filePath = Paths.get(file.getStoragePath());
-        if (!Files.exists(filePath)) {
-            log.error("File not found on disk: {}", filePath);
-            throw new NoSuchElementException("File not found on disk");
+    // The metadata collection on StoredFile is deliberately left uninitialised here: the bulk statements
+    // bypass it, and loading it would make orphan removal issue one DELETE per row at flush time.
+    private Map<String, String> replaceMetadata(StoredFile file, Map<String, String> metadata) {
+        fileMetadataRepository.deleteByStoredFileId(file.getId());
+        fileMetadataRepository.saveAll(toMetadataRows(file, metadata));
+        return metadata;
+    }
+
+    private Map<String, String> diffMetadata(StoredFile file, Map<String, String> metadata) {
+        List<FileMetadata> current = fileMetadataRepository.findByStoredFileId(file.getId());
+        Set<String> removedKeys = new HashSet<>();
+        Map<String, String> added = new LinkedHashMap<>(metadata);
+        for (FileMetadata row : current) {
+            String value = added.remove(row.getMetaKey());
+            if (value == null) {
+                removedKeys.add(row.getMetaKey());
+            } else if (!value.equals(row.getValue())) {
+                row.setValue(value);
+            }
+        }
+        if (!removedKeys.isEmpty()) {
+            fileMetadataRepository.deleteByStoredFileIdAndMetaKeyIn(file.getId(), removedKeys);
         }
+        if (!added.isEmpty()) {
+            fileMetadataRepository.saveAll(toMetadataRows(file, added));
+        }
+        log.debug("Metadata diff for file {}: {} removed, {} added", file.getId(), removedKeys.size(), added.size());
+        return metadata;
+    }
+
+    private List<FileMetadata> toMetadataRows(StoredFile file, Map<String, String> metadata) {
+        return metadata.entrySet().stream()
+                .map(e -> FileMetadata.builder().storedFile(file).metaKey(e.getKey()).value(e.getValue()).build())
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public FileContent openContent(Long fileId, String owner) {
+        log.info("Opening file content for fileId: {} and owner: {}", fileId, owner);
+        FileCacheEntry file = findCachedFile(fileId, owner);
         try {
-            return Files.readAllBytes(filePath);
+            BlobReader reader;
+            try {
+                reader = blobStore.openReader(file.storagePath());
+            } catch (NoSuchFileException e) {
+                // A tier migration may have moved the blob after this entry was cached.
+                storedFileCache.invalidate(fileId);
+                file = findCachedFile(fileId, owner);
+                reader = blobStore.openReader(file.storagePath());
+            }
+            fileAccessTracker.record(fileId);
+            return new FileContent(file.file(), reader, file.checksum(), file.file().getCreatedAt(), file.encoding());
+        } catch (NoSuchFileException e) {
+            log.error("File not found on disk: {}", file.storagePath());
+            throw new NoSuchElementException("File not found on disk");
         } catch (IOException e) {
-            log.error("Error reading file content: {}", filePath, e);
+            log.error("Error reading file content: {}", file.storagePath(), e);
             throw new RuntimeException("Error reading file content", e);
         }
     }
 
-    private StoredFileResponseDto toDto(StoredFile file) {
-        StoredFileResponseDto dto = new StoredFileResponseDto();
-        dto.setId(file.getId());
-        dto.setFilename(file.getFilename());
-        dto.setSize(file.getSize());
-        dto.setContentType(file.getContentType());
-        dto.setDownloadUrl("/api/v1/storage/files/" + file.getId() + "/download");
-        dto.setCreatedAt(file.getCreatedAt());
-        dto.setUpdatedAt(file.getUpdatedAt());
-        dto.setOwner(file.getOwner());
-        dto.setBucketName(file.getStorageBucket().getName());
-        if (Optional.ofNullable(file.getMetadata()).isPresent() && !file.getMetadata().isEmpty()) {
-            dto.setMetadata(file.getMetadata().stream().collect(Collectors.toMap(FileMetadata::getMetaKey, FileMetadata::getValue)));
-        } else {
-            dto.setMetadata(Collections.emptyMap());
+    @Override
+    @Transactional(readOnly = true)
+    public ContentVersion describeContent(Long fileId, String owner) {
+        FileCacheEntry file = findCachedFile(fileId, owner);
+        return new ContentVersion(fileId, file.checksum(), file.file().getCreatedAt(), file.encoding(),
+                Optional.ofNullable(file.cacheControl()).orElse(storageProperties.getDownloadCacheControl()));
+    }
+
+    @Override
+    public void streamArchive(ArchiveRequestDto requestDto, String owner, OutputStream out) throws IOException {
+        validateArchive(requestDto);
+        log.info("Streaming {} archive for owner: {}", requestDto.getFormat(), owner);
+        int entries = 0;
+        Set<String> names = new HashSet<>();
+        try (ArchiveWriter writer = openArchiveWriter(requestDto.getFormat(), out);
+             StorageMetrics.Transfer ignored = storageMetrics.startDownload()) {
+            long afterId = 0;
+            List<ArchiveEntryRow> page;
+            do {
+                page = archivePage(requestDto, owner, afterId);
+                for (ArchiveEntryRow row : page) {
+                    if (writeArchiveEntry(writer, row, owner, names)) {
+                        entries++;
+                    }
+                }
+                afterId = page.isEmpty() ? afterId : page.get(page.size() - 1).id();
+            } while (page.size() == ARCHIVE_PAGE_SIZE);
+        }
+        log.info("Archive for owner {} completed with {} entries", owner, entries);
+    }
+
+    private void validateArchive(ArchiveRequestDto requestDto) {
+        boolean byIds = requestDto.getFileIds() != null && !requestDto.getFileIds().isEmpty();
+        if (byIds == (requestDto.getFilter() != null)) {
+            throw new IllegalArgumentException(ERR_ARCHIVE_SELECTION);
+        }
+        if (requestDto.getFilter() != null) {
+            validateSearch(requestDto.getFilter());
+            Optional.ofNullable(requestDto.getFilter().getBucketName()).ifPresent(this::findBucket);
+        }
+    }
+
+    private List<ArchiveEntryRow> archivePage(ArchiveRequestDto requestDto, String owner, long afterId) {
+        if (requestDto.getFilter() != null) {
+            return storedFileRepository.archivePage(owner, requestDto.getFilter(), afterId, ARCHIVE_PAGE_SIZE);
+        }
+        return storedFileRepository.findArchivePageByIds(owner, requestDto.getFileIds(), afterId, Limit.of(ARCHIVE_PAGE_SIZE));
+    }
+
+    private ArchiveWriter openArchiveWriter(ArchiveFormat format, OutputStream out) {
+        return switch (format) {
+            case ZIP -> new ZipArchiveWriter(out, storageProperties.getIoBufferSize());
+            case TAR -> new TarArchiveWriter(out, storageProperties.getIoBufferSize());
+        };
+    }
+
+    private boolean writeArchiveEntry(ArchiveWriter writer, ArchiveEntryRow row, String owner, Set<String> names)
+            throws IOException {
+        ArchiveEntryRow entry = row;
+        BlobReader reader = openArchiveBlob(entry);
+        if (reader == null) {
+            // A tier migration or pack compaction may have moved the blob since the page was read.
+            entry = storedFileRepository.findArchiveEntry(owner, row.id()).orElse(row);
+            reader = entry.storagePath().equals(row.storagePath()) ? null : openArchiveBlob(entry);
+        }
+        if (reader == null) {
+            // The response is already streaming, so a missing blob can only be skipped.
+            log.error("File not found on disk, leaving it out of the archive: {}", entry.storagePath());
+            return false;
+        }
+        try (BlobReader decoded = ContentCodecs.decode(reader, entry.contentEncoding(), entry.size())) {
+            writer.addEntry(archiveEntryName(row, names), row.updatedAt(),
+                    !CompressedContentTypes.isCompressed(row.contentType()), decoded);
+            storageMetrics.recordBytesOut(row.bucketName(), owner, decoded.length());
+        }
+        fileAccessTracker.record(row.id());
+        return true;
+    }
+
+    private BlobReader openArchiveBlob(ArchiveEntryRow row) throws IOException {
+        try {
+            return blobStore.openReader(row.storagePath());
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    /** {@code <bucket>/<filename>} with path segments sanitised; a repeated name gets the file id prefixed. */
+    private static String archiveEntryName(ArchiveEntryRow row, Set<String> names) {
+        String filename = Arrays.stream(Optional.ofNullable(row.filename()).orElse("").replace('\\', '/').split("/"))
+                .filter(segment -> !segment.isEmpty() && !segment.equals(".") && !segment.equals(".."))
+                .collect(Collectors.joining("/"));
+        if (filename.isEmpty()) {
+            filename = "file-" + row.id();
+        }
+        String directory = Optional.ofNullable(row.bucketName()).map(bucket -> bucket + "/").orElse("");
+        String name = directory + filename;
+        if (names.add(name)) {
+            return name;
+        }
+        // Another file may already be called <id>-<filename>, so the renamed entry is claimed as well.
+        String renamed = directory + row.id() + "-" + filename;
+        for (int n = 2; !names.add(renamed); n++) {
+            renamed = directory + row.id() + "-" + n + "-" + filename;
+        }
+        return renamed;
+    }
+
+    private StoredFile findOwnedFile(Long fileId, String owner) {
+        return storedFileRepository.findWithBucketById(fileId)
+                .filter(f -> f.getOwner().equals(owner))
+                .orElseThrow(() -> {
+                    log.error("{}: {}", ERR_FILE_NOT_FOUND, fileId);
+                    return new NoSuchElementException(ERR_FILE_NOT_FOUND);
+                });
+    }
+
+    private FileCacheEntry findCachedFile(Long fileId, String owner) {
+        return storedFileCache.get(fileId)
+                .or(() -> storedFileRepository.findWithMetadataById(fileId).map(file -> {
+                    FileCacheEntry entry = new FileCacheEntry(StoredFileMapper.toDto(file), file.getStoragePath(), file.getChecksum(),
+                            Optional.ofNullable(file.getContentEncoding()).orElse(ContentEncoding.IDENTITY),
+                            Optional.ofNullable(file.getStorageBucket()).map(StorageBucket::getCacheControl).orElse(null));
+                    storedFileCache.put(entry);
+                    return entry;
+                }))
+                .filter(entry -> entry.file().getOwner().equals(owner))
+                .orElseThrow(() -> {
+                    log.error("{}: {}", ERR_FILE_NOT_FOUND, fileId);
+                    return new NoSuchElementException(ERR_FILE_NOT_FOUND);
+                });
+    }
+
+    private BlobWriteResult writeBlob(MultipartFile file, ContentEncoding encoding) {
+        log.info("Streaming content of file: {} to blob store ({})", file.getOriginalFilename(), encoding);
+        try (InputStream in = file.getInputStream(); StorageMetrics.Transfer ignored = storageMetrics.startUpload()) {
+            if (file.getSize() <= storageProperties.getPacking().getMaxBlobSize()) {
+                return blobStore.writePacked(in, encoding, StorageTier.HOT);
+            }
+            return blobStore.write(in, encoding);
+        } catch (IOException e) {
+            log.error("Error storing file content: {}", file.getOriginalFilename(), e);
+            throw new RuntimeException("Error storing file content", e);
         }
-        return dto;
     }
 }
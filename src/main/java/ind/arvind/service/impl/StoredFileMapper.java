@@ -0,0 +1,57 @@
+package ind.arvind.service.impl;
+
+import ind.arvind.dto.StoredFileResponseDto;
+import ind.arvind.entity.FileMetadata;
+import ind.arvind.entity.StoredFile;
+import ind.arvind.repository.projection.StoredFileRow;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+public final class StoredFileMapper {
+    private StoredFileMapper() {
+    }
+
+    public static StoredFileResponseDto toDto(StoredFileRow row, Map<String, String> metadata) {
+        StoredFileResponseDto dto = new StoredFileResponseDto();
+        dto.setId(row.id());
+        dto.setFilename(row.filename());
+        dto.setSize(row.size());
+        dto.setContentType(row.contentType());
+        dto.setDownloadUrl(downloadUrl(row.id()));
+        dto.setCreatedAt(row.createdAt());
+        dto.setUpdatedAt(row.updatedAt());
+        dto.setOwner(row.owner());
+        dto.setBucketName(row.bucketName());
+        dto.setMetadata(metadata);
+        return dto;
+    }
+
+    public static StoredFileResponseDto toDto(StoredFile file) {
+        if (Optional.ofNullable(file.getMetadata()).isPresent() && !file.getMetadata().isEmpty()) {
+            return toDto(file, file.getMetadata().stream().collect(Collectors.toMap(FileMetadata::getMetaKey, FileMetadata::getValue)));
+        }
+        return toDto(file, Collections.emptyMap());
+    }
+
+    public static StoredFileResponseDto toDto(StoredFile file, Map<String, String> metadata) {
+        StoredFileResponseDto dto = new StoredFileResponseDto();
+        dto.setId(file.getId());
+        dto.setFilename(file.getFilename());
+        dto.setSize(file.getSize());
+        dto.setContentType(file.getContentType());
+        dto.setDownloadUrl(downloadUrl(file.getId()));
+        dto.setCreatedAt(file.getCreatedAt());
+        dto.setUpdatedAt(file.getUpdatedAt());
+        dto.setOwner(file.getOwner());
+        dto.setBucketName(file.getStorageBucket().getName());
+        dto.setMetadata(metadata);
+        return dto;
+    }
+
+    private static String downloadUrl(Long id) {
+        return "/api/v1/storage/files/" + id + "/download";
+    }
+}
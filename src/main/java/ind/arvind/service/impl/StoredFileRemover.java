@@ -0,0 +1,69 @@
+package ind.arvind.service.impl;
+
+import ind.arvind.cache.StoredFileCache;
+import ind.arvind.repository.FileMetadataRepository;
+import ind.arvind.repository.StoredFileRepository;
+import ind.arvind.repository.projection.StoredContentRow;
+import ind.arvind.storage.ContentBlobRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * Deletes a chunk of files with bulk statements instead of through the entity cascade, and releases
+ * what they held: content references, cached entries and usage. Callers own the transaction and
+ * keep chunks small enough for one.
+ */
+@Component
+@RequiredArgsConstructor
+public class StoredFileRemover {
+    private static final Comparator<List<String>> CONTENT_ORDER = Comparator
+            .<List<String>, String>comparing(content -> content.get(0), Comparator.nullsFirst(Comparator.naturalOrder()))
+            .thenComparing(content -> content.get(1));
+
+    private final StoredFileRepository storedFileRepository;
+    private final FileMetadataRepository fileMetadataRepository;
+    private final ContentBlobRegistry contentBlobRegistry;
+    private final StoredFileCache storedFileCache;
+    private final UsageCounters usageCounters;
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void remove(List<StoredContentRow> files) {
+        if (files.isEmpty()) {
+            return;
+        }
+        List<Long> ids = files.stream().map(StoredContentRow::id).toList();
+        fileMetadataRepository.deleteByStoredFileIdIn(ids);
+        storedFileRepository.deleteByIdIn(ids);
+        ids.forEach(storedFileCache::invalidate);
+        // Content rows are locked in checksum order so concurrent bulk deletes cannot deadlock.
+        Map<List<String>, Long> references = files.stream()
+                .collect(Collectors.groupingBy(file -> Arrays.asList(file.checksum(), file.storagePath()),
+                        () -> new TreeMap<>(CONTENT_ORDER), Collectors.counting()));
+        references.forEach((content, count) -> contentBlobRegistry.release(content.get(0), content.get(1), count));
+        recordUsage(files);
+    }
+
+    /** One counter update per owner and one per bucket, whatever the size of the chunk. */
+    private void recordUsage(List<StoredContentRow> files) {
+        files.stream()
+                .collect(Collectors.groupingBy(StoredContentRow::owner, TreeMap::new, Collectors.toList()))
+                .forEach((owner, owned) -> usageCounters.record(owner, null, -owned.size(), -totalSize(owned)));
+        files.stream()
+                .filter(file -> file.bucketId() != null)
+                .collect(Collectors.groupingBy(StoredContentRow::bucketId, TreeMap::new, Collectors.toList()))
+                .forEach((bucketId, inBucket) -> usageCounters.recordBucket(bucketId, -inBucket.size(), -totalSize(inBucket)));
+    }
+
+    private static long totalSize(List<StoredContentRow> files) {
+        return files.stream().mapToLong(StoredContentRow::size).sum();
+    }
+}
@@ -0,0 +1,162 @@
+package ind.arvind.service.impl;
+
+import ind.arvind.config.StorageProperties;
+import ind.arvind.entity.ContentBlob;
+import ind.arvind.entity.ContentEncoding;
+import ind.arvind.entity.StorageTier;
+import ind.arvind.metrics.StorageMetrics;
+import ind.arvind.repository.ContentBlobRepository;
+import ind.arvind.repository.StoredFileRepository;
+import ind.arvind.service.TieringService;
+import ind.arvind.storage.BlobCleaner;
+import ind.arvind.storage.BlobStore;
+import ind.arvind.storage.BlobWriteResult;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+
+/**
+ * Moves content between the hot and cold tiers: the blob is copied to the target tier first and the
+ * content is then switched over by {@link ContentRelocator}.
+ */
+@Service
+@RequiredArgsConstructor
+public class TieringServiceImpl implements TieringService {
+    private static final Logger log = LoggerFactory.getLogger(TieringServiceImpl.class);
+    private static final int FLUSH_CHUNK_SIZE = 500;
+
+    private final StoredFileRepository storedFileRepository;
+    private final ContentBlobRepository contentBlobRepository;
+    private final BlobStore blobStore;
+    private final BlobCleaner blobCleaner;
+    private final ContentRelocator contentRelocator;
+    private final FileAccessTracker fileAccessTracker;
+    private final StorageProperties storageProperties;
+    private final TransactionTemplate transactionTemplate;
+    private final StorageMetrics storageMetrics;
+
+    @Override
+    public int flushAccessCounts() {
+        Map<Long, Long> reads = fileAccessTracker.drain();
+        if (reads.isEmpty()) {
+            return 0;
+        }
+        Instant now = Instant.now();
+        // Files read equally often share one UPDATE, so a flush costs a handful of statements.
+        Map<Long, List<Long>> idsByReads = new TreeMap<>();
+        reads.forEach((fileId, count) -> idsByReads.computeIfAbsent(count, c -> new ArrayList<>()).add(fileId));
+        transactionTemplate.executeWithoutResult(status -> idsByReads.forEach((count, ids) ->
+                chunks(ids).forEach(chunk -> storedFileRepository.recordReads(chunk, count, now))));
+
+        StorageProperties.Tiering tiering = storageProperties.getTiering();
+        if (tiering.isEnabled()) {
+            List<Long> promotable = reads.entrySet().stream()
+                    .filter(entry -> entry.getValue() >= tiering.getPromoteAfterReads())
+                    .map(Map.Entry::getKey)
+                    .toList();
+            chunks(promotable).stream()
+                    .flatMap(chunk -> storedFileRepository.findChecksumsByIdInAndTier(chunk, StorageTier.COLD).stream())
+                    .distinct()
+                    .forEach(this::promote);
+        }
+        return reads.size();
+    }
+
+    @Override
+    public int demoteUnreadContent() {
+        StorageProperties.Tiering tiering = storageProperties.getTiering();
+        if (!tiering.isEnabled()) {
+            return 0;
+        }
+        Instant cutoff = Instant.now().minus(tiering.getColdAfter());
+        int demoted = 0;
+        long afterId = 0;
+        List<ContentBlob> page;
+        do {
+            page = contentBlobRepository.findUnreadSince(StorageTier.COLD, cutoff, afterId,
+                    Limit.of(tiering.getMigrationBatchSize()));
+            for (ContentBlob blob : page) {
+                if (move(blob, StorageTier.COLD)) {
+                    demoted++;
+                }
+                afterId = blob.getId();
+            }
+        } while (page.size() == tiering.getMigrationBatchSize());
+        return demoted;
+    }
+
+    private void promote(String checksum) {
+        contentBlobRepository.findByChecksum(checksum)
+                .filter(blob -> blob.getTier() == StorageTier.COLD)
+                .ifPresent(blob -> move(blob, StorageTier.HOT));
+    }
+
+    private boolean move(ContentBlob blob, StorageTier target) {
+        String checksum = blob.getChecksum();
+        String source = blob.getStoragePath();
+        BlobWriteResult copy;
+        try {
+            copy = copyTo(blob, target);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Unable to copy content {} at {} to the {} tier", checksum, source, target, e);
+            return false;
+        }
+        long storedSize = Optional.ofNullable(blob.getStoredSize()).orElse(blob.getSize());
+        if (!contentRelocator.relocate(blob, copy)) {
+            return false;
+        }
+        storageMetrics.recordTierMigration(target.name().toLowerCase(), blob.getSize());
+        log.info("Moved content {} to the {} tier ({} -> {} bytes on disk)", checksum, target, storedSize, copy.storedSize());
+        return true;
+    }
+
+    /**
+     * Plain content headed for the cold tier is gzipped on the way; if that saves nothing the copy is
+     * redone verbatim. Everything else, promotions included, keeps its bytes and encoding as stored.
+     */
+    private BlobWriteResult copyTo(ContentBlob blob, StorageTier target) throws IOException {
+        ContentEncoding encoding = Optional.ofNullable(blob.getContentEncoding()).orElse(ContentEncoding.IDENTITY);
+        long storedSize = Optional.ofNullable(blob.getStoredSize()).orElse(blob.getSize());
+        if (target == StorageTier.COLD && encoding == ContentEncoding.IDENTITY
+                && blob.getSize() >= storageProperties.getCompression().getMinSize()) {
+            BlobWriteResult compressed;
+            try (InputStream in = blobStore.open(blob.getStoragePath())) {
+                compressed = blob.getSize() <= storageProperties.getPacking().getMaxBlobSize()
+                        ? blobStore.writePacked(in, ContentEncoding.GZIP, target)
+                        : blobStore.write(in, ContentEncoding.GZIP, target);
+            }
+            if (compressed.size() != blob.getSize()) {
+                blobCleaner.deleteQuietly(compressed.location());
+                throw new IOException("Read " + compressed.size() + " bytes but content " + blob.getChecksum()
+                        + " holds " + blob.getSize());
+            }
+            if (compressed.storedSize() < storedSize) {
+                return new BlobWriteResult(compressed.location(), blob.getSize(), blob.getChecksum(),
+                        ContentEncoding.GZIP, compressed.storedSize(), compressed.writeCpuNanos(), target);
+            }
+            blobCleaner.deleteQuietly(compressed.location());
+        }
+        String location = blobStore.transfer(blob.getStoragePath(), target);
+        return new BlobWriteResult(location, blob.getSize(), blob.getChecksum(), encoding, storedSize, 0, target);
+    }
+
+    private static List<List<Long>> chunks(List<Long> ids) {
+        List<List<Long>> chunks = new ArrayList<>();
+        for (int i = 0; i < ids.size(); i += FLUSH_CHUNK_SIZE) {
+            chunks.add(ids.subList(i, Math.min(ids.size(), i + FLUSH_CHUNK_SIZE)));
+        }
+        return chunks;
+    }
+}
@@ -0,0 +1,170 @@
+package ind.arvind.service.impl;
+
+import ind.arvind.config.StorageProperties;
+import ind.arvind.entity.StorageBucket;
+import ind.arvind.entity.UsageCounter;
+import ind.arvind.entity.UsageScope;
+import ind.arvind.repository.StoredFileRepository;
+import ind.arvind.repository.UsageCounterRepository;
+import ind.arvind.repository.projection.UsageRow;
+import ind.arvind.repository.projection.UsageTotals;
+import ind.arvind.service.QuotaExceededException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.IntStream;
+
+/**
+ * Running file and byte totals per owner and per bucket, kept in striped counter rows that are
+ * updated in the caller's transaction. Reading a total sums a handful of stripes and never touches
+ * the file table, which is what makes upload-time quota checks cheap.
+ */
+@Component
+public class UsageCounters implements SmartInitializingSingleton {
+    private static final Logger log = LoggerFactory.getLogger(UsageCounters.class);
+    private static final int SEED_SHARD = 0;
+    private static final String SEED_MARKER = "seeded";
+
+    private final UsageCounterRepository usageCounterRepository;
+    private final StoredFileRepository storedFileRepository;
+    private final StorageProperties.Usage properties;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate newTransaction;
+
+    public UsageCounters(UsageCounterRepository usageCounterRepository, StoredFileRepository storedFileRepository,
+                         StorageProperties storageProperties, PlatformTransactionManager transactionManager) {
+        this.usageCounterRepository = usageCounterRepository;
+        this.storedFileRepository = storedFileRepository;
+        this.properties = storageProperties.getUsage();
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /** Adds {@code files} and {@code bytes} (negative when deleting) to the owner's and, if given, the bucket's totals. */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void record(String owner, Long bucketId, long files, long bytes) {
+        add(UsageScope.OWNER, owner, files, bytes);
+        if (bucketId != null) {
+            recordBucket(bucketId, files, bytes);
+        }
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordBucket(Long bucketId, long files, long bytes) {
+        add(UsageScope.BUCKET, bucketId.toString(), files, bytes);
+    }
+
+    public UsageTotals ownerUsage(String owner) {
+        return usageCounterRepository.sumByScope(UsageScope.OWNER, owner);
+    }
+
+    public UsageTotals bucketUsage(Long bucketId) {
+        return usageCounterRepository.sumByScope(UsageScope.BUCKET, bucketId.toString());
+    }
+
+    /**
+     * Rejects adding one file of {@code bytes} when it would take the owner or bucket past its limit.
+     * The check is not serialised with concurrent uploads, so those can overshoot by their own size.
+     */
+    public void checkQuota(StorageBucket bucket, String owner, long bytes) {
+        if (properties.getOwnerQuotaBytes() > 0 || properties.getOwnerQuotaFiles() > 0) {
+            check("owner " + owner, ownerUsage(owner), properties.getOwnerQuotaFiles(),
+                    properties.getOwnerQuotaBytes(), bytes);
+        }
+        if (bucket.getQuotaBytes() != null || bucket.getQuotaFiles() != null) {
+            check("bucket " + bucket.getName(), bucketUsage(bucket.getId()),
+                    bucket.getQuotaFiles() == null ? 0 : bucket.getQuotaFiles(),
+                    bucket.getQuotaBytes() == null ? 0 : bucket.getQuotaBytes(), bytes);
+        }
+    }
+
+    /**
+     * Seeds the counters from the file table once, before the server takes traffic, when none exist yet.
+     * The seeding transaction first inserts a marker row, so a node starting at the same time waits on
+     * its key and then skips seeding instead of inserting the same stripes.
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                if (usageCounterRepository.count() > 0 || storedFileRepository.count() == 0) {
+                    return;
+                }
+                usageCounterRepository.saveAndFlush(UsageCounter.builder()
+                        .scope(UsageScope.SYSTEM).scopeKey(SEED_MARKER).shard(SEED_SHARD).build());
+                List<UsageRow> owners = storedFileRepository.sumUsageByOwner();
+                List<UsageRow> buckets = storedFileRepository.sumUsageByBucket();
+                owners.forEach(row -> seed(UsageScope.OWNER, row));
+                buckets.forEach(row -> seed(UsageScope.BUCKET, row));
+                log.info("Seeded usage counters for {} owners and {} buckets", owners.size(), buckets.size());
+            });
+        } catch (DataIntegrityViolationException e) {
+            log.info("Usage counters were seeded by another node");
+        }
+    }
+
+    private void add(UsageScope scope, String key, long files, long bytes) {
+        int shard = ThreadLocalRandom.current().nextInt(Math.max(1, properties.getCounterShards()));
+        if (usageCounterRepository.add(scope, key, shard, files, bytes) == 0) {
+            createStripes(scope, key);
+            if (usageCounterRepository.add(scope, key, shard, files, bytes) == 0) {
+                throw new IllegalStateException("Usage counter stripe " + shard + " of " + scope + " " + key + " is missing");
+            }
+        }
+    }
+
+    /**
+     * Creates the missing stripes of a counter in their own transaction, so the insert never holds up
+     * the caller's and two uploads racing to create the same stripes both find them afterwards. Also
+     * fills in the stripes added when {@code storage.usage.counter-shards} was raised.
+     */
+    private void createStripes(UsageScope scope, String key) {
+        try {
+            newTransaction.executeWithoutResult(status -> {
+                Set<Integer> existing = new HashSet<>(usageCounterRepository.findShards(scope, key));
+                usageCounterRepository.saveAll(IntStream.range(0, Math.max(1, properties.getCounterShards()))
+                        .filter(shard -> !existing.contains(shard))
+                        .mapToObj(shard -> UsageCounter.builder().scope(scope).scopeKey(key).shard(shard).build())
+                        .toList());
+            });
+        } catch (DataIntegrityViolationException e) {
+            log.debug("Usage counter {} {} was created concurrently", scope, key);
+        }
+    }
+
+    /** Every stripe is created; the totals go to the first one. */
+    private void seed(UsageScope scope, UsageRow row) {
+        usageCounterRepository.saveAll(IntStream.range(0, Math.max(1, properties.getCounterShards()))
+                .mapToObj(shard -> UsageCounter.builder()
+                        .scope(scope)
+                        .scopeKey(row.scopeKey())
+                        .shard(shard)
+                        .fileCount(shard == SEED_SHARD ? row.fileCount() : 0)
+                        .byteCount(shard == SEED_SHARD ? row.byteCount() : 0)
+                        .build())
+                .toList());
+    }
+
+    private static void check(String scope, UsageTotals used, long maxFiles, long maxBytes, long bytes) {
+        if (maxFiles > 0 && used.fileCount() + 1 > maxFiles) {
+            throw new QuotaExceededException("File quota of " + scope + " exceeded (" + maxFiles + " files)");
+        }
+        if (maxBytes > 0 && used.byteCount() + bytes > maxBytes) {
+            throw new QuotaExceededException("Storage quota of " + scope + " exceeded (" + used.byteCount() + " of "
+                    + maxBytes + " bytes used)");
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package ind.arvind.service.impl;
+
+import ind.arvind.config.StorageProperties;
+import ind.arvind.dto.UsageDto;
+import ind.arvind.entity.StorageBucket;
+import ind.arvind.entity.UsageScope;
+import ind.arvind.repository.StorageBucketRepository;
+import ind.arvind.repository.projection.UsageTotals;
+import ind.arvind.service.UsageService;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+@Service
+@RequiredArgsConstructor
+public class UsageServiceImpl implements UsageService {
+    private static final Logger log = LoggerFactory.getLogger(UsageServiceImpl.class);
+    private static final String ERR_BUCKET_NOT_FOUND = "Bucket not found";
+
+    private final UsageCounters usageCounters;
+    private final StorageBucketRepository storageBucketRepository;
+    private final StorageProperties storageProperties;
+
+    @Override
+    @Transactional(readOnly = true)
+    public UsageDto getOwnerUsage(String owner) {
+        log.info("Retrieving usage of owner: {}", owner);
+        StorageProperties.Usage usage = storageProperties.getUsage();
+        return toDto(UsageScope.OWNER, owner, usageCounters.ownerUsage(owner),
+                usage.getOwnerQuotaFiles() > 0 ? usage.getOwnerQuotaFiles() : null,
+                usage.getOwnerQuotaBytes() > 0 ? usage.getOwnerQuotaBytes() : null);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public UsageDto getBucketUsage(String bucketName, String owner) {
+        log.info("Retrieving usage of bucket: {} for owner: {}", bucketName, owner);
+        StorageBucket bucket = storageBucketRepository.findByName(bucketName)
+                .filter(b -> b.getOwner().equals(owner))
+                .orElseThrow(() -> {
+                    log.error("{}: {}", ERR_BUCKET_NOT_FOUND, bucketName);
+                    return new IllegalArgumentException(ERR_BUCKET_NOT_FOUND);
+                });
+        return toDto(UsageScope.BUCKET, bucket.getName(), usageCounters.bucketUsage(bucket.getId()),
+                bucket.getQuotaFiles(), bucket.getQuotaBytes());
+    }
+
+    private static UsageDto toDto(UsageScope scope, String name, UsageTotals totals, Long quotaFiles, Long quotaBytes) {
+        return new UsageDto(scope, name, totals.fileCount(), totals.byteCount(), quotaFiles, quotaBytes);
+    }
+}
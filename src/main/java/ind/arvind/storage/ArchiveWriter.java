@@ -0,0 +1,21 @@
+package ind.arvind.storage;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.time.Instant;
+
+/**
+ * Streams entries into an archive one after another. Content is copied straight from the blob
+ * reader, so only the writer's fixed buffers are ever held in memory.
+ */
+public interface ArchiveWriter extends Closeable {
+    /**
+     * @param compress whether the format may compress this entry; callers pass {@code false} for
+     *                 content that is already compressed
+     */
+    void addEntry(String name, Instant lastModified, boolean compress, BlobReader content) throws IOException;
+
+    /** Writes the archive trailer and closes the underlying stream. */
+    @Override
+    void close() throws IOException;
+}
@@ -0,0 +1,71 @@
+package ind.arvind.storage;
+
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+
+/**
+ * Ties blob deletion to the outcome of the surrounding database transaction so that rows and
+ * blobs never point at each other after a rollback.
+ */
+@Component
+@RequiredArgsConstructor
+public class BlobCleaner {
+    private static final Logger log = LoggerFactory.getLogger(BlobCleaner.class);
+    private final BlobStore blobStore;
+
+    public void discardOnRollback(String location) {
+        onRollback(() -> deleteQuietly(location));
+    }
+
+    /** Like {@link #discardOnRollback}, for a composed blob whose segments still belong to someone else. */
+    public void discardManifestOnRollback(String location) {
+        onRollback(() -> {
+            try {
+                blobStore.deleteManifest(location);
+            } catch (IOException e) {
+                log.warn("Unable to delete composed blob {}", location, e);
+            }
+        });
+    }
+
+    public void deleteAfterCommit(String location) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            deleteQuietly(location);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                deleteQuietly(location);
+            }
+        });
+    }
+
+    private static void onRollback(Runnable discard) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    discard.run();
+                }
+            }
+        });
+    }
+
+    public void deleteQuietly(String location) {
+        try {
+            blobStore.delete(location);
+        } catch (IOException e) {
+            log.warn("Unable to delete blob {}", location, e);
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package ind.arvind.storage;
+
+import java.time.Instant;
+
+/** A blob as found on disk by {@link BlobStore#listBlobs}. */
+public record BlobEntry(String location, long storedSize, Instant lastModified) {
+}
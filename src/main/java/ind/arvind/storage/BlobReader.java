@@ -0,0 +1,22 @@
+package ind.arvind.storage;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.channels.WritableByteChannel;
+import java.util.Optional;
+
+/**
+ * Positional, read-only view of a stored blob. Callers copy byte ranges straight into a target
+ * channel so that no blob is ever materialised on the heap.
+ */
+public interface BlobReader extends Closeable {
+    long length();
+
+    void transferTo(long position, long count, WritableByteChannel target) throws IOException;
+
+    /**
+     * The on-disk region holding the raw blob bytes, when they can be handed to the container for
+     * a kernel-level sendfile. Empty when the bytes must pass through {@link #transferTo}.
+     */
+    Optional<FileRegion> fileRegion();
+}
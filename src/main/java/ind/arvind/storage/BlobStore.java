@@ -0,0 +1,66 @@
+package ind.arvind.storage;
+
+import ind.arvind.entity.ContentEncoding;
+import ind.arvind.entity.StorageTier;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
+/**
+ * Persists raw file content. Locations returned by {@link #write} are opaque to callers and are
+ * what {@code StoredFile.storagePath} records.
+ */
+public interface BlobStore {
+    default BlobWriteResult write(InputStream source) throws IOException {
+        return write(source, ContentEncoding.IDENTITY);
+    }
+
+    default BlobWriteResult write(InputStream source, ContentEncoding encoding) throws IOException {
+        return write(source, encoding, StorageTier.HOT);
+    }
+
+    /** Stores {@code source} encoded as requested; size and checksum still describe the decoded bytes. */
+    BlobWriteResult write(InputStream source, ContentEncoding encoding, StorageTier tier) throws IOException;
+
+    /**
+     * Like {@link #write(InputStream, ContentEncoding, StorageTier)}, but appends small content to a
+     * shared pack segment instead of giving it a file of its own. Content that turns out larger than
+     * the pack limit is written as a regular blob. Packed blobs cannot be composed.
+     */
+    BlobWriteResult writePacked(InputStream source, ContentEncoding encoding, StorageTier tier) throws IOException;
+
+    /**
+     * Copies the blob's stored bytes, encoding included, into a new blob on {@code tier} and returns
+     * its location. Packed blobs are packed again. The source blob is left in place.
+     */
+    String transfer(String location, StorageTier tier) throws IOException;
+
+    /**
+     * Creates a new blob that is the ordered concatenation of existing blobs without copying their
+     * bytes. The source blobs become owned by the composed blob and must not be deleted separately.
+     */
+    String compose(List<String> locations) throws IOException;
+
+    /** Undoes {@link #compose}: removes the composed blob but leaves its segments in place. */
+    void deleteManifest(String location) throws IOException;
+
+    InputStream open(String location) throws IOException;
+    BlobReader openReader(String location) throws IOException;
+    boolean exists(String location);
+    /** Deleting a packed blob is a no-op; its space comes back when its segment is compacted away. */
+    void delete(String location) throws IOException;
+
+    /**
+     * Blobs with a file of their own, in a stable order starting after {@code afterLocation}
+     * ({@code null} for the beginning). Packed blobs and blobs being written are not listed.
+     */
+    List<BlobEntry> listBlobs(String afterLocation, int limit) throws IOException;
+
+    /** Locations of the blobs a composed blob references; empty for any other blob. */
+    List<String> segments(String location) throws IOException;
+
+    /** Pack segments no longer being appended to. */
+    List<PackSegment> sealedPackSegments() throws IOException;
+
+    void deletePackSegment(PackSegment segment) throws IOException;
+}
@@ -0,0 +1,19 @@
+package ind.arvind.storage;
+
+import ind.arvind.entity.ContentEncoding;
+import ind.arvind.entity.StorageTier;
+
+/**
+ * @param size           decoded content length
+ * @param sha256         checksum of the decoded content
+ * @param storedSize     bytes on disk after encoding
+ * @param writeCpuNanos  CPU time the writing thread spent reading, hashing and encoding the content
+ * @param tier           tier holding the blob
+ */
+public record BlobWriteResult(String location, long size, String sha256, ContentEncoding encoding, long storedSize,
+                              long writeCpuNanos, StorageTier tier) {
+
+    public BlobWriteResult(String location, long size, String sha256) {
+        this(location, size, sha256, ContentEncoding.IDENTITY, size, 0, StorageTier.HOT);
+    }
+}
@@ -0,0 +1,38 @@
+package ind.arvind.storage;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Fixed-size pool of direct I/O buffers shared by all transfers. When the pool is drained a
+ * short-lived heap buffer of the same size is handed out instead, so per-transfer memory stays
+ * bounded by {@code bufferSize} without ever blocking the caller.
+ */
+public class ByteBufferPool {
+    private final int bufferSize;
+    private final BlockingQueue<ByteBuffer> buffers;
+
+    public ByteBufferPool(int bufferSize, int capacity) {
+        this.bufferSize = bufferSize;
+        this.buffers = new ArrayBlockingQueue<>(capacity);
+        for (int i = 0; i < capacity; i++) {
+            buffers.offer(ByteBuffer.allocateDirect(bufferSize));
+        }
+    }
+
+    public ByteBuffer acquire() {
+        ByteBuffer buffer = buffers.poll();
+        return buffer != null ? buffer.clear() : ByteBuffer.allocate(bufferSize);
+    }
+
+    public void release(ByteBuffer buffer) {
+        if (buffer.isDirect()) {
+            buffers.offer(buffer.clear());
+        }
+    }
+
+    public int bufferSize() {
+        return bufferSize;
+    }
+}
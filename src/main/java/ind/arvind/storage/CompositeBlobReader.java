@@ -0,0 +1,70 @@
+package ind.arvind.storage;
+
+import java.io.IOException;
+import java.nio.channels.WritableByteChannel;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Presents an ordered list of segment readers as one contiguous blob.
+ */
+public class CompositeBlobReader implements BlobReader {
+    private final List<BlobReader> segments;
+    private final long[] offsets;
+    private final long length;
+
+    public CompositeBlobReader(List<BlobReader> segments) {
+        this.segments = List.copyOf(segments);
+        this.offsets = new long[segments.size()];
+        long total = 0;
+        for (int i = 0; i < segments.size(); i++) {
+            offsets[i] = total;
+            total += segments.get(i).length();
+        }
+        this.length = total;
+    }
+
+    @Override
+    public long length() {
+        return length;
+    }
+
+    @Override
+    public void transferTo(long position, long count, WritableByteChannel target) throws IOException {
+        if (position < 0 || count < 0 || position + count > length) {
+            throw new IllegalArgumentException("Range " + position + "+" + count + " outside blob of length " + length);
+        }
+        long remaining = count;
+        long cursor = position;
+        for (int i = 0; i < segments.size() && remaining > 0; i++) {
+            final long segmentEnd = offsets[i] + segments.get(i).length();
+            if (cursor >= segmentEnd) {
+                continue;
+            }
+            final long chunk = Math.min(remaining, segmentEnd - cursor);
+            segments.get(i).transferTo(cursor - offsets[i], chunk, target);
+            cursor += chunk;
+            remaining -= chunk;
+        }
+    }
+
+    @Override
+    public Optional<FileRegion> fileRegion() {
+        return segments.size() == 1 ? segments.get(0).fileRegion() : Optional.empty();
+    }
+
+    @Override
+    public void close() throws IOException {
+        IOException failure = null;
+        for (BlobReader segment : segments) {
+            try {
+                segment.close();
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package ind.arvind.storage;
+
+import java.util.Locale;
+import java.util.Set;
+
+/** Content types whose payload is already compressed, so compressing it again only burns CPU. */
+public final class CompressedContentTypes {
+    private static final Set<String> COMPRESSED = Set.of(
+            "application/zip", "application/gzip", "application/x-gzip", "application/x-bzip2",
+            "application/x-xz", "application/zstd", "application/x-7z-compressed", "application/x-rar-compressed",
+            "application/vnd.rar", "application/java-archive", "application/pdf",
+            "application/vnd.openxmlformats-officedocument.wordprocessingml.document",
+            "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet",
+            "application/vnd.openxmlformats-officedocument.presentationml.presentation",
+            "image/jpeg", "image/png", "image/gif", "image/webp", "image/avif", "image/heic");
+    private static final Set<String> COMPRESSED_FAMILIES = Set.of("video/", "audio/");
+    private static final Set<String> UNCOMPRESSED_EXCEPTIONS = Set.of("audio/wav", "audio/x-wav", "audio/aiff");
+
+    private CompressedContentTypes() {
+    }
+
+    public static boolean isCompressed(String contentType) {
+        if (contentType == null) {
+            return false;
+        }
+        String type = contentType.split(";", 2)[0].trim().toLowerCase(Locale.ROOT);
+        if (COMPRESSED.contains(type)) {
+            return true;
+        }
+        return !UNCOMPRESSED_EXCEPTIONS.contains(type) && COMPRESSED_FAMILIES.stream().anyMatch(type::startsWith);
+    }
+}
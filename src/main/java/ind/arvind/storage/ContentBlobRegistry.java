@@ -0,0 +1,172 @@
+package ind.arvind.storage;
+
+import ind.arvind.entity.ContentBlob;
+import ind.arvind.entity.ContentEncoding;
+import ind.arvind.entity.StorageTier;
+import ind.arvind.repository.ContentBlobRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.Optional;
+
+/**
+ * Reference-counted index of stored content keyed by checksum. Identical content is kept once no
+ * matter how many files, owners or buckets point at it; the blob is deleted when the last file
+ * referencing it is.
+ *
+ * <p>Composed multipart uploads are keyed by their {@code <digest>-<parts>} checksum, so they only
+ * deduplicate against the same parts uploaded the same way, never against a single-part upload or
+ * {@code createFromHash} of the whole content.
+ */
+@Component
+public class ContentBlobRegistry {
+    private static final Logger log = LoggerFactory.getLogger(ContentBlobRegistry.class);
+    private final ContentBlobRepository contentBlobRepository;
+    private final BlobCleaner blobCleaner;
+    private final TransactionTemplate newTransaction;
+
+    public ContentBlobRegistry(ContentBlobRepository contentBlobRepository, BlobCleaner blobCleaner,
+                               PlatformTransactionManager transactionManager) {
+        this.contentBlobRepository = contentBlobRepository;
+        this.blobCleaner = blobCleaner;
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Registers a freshly written blob. When the same content is already stored its reference count
+     * is bumped, the fresh copy is dropped after commit and the canonical blob is returned instead.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public BlobWriteResult acquire(BlobWriteResult written) {
+        if (written.sha256() == null) {
+            return written;
+        }
+        ContentBlob blob = contentBlobRepository.lockByChecksum(written.sha256())
+                .orElseGet(() -> reserve(written));
+        if (blob.getRefCount() <= 0) {
+            claim(blob, written);
+            return written;
+        }
+        blob.setRefCount(blob.getRefCount() + 1);
+        blobCleaner.deleteAfterCommit(written.location());
+        log.info("Deduplicated content {} onto {} (refs: {})", written.sha256(), blob.getStoragePath(), blob.getRefCount());
+        return toResult(blob, written.writeCpuNanos());
+    }
+
+    /**
+     * Inserts an unreferenced row for new content in its own transaction, so uploads of the same
+     * content racing to register it queue on the row lock instead of failing on the unique checksum.
+     */
+    private ContentBlob reserve(BlobWriteResult written) {
+        try {
+            newTransaction.executeWithoutResult(status -> contentBlobRepository.save(ContentBlob.builder()
+                    .checksum(written.sha256())
+                    .storagePath(written.location())
+                    .size(written.size())
+                    .contentEncoding(written.encoding())
+                    .storedSize(written.storedSize())
+                    .tier(written.tier())
+                    .refCount(0L)
+                    .createdAt(Instant.now())
+                    .build()));
+        } catch (DataIntegrityViolationException e) {
+            log.debug("Content {} was registered concurrently", written.sha256());
+        }
+        return contentBlobRepository.lockByChecksum(written.sha256())
+                .orElseThrow(() -> new IllegalStateException("Content " + written.sha256() + " vanished after registration"));
+    }
+
+    /**
+     * Points an unreferenced row at this upload's blob. No committed file references the row, so
+     * whatever it pointed at before is not needed; should this transaction roll back, the row is
+     * dropped again rather than left pointing at a blob the rollback deletes.
+     */
+    private void claim(ContentBlob blob, BlobWriteResult written) {
+        blob.setStoragePath(written.location());
+        blob.setSize(written.size());
+        blob.setContentEncoding(written.encoding());
+        blob.setStoredSize(written.storedSize());
+        blob.setTier(written.tier());
+        blob.setRefCount(1L);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        String checksum = written.sha256();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    dropUnreferenced(checksum);
+                }
+            }
+        });
+    }
+
+    private void dropUnreferenced(String checksum) {
+        try {
+            newTransaction.executeWithoutResult(status -> contentBlobRepository.deleteUnreferenced(checksum));
+        } catch (RuntimeException e) {
+            log.warn("Unable to drop unreferenced content {}", checksum, e);
+        }
+    }
+
+    /**
+     * Adds a reference to already stored content without any new bytes being written.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public Optional<BlobWriteResult> acquireExisting(String checksum) {
+        return contentBlobRepository.lockByChecksum(checksum)
+                .filter(existing -> existing.getRefCount() > 0)
+                .map(existing -> {
+                    existing.setRefCount(existing.getRefCount() + 1);
+                    return toResult(existing, 0);
+                });
+    }
+
+    /**
+     * Drops one reference to the blob at {@code location}, deleting it after commit once nothing
+     * references it any more. Blobs that were never registered are deleted straight away.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void release(String checksum, String location) {
+        release(checksum, location, 1);
+    }
+
+    /** Drops {@code references} references at once, for files deleted together. */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void release(String checksum, String location, long references) {
+        Optional<ContentBlob> registered = Optional.ofNullable(checksum)
+                .flatMap(contentBlobRepository::lockByChecksum)
+                .filter(blob -> blob.getStoragePath().equals(location));
+        if (registered.isEmpty()) {
+            blobCleaner.deleteAfterCommit(location);
+            return;
+        }
+        ContentBlob blob = registered.get();
+        blob.setRefCount(blob.getRefCount() - references);
+        if (blob.getRefCount() <= 0) {
+            contentBlobRepository.delete(blob);
+            blobCleaner.deleteAfterCommit(location);
+        }
+    }
+
+    /** The canonical blob may be encoded or tiered differently from a fresh duplicate, so its layout wins. */
+    private static BlobWriteResult toResult(ContentBlob blob, long writeCpuNanos) {
+        ContentEncoding encoding = Optional.ofNullable(blob.getContentEncoding()).orElse(ContentEncoding.IDENTITY);
+        long storedSize = Optional.ofNullable(blob.getStoredSize()).orElse(blob.getSize());
+        StorageTier tier = Optional.ofNullable(blob.getTier()).orElse(StorageTier.HOT);
+        return new BlobWriteResult(blob.getStoragePath(), blob.getSize(), blob.getChecksum(), encoding, storedSize,
+                writeCpuNanos, tier);
+    }
+}
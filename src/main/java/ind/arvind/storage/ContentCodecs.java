@@ -0,0 +1,179 @@
+package ind.arvind.storage;
+
+import ind.arvind.entity.ContentEncoding;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.security.MessageDigest;
+import java.util.Optional;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Streaming encoders and decoders for stored blobs. Encoding works directly on the caller's (pooled,
+ * usually direct) buffers so compression adds no per-upload heap allocation.
+ */
+public final class ContentCodecs {
+    private static final byte[] GZIP_HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff};
+    private static final int GZIP_TRAILER_LENGTH = 8;
+    private static final int DECODE_BUFFER_SIZE = 64 * 1024;
+
+    private ContentCodecs() {
+    }
+
+    /**
+     * Copies {@code in} to {@code out} as a single gzip member, feeding the decoded bytes to
+     * {@code digest} on the way. Returns the decoded length.
+     */
+    public static long gzip(ReadableByteChannel in, WritableByteChannel out, MessageDigest digest, int level,
+                            ByteBuffer input, ByteBuffer output) throws IOException {
+        Deflater deflater = new Deflater(level, true);
+        CRC32 crc = new CRC32();
+        long size = 0;
+        try {
+            writeFully(out, ByteBuffer.wrap(GZIP_HEADER));
+            input.clear();
+            while (in.read(input) >= 0) {
+                input.flip();
+                digest.update(input.duplicate());
+                crc.update(input.duplicate());
+                size += input.remaining();
+                deflater.setInput(input);
+                while (!deflater.needsInput()) {
+                    drain(deflater, out, output);
+                }
+                input.clear();
+            }
+            // the deflater still references the cleared buffer and would re-read it on finish
+            input.limit(0);
+            deflater.finish();
+            while (!deflater.finished()) {
+                drain(deflater, out, output);
+            }
+            ByteBuffer trailer = ByteBuffer.allocate(GZIP_TRAILER_LENGTH).order(ByteOrder.LITTLE_ENDIAN);
+            trailer.putInt((int) crc.getValue()).putInt((int) size).flip();
+            writeFully(out, trailer);
+        } finally {
+            deflater.end();
+        }
+        return size;
+    }
+
+    /** Presents an encoded blob as its decoded bytes; identity blobs are returned as they are. */
+    public static BlobReader decode(BlobReader stored, ContentEncoding encoding, long decodedLength) {
+        return encoding == null || encoding == ContentEncoding.IDENTITY ? stored : new GzipBlobReader(stored, decodedLength);
+    }
+
+    private static void drain(Deflater deflater, WritableByteChannel out, ByteBuffer output) throws IOException {
+        output.clear();
+        deflater.deflate(output);
+        output.flip();
+        writeFully(out, output);
+    }
+
+    private static void writeFully(WritableByteChannel out, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+    }
+
+    /**
+     * Decoded view of a gzip blob. Every transfer inflates from the start of the blob, so ranges cost
+     * CPU proportional to their end offset; sendfile is never possible.
+     */
+    private static final class GzipBlobReader implements BlobReader {
+        private final BlobReader stored;
+        private final long length;
+
+        private GzipBlobReader(BlobReader stored, long length) {
+            this.stored = stored;
+            this.length = length;
+        }
+
+        @Override
+        public long length() {
+            return length;
+        }
+
+        @Override
+        public void transferTo(long position, long count, WritableByteChannel target) throws IOException {
+            if (position < 0 || count < 0 || position + count > length) {
+                throw new IllegalArgumentException("Range " + position + "+" + count + " outside blob of length " + length);
+            }
+            try (InputStream in = new GZIPInputStream(new StoredBytesInputStream(stored), DECODE_BUFFER_SIZE)) {
+                in.skipNBytes(position);
+                byte[] buffer = new byte[(int) Math.min(DECODE_BUFFER_SIZE, Math.max(count, 1))];
+                long remaining = count;
+                while (remaining > 0) {
+                    int read = in.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+                    if (read < 0) {
+                        throw new EOFException("Encoded blob ended " + remaining + " bytes early");
+                    }
+                    writeFully(target, ByteBuffer.wrap(buffer, 0, read));
+                    remaining -= read;
+                }
+            }
+        }
+
+        @Override
+        public Optional<FileRegion> fileRegion() {
+            return Optional.empty();
+        }
+
+        @Override
+        public void close() throws IOException {
+            stored.close();
+        }
+    }
+
+    /** Sequential stream over a reader's raw bytes, built on its positional {@code transferTo}. */
+    private static final class StoredBytesInputStream extends InputStream {
+        private final BlobReader reader;
+        private long position;
+
+        private StoredBytesInputStream(BlobReader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] single = new byte[1];
+            return read(single, 0, 1) < 0 ? -1 : single[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            long available = reader.length() - position;
+            if (available <= 0) {
+                return -1;
+            }
+            int count = (int) Math.min(len, available);
+            ByteBuffer window = ByteBuffer.wrap(b, off, count);
+            reader.transferTo(position, count, new WritableByteChannel() {
+                @Override
+                public int write(ByteBuffer src) {
+                    int written = src.remaining();
+                    window.put(src);
+                    return written;
+                }
+
+                @Override
+                public boolean isOpen() {
+                    return true;
+                }
+
+                @Override
+                public void close() {
+                }
+            });
+            position += count;
+            return count;
+        }
+    }
+}
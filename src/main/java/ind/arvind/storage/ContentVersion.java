@@ -0,0 +1,18 @@
+package ind.arvind.storage;
+
+import ind.arvind.entity.ContentEncoding;
+
+import java.time.Instant;
+
+/**
+ * What a conditional download is decided on, known without opening the blob: the content hash the
+ * ETags derive from, when the content was written, how it is stored, and the bucket's
+ * {@code Cache-Control} policy.
+ */
+public record ContentVersion(Long fileId, String checksum, Instant lastModified, ContentEncoding encoding,
+                             String cacheControl) {
+
+    public boolean isEncoded() {
+        return encoding != null && encoding != ContentEncoding.IDENTITY;
+    }
+}
@@ -0,0 +1,57 @@
+package ind.arvind.storage;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.util.Optional;
+
+public class FileChannelBlobReader implements BlobReader {
+    private final FileChannel channel;
+    private final FileRegion region;
+
+    public FileChannelBlobReader(FileChannel channel, FileRegion region) {
+        this.channel = channel;
+        this.region = region;
+    }
+
+    public static FileChannelBlobReader open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path);
+        return new FileChannelBlobReader(channel, new FileRegion(path, 0, channel.size()));
+    }
+
+    public static FileChannelBlobReader open(FileRegion region) throws IOException {
+        return new FileChannelBlobReader(FileChannel.open(region.path()), region);
+    }
+
+    @Override
+    public long length() {
+        return region.length();
+    }
+
+    @Override
+    public void transferTo(long position, long count, WritableByteChannel target) throws IOException {
+        if (position < 0 || count < 0 || position + count > region.length()) {
+            throw new IllegalArgumentException("Range " + position + "+" + count + " outside blob of length " + region.length());
+        }
+        long transferred = 0;
+        while (transferred < count) {
+            long written = channel.transferTo(region.offset() + position + transferred, count - transferred, target);
+            if (written <= 0) {
+                throw new EOFException("Blob truncated at " + (position + transferred) + " of " + region.length());
+            }
+            transferred += written;
+        }
+    }
+
+    @Override
+    public Optional<FileRegion> fileRegion() {
+        return Optional.of(region);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,41 @@
+package ind.arvind.storage;
+
+import ind.arvind.dto.StoredFileResponseDto;
+import ind.arvind.entity.ContentEncoding;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.time.Instant;
+
+/**
+ * An opened stored file. {@code reader} yields the bytes as stored, i.e. still encoded when
+ * {@code encoding} is not identity; {@link #decoded()} gives the plain content.
+ */
+public record FileContent(StoredFileResponseDto file, BlobReader reader, String checksum, Instant lastModified,
+                          ContentEncoding encoding) implements Closeable {
+
+    public FileContent(StoredFileResponseDto file, BlobReader reader, String checksum, Instant lastModified) {
+        this(file, reader, checksum, lastModified, ContentEncoding.IDENTITY);
+    }
+
+    public boolean isEncoded() {
+        return encoding != null && encoding != ContentEncoding.IDENTITY;
+    }
+
+    public FileContent decoded() {
+        if (!isEncoded()) {
+            return this;
+        }
+        return new FileContent(file, ContentCodecs.decode(reader, encoding, file.getSize()), checksum, lastModified,
+                ContentEncoding.IDENTITY);
+    }
+
+    public long length() {
+        return reader.length();
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
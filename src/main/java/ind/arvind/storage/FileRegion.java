@@ -0,0 +1,6 @@
+package ind.arvind.storage;
+
+import java.nio.file.Path;
+
+public record FileRegion(Path path, long offset, long length) {
+}
@@ -0,0 +1,34 @@
+package ind.arvind.storage;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Paces background readers to a byte rate shared by every thread using the throttle. Each caller
+ * reserves the time slot its bytes need and sleeps until the slot starts, so the rate holds however
+ * many threads read at once. A rate of 0 disables throttling.
+ */
+public final class IoThrottle {
+    private final long bytesPerSecond;
+    private long nextFreeNanos = System.nanoTime();
+
+    public IoThrottle(long bytesPerSecond) {
+        this.bytesPerSecond = bytesPerSecond;
+    }
+
+    public void acquire(long bytes) throws InterruptedException {
+        if (bytesPerSecond <= 0 || bytes <= 0) {
+            return;
+        }
+        long waitNanos = reserve(bytes);
+        if (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+
+    private synchronized long reserve(long bytes) {
+        long now = System.nanoTime();
+        long start = Math.max(nextFreeNanos, now);
+        nextFreeNanos = start + TimeUnit.SECONDS.toNanos(bytes) / bytesPerSecond;
+        return start - now;
+    }
+}
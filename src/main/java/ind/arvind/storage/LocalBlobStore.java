@@ -0,0 +1,532 @@
+package ind.arvind.storage;
+
+import ind.arvind.config.StorageProperties;
+import ind.arvind.entity.ContentEncoding;
+import ind.arvind.entity.StorageTier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.Enumeration;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * {@link BlobStore} backed by the local file system. Content is streamed through a pooled buffer
+ * into a temporary file and moved into place once fully written, so readers never observe a
+ * partially written blob. Composed blobs are stored as a small manifest listing their segments.
+ * Cold-tier blobs live under a separate root and their locations carry a {@code cold/} prefix.
+ * Small blobs can instead be packed into shared append-only segments; their location is
+ * {@code pack/<segment>/<offset>/<length>} and reads are positional within the segment file.
+ */
+@Component
+public class LocalBlobStore implements BlobStore {
+    private static final Logger log = LoggerFactory.getLogger(LocalBlobStore.class);
+    private static final String TMP_DIR = ".tmp";
+    private static final String DIGEST_ALGORITHM = "SHA-256";
+    private static final int FAN_OUT_CHARS = 2;
+    private static final String MANIFEST_SUFFIX = ".parts";
+    private static final String COLD_PREFIX = "cold/";
+    private static final String PACK_PREFIX = "pack/";
+    private static final String PACK_DIR = "packs";
+
+    private final Path root;
+    private final Path tmpDir;
+    private final Path coldRoot;
+    private final Path coldTmpDir;
+    private final ByteBufferPool bufferPool;
+    private final int compressionLevel;
+    private final boolean packingEnabled;
+    private final int maxPackedSize;
+    private final Map<StorageTier, PackWriter> packWriters = new EnumMap<>(StorageTier.class);
+    private final ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+
+    public LocalBlobStore(StorageProperties storageProperties, ByteBufferPool bufferPool) {
+        this.root = Paths.get(storageProperties.getRootDir()).toAbsolutePath().normalize();
+        this.tmpDir = root.resolve(TMP_DIR);
+        this.coldRoot = Paths.get(storageProperties.getTiering().getColdRootDir()).toAbsolutePath().normalize();
+        this.coldTmpDir = coldRoot.resolve(TMP_DIR);
+        this.bufferPool = bufferPool;
+        this.compressionLevel = storageProperties.getCompression().getLevel();
+        this.packingEnabled = storageProperties.getPacking().isEnabled();
+        this.maxPackedSize = storageProperties.getPacking().getMaxBlobSize();
+        for (StorageTier tier : StorageTier.values()) {
+            packWriters.put(tier, new PackWriter(packDir(tier), storageProperties.getPacking().getSegmentSize()));
+        }
+        try {
+            Files.createDirectories(tmpDir);
+            Files.createDirectories(coldTmpDir);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to initialise blob store at " + root, e);
+        }
+        log.info("Local blob store rooted at {} (cold tier at {})", root, coldRoot);
+    }
+
+    @Override
+    public BlobWriteResult write(InputStream source, ContentEncoding encoding, StorageTier tier) throws IOException {
+        final MessageDigest digest = newDigest();
+        final Path tmp = Files.createTempFile(tmpDir(tier), "upload-", ".part");
+        final long cpuStart = cpuTimeNanos();
+        final long size;
+        final long storedSize;
+        try {
+            size = encoding == ContentEncoding.GZIP ? copyGzip(source, tmp, digest) : copy(source, tmp, digest);
+            storedSize = Files.size(tmp);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(tmp);
+            throw e;
+        }
+        final long cpuNanos = cpuTimeNanos() - cpuStart;
+        final String location = moveIntoPlace(tmp, newLocation(tier));
+        return new BlobWriteResult(location, size, HexFormat.of().formatHex(digest.digest()), encoding, storedSize,
+                cpuNanos, tier);
+    }
+
+    @Override
+    public BlobWriteResult writePacked(InputStream source, ContentEncoding encoding, StorageTier tier) throws IOException {
+        if (!packingEnabled) {
+            return write(source, encoding, tier);
+        }
+        final long cpuStart = cpuTimeNanos();
+        final byte[] content = source.readNBytes(maxPackedSize + 1);
+        if (content.length > maxPackedSize) {
+            return write(new SequenceInputStream(new ByteArrayInputStream(content), source), encoding, tier);
+        }
+        final MessageDigest digest = newDigest();
+        final byte[] stored;
+        if (encoding == ContentEncoding.GZIP) {
+            stored = gzip(content, digest);
+        } else {
+            digest.update(content);
+            stored = content;
+        }
+        final PackWriter.Appended appended = packWriters.get(tier).append(ByteBuffer.wrap(stored));
+        return new BlobWriteResult(packLocation(tier, appended), content.length, HexFormat.of().formatHex(digest.digest()),
+                encoding, stored.length, cpuTimeNanos() - cpuStart, tier);
+    }
+
+    @Override
+    public String transfer(String location, StorageTier tier) throws IOException {
+        if (isPacked(location)) {
+            return packLocation(tier, packWriters.get(tier).append(ByteBuffer.wrap(readPacked(location))));
+        }
+        final List<String> segments = isManifest(location) ? readManifest(location) : List.of(location);
+        final Path tmp = Files.createTempFile(tmpDir(tier), "transfer-", ".part");
+        try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+            for (String segment : segments) {
+                try (FileChannel in = FileChannel.open(resolve(segment), StandardOpenOption.READ)) {
+                    final long size = in.size();
+                    long position = 0;
+                    while (position < size) {
+                        position += in.transferTo(position, size - position, out);
+                    }
+                }
+            }
+            out.force(false);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(tmp);
+            throw e;
+        }
+        return moveIntoPlace(tmp, newLocation(tier));
+    }
+
+    @Override
+    public String compose(List<String> locations) throws IOException {
+        if (locations.isEmpty()) {
+            throw new IllegalArgumentException("Cannot compose an empty blob");
+        }
+        for (String location : locations) {
+            if (isManifest(location) || isPacked(location) || !Files.isRegularFile(resolve(location))) {
+                throw new IllegalArgumentException("Not a composable blob: " + location);
+            }
+        }
+        final Path tmp = Files.createTempFile(tmpDir, "manifest-", ".part");
+        Files.write(tmp, locations, StandardCharsets.UTF_8);
+        return moveIntoPlace(tmp, newLocation(StorageTier.HOT) + MANIFEST_SUFFIX);
+    }
+
+    @Override
+    public void deleteManifest(String location) throws IOException {
+        if (!isManifest(location)) {
+            throw new IllegalArgumentException("Not a composed blob: " + location);
+        }
+        Files.deleteIfExists(resolve(location));
+    }
+
+    @Override
+    public InputStream open(String location) throws IOException {
+        if (isPacked(location)) {
+            return new ByteArrayInputStream(readPacked(location));
+        }
+        if (!isManifest(location)) {
+            return Files.newInputStream(resolve(location));
+        }
+        final Iterator<String> segments = readManifest(location).iterator();
+        return new SequenceInputStream(new Enumeration<>() {
+            @Override
+            public boolean hasMoreElements() {
+                return segments.hasNext();
+            }
+
+            @Override
+            public InputStream nextElement() {
+                try {
+                    return Files.newInputStream(resolve(segments.next()));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        });
+    }
+
+    @Override
+    public BlobReader openReader(String location) throws IOException {
+        if (isPacked(location)) {
+            return FileChannelBlobReader.open(packedRegion(location));
+        }
+        if (!isManifest(location)) {
+            return FileChannelBlobReader.open(resolve(location));
+        }
+        final List<BlobReader> readers = new ArrayList<>();
+        try {
+            for (String segment : readManifest(location)) {
+                readers.add(FileChannelBlobReader.open(resolve(segment)));
+            }
+        } catch (IOException | RuntimeException e) {
+            for (BlobReader reader : readers) {
+                reader.close();
+            }
+            throw e;
+        }
+        return new CompositeBlobReader(readers);
+    }
+
+    @Override
+    public boolean exists(String location) {
+        if (isPacked(location)) {
+            final FileRegion region = packedRegion(location);
+            try {
+                return Files.isRegularFile(region.path()) && Files.size(region.path()) >= region.offset() + region.length();
+            } catch (IOException e) {
+                return false;
+            }
+        }
+        if (!isManifest(location)) {
+            return Files.isRegularFile(resolve(location));
+        }
+        try {
+            return readManifest(location).stream().allMatch(segment -> Files.isRegularFile(resolve(segment)));
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public void delete(String location) throws IOException {
+        if (isPacked(location)) {
+            return;
+        }
+        if (isManifest(location) && Files.exists(resolve(location))) {
+            for (String segment : readManifest(location)) {
+                Files.deleteIfExists(resolve(segment));
+            }
+        }
+        Files.deleteIfExists(resolve(location));
+    }
+
+    @Override
+    public List<BlobEntry> listBlobs(String afterLocation, int limit) throws IOException {
+        final List<BlobEntry> entries = new ArrayList<>();
+        final boolean afterInCold = afterLocation != null && afterLocation.startsWith(COLD_PREFIX);
+        if (!afterInCold) {
+            listTree(root, "", new ArrayList<>(), segmentsOf(afterLocation), entries, limit);
+        }
+        if (entries.size() < limit) {
+            listTree(coldRoot, COLD_PREFIX, new ArrayList<>(), afterInCold ? segmentsOf(withoutTier(afterLocation)) : null,
+                    entries, limit);
+        }
+        return entries;
+    }
+
+    @Override
+    public List<String> segments(String location) throws IOException {
+        return isManifest(location) ? readManifest(location) : List.of();
+    }
+
+    /**
+     * Depth-first walk with every directory's entries sorted by name, so locations come out ordered
+     * segment by segment; subtrees that sort entirely before {@code after} are not descended into.
+     */
+    private void listTree(Path dir, String tierPrefix, List<String> path, String[] after, List<BlobEntry> entries,
+                          int limit) throws IOException {
+        if (!Files.isDirectory(dir)) {
+            return;
+        }
+        final List<Path> children;
+        try (Stream<Path> listing = Files.list(dir)) {
+            children = listing.sorted(Comparator.comparing(child -> child.getFileName().toString())).toList();
+        }
+        for (Path child : children) {
+            final String name = child.getFileName().toString();
+            if (path.isEmpty() && (name.equals(TMP_DIR) || name.equals(PACK_DIR))) {
+                continue;
+            }
+            path.add(name);
+            try {
+                final int order = after == null ? 1 : compareSegments(path, after);
+                final BasicFileAttributes attributes = Files.readAttributes(child, BasicFileAttributes.class);
+                if (attributes.isDirectory()) {
+                    if (order >= 0) {
+                        listTree(child, tierPrefix, path, after, entries, limit);
+                    }
+                } else if (order > 0 || (order == 0 && path.size() > after.length)) {
+                    entries.add(new BlobEntry(tierPrefix + String.join("/", path), attributes.size(),
+                            attributes.lastModifiedTime().toInstant()));
+                }
+            } finally {
+                path.remove(path.size() - 1);
+            }
+            if (entries.size() >= limit) {
+                return;
+            }
+        }
+    }
+
+    /** Compares {@code path} with the same number of leading segments of {@code after}. */
+    private static int compareSegments(List<String> path, String[] after) {
+        for (int i = 0; i < path.size(); i++) {
+            if (i >= after.length) {
+                return 1;
+            }
+            final int order = path.get(i).compareTo(after[i]);
+            if (order != 0) {
+                return order;
+            }
+        }
+        return 0;
+    }
+
+    private static String[] segmentsOf(String location) {
+        return location == null ? null : location.split("/");
+    }
+
+    @Override
+    public List<PackSegment> sealedPackSegments() throws IOException {
+        final List<PackSegment> sealed = new ArrayList<>();
+        for (StorageTier tier : StorageTier.values()) {
+            final Path dir = packDir(tier);
+            if (!Files.isDirectory(dir)) {
+                continue;
+            }
+            try (DirectoryStream<Path> segments = Files.newDirectoryStream(dir, "*" + PackWriter.SEGMENT_SUFFIX)) {
+                for (Path segment : segments) {
+                    final String name = segmentName(segment);
+                    if (!packWriters.get(tier).isActive(name)) {
+                        sealed.add(new PackSegment(tierPrefix(tier) + PACK_PREFIX + name + "/", tier, Files.size(segment),
+                                Files.getLastModifiedTime(segment).toInstant()));
+                    }
+                }
+            }
+        }
+        return sealed;
+    }
+
+    @Override
+    public void deletePackSegment(PackSegment segment) throws IOException {
+        final String name = withoutTier(segment.locationPrefix()).substring(PACK_PREFIX.length()).replace("/", "");
+        if (packWriters.get(segment.tier()).isActive(name)) {
+            throw new IllegalArgumentException("Cannot delete the active pack segment " + segment.locationPrefix());
+        }
+        Files.deleteIfExists(segmentPath(segment.tier(), name));
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        for (PackWriter writer : packWriters.values()) {
+            writer.close();
+        }
+    }
+
+    Path resolve(String location) {
+        final boolean cold = location.startsWith(COLD_PREFIX);
+        final Path base = cold ? coldRoot : root;
+        final Path path = base.resolve(cold ? location.substring(COLD_PREFIX.length()) : location).normalize();
+        if (!path.startsWith(base)) {
+            throw new IllegalArgumentException("Blob location escapes storage root: " + location);
+        }
+        return path;
+    }
+
+    private static boolean isManifest(String location) {
+        return location.endsWith(MANIFEST_SUFFIX);
+    }
+
+    private static boolean isPacked(String location) {
+        return withoutTier(location).startsWith(PACK_PREFIX);
+    }
+
+    private FileRegion packedRegion(String location) {
+        final String[] parts = withoutTier(location).substring(PACK_PREFIX.length()).split("/");
+        if (parts.length != 3) {
+            throw new IllegalArgumentException("Malformed pack location: " + location);
+        }
+        final Path segment = segmentPath(location.startsWith(COLD_PREFIX) ? StorageTier.COLD : StorageTier.HOT, parts[0]);
+        return new FileRegion(segment, Long.parseLong(parts[1]), Long.parseLong(parts[2]));
+    }
+
+    private Path segmentPath(StorageTier tier, String name) {
+        final Path dir = packDir(tier);
+        final Path segment = dir.resolve(name + PackWriter.SEGMENT_SUFFIX).normalize();
+        if (name.isEmpty() || !dir.equals(segment.getParent())) {
+            throw new IllegalArgumentException("Pack segment escapes storage root: " + name);
+        }
+        return segment;
+    }
+
+    private byte[] readPacked(String location) throws IOException {
+        final FileRegion region = packedRegion(location);
+        final ByteBuffer content = ByteBuffer.allocate(Math.toIntExact(region.length()));
+        try (FileChannel channel = FileChannel.open(region.path(), StandardOpenOption.READ)) {
+            while (content.hasRemaining()) {
+                if (channel.read(content, region.offset() + content.position()) < 0) {
+                    throw new EOFException("Pack segment truncated: " + location);
+                }
+            }
+        }
+        return content.array();
+    }
+
+    private byte[] gzip(byte[] content, MessageDigest digest) throws IOException {
+        final ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+        final ByteBuffer input = bufferPool.acquire();
+        final ByteBuffer output = bufferPool.acquire();
+        try {
+            ContentCodecs.gzip(Channels.newChannel(new ByteArrayInputStream(content)), Channels.newChannel(encoded), digest,
+                    compressionLevel, input, output);
+        } finally {
+            bufferPool.release(input);
+            bufferPool.release(output);
+        }
+        return encoded.toByteArray();
+    }
+
+    private Path packDir(StorageTier tier) {
+        return (tier == StorageTier.COLD ? coldRoot : root).resolve(PACK_DIR);
+    }
+
+    private static String packLocation(StorageTier tier, PackWriter.Appended appended) {
+        return tierPrefix(tier) + PACK_PREFIX + appended.segment() + "/" + appended.offset() + "/" + appended.length();
+    }
+
+    private static String segmentName(Path segment) {
+        final String fileName = segment.getFileName().toString();
+        return fileName.substring(0, fileName.length() - PackWriter.SEGMENT_SUFFIX.length());
+    }
+
+    private static String tierPrefix(StorageTier tier) {
+        return tier == StorageTier.COLD ? COLD_PREFIX : "";
+    }
+
+    private static String withoutTier(String location) {
+        return location.startsWith(COLD_PREFIX) ? location.substring(COLD_PREFIX.length()) : location;
+    }
+
+    private List<String> readManifest(String location) throws IOException {
+        return Files.readAllLines(resolve(location), StandardCharsets.UTF_8);
+    }
+
+    private long copy(InputStream source, Path target, MessageDigest digest) throws IOException {
+        final ByteBuffer buffer = bufferPool.acquire();
+        long size = 0;
+        try (ReadableByteChannel in = Channels.newChannel(source);
+             FileChannel out = FileChannel.open(target, StandardOpenOption.WRITE)) {
+            while (in.read(buffer) >= 0) {
+                buffer.flip();
+                digest.update(buffer.duplicate());
+                while (buffer.hasRemaining()) {
+                    size += out.write(buffer);
+                }
+                buffer.clear();
+            }
+            out.force(false);
+        } finally {
+            bufferPool.release(buffer);
+        }
+        return size;
+    }
+
+    private long copyGzip(InputStream source, Path target, MessageDigest digest) throws IOException {
+        final ByteBuffer input = bufferPool.acquire();
+        final ByteBuffer output = bufferPool.acquire();
+        final long size;
+        try (ReadableByteChannel in = Channels.newChannel(source);
+             FileChannel out = FileChannel.open(target, StandardOpenOption.WRITE)) {
+            size = ContentCodecs.gzip(in, out, digest, compressionLevel, input, output);
+            out.force(false);
+        } finally {
+            bufferPool.release(input);
+            bufferPool.release(output);
+        }
+        return size;
+    }
+
+    private long cpuTimeNanos() {
+        return threadMXBean.isCurrentThreadCpuTimeSupported() ? threadMXBean.getCurrentThreadCpuTime() : System.nanoTime();
+    }
+
+    private String moveIntoPlace(Path tmp, String location) throws IOException {
+        final Path target = resolve(location);
+        Files.createDirectories(target.getParent());
+        Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE);
+        return location;
+    }
+
+    private Path tmpDir(StorageTier tier) {
+        return tier == StorageTier.COLD ? coldTmpDir : tmpDir;
+    }
+
+    private static String newLocation(StorageTier tier) {
+        final String id = UUID.randomUUID().toString();
+        final String location = id.substring(0, FAN_OUT_CHARS) + "/" + id.substring(FAN_OUT_CHARS, 2 * FAN_OUT_CHARS) + "/" + id;
+        return tierPrefix(tier) + location;
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance(DIGEST_ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(DIGEST_ALGORITHM + " not available", e);
+        }
+    }
+}
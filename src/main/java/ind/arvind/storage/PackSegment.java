@@ -0,0 +1,12 @@
+package ind.arvind.storage;
+
+import ind.arvind.entity.StorageTier;
+
+import java.time.Instant;
+
+/**
+ * A sealed pack segment. Every blob packed into it has a location starting with
+ * {@code locationPrefix}, which is how live content is matched against the segment.
+ */
+public record PackSegment(String locationPrefix, StorageTier tier, long size, Instant sealedAt) {
+}
@@ -0,0 +1,117 @@
+package ind.arvind.storage;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.UUID;
+
+/**
+ * Appends small blobs back to back into the active pack segment of one directory, starting a new
+ * segment once the active one is full. Appends are serialised, but the fsync that makes them
+ * durable is group-committed: a writer whose bytes were covered by a concurrent force skips its own,
+ * so a burst of small uploads shares a handful of fsyncs instead of paying one each.
+ */
+final class PackWriter implements Closeable {
+    static final String SEGMENT_SUFFIX = ".pack";
+
+    private final Path dir;
+    private final long segmentSize;
+    private Segment active;
+
+    PackWriter(Path dir, long segmentSize) {
+        this.dir = dir;
+        this.segmentSize = segmentSize;
+    }
+
+    /** Durably appends {@code content} and returns the segment name and offset it was written at. */
+    Appended append(ByteBuffer content) throws IOException {
+        final long length = content.remaining();
+        final Segment segment;
+        final long offset;
+        synchronized (this) {
+            if (active == null || (active.writePosition() > 0 && active.writePosition() + length > segmentSize)) {
+                if (active != null) {
+                    active.seal();
+                }
+                active = Segment.create(dir);
+            }
+            segment = active;
+            offset = segment.write(content);
+        }
+        segment.sync(offset + length);
+        return new Appended(segment.name, offset, length);
+    }
+
+    synchronized boolean isActive(String segmentName) {
+        return active != null && active.name.equals(segmentName);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (active != null) {
+            active.seal();
+            active = null;
+        }
+    }
+
+    record Appended(String segment, long offset, long length) {
+    }
+
+    private static final class Segment {
+        private final String name;
+        private final FileChannel channel;
+        private final Object syncLock = new Object();
+        private long writePosition;
+        private long syncedPosition;
+        private boolean sealed;
+
+        private Segment(String name, FileChannel channel) {
+            this.name = name;
+            this.channel = channel;
+        }
+
+        static Segment create(Path dir) throws IOException {
+            final String name = UUID.randomUUID().toString();
+            Files.createDirectories(dir);
+            return new Segment(name, FileChannel.open(dir.resolve(name + SEGMENT_SUFFIX),
+                    StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE));
+        }
+
+        /** Called with the owning writer's lock held, so positions never interleave. */
+        synchronized long write(ByteBuffer content) throws IOException {
+            final long offset = writePosition;
+            while (content.hasRemaining()) {
+                writePosition += channel.write(content, writePosition);
+            }
+            return offset;
+        }
+
+        void sync(long upTo) throws IOException {
+            synchronized (syncLock) {
+                if (syncedPosition >= upTo || sealed) {
+                    return;
+                }
+                final long covered = writePosition();
+                channel.force(false);
+                syncedPosition = covered;
+            }
+        }
+
+        synchronized long writePosition() {
+            return writePosition;
+        }
+
+        void seal() throws IOException {
+            synchronized (syncLock) {
+                channel.force(false);
+                syncedPosition = writePosition();
+                sealed = true;
+                channel.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package ind.arvind.storage;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Arrays;
+
+/**
+ * Minimal POSIX ustar writer. Names that do not fit the 100-byte ASCII header field and sizes of
+ * 8 GiB or more are carried in a PAX extended header ahead of the entry.
+ */
+public class TarArchiveWriter implements ArchiveWriter {
+    private static final int BLOCK_SIZE = 512;
+    private static final int NAME_LENGTH = 100;
+    private static final long MAX_USTAR_SIZE = 077777777777L;
+    private static final byte TYPE_FILE = '0';
+    private static final byte TYPE_PAX = 'x';
+    private static final int FILE_MODE = 0644;
+    private static final String PAX_PREFIX = "PaxHeaders/";
+
+    private final OutputStream out;
+    private final WritableByteChannel channel;
+
+    public TarArchiveWriter(OutputStream out, int bufferSize) {
+        this.out = new BufferedOutputStream(out, bufferSize);
+        this.channel = Channels.newChannel(this.out);
+    }
+
+    @Override
+    public void addEntry(String name, Instant lastModified, boolean compress, BlobReader content) throws IOException {
+        long size = content.length();
+        long mtime = lastModified == null ? 0 : lastModified.getEpochSecond();
+        byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+        boolean paxName = nameBytes.length > NAME_LENGTH || nameBytes.length != name.length();
+        boolean paxSize = size > MAX_USTAR_SIZE;
+        String headerName = paxName ? asciiName(name) : name;
+        if (paxName || paxSize) {
+            StringBuilder records = new StringBuilder();
+            if (paxName) {
+                records.append(paxRecord("path", name));
+            }
+            if (paxSize) {
+                records.append(paxRecord("size", Long.toString(size)));
+            }
+            byte[] pax = records.toString().getBytes(StandardCharsets.UTF_8);
+            out.write(header(asciiName(PAX_PREFIX + headerName), pax.length, mtime, TYPE_PAX));
+            out.write(pax);
+            pad(pax.length);
+        }
+        out.write(header(headerName, paxSize ? 0 : size, mtime, TYPE_FILE));
+        content.transferTo(0, size, channel);
+        pad(size);
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.write(new byte[BLOCK_SIZE * 2]);
+        out.close();
+    }
+
+    private void pad(long written) throws IOException {
+        int remainder = (int) (written % BLOCK_SIZE);
+        if (remainder != 0) {
+            out.write(new byte[BLOCK_SIZE - remainder]);
+        }
+    }
+
+    private static byte[] header(String name, long size, long mtime, byte type) {
+        byte[] header = new byte[BLOCK_SIZE];
+        byte[] nameBytes = name.getBytes(StandardCharsets.US_ASCII);
+        System.arraycopy(nameBytes, 0, header, 0, Math.min(nameBytes.length, NAME_LENGTH));
+        octal(header, 100, 8, FILE_MODE);
+        octal(header, 108, 8, 0);
+        octal(header, 116, 8, 0);
+        octal(header, 124, 12, size);
+        octal(header, 136, 12, mtime);
+        Arrays.fill(header, 148, 156, (byte) ' ');
+        header[156] = type;
+        System.arraycopy("ustar\0".getBytes(StandardCharsets.US_ASCII), 0, header, 257, 6);
+        header[263] = '0';
+        header[264] = '0';
+        long checksum = 0;
+        for (byte b : header) {
+            checksum += b & 0xff;
+        }
+        octal(header, 148, 7, checksum);
+        return header;
+    }
+
+    /** Writes {@code value} as zero-padded octal filling {@code length - 1} bytes plus a NUL terminator. */
+    private static void octal(byte[] header, int offset, int length, long value) {
+        String digits = Long.toOctalString(value);
+        int pad = length - 1 - digits.length();
+        for (int i = 0; i < length - 1; i++) {
+            header[offset + i] = (byte) (i < pad ? '0' : digits.charAt(i - pad));
+        }
+        header[offset + length - 1] = 0;
+    }
+
+    /** A PAX record is {@code "<length> <key>=<value>\n"} where length counts the whole record, itself included. */
+    private static String paxRecord(String key, String value) {
+        String body = " " + key + "=" + value + "\n";
+        int bodyLength = body.getBytes(StandardCharsets.UTF_8).length;
+        int length = bodyLength + Integer.toString(bodyLength).length();
+        if (Integer.toString(length).length() > Integer.toString(bodyLength).length()) {
+            length++;
+        }
+        return length + body;
+    }
+
+    private static String asciiName(String name) {
+        StringBuilder ascii = new StringBuilder(NAME_LENGTH);
+        for (int i = 0; i < name.length() && ascii.length() < NAME_LENGTH; i++) {
+            char c = name.charAt(i);
+            ascii.append(c < 0x80 ? c : '_');
+        }
+        return ascii.toString();
+    }
+}
@@ -0,0 +1,105 @@
+package ind.arvind.audit;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import ind.arvind.config.AuditProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AuditLogTest {
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules()
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    @Test
+    void ringBuffer_concurrentProducers_everyItemDrainedOnce() throws Exception {
+        AuditRingBuffer<Integer> buffer = new AuditRingBuffer<>(1000);
+        assertEquals(1024, buffer.capacity());
+        ExecutorService producers = Executors.newFixedThreadPool(4);
+        for (int p = 0; p < 4; p++) {
+            int base = p * 10_000;
+            producers.submit(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    while (!buffer.offer(base + i)) {
+                        Thread.onSpinWait();
+                    }
+                }
+            });
+        }
+        producers.shutdown();
+        Set<Integer> seen = new HashSet<>();
+        List<Integer> batch = new ArrayList<>();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (seen.size() < 40_000 && System.nanoTime() < deadline) {
+            batch.clear();
+            buffer.drainTo(batch, 256);
+            batch.forEach(item -> assertTrue(seen.add(item), "drained twice: " + item));
+        }
+        assertEquals(40_000, seen.size());
+        assertTrue(producers.awaitTermination(10, TimeUnit.SECONDS));
+        assertEquals(0, buffer.size());
+    }
+
+    @Test
+    void ringBuffer_full_rejectsUntilDrained() {
+        AuditRingBuffer<String> buffer = new AuditRingBuffer<>(2);
+        while (buffer.offer("x")) {
+            assertTrue(buffer.size() <= buffer.capacity());
+        }
+        List<String> drained = new ArrayList<>();
+        assertEquals(1, buffer.drainTo(drained, 1));
+        assertTrue(buffer.offer("y"));
+    }
+
+    @Test
+    void destroy_writesEveryBufferedEventAsJsonLines(@TempDir Path dir) throws Exception {
+        AuditProperties properties = new AuditProperties();
+        properties.setDir(dir.toString());
+        properties.setBufferSize(16);
+        properties.setBatchSize(8);
+        properties.setFlushInterval(Duration.ofSeconds(10));
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        AuditLog auditLog = new AuditLog(properties, objectMapper, meterRegistry);
+
+        for (int i = 0; i < 100; i++) {
+            auditLog.record(new AuditEvent(Instant.EPOCH, "cid-" + i, "owner", "GET",
+                    "/api/v1/storage/files/{fileId}/download", Integer.toString(i), null, 200, 0, 10, 5, null));
+        }
+        auditLog.destroy();
+
+        List<String> lines;
+        try (Stream<Path> files = Files.list(dir)) {
+            lines = files.flatMap(file -> {
+                assertTrue(file.getFileName().toString().matches("audit-\\d{4}-\\d{2}-\\d{2}-0\\.jsonl"));
+                try {
+                    return Files.readAllLines(file).stream();
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            }).toList();
+        }
+        assertEquals(100, lines.size());
+        JsonNode first = objectMapper.readTree(lines.get(0));
+        assertEquals("cid-0", first.get("correlationId").asText());
+        assertEquals("owner", first.get("owner").asText());
+        assertEquals(10, first.get("bytesOut").asLong());
+        assertEquals(100.0, meterRegistry.get("audit.events.written").counter().count());
+        assertTrue(meterRegistry.get("audit.backpressure").counter().count() > 0);
+    }
+}
@@ -0,0 +1,73 @@
+package ind.arvind.cache;
+
+import ind.arvind.config.StorageProperties;
+import ind.arvind.dto.StoredFileResponseDto;
+import ind.arvind.entity.ContentEncoding;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.Optional;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class StoredFileCacheTest {
+    @Mock
+    private FileCacheTier tier;
+    private SimpleMeterRegistry meterRegistry;
+    private StoredFileCache cache;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new StoredFileCache(new StorageProperties(), tier, meterRegistry);
+    }
+
+    @Test
+    void get_afterPut_hitsLocalTier() {
+        FileCacheEntry entry = entry(1L);
+        cache.put(entry);
+        assertSame(entry, cache.get(1L).orElseThrow());
+        verify(tier).put(entry);
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", "storedFiles").tag("result", "hit").functionCounter().count());
+    }
+
+    @Test
+    void get_localMiss_fallsBackToSecondTier() {
+        FileCacheEntry entry = entry(2L);
+        when(tier.get(2L)).thenReturn(Optional.of(entry));
+        assertSame(entry, cache.get(2L).orElseThrow());
+    }
+
+    @Test
+    void invalidate_evictsLocallyAndPropagates() {
+        cache.put(entry(3L));
+        cache.invalidate(3L);
+        assertTrue(cache.get(3L).isEmpty());
+        verify(tier).evict(3L);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void remoteEviction_dropsLocalEntry() {
+        ArgumentCaptor<Consumer<Long>> listener = ArgumentCaptor.forClass(Consumer.class);
+        verify(tier).onEviction(listener.capture());
+        cache.put(entry(4L));
+        listener.getValue().accept(4L);
+        assertTrue(cache.get(4L).isEmpty());
+    }
+
+    private static FileCacheEntry entry(Long id) {
+        StoredFileResponseDto dto = new StoredFileResponseDto();
+        dto.setId(id);
+        dto.setOwner("owner");
+        return new FileCacheEntry(dto, "ab/cd/" + id, "00", ContentEncoding.IDENTITY);
+    }
+}
@@ -1,28 +1,57 @@
 package ind.arvind.controller;
 
+import ind.arvind.controller.support.DownloadResponseWriter;
 import ind.arvind.dto.FileUploadRequestDto;
 import ind.arvind.dto.FileMetadataUpdateDto;
+import ind.arvind.dto.PageResponseDto;
 import ind.arvind.dto.StoredFileResponseDto;
+import ind.arvind.entity.ContentEncoding;
+import ind.arvind.metrics.StorageMetrics;
+import ind.arvind.security.JwtPrincipal;
 import ind.arvind.service.StorageService;
+import ind.arvind.storage.ContentVersion;
+import ind.arvind.storage.FileChannelBlobReader;
+import ind.arvind.storage.FileContent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
 import org.springframework.http.MediaType;
 import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
 import java.util.Collections;
-import java.util.List;
+import java.util.zip.GZIPOutputStream;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 class StorageControllerTest {
+    private static final JwtPrincipal PRINCIPAL = new JwtPrincipal("system", Instant.now().plusSeconds(3600));
+    private static final Instant CREATED_AT = Instant.parse("2024-01-01T00:00:00Z");
     @Mock
     private StorageService storageService;
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    @Spy
+    private DownloadResponseWriter downloadResponseWriter = new DownloadResponseWriter(new StorageMetrics(meterRegistry));
     @InjectMocks
     private StorageController storageController;
     private MockMvc mockMvc;
@@ -41,20 +70,24 @@ class StorageControllerTest {
         dto.setBucketName("bucket");
         Mockito.when(storageService.uploadFile(any(FileUploadRequestDto.class), any(String.class)))
                 .thenReturn(new StoredFileResponseDto());
-        mockMvc.perform(multipart("/api/v1/storage/upload")
+        performAsync(multipart("/api/v1/storage/upload")
                         .file(file)
                         .param("bucketName", "bucket")
-                        .header("Authorization", "Bearer token"))
+                        .requestAttr(JwtPrincipal.REQUEST_ATTRIBUTE, PRINCIPAL))
                 .andExpect(status().isOk());
     }
 
     @Test
     void listFiles_success() throws Exception {
-        Mockito.when(storageService.listFiles(any(String.class), any(Integer.class), any(Integer.class)))
-                .thenReturn(Collections.emptyList());
+        PageResponseDto<StoredFileResponseDto> page = new PageResponseDto<>();
+        page.setItems(Collections.emptyList());
+        Mockito.when(storageService.listFiles(any(String.class), any(), any(Integer.class)))
+                .thenReturn(page);
         mockMvc.perform(get("/api/v1/storage/files")
-                        .header("Authorization", "Bearer token"))
-                .andExpect(status().isOk());
+                        .param("pageToken", "MTA")
+                        .requestAttr(JwtPrincipal.REQUEST_ATTRIBUTE, PRINCIPAL))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items").isEmpty());
     }
 
     @Test
@@ -62,14 +95,33 @@ class StorageControllerTest {
         Mockito.when(storageService.getFile(any(Long.class), any(String.class)))
                 .thenReturn(new StoredFileResponseDto());
         mockMvc.perform(get("/api/v1/storage/files/1")
-                        .header("Authorization", "Bearer token"))
+                        .requestAttr(JwtPrincipal.REQUEST_ATTRIBUTE, PRINCIPAL))
                 .andExpect(status().isOk());
     }
 
+    @Test
+    void getFile_matchingWeakEtag_returns304() throws Exception {
+        StoredFileResponseDto dto = new StoredFileResponseDto();
+        dto.setId(1L);
+        dto.setUpdatedAt(CREATED_AT);
+        Mockito.when(storageService.getFile(any(Long.class), any(String.class))).thenReturn(dto);
+        String etag = "W/\"1-" + CREATED_AT.toEpochMilli() + "\"";
+        mockMvc.perform(get("/api/v1/storage/files/1")
+                        .requestAttr(JwtPrincipal.REQUEST_ATTRIBUTE, PRINCIPAL))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", etag))
+                .andExpect(header().string("Cache-Control", "no-cache, private"));
+        mockMvc.perform(get("/api/v1/storage/files/1")
+                        .header("If-None-Match", etag)
+                        .requestAttr(JwtPrincipal.REQUEST_ATTRIBUTE, PRINCIPAL))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+    }
+
     @Test
     void deleteFile_success() throws Exception {
         mockMvc.perform(delete("/api/v1/storage/files/1")
-                        .header("Authorization", "Bearer token"))
+                        .requestAttr(JwtPrincipal.REQUEST_ATTRIBUTE, PRINCIPAL))
                 .andExpect(status().isNoContent());
     }
 
@@ -81,7 +133,161 @@ class StorageControllerTest {
         mockMvc.perform(put("/api/v1/storage/files/1/metadata")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content("{\"metadata\":{\"key\":\"value\"}}")
-                        .header("Authorization", "Bearer token"))
+                        .requestAttr(JwtPrincipal.REQUEST_ATTRIBUTE, PRINCIPAL))
                 .andExpect(status().isOk());
     }
-}
\ No newline at end of file
+
+    @Test
+    void downloadFile_fullContent_success(@TempDir Path dir) throws Exception {
+        stubContent(dir);
+        performAsync(get("/api/v1/storage/files/1/download")
+                        .requestAttr(JwtPrincipal.REQUEST_ATTRIBUTE, PRINCIPAL))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Accept-Ranges", "bytes"))
+                .andExpect(header().string("ETag", "\"abc\""))
+                .andExpect(header().string("Cache-Control", "private, max-age=60"))
+                .andExpect(content().string("0123456789"));
+        assertEquals(10.0, meterRegistry.get("storage.bytes.out").tag("owner", "system").counter().count());
+    }
+
+    @Test
+    void downloadFile_ifNoneMatch_returns304WithoutOpeningContent() throws Exception {
+        Mockito.when(storageService.describeContent(any(Long.class), any(String.class)))
+                .thenReturn(new ContentVersion(1L, "abc", CREATED_AT, ContentEncoding.GZIP, "private, no-cache"));
+        mockMvc.perform(get("/api/v1/storage/files/1/download")
+                        .requestAttr(JwtPrincipal.REQUEST_ATTRIBUTE, PRINCIPAL)
+                        .header("Accept-Encoding", "gzip")
+                        .header("If-None-Match", "\"other\", W/\"abc\""))
+                .andExpect(request().asyncNotStarted())
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", "\"abc-gzip\""))
+                .andExpect(header().string("Cache-Control", "private, no-cache"))
+                .andExpect(header().string("Vary", "Accept-Encoding"));
+        verify(storageService, never()).openContent(any(), any());
+    }
+
+    @Test
+    void downloadFile_ifModifiedSince_returns304OnlyWhenUnchanged(@TempDir Path dir) throws Exception {
+        stubContent(dir);
+        mockMvc.perform(get("/api/v1/storage/files/1/download")
+                        .requestAttr(JwtPrincipal.REQUEST_ATTRIBUTE, PRINCIPAL)
+                        .header("If-Modified-Since", "Mon, 01 Jan 2024 00:00:00 GMT"))
+                .andExpect(status().isNotModified());
+        performAsync(get("/api/v1/storage/files/1/download")
+                        .requestAttr(JwtPrincipal.REQUEST_ATTRIBUTE, PRINCIPAL)
+                        .header("If-Modified-Since", "Sun, 31 Dec 2023 23:59:59 GMT"))
+                .andExpect(status().isOk())
+                .andExpect(content().string("0123456789"));
+        verify(storageService, Mockito.times(1)).openContent(any(), any());
+    }
+
+    @Test
+    void downloadFile_singleRange_partialContent(@TempDir Path dir) throws Exception {
+        stubContent(dir);
+        performAsync(get("/api/v1/storage/files/1/download")
+                        .requestAttr(JwtPrincipal.REQUEST_ATTRIBUTE, PRINCIPAL)
+                        .header("Range", "bytes=2-4"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string("Content-Range", "bytes 2-4/10"))
+                .andExpect(content().string("234"));
+    }
+
+    @Test
+    void downloadFile_multipleRanges_multipartByteranges(@TempDir Path dir) throws Exception {
+        stubContent(dir);
+        performAsync(get("/api/v1/storage/files/1/download")
+                        .requestAttr(JwtPrincipal.REQUEST_ATTRIBUTE, PRINCIPAL)
+                        .header("Range", "bytes=0-1,-2"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string("Content-Type", startsWith("multipart/byteranges")))
+                .andExpect(content().string(containsString("Content-Range: bytes 8-9/10")));
+    }
+
+    @Test
+    void downloadFile_ifRangeMismatch_returnsFullContent(@TempDir Path dir) throws Exception {
+        stubContent(dir);
+        performAsync(get("/api/v1/storage/files/1/download")
+                        .requestAttr(JwtPrincipal.REQUEST_ATTRIBUTE, PRINCIPAL)
+                        .header("Range", "bytes=2-4")
+                        .header("If-Range", "\"stale\""))
+                .andExpect(status().isOk())
+                .andExpect(content().string("0123456789"));
+    }
+
+    @Test
+    void downloadFile_unsatisfiableRange_returns416(@TempDir Path dir) throws Exception {
+        stubContent(dir);
+        mockMvc.perform(get("/api/v1/storage/files/1/download")
+                        .requestAttr(JwtPrincipal.REQUEST_ATTRIBUTE, PRINCIPAL)
+                        .header("Range", "bytes=20-30"))
+                .andExpect(request().asyncNotStarted())
+                .andExpect(status().isRequestedRangeNotSatisfiable())
+                .andExpect(header().string("Content-Range", "bytes */10"));
+    }
+
+    @Test
+    void downloadFile_gzipBlobAccepted_passesEncodedBytesThrough(@TempDir Path dir) throws Exception {
+        byte[] stored = stubGzipContent(dir);
+        performAsync(get("/api/v1/storage/files/1/download")
+                        .requestAttr(JwtPrincipal.REQUEST_ATTRIBUTE, PRINCIPAL)
+                        .header("Accept-Encoding", "br, gzip"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Encoding", "gzip"))
+                .andExpect(header().string("Vary", "Accept-Encoding"))
+                .andExpect(header().string("ETag", "\"abc-gzip\""))
+                .andExpect(content().bytes(stored));
+    }
+
+    @Test
+    void downloadFile_gzipBlobRange_decodesOnTheFly(@TempDir Path dir) throws Exception {
+        stubGzipContent(dir);
+        performAsync(get("/api/v1/storage/files/1/download")
+                        .requestAttr(JwtPrincipal.REQUEST_ATTRIBUTE, PRINCIPAL)
+                        .header("Accept-Encoding", "gzip")
+                        .header("Range", "bytes=2-4"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().doesNotExist("Content-Encoding"))
+                .andExpect(header().string("Content-Range", "bytes 2-4/10"))
+                .andExpect(content().string("234"));
+    }
+
+    private ResultActions performAsync(MockHttpServletRequestBuilder builder) throws Exception {
+        MvcResult started = mockMvc.perform(builder).andExpect(request().asyncStarted()).andReturn();
+        return mockMvc.perform(asyncDispatch(started));
+    }
+
+    private byte[] stubGzipContent(Path dir) throws Exception {
+        ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+        try (GZIPOutputStream out = new GZIPOutputStream(encoded)) {
+            out.write("0123456789".getBytes(StandardCharsets.US_ASCII));
+        }
+        Path blob = Files.write(dir.resolve("blob.gz"), encoded.toByteArray());
+        StoredFileResponseDto dto = new StoredFileResponseDto();
+        dto.setId(1L);
+        dto.setFilename("digits.txt");
+        dto.setContentType("text/plain");
+        dto.setSize(10L);
+        dto.setOwner("system");
+        dto.setBucketName("bucket");
+        Mockito.when(storageService.describeContent(any(Long.class), any(String.class)))
+                .thenReturn(new ContentVersion(1L, "abc", CREATED_AT, ContentEncoding.GZIP, "private, no-cache"));
+        Mockito.when(storageService.openContent(any(Long.class), any(String.class)))
+                .thenAnswer(inv -> new FileContent(dto, FileChannelBlobReader.open(blob), "abc", CREATED_AT,
+                        ContentEncoding.GZIP));
+        return encoded.toByteArray();
+    }
+
+    private void stubContent(Path dir) throws Exception {
+        Path blob = Files.writeString(dir.resolve("blob"), "0123456789", StandardCharsets.US_ASCII);
+        StoredFileResponseDto dto = new StoredFileResponseDto();
+        dto.setId(1L);
+        dto.setFilename("digits.txt");
+        dto.setContentType("text/plain");
+        dto.setOwner("system");
+        dto.setBucketName("bucket");
+        Mockito.when(storageService.describeContent(any(Long.class), any(String.class)))
+                .thenReturn(new ContentVersion(1L, "abc", CREATED_AT, ContentEncoding.IDENTITY, "private, max-age=60"));
+        Mockito.when(storageService.openContent(any(Long.class), any(String.class)))
+                .thenAnswer(inv -> new FileContent(dto, FileChannelBlobReader.open(blob), "abc", CREATED_AT));
+    }
+}
@@ -0,0 +1,104 @@
+package ind.arvind.security;
+
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.MACSigner;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.OctetSequenceKey;
+import com.nimbusds.jose.jwk.gen.OctetSequenceKeyGenerator;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import ind.arvind.config.JwtProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.DefaultResourceLoader;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtVerifierTest {
+    @TempDir
+    Path dir;
+    private Path jwksFile;
+    private OctetSequenceKey key;
+    private JwtProperties properties;
+    private JwkSetProvider keySetProvider;
+    private JwtVerifier verifier;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        key = new OctetSequenceKeyGenerator(256).keyID("k1").algorithm(JWSAlgorithm.HS256).generate();
+        jwksFile = dir.resolve("jwks.json");
+        writeKeys(key);
+        properties = new JwtProperties();
+        properties.setJwkSetLocation(jwksFile.toUri().toString());
+        properties.setClockSkew(Duration.ZERO);
+        keySetProvider = new JwkSetProvider(new DefaultResourceLoader(), properties);
+        keySetProvider.init();
+        verifier = new JwtVerifier(keySetProvider, properties);
+    }
+
+    @Test
+    void verify_validToken_returnsCachedPrincipal() throws Exception {
+        String token = sign(key, "alice", Instant.now().plusSeconds(600));
+        JwtPrincipal first = verifier.verify(token);
+        assertEquals("alice", first.owner());
+        assertSame(first, verifier.verify(token));
+    }
+
+    @Test
+    void verify_expiredToken_rejected() throws Exception {
+        String token = sign(key, "alice", Instant.now().minusSeconds(5));
+        assertThrows(InvalidTokenException.class, () -> verifier.verify(token));
+    }
+
+    @Test
+    void verify_wrongSignature_rejected() throws Exception {
+        OctetSequenceKey forged = new OctetSequenceKeyGenerator(256).keyID("k1").generate();
+        String token = sign(forged, "alice", Instant.now().plusSeconds(600));
+        assertThrows(InvalidTokenException.class, () -> verifier.verify(token));
+    }
+
+    @Test
+    void verify_issuerMismatch_rejected() throws Exception {
+        properties.setIssuer("https://issuer.example");
+        String token = sign(key, "alice", Instant.now().plusSeconds(600));
+        assertThrows(InvalidTokenException.class, () -> verifier.verify(token));
+    }
+
+    @Test
+    void verify_rotatedKey_pickedUpWithoutRestart() throws Exception {
+        OctetSequenceKey rotated = new OctetSequenceKeyGenerator(256).keyID("k2").generate();
+        writeKeys(key, rotated);
+        properties.setUnknownKeyReloadInterval(Duration.ZERO);
+        String token = sign(rotated, "bob", Instant.now().plusSeconds(600));
+        assertEquals("bob", verifier.verify(token).owner());
+    }
+
+    @Test
+    void reload_removedKey_dropsCachedTokens() throws Exception {
+        String token = sign(key, "alice", Instant.now().plusSeconds(600));
+        verifier.verify(token);
+        writeKeys(new OctetSequenceKeyGenerator(256).keyID("k2").generate());
+        keySetProvider.reload();
+        assertThrows(InvalidTokenException.class, () -> verifier.verify(token));
+    }
+
+    private void writeKeys(OctetSequenceKey... keys) throws Exception {
+        Files.writeString(jwksFile, new JWKSet(List.of(keys)).toString(false));
+    }
+
+    private static String sign(OctetSequenceKey signingKey, String subject, Instant expiresAt) throws Exception {
+        SignedJWT jwt = new SignedJWT(new JWSHeader.Builder(JWSAlgorithm.HS256).keyID(signingKey.getKeyID()).build(),
+                new JWTClaimsSet.Builder().subject(subject).expirationTime(Date.from(expiresAt)).build());
+        jwt.sign(new MACSigner(signingKey));
+        return jwt.serialize();
+    }
+}
@@ -0,0 +1,182 @@
+package ind.arvind.service;
+
+import ind.arvind.config.StorageProperties;
+import ind.arvind.entity.BucketJob;
+import ind.arvind.entity.BucketJobStatus;
+import ind.arvind.entity.BucketJobType;
+import ind.arvind.entity.LifecycleRule;
+import ind.arvind.entity.UsageScope;
+import ind.arvind.repository.BucketJobRepository;
+import ind.arvind.repository.LifecycleRuleRepository;
+import ind.arvind.repository.StorageBucketRepository;
+import ind.arvind.repository.StoredFileRepository;
+import ind.arvind.repository.UploadSessionRepository;
+import ind.arvind.repository.UsageCounterRepository;
+import ind.arvind.repository.projection.StoredContentRow;
+import ind.arvind.service.impl.BucketJobWorker;
+import ind.arvind.service.impl.StoredFileRemover;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class BucketJobWorkerTest {
+    private static final long WAIT_MILLIS = 2000;
+    private static final long BUCKET_ID = 7L;
+
+    @Mock
+    private BucketJobRepository bucketJobRepository;
+    @Mock
+    private StoredFileRepository storedFileRepository;
+    @Mock
+    private StorageBucketRepository storageBucketRepository;
+    @Mock
+    private LifecycleRuleRepository lifecycleRuleRepository;
+    @Mock
+    private UploadSessionRepository uploadSessionRepository;
+    @Mock
+    private UsageCounterRepository usageCounterRepository;
+    @Mock
+    private StoredFileRemover storedFileRemover;
+    @Mock
+    private MultipartUploadService multipartUploadService;
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    private BucketJobWorker worker;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        StorageProperties properties = new StorageProperties();
+        properties.getLifecycle().setChunkSize(2);
+        properties.getLifecycle().setWorkerThreads(1);
+        worker = new BucketJobWorker(bucketJobRepository, storedFileRepository, storageBucketRepository,
+                lifecycleRuleRepository, uploadSessionRepository, usageCounterRepository, storedFileRemover,
+                multipartUploadService, properties, transactionTemplate);
+        when(transactionTemplate.execute(any())).thenAnswer(inv -> inv.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+    }
+
+    @AfterEach
+    void tearDown() {
+        worker.shutdown();
+    }
+
+    @Test
+    void dispatch_deleteBucket_removesFilesInChunksThenTheBucket() {
+        stubClaimable(job(BucketJobType.DELETE_BUCKET));
+        List<StoredContentRow> first = List.of(row(1L, 10L), row(2L, 20L));
+        List<StoredContentRow> second = List.of(row(3L, 5L));
+        when(storedFileRepository.findContentInBucket(BUCKET_ID, Limit.of(2))).thenReturn(first, second);
+        when(uploadSessionRepository.existsByStorageBucketId(BUCKET_ID)).thenReturn(true, false);
+        when(multipartUploadService.purgeExpired()).thenReturn(1);
+
+        assertEquals(1, worker.dispatch());
+
+        verify(bucketJobRepository, timeout(WAIT_MILLIS)).finish(eq("job-1"), eq(BucketJobStatus.COMPLETED), isNull(), any());
+        verify(storedFileRemover).remove(first);
+        verify(storedFileRemover).remove(second);
+        verify(bucketJobRepository).recordProgress(eq("job-1"), eq(2L), eq(30L), any());
+        verify(bucketJobRepository).recordProgress(eq("job-1"), eq(1L), eq(5L), any());
+        verify(lifecycleRuleRepository).deleteByBucketId(BUCKET_ID);
+        verify(usageCounterRepository).deleteByScope(UsageScope.BUCKET, "7");
+        verify(storageBucketRepository).deleteBucketById(BUCKET_ID);
+    }
+
+    @Test
+    void dispatch_deleteBucket_fileLandedMeanwhile_emptiesAgainBeforeDropping() {
+        stubClaimable(job(BucketJobType.DELETE_BUCKET));
+        List<StoredContentRow> late = List.of(row(9L, 1L));
+        when(storedFileRepository.findContentInBucket(BUCKET_ID, Limit.of(2))).thenReturn(List.of(), late, List.of());
+        when(storedFileRepository.existsByStorageBucketId(BUCKET_ID)).thenReturn(true, false);
+
+        worker.dispatch();
+
+        verify(bucketJobRepository, timeout(WAIT_MILLIS)).finish(eq("job-1"), eq(BucketJobStatus.COMPLETED), isNull(), any());
+        verify(storedFileRemover).remove(late);
+        verify(storageBucketRepository, times(1)).deleteBucketById(BUCKET_ID);
+    }
+
+    @Test
+    void dispatch_expire_deletesFilesMatchedByEachRule() {
+        stubClaimable(job(BucketJobType.EXPIRE));
+        LifecycleRule byPrefix = LifecycleRule.builder().id(1L).filenamePrefix("log_50%").expireAfterDays(30).build();
+        LifecycleRule byMetadata = LifecycleRule.builder().id(2L).metadataKey("temp").metadataValue("yes").build();
+        when(lifecycleRuleRepository.findByStorageBucketIdOrderById(BUCKET_ID)).thenReturn(List.of(byPrefix, byMetadata));
+        List<StoredContentRow> expired = List.of(row(4L, 8L));
+        when(storedFileRepository.findContentExpiring(eq(BUCKET_ID), any(), eq("log!_50!%%"), isNull(), isNull(), eq(0L), any()))
+                .thenReturn(expired);
+
+        worker.dispatch();
+
+        verify(bucketJobRepository, timeout(WAIT_MILLIS)).finish(eq("job-1"), eq(BucketJobStatus.COMPLETED), isNull(), any());
+        ArgumentCaptor<Instant> cutoffs = ArgumentCaptor.forClass(Instant.class);
+        verify(storedFileRepository).findContentExpiring(eq(BUCKET_ID), cutoffs.capture(), eq("log!_50!%%"), isNull(),
+                isNull(), eq(0L), any());
+        verify(storedFileRepository).findContentExpiring(eq(BUCKET_ID), any(), isNull(), eq("temp"), eq("yes"), eq(0L), any());
+        assertTrue(cutoffs.getValue().isBefore(Instant.now().minus(Duration.ofDays(29))));
+        verify(storedFileRemover).remove(expired);
+        verify(storageBucketRepository, never()).deleteBucketById(any());
+    }
+
+    @Test
+    void dispatch_expire_continuesAfterTheLastFileOfEachChunk() {
+        stubClaimable(job(BucketJobType.EXPIRE));
+        LifecycleRule rule = LifecycleRule.builder().id(1L).filenamePrefix("tmp").expireAfterDays(1).build();
+        when(lifecycleRuleRepository.findByStorageBucketIdOrderById(BUCKET_ID)).thenReturn(List.of(rule));
+        List<StoredContentRow> first = List.of(row(3L, 1L), row(8L, 1L));
+        List<StoredContentRow> second = List.of(row(12L, 1L));
+        when(storedFileRepository.findContentExpiring(eq(BUCKET_ID), any(), eq("tmp%"), isNull(), isNull(), eq(0L), any()))
+                .thenReturn(first);
+        when(storedFileRepository.findContentExpiring(eq(BUCKET_ID), any(), eq("tmp%"), isNull(), isNull(), eq(8L), any()))
+                .thenReturn(second);
+
+        worker.dispatch();
+
+        verify(bucketJobRepository, timeout(WAIT_MILLIS)).finish(eq("job-1"), eq(BucketJobStatus.COMPLETED), isNull(), any());
+        verify(storedFileRemover).remove(first);
+        verify(storedFileRemover).remove(second);
+        verify(storedFileRepository, never()).findContentExpiring(any(), any(), any(), any(), any(), eq(12L), any());
+    }
+
+    private void stubClaimable(BucketJob job) {
+        when(bucketJobRepository.findJobIdsByStatus(eq(BucketJobStatus.PENDING), any(Limit.class))).thenReturn(List.of(job.getJobId()));
+        when(bucketJobRepository.claim(eq(job.getJobId()), any(), any(), any())).thenReturn(1);
+        when(bucketJobRepository.findByJobId(job.getJobId())).thenReturn(Optional.of(job));
+    }
+
+    private static BucketJob job(BucketJobType type) {
+        return BucketJob.builder()
+                .jobId("job-1")
+                .bucketId(BUCKET_ID)
+                .bucketName("bucket")
+                .owner("owner")
+                .type(type)
+                .status(BucketJobStatus.RUNNING)
+                .build();
+    }
+
+    private static StoredContentRow row(Long id, long size) {
+        return new StoredContentRow(id, "sum-" + id, "loc-" + id, size, BUCKET_ID, "owner");
+    }
+}
@@ -0,0 +1,160 @@
+package ind.arvind.service;
+
+import ind.arvind.cache.StoredFileCache;
+import ind.arvind.dto.BulkFileIdsDto;
+import ind.arvind.dto.BulkItemStatus;
+import ind.arvind.dto.BulkMetadataUpdateDto;
+import ind.arvind.dto.BulkResponseDto;
+import ind.arvind.dto.MetadataUpdateMode;
+import ind.arvind.entity.FileMetadata;
+import ind.arvind.entity.StoredFile;
+import ind.arvind.repository.FileMetadataRepository;
+import ind.arvind.repository.StoredFileRepository;
+import ind.arvind.repository.projection.FileMetadataRow;
+import ind.arvind.repository.projection.StoredContentRow;
+import ind.arvind.repository.projection.StoredFileRow;
+import ind.arvind.service.impl.BulkFileServiceImpl;
+import ind.arvind.service.impl.StoredFileRemover;
+import ind.arvind.service.impl.UsageCounters;
+import ind.arvind.storage.ContentBlobRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class BulkFileServiceImplTest {
+    @Mock
+    private StoredFileRepository storedFileRepository;
+    @Mock
+    private FileMetadataRepository fileMetadataRepository;
+    @Mock
+    private ContentBlobRegistry contentBlobRegistry;
+    @Mock
+    private StoredFileCache storedFileCache;
+    @Mock
+    private TransactionTemplate transactionTemplate;
+    @Mock
+    private UsageCounters usageCounters;
+    private BulkFileServiceImpl bulkFileService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        bulkFileService = new BulkFileServiceImpl(storedFileRepository, fileMetadataRepository,
+                new StoredFileRemover(storedFileRepository, fileMetadataRepository, contentBlobRegistry, storedFileCache,
+                        usageCounters),
+                storedFileCache, transactionTemplate);
+        when(transactionTemplate.execute(any())).thenAnswer(inv -> inv.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+    }
+
+    @Test
+    void getFiles_reportsMissingAndForeignIdsAsNotFound() {
+        when(storedFileRepository.findRowsByOwnerAndIdIn("owner", List.of(1L, 2L, 3L))).thenReturn(List.of(
+                new StoredFileRow(1L, "a.txt", 5L, "text/plain", Instant.EPOCH, null, "owner", "bucket")));
+        when(fileMetadataRepository.findRowsByStoredFileIdIn(List.of(1L))).thenReturn(List.of(new FileMetadataRow(1L, "k", "v")));
+
+        BulkResponseDto response = bulkFileService.getFiles(ids(1L, 2L, 1L, 3L), "owner");
+
+        assertEquals(3, response.getItems().size());
+        assertEquals(BulkItemStatus.OK, response.getItems().get(0).getStatus());
+        assertEquals("v", response.getItems().get(0).getFile().getMetadata().get("k"));
+        assertEquals(BulkItemStatus.NOT_FOUND, response.getItems().get(1).getStatus());
+        assertEquals(1, response.getSucceeded());
+        assertEquals(2, response.getFailed());
+    }
+
+    @Test
+    void deleteFiles_deletesInBulkAndReleasesSharedContentOnce() {
+        when(storedFileRepository.findContentByOwnerAndIdIn("owner", List.of(1L, 2L, 3L))).thenReturn(List.of(
+                new StoredContentRow(1L, "aa", "loc-a", 10L, 7L, "owner"), new StoredContentRow(2L, "aa", "loc-a", 10L, 8L, "owner")));
+
+        BulkResponseDto response = bulkFileService.deleteFiles(ids(1L, 2L, 3L), "owner");
+
+        assertEquals(2, response.getSucceeded());
+        assertEquals(BulkItemStatus.NOT_FOUND, response.getItems().get(2).getStatus());
+        verify(fileMetadataRepository).deleteByStoredFileIdIn(List.of(1L, 2L));
+        verify(storedFileRepository).deleteByIdIn(List.of(1L, 2L));
+        verify(contentBlobRegistry).release("aa", "loc-a", 2L);
+        verify(storedFileCache).invalidate(1L);
+        verify(storedFileCache).invalidate(2L);
+        verify(usageCounters).record("owner", null, -2, -20L);
+        verify(usageCounters).recordBucket(7L, -1, -10L);
+        verify(usageCounters).recordBucket(8L, -1, -10L);
+    }
+
+    @Test
+    void deleteFiles_failingChunk_reportsItsItemsAsFailed() {
+        when(storedFileRepository.findContentByOwnerAndIdIn(eq("owner"), anyCollection()))
+                .thenReturn(List.of(new StoredContentRow(1L, "aa", "loc-a", 10L, 7L, "owner")));
+        when(storedFileRepository.deleteByIdIn(any())).thenThrow(new IllegalStateException("boom"));
+
+        BulkResponseDto response = bulkFileService.deleteFiles(ids(1L), "owner");
+
+        assertEquals(BulkItemStatus.FAILED, response.getItems().get(0).getStatus());
+        assertEquals(0, response.getSucceeded());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void updateMetadata_diff_writesOnlyChangedKeys() {
+        StoredFile file = StoredFile.builder().id(1L).build();
+        FileMetadata kept = FileMetadata.builder().id(10L).storedFile(file).metaKey("keep").value("same").build();
+        FileMetadata changed = FileMetadata.builder().id(11L).storedFile(file).metaKey("change").value("old").build();
+        FileMetadata dropped = FileMetadata.builder().id(12L).storedFile(file).metaKey("drop").value("x").build();
+        when(storedFileRepository.findIdsByOwnerAndIdIn("owner", List.of(1L, 2L))).thenReturn(List.of(1L));
+        when(storedFileRepository.getReferenceById(1L)).thenReturn(file);
+        when(fileMetadataRepository.findByStoredFileIdIn(List.of(1L))).thenReturn(List.of(kept, changed, dropped));
+        BulkMetadataUpdateDto request = new BulkMetadataUpdateDto();
+        request.setFileIds(List.of(1L, 2L));
+        request.setMode(MetadataUpdateMode.DIFF);
+        request.setMetadata(Map.of("keep", "same", "change", "new", "add", "y"));
+
+        BulkResponseDto response = bulkFileService.updateMetadata(request, "owner");
+
+        assertEquals(1, response.getSucceeded());
+        assertEquals("new", changed.getValue());
+        verify(fileMetadataRepository).deleteByIdIn(List.of(12L));
+        ArgumentCaptor<List<FileMetadata>> inserted = ArgumentCaptor.forClass(List.class);
+        verify(fileMetadataRepository).saveAll(inserted.capture());
+        assertEquals(List.of("add"), inserted.getValue().stream().map(FileMetadata::getMetaKey).toList());
+        verify(fileMetadataRepository, never()).deleteByStoredFileIdIn(any());
+        verify(storedFileRepository).touch(eq(List.of(1L)), any(Instant.class));
+        verify(storedFileCache).invalidate(1L);
+    }
+
+    @Test
+    void updateMetadata_noOwnedFiles_writesNothing() {
+        when(storedFileRepository.findIdsByOwnerAndIdIn(anyString(), anyCollection())).thenReturn(List.of());
+        BulkMetadataUpdateDto request = new BulkMetadataUpdateDto();
+        request.setFileIds(List.of(5L));
+        request.setMetadata(Map.of("k", "v"));
+
+        BulkResponseDto response = bulkFileService.updateMetadata(request, "owner");
+
+        assertEquals(BulkItemStatus.NOT_FOUND, response.getItems().get(0).getStatus());
+        verify(fileMetadataRepository, never()).saveAll(any());
+        verify(storedFileRepository, never()).touch(any(), any());
+    }
+
+    private static BulkFileIdsDto ids(Long... ids) {
+        BulkFileIdsDto dto = new BulkFileIdsDto();
+        dto.setFileIds(List.of(ids));
+        return dto;
+    }
+}
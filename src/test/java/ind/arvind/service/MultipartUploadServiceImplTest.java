@@ -0,0 +1,197 @@
+package ind.arvind.service;
+
+import ind.arvind.config.StorageProperties;
+import ind.arvind.dto.MultipartUploadDto;
+import ind.arvind.dto.MultipartUploadInitRequestDto;
+import ind.arvind.dto.StoredFileResponseDto;
+import ind.arvind.dto.UploadPartDto;
+import ind.arvind.entity.StorageBucket;
+import ind.arvind.entity.UploadPart;
+import ind.arvind.entity.UploadSession;
+import ind.arvind.metrics.StorageMetrics;
+import ind.arvind.repository.StorageBucketRepository;
+import ind.arvind.repository.UploadPartRepository;
+import ind.arvind.repository.UploadSessionRepository;
+import ind.arvind.service.impl.MultipartUploadServiceImpl;
+import ind.arvind.storage.BlobCleaner;
+import ind.arvind.storage.BlobStore;
+import ind.arvind.storage.BlobWriteResult;
+import ind.arvind.storage.ByteBufferPool;
+import ind.arvind.storage.LocalBlobStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class MultipartUploadServiceImplTest {
+    @Mock
+    private UploadSessionRepository uploadSessionRepository;
+    @Mock
+    private UploadPartRepository uploadPartRepository;
+    @Mock
+    private StorageBucketRepository storageBucketRepository;
+    @Mock
+    private StorageService storageService;
+    @Mock
+    private BlobStore blobStore;
+    @Mock
+    private BlobCleaner blobCleaner;
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    private MultipartUploadServiceImpl multipartUploadService;
+    private final StorageBucket bucket = StorageBucket.builder().id(1L).name("bucket").build();
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        multipartUploadService = new MultipartUploadServiceImpl(uploadSessionRepository, uploadPartRepository,
+                storageBucketRepository, storageService, blobStore, blobCleaner, new StorageProperties(), transactionTemplate,
+                new StorageMetrics(new SimpleMeterRegistry()));
+        when(transactionTemplate.execute(any())).thenAnswer(inv -> inv.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+    }
+
+    @Test
+    void initiate_success() {
+        MultipartUploadInitRequestDto dto = new MultipartUploadInitRequestDto();
+        dto.setBucketName("bucket");
+        dto.setFilename("big.bin");
+        when(storageBucketRepository.findByName("bucket")).thenReturn(Optional.of(bucket));
+        when(uploadSessionRepository.save(any(UploadSession.class))).thenAnswer(inv -> inv.getArgument(0));
+        MultipartUploadDto result = multipartUploadService.initiate(dto, "owner");
+        assertNotNull(result.getUploadId());
+        assertEquals("application/octet-stream", result.getContentType());
+        assertTrue(result.getExpiresAt().isAfter(Instant.now()));
+    }
+
+    @Test
+    void uploadPart_unknownUpload_throwsException() {
+        when(uploadSessionRepository.findByUploadIdAndOwner("u1", "owner")).thenReturn(Optional.empty());
+        assertThrows(NoSuchElementException.class,
+                () -> multipartUploadService.uploadPart("u1", 1, new ByteArrayInputStream(new byte[1]), "owner"));
+    }
+
+    @Test
+    void uploadPart_invalidPartNumber_throwsException() {
+        assertThrows(IllegalArgumentException.class,
+                () -> multipartUploadService.uploadPart("u1", 0, new ByteArrayInputStream(new byte[1]), "owner"));
+    }
+
+    @Test
+    void uploadPart_success_recordsPart() throws Exception {
+        UploadSession session = session();
+        when(uploadSessionRepository.findByUploadIdAndOwner("u1", "owner")).thenReturn(Optional.of(session));
+        when(uploadSessionRepository.lockByUploadId("u1")).thenReturn(Optional.of(session));
+        when(blobStore.write(any())).thenReturn(new BlobWriteResult("loc-2", 5L, "aa"));
+        when(uploadPartRepository.findBySessionIdAndPartNumber(anyLong(), anyInt())).thenReturn(Optional.empty());
+        when(uploadPartRepository.save(any(UploadPart.class))).thenAnswer(inv -> inv.getArgument(0));
+        UploadPartDto result = multipartUploadService.uploadPart("u1", 2, new ByteArrayInputStream(new byte[5]), "owner");
+        assertEquals(2, result.getPartNumber());
+        assertEquals(5L, result.getSize());
+    }
+
+    @Test
+    void complete_missingPart_throwsException() {
+        UploadSession session = session();
+        when(uploadSessionRepository.lockByUploadId("u1")).thenReturn(Optional.of(session));
+        when(uploadPartRepository.findBySessionIdOrderByPartNumber(session.getId()))
+                .thenReturn(List.of(part(1, "loc-1", "aa"), part(3, "loc-3", "bb")));
+        assertThrows(IllegalArgumentException.class, () -> multipartUploadService.complete("u1", null, "owner"));
+    }
+
+    @Test
+    void complete_success_composesParts() throws Exception {
+        UploadSession session = session();
+        when(uploadSessionRepository.lockByUploadId("u1")).thenReturn(Optional.of(session));
+        when(uploadPartRepository.findBySessionIdOrderByPartNumber(session.getId()))
+                .thenReturn(List.of(part(1, "loc-1", "aa"), part(2, "loc-2", "bb")));
+        when(blobStore.compose(List.of("loc-1", "loc-2"))).thenReturn("composed");
+        when(storageService.registerFile(eq("bucket"), eq("big.bin"), eq("text/plain"), isNull(), any(), eq("owner")))
+                .thenReturn(new StoredFileResponseDto());
+        multipartUploadService.complete("u1", null, "owner");
+        ArgumentCaptor<BlobWriteResult> blob = ArgumentCaptor.forClass(BlobWriteResult.class);
+        verify(storageService).registerFile(any(), any(), any(), any(), blob.capture(), any());
+        assertEquals("composed", blob.getValue().location());
+        assertEquals(20L, blob.getValue().size());
+        assertTrue(blob.getValue().sha256().endsWith("-2"));
+        verify(uploadSessionRepository).delete(session);
+    }
+
+    @Test
+    void complete_overQuota_discardsManifestButKeepsParts(@TempDir Path root) throws Exception {
+        StorageProperties properties = new StorageProperties();
+        properties.setRootDir(root.resolve("hot").toString());
+        properties.getTiering().setColdRootDir(root.resolve("cold").toString());
+        LocalBlobStore store = new LocalBlobStore(properties, new ByteBufferPool(16, 1));
+        MultipartUploadServiceImpl service = new MultipartUploadServiceImpl(uploadSessionRepository, uploadPartRepository,
+                storageBucketRepository, storageService, store, new BlobCleaner(store), properties, transactionTemplate,
+                new StorageMetrics(new SimpleMeterRegistry()));
+        String first = store.write(new ByteArrayInputStream(new byte[10])).location();
+        String second = store.write(new ByteArrayInputStream(new byte[10])).location();
+        UploadSession session = session();
+        when(uploadSessionRepository.lockByUploadId("u1")).thenReturn(Optional.of(session));
+        when(uploadPartRepository.findBySessionIdOrderByPartNumber(session.getId()))
+                .thenReturn(List.of(part(1, first, "aa"), part(2, second, "bb")));
+        when(storageService.registerFile(any(), any(), any(), any(), any(), any()))
+                .thenThrow(new QuotaExceededException("Storage quota of owner exceeded"));
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            assertThrows(QuotaExceededException.class, () -> service.complete("u1", null, "owner"));
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        try (Stream<Path> files = Files.walk(root)) {
+            assertTrue(files.noneMatch(file -> file.toString().endsWith(".parts")));
+        }
+        assertTrue(store.exists(first));
+        assertTrue(store.exists(second));
+        verify(uploadSessionRepository, never()).delete(any());
+    }
+
+    @Test
+    void abort_wrongOwner_throwsException() {
+        when(uploadSessionRepository.lockByUploadId("u1")).thenReturn(Optional.of(session()));
+        assertThrows(NoSuchElementException.class, () -> multipartUploadService.abort("u1", "intruder"));
+        verify(uploadSessionRepository, never()).delete(any());
+    }
+
+    private UploadSession session() {
+        return UploadSession.builder().id(7L).uploadId("u1").owner("owner").filename("big.bin").contentType("text/plain")
+                .storageBucket(bucket).createdAt(Instant.now()).expiresAt(Instant.now().plus(Duration.ofHours(1))).build();
+    }
+
+    private static UploadPart part(int number, String location, String checksum) {
+        return UploadPart.builder().partNumber(number).size(10L).storagePath(location).checksum(checksum).uploadedAt(Instant.now()).build();
+    }
+}
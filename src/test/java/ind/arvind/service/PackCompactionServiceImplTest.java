@@ -0,0 +1,103 @@
+package ind.arvind.service;
+
+import ind.arvind.config.StorageProperties;
+import ind.arvind.entity.ContentBlob;
+import ind.arvind.entity.ContentEncoding;
+import ind.arvind.entity.StorageTier;
+import ind.arvind.repository.ContentBlobRepository;
+import ind.arvind.service.impl.ContentRelocator;
+import ind.arvind.service.impl.PackCompactionServiceImpl;
+import ind.arvind.storage.BlobStore;
+import ind.arvind.storage.BlobWriteResult;
+import ind.arvind.storage.PackSegment;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PackCompactionServiceImplTest {
+    private static final String PREFIX = "pack/seg/";
+
+    @Mock
+    private ContentBlobRepository contentBlobRepository;
+    @Mock
+    private BlobStore blobStore;
+    @Mock
+    private ContentRelocator contentRelocator;
+
+    private PackCompactionServiceImpl compactionService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        StorageProperties properties = new StorageProperties();
+        properties.getPacking().setCompactionGrace(Duration.ofMinutes(5));
+        compactionService = new PackCompactionServiceImpl(contentBlobRepository, blobStore, contentRelocator, properties);
+    }
+
+    @Test
+    void compact_mostlyGarbage_movesLiveBlobsAndDeletesSegment() throws Exception {
+        PackSegment segment = sealed(Instant.now().minus(Duration.ofHours(1)));
+        ContentBlob live = ContentBlob.builder().id(1L).checksum("ab").storagePath(PREFIX + "100/10").size(10L)
+                .storedSize(10L).contentEncoding(ContentEncoding.IDENTITY).tier(StorageTier.HOT).build();
+        when(blobStore.sealedPackSegments()).thenReturn(List.of(segment));
+        when(contentBlobRepository.findByStoragePathStartingWith(PREFIX)).thenReturn(List.of(live));
+        when(blobStore.transfer(live.getStoragePath(), StorageTier.HOT)).thenReturn("pack/active/0/10");
+        when(contentRelocator.relocate(eq(live), any())).thenReturn(true);
+
+        assertEquals(1, compactionService.compact());
+
+        ArgumentCaptor<BlobWriteResult> copy = ArgumentCaptor.forClass(BlobWriteResult.class);
+        verify(contentRelocator).relocate(eq(live), copy.capture());
+        assertEquals("pack/active/0/10", copy.getValue().location());
+        assertEquals("ab", copy.getValue().sha256());
+        verify(blobStore).deletePackSegment(segment);
+    }
+
+    @Test
+    void compact_mostlyLiveOrRecentlySealed_leavesSegmentAlone() throws Exception {
+        PackSegment old = sealed(Instant.now().minus(Duration.ofHours(1)));
+        PackSegment recent = new PackSegment("pack/recent/", StorageTier.HOT, 1000L, Instant.now());
+        ContentBlob live = ContentBlob.builder().id(1L).checksum("ab").storagePath(PREFIX + "0/900").size(900L).build();
+        when(blobStore.sealedPackSegments()).thenReturn(List.of(old, recent));
+        when(contentBlobRepository.findByStoragePathStartingWith(PREFIX)).thenReturn(List.of(live));
+
+        assertEquals(0, compactionService.compact());
+
+        verify(blobStore, never()).transfer(anyString(), any());
+        verify(contentBlobRepository, never()).findByStoragePathStartingWith("pack/recent/");
+        verify(blobStore, never()).deletePackSegment(any());
+    }
+
+    @Test
+    void compact_liveBlobStillInSegment_keepsSegment() throws Exception {
+        PackSegment segment = sealed(Instant.now().minus(Duration.ofHours(1)));
+        ContentBlob live = ContentBlob.builder().id(1L).checksum("ab").storagePath(PREFIX + "100/10").size(10L).build();
+        when(blobStore.sealedPackSegments()).thenReturn(List.of(segment));
+        when(contentBlobRepository.findByStoragePathStartingWith(PREFIX)).thenReturn(List.of(live));
+        when(blobStore.transfer(live.getStoragePath(), StorageTier.HOT)).thenReturn("pack/active/0/10");
+        when(contentRelocator.relocate(eq(live), any())).thenReturn(false);
+        when(contentBlobRepository.existsByStoragePathStartingWith(PREFIX)).thenReturn(true);
+
+        assertEquals(0, compactionService.compact());
+
+        verify(blobStore, never()).deletePackSegment(any());
+    }
+
+    private static PackSegment sealed(Instant sealedAt) {
+        return new PackSegment(PREFIX, StorageTier.HOT, 1000L, sealedAt);
+    }
+}
@@ -0,0 +1,265 @@
+package ind.arvind.service;
+
+import ind.arvind.config.StorageProperties;
+import ind.arvind.entity.ContentBlob;
+import ind.arvind.entity.ContentEncoding;
+import ind.arvind.entity.ScrubFinding;
+import ind.arvind.entity.ScrubFindingKind;
+import ind.arvind.entity.ScrubRun;
+import ind.arvind.entity.ScrubStatus;
+import ind.arvind.repository.ContentBlobRepository;
+import ind.arvind.repository.ScrubFindingRepository;
+import ind.arvind.repository.ScrubRunRepository;
+import ind.arvind.repository.StoredFileRepository;
+import ind.arvind.repository.UploadPartRepository;
+import ind.arvind.repository.projection.ScrubRow;
+import ind.arvind.service.impl.ScrubWorker;
+import ind.arvind.storage.BlobWriteResult;
+import ind.arvind.storage.ByteBufferPool;
+import ind.arvind.storage.LocalBlobStore;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentCaptor.captor;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ScrubWorkerTest {
+    private static final long WAIT_MILLIS = 2000;
+    private static final long BUCKET_ID = 7L;
+
+    @TempDir
+    Path root;
+    @Mock
+    private ScrubRunRepository scrubRunRepository;
+    @Mock
+    private ScrubFindingRepository scrubFindingRepository;
+    @Mock
+    private StoredFileRepository storedFileRepository;
+    @Mock
+    private ContentBlobRepository contentBlobRepository;
+    @Mock
+    private UploadPartRepository uploadPartRepository;
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    private LocalBlobStore blobStore;
+    private ScrubWorker worker;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        StorageProperties properties = new StorageProperties();
+        properties.setRootDir(root.resolve("hot").toString());
+        properties.getTiering().setColdRootDir(root.resolve("cold").toString());
+        properties.getScrub().setChunkSize(2);
+        properties.getScrub().setIoConcurrency(2);
+        properties.getScrub().setOrphanGrace(Duration.ZERO);
+        blobStore = new LocalBlobStore(properties, new ByteBufferPool(1024, 2));
+        worker = newWorker(properties);
+        doAnswer(inv -> {
+            inv.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+        when(transactionTemplate.execute(any())).thenAnswer(inv -> inv.<TransactionCallback<?>>getArgument(0)
+                .doInTransaction(mock(TransactionStatus.class)));
+    }
+
+    @AfterEach
+    void tearDown() {
+        worker.shutdown();
+    }
+
+    @Test
+    void dispatch_bucketRun_reportsMissingAndCorruptBlobsChunkByChunk() throws Exception {
+        BlobWriteResult sound = write("sound content");
+        BlobWriteResult corrupt = write("original content");
+        stubClaimable(run(BUCKET_ID, null));
+        when(storedFileRepository.findScrubPage(BUCKET_ID, 0L, Limit.of(2)))
+                .thenReturn(List.of(row(1L, sound, sound.sha256()), row(2L, corrupt, "0".repeat(64))));
+        when(storedFileRepository.findScrubPage(BUCKET_ID, 2L, Limit.of(2)))
+                .thenReturn(List.of(new ScrubRow(3L, "ab/cd/gone", "0".repeat(64), 5L, 5L, ContentEncoding.IDENTITY)));
+        when(storedFileRepository.findScrubRow(3L))
+                .thenReturn(Optional.of(new ScrubRow(3L, "ab/cd/gone", "0".repeat(64), 5L, 5L, ContentEncoding.IDENTITY)));
+
+        assertEquals(1, worker.dispatch());
+
+        verify(scrubRunRepository, timeout(WAIT_MILLIS)).finish(eq(1L), eq(ScrubStatus.RUNNING), any(), eq(ScrubStatus.COMPLETED), isNull(), any());
+        verify(scrubRunRepository).recordProgress(eq(1L), eq("2"), eq(2L), eq(sound.size() + corrupt.size()), eq(1L),
+                eq(ScrubStatus.RUNNING), any(), any());
+        verify(scrubRunRepository).recordProgress(eq(1L), eq("3"), eq(1L), eq(0L), eq(1L), eq(ScrubStatus.RUNNING), any(), any());
+        ArgumentCaptor<List<ScrubFinding>> saved = captor();
+        verify(scrubFindingRepository, times(2)).saveAll(saved.capture());
+        ScrubFinding mismatch = saved.getAllValues().get(0).get(0);
+        assertEquals(ScrubFindingKind.CHECKSUM_MISMATCH, mismatch.getKind());
+        assertEquals(2L, mismatch.getFileId());
+        ScrubFinding missing = saved.getAllValues().get(1).get(0);
+        assertEquals(ScrubFindingKind.MISSING, missing.getKind());
+        assertEquals("ab/cd/gone", missing.getStoragePath());
+    }
+
+    @Test
+    void dispatch_bucketRun_resumesAfterCheckpoint() {
+        stubClaimable(run(BUCKET_ID, "2"));
+        when(storedFileRepository.findScrubPage(BUCKET_ID, 2L, Limit.of(2))).thenReturn(List.of());
+
+        worker.dispatch();
+
+        verify(scrubRunRepository, timeout(WAIT_MILLIS)).finish(eq(1L), eq(ScrubStatus.RUNNING), any(), eq(ScrubStatus.COMPLETED), isNull(), any());
+        verify(storedFileRepository, never()).findScrubPage(eq(BUCKET_ID), eq(0L), any());
+        verify(scrubFindingRepository, never()).saveAll(any());
+    }
+
+    @Test
+    void dispatch_orphanRun_reportsOnlyUnreferencedBlobs() throws Exception {
+        BlobWriteResult referenced = write("referenced");
+        BlobWriteResult orphan = write("orphan");
+        String composed = blobStore.compose(List.of(write("part one").location(), write("part two").location()));
+        stubClaimable(run(null, null));
+        when(contentBlobRepository.findStoragePathsIn(any())).thenAnswer(inv -> inv.<Collection<String>>getArgument(0)
+                .stream()
+                .filter(location -> location.equals(referenced.location()) || location.equals(composed))
+                .toList());
+        when(contentBlobRepository.findByIdGreaterThanOrderById(eq(0L), any()))
+                .thenReturn(List.of(ContentBlob.builder().id(5L).storagePath(composed).build()));
+
+        worker.dispatch();
+
+        verify(scrubRunRepository, timeout(WAIT_MILLIS)).finish(eq(1L), eq(ScrubStatus.RUNNING), any(), eq(ScrubStatus.COMPLETED), isNull(), any());
+        ArgumentCaptor<List<ScrubFinding>> saved = captor();
+        verify(scrubFindingRepository).saveAll(saved.capture());
+        assertEquals(1, saved.getValue().size());
+        assertEquals(ScrubFindingKind.ORPHAN, saved.getValue().get(0).getKind());
+        assertEquals(orphan.location(), saved.getValue().get(0).getStoragePath());
+        assertNull(saved.getValue().get(0).getFileId());
+        verify(scrubRunRepository, never()).finish(anyLong(), any(), any(), eq(ScrubStatus.FAILED), any(), any());
+    }
+
+    @Test
+    void dispatch_blobMovedWhileChunkIsRead_checksTheNewLocationInstead() throws Exception {
+        BlobWriteResult moved = write("moved content");
+        stubClaimable(run(BUCKET_ID, null));
+        when(storedFileRepository.findScrubPage(BUCKET_ID, 0L, Limit.of(2)))
+                .thenReturn(List.of(new ScrubRow(1L, "ab/cd/before-move", moved.sha256(), moved.size(),
+                        moved.storedSize(), ContentEncoding.IDENTITY)));
+        when(storedFileRepository.findScrubRow(1L)).thenReturn(Optional.of(row(1L, moved, moved.sha256())));
+
+        worker.dispatch();
+
+        verify(scrubRunRepository, timeout(WAIT_MILLIS)).finish(eq(1L), eq(ScrubStatus.RUNNING), any(), eq(ScrubStatus.COMPLETED), isNull(), any());
+        verify(scrubRunRepository).recordProgress(eq(1L), eq("1"), eq(1L), eq(moved.size()), eq(0L), any(), any(), any());
+        verify(scrubFindingRepository, never()).saveAll(any());
+    }
+
+    @Test
+    void dispatch_slowChunk_renewsLeaseWhileReading() throws Exception {
+        StorageProperties properties = new StorageProperties();
+        properties.setRootDir(root.resolve("hot").toString());
+        properties.getTiering().setColdRootDir(root.resolve("cold").toString());
+        properties.getScrub().setChunkSize(2);
+        properties.getScrub().setIoConcurrency(2);
+        properties.getScrub().setMaxBytesPerSecond(16);
+        properties.getScrub().setLeaseTimeout(Duration.ofMillis(300));
+        worker.shutdown();
+        worker = newWorker(properties);
+        BlobWriteResult first = write("first throttled blob");
+        BlobWriteResult second = write("second throttled blob");
+        ScrubRun run = run(BUCKET_ID, null);
+        stubClaimable(run);
+        when(storedFileRepository.findScrubPage(BUCKET_ID, 0L, Limit.of(2)))
+                .thenReturn(List.of(row(1L, first, first.sha256()), row(2L, second, second.sha256())));
+        when(scrubRunRepository.renew(eq(1L), eq(ScrubStatus.RUNNING), any(), any())).thenAnswer(inv -> {
+            run.setClaimedAt(inv.getArgument(3));
+            return 1;
+        });
+
+        worker.dispatch();
+
+        verify(scrubRunRepository, timeout(5000)).finish(eq(1L), eq(ScrubStatus.RUNNING), any(), eq(ScrubStatus.COMPLETED), isNull(), any());
+        verify(scrubRunRepository, atLeastOnce()).renew(eq(1L), eq(ScrubStatus.RUNNING), any(), any());
+        verify(scrubRunRepository).recordProgress(eq(1L), eq("2"), eq(2L), eq(first.size() + second.size()), eq(0L),
+                any(), any(), any());
+    }
+
+    @Test
+    void dispatch_leaseTakenOver_stopsWithoutRecordingFindings() {
+        stubClaimable(run(BUCKET_ID, null));
+        when(storedFileRepository.findScrubPage(BUCKET_ID, 0L, Limit.of(2)))
+                .thenReturn(List.of(new ScrubRow(1L, "ab/cd/gone", "0".repeat(64), 5L, 5L, ContentEncoding.IDENTITY)));
+        when(storedFileRepository.findScrubRow(1L))
+                .thenReturn(Optional.of(new ScrubRow(1L, "ab/cd/gone", "0".repeat(64), 5L, 5L, ContentEncoding.IDENTITY)));
+        when(scrubRunRepository.recordProgress(anyLong(), any(), anyLong(), anyLong(), anyLong(), any(), any(), any()))
+                .thenReturn(0);
+
+        worker.dispatch();
+
+        verify(scrubRunRepository, timeout(WAIT_MILLIS)).recordProgress(eq(1L), eq("1"), eq(1L), eq(0L), eq(1L),
+                any(), any(), any());
+        verify(scrubFindingRepository, after(200).never()).saveAll(any());
+        verify(scrubRunRepository, never()).finish(anyLong(), any(), any(), any(), any(), any());
+    }
+
+    private ScrubWorker newWorker(StorageProperties properties) {
+        return new ScrubWorker(scrubRunRepository, scrubFindingRepository, storedFileRepository, contentBlobRepository,
+                uploadPartRepository, blobStore, properties, transactionTemplate);
+    }
+
+    private BlobWriteResult write(String content) throws Exception {
+        return blobStore.write(new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static ScrubRow row(Long id, BlobWriteResult blob, String checksum) {
+        return new ScrubRow(id, blob.location(), checksum, blob.size(), blob.storedSize(), ContentEncoding.IDENTITY);
+    }
+
+    private static ScrubRun run(Long bucketId, String checkpoint) {
+        return ScrubRun.builder()
+                .id(1L)
+                .bucketId(bucketId)
+                .status(ScrubStatus.RUNNING)
+                .checkpoint(checkpoint)
+                .build();
+    }
+
+    private void stubClaimable(ScrubRun run) {
+        when(scrubRunRepository.findIdsByStatus(eq(ScrubStatus.PENDING), any())).thenReturn(List.of(run.getId()));
+        when(scrubRunRepository.claim(eq(run.getId()), eq(ScrubStatus.PENDING), eq(ScrubStatus.RUNNING), any())).thenAnswer(inv -> {
+            run.setClaimedAt(inv.getArgument(3));
+            return 1;
+        });
+        when(scrubRunRepository.findById(run.getId())).thenReturn(Optional.of(run));
+        when(scrubRunRepository.recordProgress(eq(run.getId()), any(), anyLong(), anyLong(), anyLong(), eq(ScrubStatus.RUNNING),
+                any(), any())).thenReturn(1);
+        when(scrubRunRepository.finish(eq(run.getId()), eq(ScrubStatus.RUNNING), any(), any(), any(), any())).thenReturn(1);
+    }
+}
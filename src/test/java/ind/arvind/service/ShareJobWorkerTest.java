@@ -0,0 +1,234 @@
+package ind.arvind.service;
+
+import ind.arvind.config.ShareProperties;
+import ind.arvind.entity.FolderShare;
+import ind.arvind.entity.ShareJob;
+import ind.arvind.entity.ShareJobStatus;
+import ind.arvind.entity.SharePermission;
+import ind.arvind.repository.FolderShareRepository;
+import ind.arvind.repository.ShareJobRepository;
+import ind.arvind.service.impl.ShareJobWorker;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ShareJobWorkerTest {
+    private static final long WAIT_MILLIS = 2000;
+
+    @Mock
+    private ShareJobRepository shareJobRepository;
+    @Mock
+    private FolderShareRepository folderShareRepository;
+    @Mock
+    private ShareNotifier shareNotifier;
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    private final ShareProperties shareProperties = new ShareProperties();
+    private ShareJobWorker worker;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        shareProperties.setWorkerThreads(1);
+        shareProperties.setBatchSize(2);
+        shareProperties.setRetryBackoff(Duration.ofSeconds(10));
+        worker = new ShareJobWorker(shareJobRepository, folderShareRepository, shareNotifier, shareProperties, transactionTemplate);
+        doAnswer(inv -> {
+            inv.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+        when(transactionTemplate.execute(any())).thenAnswer(inv -> inv.<TransactionCallback<?>>getArgument(0)
+                .doInTransaction(mock(TransactionStatus.class)));
+    }
+
+    @AfterEach
+    void tearDown() {
+        worker.shutdown();
+    }
+
+    @Test
+    void dispatch_processesJobInBatchesAndRefreshesExistingGrants() {
+        ShareJob job = runningJob(List.of("a@x.com", "b@x.com", "c@x.com"), 0);
+        stubClaimable(job);
+        FolderShare existing = FolderShare.builder().folderPath("http://example.com").granteeEmail("a@x.com")
+                .permission(SharePermission.READ).build();
+        when(folderShareRepository.findByFolderPathAndGranteeEmailIn("http://example.com", List.of("a@x.com", "b@x.com")))
+                .thenReturn(List.of(existing));
+
+        assertEquals(1, worker.dispatch());
+
+        verify(shareNotifier, timeout(WAIT_MILLIS)).notifyRecipients("http://example.com", List.of("c@x.com"));
+        InOrder order = inOrder(shareJobRepository, shareNotifier);
+        order.verify(shareJobRepository).recordProgress(eq("job-1"), eq(2), any(), any(), any());
+        order.verify(shareNotifier).notifyRecipients("http://example.com", List.of("a@x.com", "b@x.com"));
+        order.verify(shareJobRepository).recordNotified(eq("job-1"), eq(2), any(), any(), any());
+        ArgumentCaptor<List<FolderShare>> saved = captor();
+        verify(folderShareRepository, timeout(WAIT_MILLIS).times(2)).saveAll(saved.capture());
+        FolderShare created = saved.getAllValues().get(0).get(0);
+        assertEquals("b@x.com", created.getGranteeEmail());
+        assertEquals(SharePermission.WRITE, created.getPermission());
+        verify(shareJobRepository, timeout(WAIT_MILLIS)).recordProgress(eq("job-1"), eq(3), eq(ShareJobStatus.RUNNING), any(), any());
+        waitFor(() -> job.getStatus() == ShareJobStatus.COMPLETED);
+        assertEquals(SharePermission.WRITE, existing.getPermission());
+        assertEquals(3, job.getNotifiedRecipients());
+    }
+
+    @Test
+    void dispatch_resumesFromRecordedProgress() {
+        ShareJob job = runningJob(List.of("a@x.com", "b@x.com", "c@x.com"), 2);
+        job.setNotifiedRecipients(2);
+        stubClaimable(job);
+
+        worker.dispatch();
+
+        verify(shareNotifier, timeout(WAIT_MILLIS)).notifyRecipients("http://example.com", List.of("c@x.com"));
+        waitFor(() -> job.getStatus() == ShareJobStatus.COMPLETED);
+        verify(shareNotifier, never()).notifyRecipients(any(), eq(List.of("a@x.com", "b@x.com")));
+    }
+
+    @Test
+    void dispatch_grantedButNotNotified_notifiesWithoutGrantingAgain() {
+        ShareJob job = runningJob(List.of("a@x.com", "b@x.com", "c@x.com"), 2);
+        stubClaimable(job);
+
+        worker.dispatch();
+
+        verify(shareNotifier, timeout(WAIT_MILLIS)).notifyRecipients("http://example.com", List.of("c@x.com"));
+        verify(shareNotifier).notifyRecipients("http://example.com", List.of("a@x.com", "b@x.com"));
+        waitFor(() -> job.getStatus() == ShareJobStatus.COMPLETED);
+        verify(shareJobRepository, never()).recordProgress(eq("job-1"), eq(2), any(), any(), any());
+        verify(folderShareRepository).findByFolderPathAndGranteeEmailIn("http://example.com", List.of("c@x.com"));
+        assertEquals(3, job.getNotifiedRecipients());
+    }
+
+    @Test
+    void dispatch_notifierFailure_keepsGrantsAndRequeuesWithBackoff() {
+        ShareJob job = runningJob(List.of("a@x.com", "b@x.com", "c@x.com"), 0);
+        stubClaimable(job);
+        doThrow(new IllegalStateException("smtp down")).when(shareNotifier).notifyRecipients(any(), anyList());
+
+        worker.dispatch();
+
+        waitFor(() -> job.getStatus() == ShareJobStatus.PENDING);
+        assertEquals(1, job.getAttempts());
+        assertEquals("smtp down", job.getLastError());
+        assertTrue(job.getAvailableAt().isAfter(Instant.now()));
+        verify(folderShareRepository, times(2)).saveAll(anyList());
+        verify(shareJobRepository).recordProgress(eq("job-1"), eq(3), any(), any(), any());
+        verify(shareNotifier).notifyRecipients(any(), anyList());
+        verify(shareJobRepository, never()).recordNotified(any(), anyInt(), any(), any(), any());
+    }
+
+    @Test
+    void dispatch_leaseTakenOver_stopsWithoutTouchingNewHoldersState() {
+        ShareJob job = runningJob(List.of("a@x.com", "b@x.com", "c@x.com"), 0);
+        stubClaimable(job);
+        when(shareJobRepository.recordProgress(eq(job.getJobId()), anyInt(), any(), any(), any())).thenAnswer(inv -> {
+            job.setClaimedAt(Instant.now().plusSeconds(60));
+            return 0;
+        });
+
+        worker.dispatch();
+
+        verify(shareJobRepository, timeout(WAIT_MILLIS)).recordProgress(eq("job-1"), eq(2), any(), any(), any());
+        verify(shareNotifier, after(200).never()).notifyRecipients(any(), anyList());
+        verify(folderShareRepository, never()).saveAll(anyList());
+        verify(shareJobRepository, never()).lockByJobId(any());
+        assertEquals(ShareJobStatus.RUNNING, job.getStatus());
+    }
+
+    @Test
+    void dispatch_lostClaim_skipsJob() {
+        when(shareJobRepository.findAvailableJobIds(eq(ShareJobStatus.PENDING), any(), any(Limit.class))).thenReturn(List.of("job-1"));
+        when(shareJobRepository.claim(eq("job-1"), any(), any(), any())).thenReturn(0);
+
+        assertEquals(0, worker.dispatch());
+        verify(shareJobRepository, never()).findByJobId(any());
+    }
+
+    private void stubClaimable(ShareJob job) {
+        when(shareJobRepository.findAvailableJobIds(eq(ShareJobStatus.PENDING), any(), any(Limit.class))).thenReturn(List.of(job.getJobId()));
+        when(shareJobRepository.claim(eq(job.getJobId()), any(), any(), any())).thenAnswer(inv -> {
+            job.setClaimedAt(inv.getArgument(3));
+            return 1;
+        });
+        when(shareJobRepository.findByJobId(job.getJobId())).thenReturn(Optional.of(job));
+        when(shareJobRepository.lockByJobId(job.getJobId())).thenReturn(Optional.of(job));
+        when(shareJobRepository.recordProgress(eq(job.getJobId()), anyInt(), any(), any(), any())).thenAnswer(inv -> {
+            if (!inv.getArgument(3).equals(job.getClaimedAt())) {
+                return 0;
+            }
+            job.setClaimedAt(inv.getArgument(4));
+            job.setProcessedRecipients(inv.getArgument(1));
+            return 1;
+        });
+        when(shareJobRepository.recordNotified(eq(job.getJobId()), anyInt(), any(), any(), any())).thenAnswer(inv -> {
+            if (!inv.getArgument(3).equals(job.getClaimedAt())) {
+                return 0;
+            }
+            job.setClaimedAt(inv.getArgument(4));
+            job.setNotifiedRecipients(inv.getArgument(1));
+            return 1;
+        });
+    }
+
+    private static ShareJob runningJob(List<String> recipients, int processed) {
+        return ShareJob.builder()
+                .jobId("job-1")
+                .folderpath("http://example.com")
+                .recipients(ShareJob.joinRecipients(recipients))
+                .permission(SharePermission.WRITE)
+                .status(ShareJobStatus.RUNNING)
+                .totalRecipients(recipients.size())
+                .processedRecipients(processed)
+                .createdAt(Instant.now())
+                .updatedAt(Instant.now())
+                .availableAt(Instant.now())
+                .build();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ArgumentCaptor<List<FolderShare>> captor() {
+        return ArgumentCaptor.forClass(List.class);
+    }
+
+    private static void waitFor(BooleanSupplier condition) {
+        long deadline = System.currentTimeMillis() + WAIT_MILLIS;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "condition not met in time");
+            Thread.onSpinWait();
+        }
+    }
+}
@@ -1,23 +1,42 @@
 package ind.arvind.service;
 
+import ind.arvind.dto.FolderShareDto;
+import ind.arvind.dto.PageResponseDto;
+import ind.arvind.dto.ShareJobDto;
 import ind.arvind.dto.ShareRequestDto;
+import ind.arvind.entity.ShareJob;
+import ind.arvind.entity.SharePermission;
+import ind.arvind.repository.projection.FolderShareRow;
+import ind.arvind.service.impl.PageTokens;
+import ind.arvind.repository.ShareJobRepository;
+import ind.arvind.service.impl.ShareJobWorker;
 import ind.arvind.service.impl.ShareServiceImpl;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.Limit;
 
-import ind.arvind.repository.EmailRepository;
+import ind.arvind.repository.FolderShareRepository;
 
+import java.time.Instant;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 class ShareServiceImplTest {
     @Mock
-    private EmailRepository emailRepository;
+    private FolderShareRepository folderShareRepository;
+    @Mock
+    private ShareJobRepository shareJobRepository;
+    @Mock
+    private ShareJobWorker shareJobWorker;
 
     @InjectMocks
     private ShareServiceImpl shareService;
@@ -33,11 +52,42 @@ class ShareServiceImplTest {
         ShareRequestDto dto = new ShareRequestDto();
         dto.setFolderpath("http://example.com");
         dto.setEmails(List.of("a@b.com"));
+        when(shareJobRepository.save(any(ShareJob.class))).thenAnswer(inv -> inv.getArgument(0));
         assertDoesNotThrow(() -> shareService.share(dto));
     }
 
+    @Test
+    void share_queuesDeduplicatedRecipientsWithoutTouchingEmails() {
+        ShareRequestDto dto = new ShareRequestDto();
+        dto.setFolderpath("http://example.com");
+        dto.setEmails(List.of("a@b.com", " a@b.com", "c@d.com"));
+        when(shareJobRepository.save(any(ShareJob.class))).thenAnswer(inv -> inv.getArgument(0));
+        ShareJobDto job = shareService.share(dto);
+        assertEquals("PENDING", job.getStatus());
+        assertEquals(2, job.getTotalRecipients());
+        assertNotNull(job.getJobId());
+        verifyNoInteractions(folderShareRepository);
+    }
+
+    @Test
+    void getJob_unknown_throwsException() {
+        when(shareJobRepository.findByJobId("missing")).thenReturn(Optional.empty());
+        assertThrows(NoSuchElementException.class, () -> shareService.getJob("missing"));
+    }
+
     @Test
     void getSharedEmails_Failure() {
-        assertTrue(shareService.getSharedEmails("nonexistent").isEmpty());
+        assertTrue(shareService.getSharedEmails("nonexistent", null, 10).getItems().isEmpty());
+    }
+
+    @Test
+    void getSharedEmails_morePages_returnsContinuationToken() {
+        Instant now = Instant.now();
+        when(folderShareRepository.findActivePage(eq("http://example.com"), any(), eq(0L), eq(Limit.of(2))))
+                .thenReturn(List.of(new FolderShareRow(4L, "a@b.com", SharePermission.READ, now, null),
+                        new FolderShareRow(9L, "c@d.com", SharePermission.WRITE, now, null)));
+        PageResponseDto<FolderShareDto> page = shareService.getSharedEmails("http://example.com", null, 1);
+        assertEquals(List.of("a@b.com"), page.getItems().stream().map(FolderShareDto::getEmail).toList());
+        assertEquals(4L, PageTokens.decode(page.getNextPageToken()));
     }
 }
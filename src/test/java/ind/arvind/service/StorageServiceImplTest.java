@@ -1,26 +1,74 @@
 package ind.arvind.service;
 
+import ind.arvind.cache.FileCacheEntry;
+import ind.arvind.cache.StoredFileCache;
+import ind.arvind.config.StorageProperties;
+import ind.arvind.dto.ArchiveFormat;
+import ind.arvind.dto.ArchiveRequestDto;
+import ind.arvind.dto.BucketPolicyDto;
+import ind.arvind.dto.FileFromHashRequestDto;
 import ind.arvind.dto.FileUploadRequestDto;
 import ind.arvind.dto.FileMetadataUpdateDto;
+import ind.arvind.dto.FileSearchRequestDto;
+import ind.arvind.dto.MetadataOperator;
+import ind.arvind.dto.MetadataPredicateDto;
+import ind.arvind.dto.MetadataUpdateMode;
+import ind.arvind.dto.PageResponseDto;
 import ind.arvind.dto.StoredFileResponseDto;
+import ind.arvind.entity.ContentEncoding;
+import ind.arvind.entity.FileMetadata;
+import ind.arvind.entity.StorageBucket;
+import ind.arvind.entity.StorageTier;
+import ind.arvind.entity.StoredFile;
+import ind.arvind.metrics.StorageMetrics;
 import ind.arvind.repository.FileMetadataRepository;
 import ind.arvind.repository.StorageBucketRepository;
 import ind.arvind.repository.StoredFileRepository;
+import ind.arvind.repository.projection.ArchiveEntryRow;
+import ind.arvind.repository.projection.FileMetadataRow;
+import ind.arvind.repository.projection.StoredFileRow;
+import ind.arvind.service.impl.FileAccessTracker;
+import ind.arvind.service.impl.PageTokens;
 import ind.arvind.service.impl.StorageServiceImpl;
+import ind.arvind.service.impl.UsageCounters;
+import ind.arvind.storage.BlobCleaner;
+import ind.arvind.storage.BlobStore;
+import ind.arvind.storage.BlobWriteResult;
+import ind.arvind.storage.ContentBlobRegistry;
+import ind.arvind.storage.FileChannelBlobReader;
+import ind.arvind.storage.FileContent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.zip.ZipInputStream;
 import java.time.Instant;
 import java.util.*;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 class StorageServiceImplTest {
@@ -30,12 +78,31 @@ class StorageServiceImplTest {
     private FileMetadataRepository fileMetadataRepository;
     @Mock
     private StorageBucketRepository storageBucketRepository;
+    @Mock
+    private BlobStore blobStore;
+    @Mock
+    private BlobCleaner blobCleaner;
+    @Mock
+    private ContentBlobRegistry contentBlobRegistry;
+    @Spy
+    private StorageProperties storageProperties = new StorageProperties();
+    @Mock
+    private StoredFileCache storedFileCache;
+    @Spy
+    private StorageMetrics storageMetrics = new StorageMetrics(new SimpleMeterRegistry());
+    @Spy
+    private FileAccessTracker fileAccessTracker = new FileAccessTracker();
+    @Mock
+    private UsageCounters usageCounters;
+    @Mock
+    private TransactionTemplate transactionTemplate;
     @InjectMocks
     private StorageServiceImpl storageService;
 
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
+        when(transactionTemplate.execute(any())).thenAnswer(inv -> inv.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
     }
 
     @Test
@@ -48,26 +115,114 @@ class StorageServiceImplTest {
 
     @Test
     void getFile_fileNotFound_throwsException() {
-        Mockito.when(storedFileRepository.findById(any(Long.class))).thenReturn(Optional.empty());
+        Mockito.when(storedFileRepository.findWithMetadataById(any(Long.class))).thenReturn(Optional.empty());
+        assertThrows(NoSuchElementException.class, () -> storageService.getFile(1L, "owner"));
+    }
+
+    @Test
+    void getFile_cached_skipsRepository() {
+        StoredFileResponseDto dto = new StoredFileResponseDto();
+        dto.setId(1L);
+        dto.setOwner("owner");
+        when(storedFileCache.get(1L)).thenReturn(Optional.of(new FileCacheEntry(dto, "ab/cd/blob", "00", ContentEncoding.IDENTITY)));
+        assertSame(dto, storageService.getFile(1L, "owner"));
+        verify(storedFileRepository, never()).findWithMetadataById(any());
+    }
+
+    @Test
+    void openContent_cachedBlobMoved_reloadsLocationAndRecordsRead(@TempDir Path dir) throws Exception {
+        Path blob = Files.writeString(dir.resolve("blob"), "hello", StandardCharsets.UTF_8);
+        StoredFileResponseDto dto = new StoredFileResponseDto();
+        dto.setId(1L);
+        dto.setOwner("owner");
+        when(storedFileCache.get(1L))
+                .thenReturn(Optional.of(new FileCacheEntry(dto, "ab/cd/old", "00", ContentEncoding.IDENTITY)))
+                .thenReturn(Optional.of(new FileCacheEntry(dto, "cold/ab/cd/new", "00", ContentEncoding.IDENTITY)));
+        when(blobStore.openReader("ab/cd/old")).thenThrow(new NoSuchFileException("ab/cd/old"));
+        when(blobStore.openReader("cold/ab/cd/new")).thenAnswer(inv -> FileChannelBlobReader.open(blob));
+        try (FileContent content = storageService.openContent(1L, "owner")) {
+            assertEquals(5L, content.length());
+        }
+        verify(storedFileCache).invalidate(1L);
+        assertEquals(Map.of(1L, 1L), fileAccessTracker.drain());
+    }
+
+    @Test
+    void getFile_cachedForOtherOwner_throwsException() {
+        StoredFileResponseDto dto = new StoredFileResponseDto();
+        dto.setOwner("otherOwner");
+        when(storedFileCache.get(1L)).thenReturn(Optional.of(new FileCacheEntry(dto, "ab/cd/blob", "00", ContentEncoding.IDENTITY)));
         assertThrows(NoSuchElementException.class, () -> storageService.getFile(1L, "owner"));
     }
 
     @Test
     void listFiles_success() {
-        Mockito.when(storedFileRepository.findByOwner(any(String.class))).thenReturn(Collections.emptyList());
-        List<StoredFileResponseDto> result = storageService.listFiles("owner", 0, 10);
+        Mockito.when(storedFileRepository.findPageByOwner(any(String.class), anyLong(), any(Limit.class))).thenReturn(Collections.emptyList());
+        PageResponseDto<StoredFileResponseDto> result = storageService.listFiles("owner", null, 10);
         assertNotNull(result);
-        assertTrue(result.isEmpty());
+        assertTrue(result.getItems().isEmpty());
+        assertNull(result.getNextPageToken());
+    }
+
+    @Test
+    void listFiles_morePages_returnsContinuationToken() {
+        List<StoredFileRow> rows = List.of(row(11L), row(12L), row(13L));
+        when(storedFileRepository.findPageByOwner("owner", 10L, Limit.of(3))).thenReturn(rows);
+        when(fileMetadataRepository.findRowsByStoredFileIdIn(List.of(11L, 12L)))
+                .thenReturn(List.of(new FileMetadataRow(12L, "k", "v")));
+        PageResponseDto<StoredFileResponseDto> result = storageService.listFiles("owner", PageTokens.encode(10L), 2);
+        assertEquals(2, result.getItems().size());
+        assertEquals("v", result.getItems().get(1).getMetadata().get("k"));
+        assertTrue(result.getItems().get(0).getMetadata().isEmpty());
+        assertEquals(12L, PageTokens.decode(result.getNextPageToken()));
+    }
+
+    @Test
+    void listFiles_invalidToken_throwsException() {
+        assertThrows(IllegalArgumentException.class, () -> storageService.listFiles("owner", "not-a-token!", 10));
+    }
+
+    @Test
+    void searchFiles_pagesRepositoryResults() {
+        FileSearchRequestDto criteria = new FileSearchRequestDto();
+        criteria.setMetadata(List.of(predicate("project", MetadataOperator.EQ, "apollo")));
+        when(storedFileRepository.searchPage("owner", criteria, 0L, 2)).thenReturn(List.of(row(5L), row(7L)));
+        PageResponseDto<StoredFileResponseDto> result = storageService.searchFiles("owner", criteria, null, 1);
+        assertEquals(1, result.getItems().size());
+        assertEquals(5L, PageTokens.decode(result.getNextPageToken()));
+    }
+
+    @Test
+    void searchFiles_rangeWithoutBounds_throwsException() {
+        FileSearchRequestDto criteria = new FileSearchRequestDto();
+        criteria.setMetadata(List.of(predicate("size", MetadataOperator.RANGE, null)));
+        assertThrows(IllegalArgumentException.class, () -> storageService.searchFiles("owner", criteria, null, 10));
+        verify(storedFileRepository, never()).searchPage(any(), any(), anyLong(), Mockito.anyInt());
+    }
+
+    private static MetadataPredicateDto predicate(String key, MetadataOperator op, String value) {
+        MetadataPredicateDto predicate = new MetadataPredicateDto();
+        predicate.setKey(key);
+        predicate.setOp(op);
+        predicate.setValue(value);
+        return predicate;
+    }
+
+    private static StoredFileRow row(long id) {
+        return new StoredFileRow(id, "f" + id, 1L, "text/plain", Instant.now(), Instant.now(), "owner", "bucket");
     }
 
     @Test
-    void uploadFile_withMetadata_success() {
+    void uploadFile_withMetadata_success() throws Exception {
         FileUploadRequestDto dto = new FileUploadRequestDto();
         dto.setBucketName("bucket");
         MultipartFile file = Mockito.mock(MultipartFile.class);
         Mockito.when(file.getOriginalFilename()).thenReturn("file.txt");
         Mockito.when(file.getSize()).thenReturn(123L);
         Mockito.when(file.getContentType()).thenReturn("text/plain");
+        Mockito.when(file.getInputStream()).thenReturn(new ByteArrayInputStream(new byte[123]));
+        when(blobStore.writePacked(any(), any(), any())).thenReturn(new BlobWriteResult("pack/seg/0/123", 123L, "00"));
+        when(contentBlobRegistry.acquire(any())).thenAnswer(inv -> inv.getArgument(0));
         dto.setFile(file);
         Map<String, String> meta = new HashMap<>();
         meta.put("k1", "v1");
@@ -79,7 +234,135 @@ class StorageServiceImplTest {
         StoredFileResponseDto result = storageService.uploadFile(dto, "owner");
         assertNotNull(result);
         assertEquals("file.txt", result.getFilename());
+        assertEquals(123L, result.getSize());
         assertTrue(result.getMetadata().containsKey("k1"));
+        verify(usageCounters).checkQuota(bucket, "owner", 123L);
+        verify(usageCounters).record("owner", 1L, 1, 123L);
+    }
+
+    @Test
+    void uploadFile_quotaExceeded_storesNothing() throws Exception {
+        StorageBucket bucket = StorageBucket.builder().id(1L).name("bucket").owner("owner").quotaBytes(100L).build();
+        when(storageBucketRepository.findByName("bucket")).thenReturn(Optional.of(bucket));
+        doThrow(new QuotaExceededException("full")).when(usageCounters).checkQuota(bucket, "owner", 4096L);
+
+        assertThrows(QuotaExceededException.class,
+                () -> storageService.uploadFile(upload("photo.jpg", "image/jpeg", 4096L), "owner"));
+
+        verify(blobStore, never()).writePacked(any(), any(), any());
+        verify(storedFileRepository, never()).save(any());
+        verify(usageCounters, never()).record(any(), any(), anyLong(), anyLong());
+    }
+
+    @Test
+    void uploadFile_registrationFails_deletesWrittenBlob() throws Exception {
+        StorageBucket bucket = StorageBucket.builder().id(1L).name("bucket").owner("owner").build();
+        when(storageBucketRepository.findByName("bucket")).thenReturn(Optional.of(bucket));
+        when(blobStore.write(any(), any())).thenReturn(new BlobWriteResult("ab/cd/blob", 100_000L, "00"));
+        when(contentBlobRegistry.acquire(any())).thenAnswer(inv -> inv.getArgument(0));
+        when(storedFileRepository.save(any(StoredFile.class))).thenThrow(new DataIntegrityViolationException("constraint"));
+
+        assertThrows(DataIntegrityViolationException.class,
+                () -> storageService.uploadFile(upload("log.txt", "text/plain", 100_000L), "owner"));
+
+        verify(blobCleaner).deleteQuietly("ab/cd/blob");
+    }
+
+    @Test
+    void uploadFile_bucketDeletedWhileWriting_deletesWrittenBlob() throws Exception {
+        StorageBucket bucket = StorageBucket.builder().id(1L).name("bucket").owner("owner").build();
+        when(storageBucketRepository.findByName("bucket")).thenReturn(Optional.of(bucket), Optional.empty());
+        when(blobStore.write(any(), any())).thenReturn(new BlobWriteResult("ab/cd/blob", 100_000L, "00"));
+
+        assertThrows(IllegalArgumentException.class,
+                () -> storageService.uploadFile(upload("log.txt", "text/plain", 100_000L), "owner"));
+
+        verify(blobCleaner).deleteQuietly("ab/cd/blob");
+        verify(storedFileRepository, never()).save(any());
+    }
+
+    @Test
+    void uploadFile_gzipBucket_compressesOnlyEligibleContentAndPacksSmallFiles() throws Exception {
+        StorageBucket bucket = StorageBucket.builder().id(1L).name("bucket").owner("owner")
+                .compression(ContentEncoding.GZIP).build();
+        when(storageBucketRepository.findByName("bucket")).thenReturn(Optional.of(bucket));
+        when(blobStore.write(any(), any())).thenReturn(
+                new BlobWriteResult("ab/cd/blob", 100_000L, "00", ContentEncoding.GZIP, 512L, 1000L, StorageTier.HOT));
+        when(blobStore.writePacked(any(), any(), any())).thenReturn(new BlobWriteResult("pack/seg/0/10", 10L, "01"));
+        when(contentBlobRegistry.acquire(any())).thenAnswer(inv -> inv.getArgument(0));
+        when(storedFileRepository.save(any(StoredFile.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        storageService.uploadFile(upload("log.txt", "text/plain", 100_000L), "owner");
+        storageService.uploadFile(upload("tiny.txt", "text/plain", 10L), "owner");
+        storageService.uploadFile(upload("photo.jpg", "image/jpeg", 4096L), "owner");
+
+        verify(blobStore).write(any(), Mockito.eq(ContentEncoding.GZIP));
+        verify(blobStore, Mockito.times(2)).writePacked(any(), Mockito.eq(ContentEncoding.IDENTITY), Mockito.eq(StorageTier.HOT));
+        ArgumentCaptor<StoredFile> saved = ArgumentCaptor.forClass(StoredFile.class);
+        verify(storedFileRepository, Mockito.atLeastOnce()).save(saved.capture());
+        assertEquals(512L, saved.getAllValues().get(0).getStoredSize());
+        assertEquals(ContentEncoding.GZIP, saved.getAllValues().get(0).getContentEncoding());
+    }
+
+    @Test
+    void updateBucketPolicy_otherOwner_throwsException() {
+        StorageBucket bucket = StorageBucket.builder().id(1L).name("bucket").owner("someone").build();
+        when(storageBucketRepository.findByName("bucket")).thenReturn(Optional.of(bucket));
+        BucketPolicyDto policy = new BucketPolicyDto();
+        policy.setCompression(ContentEncoding.GZIP);
+        assertThrows(IllegalArgumentException.class, () -> storageService.updateBucketPolicy("bucket", policy, "owner"));
+        assertNull(bucket.getCompression());
+    }
+
+    private static FileUploadRequestDto upload(String filename, String contentType, long size) throws Exception {
+        MultipartFile file = Mockito.mock(MultipartFile.class);
+        Mockito.when(file.getOriginalFilename()).thenReturn(filename);
+        Mockito.when(file.getSize()).thenReturn(size);
+        Mockito.when(file.getContentType()).thenReturn(contentType);
+        Mockito.when(file.getInputStream()).thenReturn(new ByteArrayInputStream(new byte[(int) size]));
+        FileUploadRequestDto dto = new FileUploadRequestDto();
+        dto.setBucketName("bucket");
+        dto.setFile(file);
+        return dto;
+    }
+
+    @Test
+    void deleteFile_success_removesBlob() {
+        StoredFile file = StoredFile.builder().id(1L).owner("owner").storagePath("ab/cd/blob").checksum("00").size(5L).storageBucket(StorageBucket.builder().id(3L).name("bucket").build()).build();
+        when(storedFileRepository.findWithBucketById(1L)).thenReturn(Optional.of(file));
+        storageService.deleteFile(1L, "owner");
+        verify(contentBlobRegistry).release("00", "ab/cd/blob");
+        verify(storedFileCache).invalidate(1L);
+        verify(usageCounters).record("owner", 3L, -1, -5L);
+    }
+
+    @Test
+    void createFromHash_contentOfOtherOwner_throwsException() {
+        StorageBucket bucket = StorageBucket.builder().id(1L).name("bucket").build();
+        when(storageBucketRepository.findByName("bucket")).thenReturn(Optional.of(bucket));
+        when(storedFileRepository.existsByOwnerAndChecksum("owner", "ab")).thenReturn(false);
+        assertThrows(NoSuchElementException.class, () -> storageService.createFromHash(fromHash("ab"), "owner"));
+        verify(contentBlobRegistry, never()).acquireExisting(any());
+    }
+
+    @Test
+    void createFromHash_knownContent_success() throws Exception {
+        StorageBucket bucket = StorageBucket.builder().id(1L).name("bucket").build();
+        when(storageBucketRepository.findByName("bucket")).thenReturn(Optional.of(bucket));
+        when(storedFileRepository.existsByOwnerAndChecksum("owner", "ab")).thenReturn(true);
+        when(contentBlobRegistry.acquireExisting("ab")).thenReturn(Optional.of(new BlobWriteResult("ab/cd/blob", 42L, "ab")));
+        when(storedFileRepository.save(any(StoredFile.class))).thenAnswer(inv -> inv.getArgument(0));
+        StoredFileResponseDto result = storageService.createFromHash(fromHash("ab"), "owner");
+        assertEquals(42L, result.getSize());
+        verify(blobStore, never()).write(any(), any());
+    }
+
+    private static FileFromHashRequestDto fromHash(String sha256) {
+        FileFromHashRequestDto dto = new FileFromHashRequestDto();
+        dto.setBucketName("bucket");
+        dto.setFilename("copy.txt");
+        dto.setSha256(sha256);
+        return dto;
     }
 
     @Test
@@ -95,7 +378,7 @@ class StorageServiceImplTest {
     @Test
     void updateMetadata_emptyMetadata_success() {
         StoredFile file = StoredFile.builder().id(1L).owner("owner").storageBucket(StorageBucket.builder().name("bucket").build()).metadata(new ArrayList<>()).build();
-        when(storedFileRepository.findById(1L)).thenReturn(Optional.of(file));
+        when(storedFileRepository.findWithBucketById(1L)).thenReturn(Optional.of(file));
         when(fileMetadataRepository.saveAll(any())).thenAnswer(inv -> inv.getArgument(0));
         when(storedFileRepository.save(any(StoredFile.class))).thenAnswer(inv -> inv.getArgument(0));
         FileMetadataUpdateDto metadataDto = new FileMetadataUpdateDto();
@@ -105,18 +388,129 @@ class StorageServiceImplTest {
         assertTrue(result.getMetadata().isEmpty());
     }
 
+    @Test
+    void updateMetadata_replace_bulkDeletesExistingRows() {
+        StoredFile file = StoredFile.builder().id(1L).owner("owner").storageBucket(StorageBucket.builder().name("bucket").build()).build();
+        when(storedFileRepository.findWithBucketById(1L)).thenReturn(Optional.of(file));
+        when(storedFileRepository.save(any(StoredFile.class))).thenAnswer(inv -> inv.getArgument(0));
+        FileMetadataUpdateDto metadataDto = new FileMetadataUpdateDto();
+        metadataDto.setMetadata(Map.of("k1", "v1", "k2", "v2"));
+        StoredFileResponseDto result = storageService.updateMetadata(1L, metadataDto, "owner");
+        verify(fileMetadataRepository).deleteByStoredFileId(1L);
+        verify(fileMetadataRepository).saveAll(Mockito.<List<FileMetadata>>argThat(rows -> rows.size() == 2));
+        verify(fileMetadataRepository, never()).findByStoredFileId(anyLong());
+        assertEquals(Map.of("k1", "v1", "k2", "v2"), result.getMetadata());
+    }
+
+    @Test
+    void updateMetadata_diff_writesOnlyChangedKeys() {
+        StoredFile file = StoredFile.builder().id(1L).owner("owner").storageBucket(StorageBucket.builder().name("bucket").build()).build();
+        FileMetadata kept = FileMetadata.builder().storedFile(file).metaKey("kept").value("same").build();
+        FileMetadata changed = FileMetadata.builder().storedFile(file).metaKey("changed").value("old").build();
+        FileMetadata removed = FileMetadata.builder().storedFile(file).metaKey("removed").value("x").build();
+        when(storedFileRepository.findWithBucketById(1L)).thenReturn(Optional.of(file));
+        when(storedFileRepository.save(any(StoredFile.class))).thenAnswer(inv -> inv.getArgument(0));
+        when(fileMetadataRepository.findByStoredFileId(1L)).thenReturn(List.of(kept, changed, removed));
+        FileMetadataUpdateDto metadataDto = new FileMetadataUpdateDto();
+        metadataDto.setMode(MetadataUpdateMode.DIFF);
+        metadataDto.setMetadata(Map.of("kept", "same", "changed", "new", "added", "y"));
+        StoredFileResponseDto result = storageService.updateMetadata(1L, metadataDto, "owner");
+        assertEquals("new", changed.getValue());
+        verify(fileMetadataRepository).deleteByStoredFileIdAndMetaKeyIn(1L, Set.of("removed"));
+        verify(fileMetadataRepository).saveAll(Mockito.<List<FileMetadata>>argThat(
+                rows -> rows.size() == 1 && rows.get(0).getMetaKey().equals("added")));
+        verify(fileMetadataRepository, never()).deleteByStoredFileId(anyLong());
+        assertEquals(3, result.getMetadata().size());
+    }
+
     @Test
     void deleteFile_repositoryThrows_propagatesException() {
         StoredFile file = StoredFile.builder().id(1L).owner("owner").storageBucket(StorageBucket.builder().name("bucket").build()).build();
-        when(storedFileRepository.findById(1L)).thenReturn(Optional.of(file));
+        when(storedFileRepository.findWithBucketById(1L)).thenReturn(Optional.of(file));
         doThrow(new RuntimeException("DB error")).when(storedFileRepository).delete(any(StoredFile.class));
         assertThrows(RuntimeException.class, () -> storageService.deleteFile(1L, "owner"));
     }
 
+    @Test
+    void streamArchive_byIds_writesEntriesAndSkipsMissingBlobs(@TempDir Path dir) throws Exception {
+        Path blob = Files.writeString(dir.resolve("blob"), "hello", StandardCharsets.UTF_8);
+        ArchiveEntryRow present = new ArchiveEntryRow(1L, "../a.txt", 5L, "text/plain", Instant.now(), "bucket", "loc-1", ContentEncoding.IDENTITY);
+        ArchiveEntryRow duplicate = new ArchiveEntryRow(2L, "a.txt", 5L, "text/plain", Instant.now(), "bucket", "loc-1", ContentEncoding.IDENTITY);
+        ArchiveEntryRow missing = new ArchiveEntryRow(3L, "gone.txt", 5L, "text/plain", Instant.now(), "bucket", "loc-3", ContentEncoding.IDENTITY);
+        when(storedFileRepository.findArchivePageByIds(Mockito.eq("owner"), any(), Mockito.eq(0L), any(Limit.class)))
+                .thenReturn(List.of(present, duplicate, missing));
+        when(blobStore.openReader("loc-1")).thenAnswer(inv -> FileChannelBlobReader.open(blob));
+        when(blobStore.openReader("loc-3")).thenThrow(new NoSuchFileException("loc-3"));
+        ArchiveRequestDto request = new ArchiveRequestDto();
+        request.setFormat(ArchiveFormat.ZIP);
+        request.setFileIds(List.of(1L, 2L, 3L));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        storageService.streamArchive(request, "owner", out);
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+            assertEquals("bucket/a.txt", zip.getNextEntry().getName());
+            assertEquals("hello", new String(zip.readAllBytes(), StandardCharsets.UTF_8));
+            assertEquals("bucket/2-a.txt", zip.getNextEntry().getName());
+            assertNull(zip.getNextEntry());
+        }
+    }
+
+    @Test
+    void streamArchive_blobMovedMeanwhile_readsItFromItsNewLocation(@TempDir Path dir) throws Exception {
+        Path blob = Files.writeString(dir.resolve("blob"), "hello", StandardCharsets.UTF_8);
+        ArchiveEntryRow stale = new ArchiveEntryRow(4L, "moved.txt", 5L, "text/plain", Instant.now(), "bucket", "loc-hot", ContentEncoding.IDENTITY);
+        ArchiveEntryRow current = new ArchiveEntryRow(4L, "moved.txt", 5L, "text/plain", Instant.now(), "bucket", "loc-cold", ContentEncoding.IDENTITY);
+        when(storedFileRepository.findArchivePageByIds(Mockito.eq("owner"), any(), Mockito.eq(0L), any(Limit.class)))
+                .thenReturn(List.of(stale));
+        when(blobStore.openReader("loc-hot")).thenThrow(new NoSuchFileException("loc-hot"));
+        when(storedFileRepository.findArchiveEntry("owner", 4L)).thenReturn(Optional.of(current));
+        when(blobStore.openReader("loc-cold")).thenAnswer(inv -> FileChannelBlobReader.open(blob));
+        ArchiveRequestDto request = new ArchiveRequestDto();
+        request.setFormat(ArchiveFormat.ZIP);
+        request.setFileIds(List.of(4L));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        storageService.streamArchive(request, "owner", out);
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+            assertEquals("bucket/moved.txt", zip.getNextEntry().getName());
+            assertEquals("hello", new String(zip.readAllBytes(), StandardCharsets.UTF_8));
+            assertNull(zip.getNextEntry());
+        }
+    }
+
+    @Test
+    void streamArchive_renamedEntryCollidesWithLaterFile_keepsNamesUnique(@TempDir Path dir) throws Exception {
+        Path blob = Files.writeString(dir.resolve("blob"), "hello", StandardCharsets.UTF_8);
+        List<ArchiveEntryRow> rows = List.of(
+                new ArchiveEntryRow(1L, "a.txt", 5L, "text/plain", Instant.now(), "bucket", "loc-1", ContentEncoding.IDENTITY),
+                new ArchiveEntryRow(2L, "a.txt", 5L, "text/plain", Instant.now(), "bucket", "loc-1", ContentEncoding.IDENTITY),
+                new ArchiveEntryRow(3L, "2-a.txt", 5L, "text/plain", Instant.now(), "bucket", "loc-1", ContentEncoding.IDENTITY));
+        when(storedFileRepository.findArchivePageByIds(Mockito.eq("owner"), any(), Mockito.eq(0L), any(Limit.class)))
+                .thenReturn(rows);
+        when(blobStore.openReader("loc-1")).thenAnswer(inv -> FileChannelBlobReader.open(blob));
+        ArchiveRequestDto request = new ArchiveRequestDto();
+        request.setFormat(ArchiveFormat.ZIP);
+        request.setFileIds(List.of(1L, 2L, 3L));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        storageService.streamArchive(request, "owner", out);
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+            assertEquals("bucket/a.txt", zip.getNextEntry().getName());
+            assertEquals("bucket/2-a.txt", zip.getNextEntry().getName());
+            assertEquals("bucket/3-2-a.txt", zip.getNextEntry().getName());
+            assertNull(zip.getNextEntry());
+        }
+    }
+
+    @Test
+    void streamArchive_idsAndFilter_throwsException() {
+        ArchiveRequestDto request = new ArchiveRequestDto();
+        request.setFileIds(List.of(1L));
+        request.setFilter(new FileSearchRequestDto());
+        assertThrows(IllegalArgumentException.class, () -> storageService.streamArchive(request, "owner", new ByteArrayOutputStream()));
+    }
+
     @Test
     void getFile_wrongOwner_throwsException() {
         StoredFile file = StoredFile.builder().id(1L).filename("file.txt").owner("otherOwner").storageBucket(StorageBucket.builder().name("bucket").build()).build();
-        when(storedFileRepository.findById(1L)).thenReturn(Optional.of(file));
+        when(storedFileRepository.findWithMetadataById(1L)).thenReturn(Optional.of(file));
         assertThrows(NoSuchElementException.class, () -> storageService.getFile(1L, "owner"));
     }
 }
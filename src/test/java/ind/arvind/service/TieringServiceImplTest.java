@@ -0,0 +1,165 @@
+package ind.arvind.service;
+
+import ind.arvind.cache.StoredFileCache;
+import ind.arvind.config.StorageProperties;
+import ind.arvind.entity.ContentBlob;
+import ind.arvind.entity.ContentEncoding;
+import ind.arvind.entity.StorageTier;
+import ind.arvind.metrics.StorageMetrics;
+import ind.arvind.repository.ContentBlobRepository;
+import ind.arvind.repository.StoredFileRepository;
+import ind.arvind.service.impl.ContentRelocator;
+import ind.arvind.service.impl.FileAccessTracker;
+import ind.arvind.service.impl.TieringServiceImpl;
+import ind.arvind.storage.BlobCleaner;
+import ind.arvind.storage.BlobWriteResult;
+import ind.arvind.storage.ByteBufferPool;
+import ind.arvind.storage.LocalBlobStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TieringServiceImplTest {
+    @TempDir
+    Path root;
+    @Mock
+    private StoredFileRepository storedFileRepository;
+    @Mock
+    private ContentBlobRepository contentBlobRepository;
+    @Mock
+    private StoredFileCache storedFileCache;
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    private LocalBlobStore blobStore;
+    private FileAccessTracker fileAccessTracker;
+    private TieringServiceImpl tieringService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        StorageProperties properties = new StorageProperties();
+        properties.setRootDir(root.resolve("hot").toString());
+        properties.getTiering().setColdRootDir(root.resolve("cold").toString());
+        blobStore = new LocalBlobStore(properties, new ByteBufferPool(1024, 2));
+        fileAccessTracker = new FileAccessTracker();
+        BlobCleaner blobCleaner = new BlobCleaner(blobStore);
+        tieringService = new TieringServiceImpl(storedFileRepository, contentBlobRepository, blobStore, blobCleaner,
+                new ContentRelocator(contentBlobRepository, storedFileRepository, storedFileCache, blobCleaner,
+                        transactionTemplate),
+                fileAccessTracker, properties, transactionTemplate, new StorageMetrics(new SimpleMeterRegistry()));
+        when(transactionTemplate.execute(any())).thenAnswer(inv -> inv.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        doAnswer(inv -> {
+            inv.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+    }
+
+    @Test
+    void demoteUnreadContent_compressesIntoColdTierAndRepointsFiles() throws Exception {
+        byte[] content = "rarely read ".repeat(400).getBytes(StandardCharsets.UTF_8);
+        ContentBlob blob = registered(blobStore.write(new ByteArrayInputStream(content)));
+        String hotLocation = blob.getStoragePath();
+        when(contentBlobRepository.findUnreadSince(eq(StorageTier.COLD), any(Instant.class), eq(0L), any(Limit.class)))
+                .thenReturn(List.of(blob));
+        when(contentBlobRepository.lockByChecksum(blob.getChecksum())).thenReturn(Optional.of(blob));
+        when(storedFileRepository.findIdsByContent(blob.getChecksum(), hotLocation)).thenReturn(List.of(7L, 8L));
+
+        assertEquals(1, tieringService.demoteUnreadContent());
+
+        assertEquals(StorageTier.COLD, blob.getTier());
+        assertEquals(ContentEncoding.GZIP, blob.getContentEncoding());
+        assertTrue(blob.getStoredSize() < content.length);
+        assertTrue(blob.getStoragePath().startsWith("cold/"));
+        assertFalse(blobStore.exists(hotLocation));
+        try (InputStream in = new GZIPInputStream(blobStore.open(blob.getStoragePath()))) {
+            assertArrayEquals(content, in.readAllBytes());
+        }
+        verify(storedFileRepository).moveContent(blob.getChecksum(), hotLocation, blob.getStoragePath(),
+                ContentEncoding.GZIP, blob.getStoredSize(), StorageTier.COLD);
+        verify(storedFileCache).invalidate(7L);
+        verify(storedFileCache).invalidate(8L);
+    }
+
+    @Test
+    void demoteUnreadContent_contentChangedMeanwhile_dropsCopy() throws Exception {
+        ContentBlob blob = registered(blobStore.write(new ByteArrayInputStream(new byte[]{1, 2, 3})));
+        ContentBlob current = registered(blobStore.write(new ByteArrayInputStream(new byte[]{1, 2, 3})));
+        when(contentBlobRepository.findUnreadSince(eq(StorageTier.COLD), any(Instant.class), eq(0L), any(Limit.class)))
+                .thenReturn(List.of(blob));
+        when(contentBlobRepository.lockByChecksum(blob.getChecksum())).thenReturn(Optional.of(current));
+
+        assertEquals(0, tieringService.demoteUnreadContent());
+
+        assertTrue(blobStore.exists(blob.getStoragePath()));
+        assertNull(current.getTier());
+        verify(storedFileRepository, never()).moveContent(any(), any(), any(), any(), anyLong(), any());
+        try (Stream<Path> cold = Files.walk(root.resolve("cold"))) {
+            assertEquals(0, cold.filter(Files::isRegularFile).count());
+        }
+    }
+
+    @Test
+    void flushAccessCounts_batchesByReadCountAndPromotesColdContent() throws Exception {
+        ContentBlob blob = registered(blobStore.write(new ByteArrayInputStream(new byte[]{4, 5}), ContentEncoding.IDENTITY,
+                StorageTier.COLD));
+        blob.setTier(StorageTier.COLD);
+        String coldLocation = blob.getStoragePath();
+        fileAccessTracker.record(1L);
+        fileAccessTracker.record(2L);
+        fileAccessTracker.record(3L);
+        fileAccessTracker.record(3L);
+        when(storedFileRepository.findChecksumsByIdInAndTier(any(), eq(StorageTier.COLD))).thenReturn(List.of(blob.getChecksum()));
+        when(contentBlobRepository.findByChecksum(blob.getChecksum())).thenReturn(Optional.of(blob));
+        when(contentBlobRepository.lockByChecksum(blob.getChecksum())).thenReturn(Optional.of(blob));
+
+        assertEquals(3, tieringService.flushAccessCounts());
+
+        verify(storedFileRepository).recordReads(eq(List.of(1L, 2L)), eq(1L), any(Instant.class));
+        verify(storedFileRepository).recordReads(eq(List.of(3L)), eq(2L), any(Instant.class));
+        assertEquals(StorageTier.HOT, blob.getTier());
+        assertFalse(blob.getStoragePath().startsWith("cold/"));
+        assertFalse(blobStore.exists(coldLocation));
+        assertTrue(fileAccessTracker.drain().isEmpty());
+    }
+
+    private static ContentBlob registered(BlobWriteResult written) {
+        return ContentBlob.builder()
+                .id(1L)
+                .checksum(written.sha256())
+                .storagePath(written.location())
+                .size(written.size())
+                .storedSize(written.storedSize())
+                .refCount(2L)
+                .createdAt(Instant.EPOCH)
+                .build();
+    }
+}
@@ -0,0 +1,137 @@
+package ind.arvind.service;
+
+import ind.arvind.config.StorageProperties;
+import ind.arvind.entity.StorageBucket;
+import ind.arvind.entity.UsageCounter;
+import ind.arvind.entity.UsageScope;
+import ind.arvind.repository.StoredFileRepository;
+import ind.arvind.repository.UsageCounterRepository;
+import ind.arvind.repository.projection.UsageRow;
+import ind.arvind.repository.projection.UsageTotals;
+import ind.arvind.service.impl.UsageCounters;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class UsageCountersTest {
+    @Mock
+    private UsageCounterRepository usageCounterRepository;
+    @Mock
+    private StoredFileRepository storedFileRepository;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private StorageProperties properties;
+    private UsageCounters usageCounters;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        properties = new StorageProperties();
+        properties.getUsage().setCounterShards(4);
+        usageCounters = new UsageCounters(usageCounterRepository, storedFileRepository, properties, transactionManager);
+    }
+
+    @Test
+    void record_newOwner_createsAllStripesThenAdds() {
+        when(usageCounterRepository.add(eq(UsageScope.OWNER), eq("owner"), anyInt(), eq(1L), eq(10L))).thenReturn(0, 1);
+        when(usageCounterRepository.add(eq(UsageScope.BUCKET), eq("3"), anyInt(), eq(1L), eq(10L))).thenReturn(1);
+
+        usageCounters.record("owner", 3L, 1, 10);
+
+        ArgumentCaptor<List<UsageCounter>> stripes = ArgumentCaptor.captor();
+        verify(usageCounterRepository).saveAll(stripes.capture());
+        assertEquals(4, stripes.getValue().size());
+        assertTrue(stripes.getValue().stream().allMatch(c -> c.getScope() == UsageScope.OWNER && c.getScopeKey().equals("owner")));
+        verify(usageCounterRepository, times(2)).add(eq(UsageScope.OWNER), eq("owner"), anyInt(), eq(1L), eq(10L));
+        verify(usageCounterRepository).add(eq(UsageScope.BUCKET), eq("3"), anyInt(), eq(1L), eq(10L));
+    }
+
+    @Test
+    void checkQuota_readsOnlyCounters() {
+        properties.getUsage().setOwnerQuotaBytes(100);
+        StorageBucket bucket = StorageBucket.builder().id(3L).name("bucket").quotaFiles(5L).build();
+        when(usageCounterRepository.sumByScope(UsageScope.OWNER, "owner")).thenReturn(new UsageTotals(2L, 60L));
+        when(usageCounterRepository.sumByScope(UsageScope.BUCKET, "3")).thenReturn(new UsageTotals(4L, 60L));
+
+        usageCounters.checkQuota(bucket, "owner", 40);
+        assertThrows(QuotaExceededException.class, () -> usageCounters.checkQuota(bucket, "owner", 41));
+        when(usageCounterRepository.sumByScope(UsageScope.BUCKET, "3")).thenReturn(new UsageTotals(5L, 60L));
+        assertThrows(QuotaExceededException.class, () -> usageCounters.checkQuota(bucket, "owner", 1));
+
+        verify(storedFileRepository, never()).sumUsageByOwner();
+    }
+
+    @Test
+    void afterSingletonsInstantiated_seedsCountersOnlyWhenEmpty() {
+        when(usageCounterRepository.count()).thenReturn(0L);
+        when(storedFileRepository.count()).thenReturn(3L);
+        when(storedFileRepository.sumUsageByOwner()).thenReturn(List.of(new UsageRow("owner", 3L, 30L)));
+        when(storedFileRepository.sumUsageByBucket()).thenReturn(List.of(new UsageRow("3", 3L, 30L)));
+
+        usageCounters.afterSingletonsInstantiated();
+
+        ArgumentCaptor<List<UsageCounter>> stripes = ArgumentCaptor.captor();
+        verify(usageCounterRepository, times(2)).saveAll(stripes.capture());
+        for (List<UsageCounter> counter : stripes.getAllValues()) {
+            assertEquals(List.of(0, 1, 2, 3), counter.stream().map(UsageCounter::getShard).toList());
+            assertEquals(30L, counter.stream().mapToLong(UsageCounter::getByteCount).sum());
+            assertEquals(3L, counter.stream().mapToLong(UsageCounter::getFileCount).sum());
+        }
+        verify(usageCounterRepository).saveAndFlush(argThat(marker -> marker.getScope() == UsageScope.SYSTEM));
+        when(usageCounterRepository.count()).thenReturn(8L);
+        usageCounters.afterSingletonsInstantiated();
+        verify(storedFileRepository, times(1)).sumUsageByOwner();
+        verify(usageCounterRepository, times(2)).saveAll(anyList());
+    }
+
+    @Test
+    void afterSingletonsInstantiated_seededConcurrentlyByAnotherNode_skipsSeeding() {
+        when(usageCounterRepository.count()).thenReturn(0L);
+        when(storedFileRepository.count()).thenReturn(3L);
+        when(usageCounterRepository.saveAndFlush(any())).thenThrow(new DataIntegrityViolationException("uk_usage_counter_scope_shard"));
+
+        assertDoesNotThrow(() -> usageCounters.afterSingletonsInstantiated());
+
+        verify(storedFileRepository, never()).sumUsageByOwner();
+        verify(usageCounterRepository, never()).saveAll(anyList());
+    }
+
+    @Test
+    void record_ownerSeededWithOneStripe_createsOnlyMissingStripes() {
+        when(usageCounterRepository.add(eq(UsageScope.OWNER), eq("owner"), anyInt(), eq(1L), eq(10L))).thenReturn(0, 1);
+        when(usageCounterRepository.findShards(UsageScope.OWNER, "owner")).thenReturn(List.of(0));
+
+        usageCounters.record("owner", null, 1, 10);
+
+        ArgumentCaptor<List<UsageCounter>> stripes = ArgumentCaptor.captor();
+        verify(usageCounterRepository).saveAll(stripes.capture());
+        assertEquals(List.of(1, 2, 3), stripes.getValue().stream().map(UsageCounter::getShard).toList());
+        verify(usageCounterRepository, times(2)).add(eq(UsageScope.OWNER), eq("owner"), anyInt(), eq(1L), eq(10L));
+    }
+
+    @Test
+    void record_stripeStillMissingAfterCreation_throws() {
+        when(usageCounterRepository.add(eq(UsageScope.OWNER), eq("owner"), anyInt(), eq(1L), eq(10L))).thenReturn(0);
+        when(usageCounterRepository.findShards(UsageScope.OWNER, "owner")).thenReturn(List.of(0, 1, 2, 3));
+
+        assertThrows(IllegalStateException.class, () -> usageCounters.record("owner", null, 1, 10));
+    }
+}
@@ -0,0 +1,82 @@
+package ind.arvind.storage;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ArchiveWriterTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    void zip_writesEntriesInOrder() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ArchiveWriter writer = new ZipArchiveWriter(out, 1024)) {
+            addEntry(writer, "b/one.txt", "a".repeat(1000), true);
+            addEntry(writer, "b/two.zip", "already compressed", false);
+        }
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+            ZipEntry first = zip.getNextEntry();
+            assertEquals("b/one.txt", first.getName());
+            assertEquals("a".repeat(1000), new String(zip.readAllBytes(), StandardCharsets.UTF_8));
+            assertEquals("b/two.zip", zip.getNextEntry().getName());
+            assertEquals("already compressed", new String(zip.readAllBytes(), StandardCharsets.UTF_8));
+            assertNull(zip.getNextEntry());
+        }
+    }
+
+    @Test
+    void tar_writesUstarHeaderAndPadsToBlocks() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ArchiveWriter writer = new TarArchiveWriter(out, 1024)) {
+            addEntry(writer, "b/hello.txt", "hello", true);
+        }
+        byte[] tar = out.toByteArray();
+        assertEquals(512 * 4, tar.length);
+        assertEquals("b/hello.txt", new String(tar, 0, 11, StandardCharsets.US_ASCII));
+        assertEquals("00000000005", new String(tar, 124, 11, StandardCharsets.US_ASCII));
+        assertEquals("ustar", new String(tar, 257, 5, StandardCharsets.US_ASCII));
+        assertEquals("hello", new String(tar, 512, 5, StandardCharsets.US_ASCII));
+        assertEquals(headerChecksum(tar, 0), Long.parseLong(new String(tar, 148, 6, StandardCharsets.US_ASCII).trim(), 8));
+    }
+
+    @Test
+    void tar_longName_carriedInPaxHeader() throws Exception {
+        String name = "b/" + "d".repeat(120) + "/résumé.txt";
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ArchiveWriter writer = new TarArchiveWriter(out, 1024)) {
+            addEntry(writer, name, "x", true);
+        }
+        byte[] tar = out.toByteArray();
+        assertEquals('x', tar[156]);
+        String record = " path=" + name + "\n";
+        int length = record.getBytes(StandardCharsets.UTF_8).length + 3;
+        assertEquals(length + record, new String(tar, 512, length, StandardCharsets.UTF_8));
+        assertEquals('0', tar[1024 + 156]);
+    }
+
+    private void addEntry(ArchiveWriter writer, String name, String content, boolean compress) throws Exception {
+        Path blob = Files.writeString(dir.resolve("blob-" + System.nanoTime()), content, StandardCharsets.UTF_8);
+        try (BlobReader reader = FileChannelBlobReader.open(blob)) {
+            writer.addEntry(name, Instant.now(), compress, reader);
+        }
+    }
+
+    private static long headerChecksum(byte[] tar, int offset) {
+        long sum = 0;
+        for (int i = 0; i < 512; i++) {
+            sum += (i >= 148 && i < 156) ? ' ' : tar[offset + i] & 0xff;
+        }
+        return sum;
+    }
+}
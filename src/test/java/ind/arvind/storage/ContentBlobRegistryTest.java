@@ -0,0 +1,113 @@
+package ind.arvind.storage;
+
+import ind.arvind.entity.ContentBlob;
+import ind.arvind.repository.ContentBlobRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Instant;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ContentBlobRegistryTest {
+    @Mock
+    private ContentBlobRepository contentBlobRepository;
+    @Mock
+    private BlobCleaner blobCleaner;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+    @InjectMocks
+    private ContentBlobRegistry contentBlobRegistry;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    @Test
+    void acquire_newContent_registersBlob() {
+        ContentBlob reserved = blob("new", 0L);
+        when(contentBlobRepository.lockByChecksum("aa")).thenReturn(Optional.empty(), Optional.of(reserved));
+        BlobWriteResult written = new BlobWriteResult("new", 3L, "aa");
+        assertSame(written, contentBlobRegistry.acquire(written));
+        ArgumentCaptor<ContentBlob> saved = ArgumentCaptor.forClass(ContentBlob.class);
+        verify(contentBlobRepository).save(saved.capture());
+        assertEquals(0L, saved.getValue().getRefCount());
+        assertEquals(1L, reserved.getRefCount());
+        verify(blobCleaner, never()).deleteAfterCommit(any());
+    }
+
+    @Test
+    void acquire_contentRegisteredConcurrently_reusesWinnersBlob() {
+        ContentBlob winner = blob("winner", 1L);
+        when(contentBlobRepository.lockByChecksum("aa")).thenReturn(Optional.empty(), Optional.of(winner));
+        when(contentBlobRepository.save(any(ContentBlob.class))).thenThrow(new DataIntegrityViolationException("uk_checksum"));
+        BlobWriteResult result = contentBlobRegistry.acquire(new BlobWriteResult("new", 3L, "aa"));
+        assertEquals("winner", result.location());
+        assertEquals(2L, winner.getRefCount());
+        verify(blobCleaner).deleteAfterCommit("new");
+    }
+
+    @Test
+    void acquire_rowLeftByRolledBackUpload_repointsItAtFreshBlob() {
+        ContentBlob abandoned = blob("gone", 0L);
+        when(contentBlobRepository.lockByChecksum("aa")).thenReturn(Optional.of(abandoned));
+        BlobWriteResult written = new BlobWriteResult("new", 3L, "aa");
+        assertSame(written, contentBlobRegistry.acquire(written));
+        assertEquals("new", abandoned.getStoragePath());
+        assertEquals(1L, abandoned.getRefCount());
+        assertTrue(contentBlobRegistry.acquireExisting("bb").isEmpty());
+        verify(blobCleaner, never()).deleteAfterCommit(any());
+    }
+
+    @Test
+    void acquire_duplicateContent_reusesExistingBlob() {
+        ContentBlob existing = blob("existing", 1L);
+        when(contentBlobRepository.lockByChecksum("aa")).thenReturn(Optional.of(existing));
+        BlobWriteResult result = contentBlobRegistry.acquire(new BlobWriteResult("new", 3L, "aa"));
+        assertEquals("existing", result.location());
+        assertEquals(2L, existing.getRefCount());
+        verify(blobCleaner).deleteAfterCommit("new");
+    }
+
+    @Test
+    void release_lastReference_deletesBlob() {
+        ContentBlob existing = blob("existing", 1L);
+        when(contentBlobRepository.lockByChecksum("aa")).thenReturn(Optional.of(existing));
+        contentBlobRegistry.release("aa", "existing");
+        verify(contentBlobRepository).delete(existing);
+        verify(blobCleaner).deleteAfterCommit("existing");
+    }
+
+    @Test
+    void release_sharedBlob_keepsBlob() {
+        ContentBlob existing = blob("existing", 2L);
+        when(contentBlobRepository.lockByChecksum("aa")).thenReturn(Optional.of(existing));
+        contentBlobRegistry.release("aa", "existing");
+        assertEquals(1L, existing.getRefCount());
+        verify(blobCleaner, never()).deleteAfterCommit(any());
+    }
+
+    @Test
+    void release_unregisteredBlob_deletesLocation() {
+        when(contentBlobRepository.lockByChecksum("aa")).thenReturn(Optional.of(blob("other", 1L)));
+        contentBlobRegistry.release("aa", "legacy");
+        verify(blobCleaner).deleteAfterCommit("legacy");
+        verify(contentBlobRepository, never()).delete(any());
+    }
+
+    private static ContentBlob blob(String location, long refs) {
+        return ContentBlob.builder().id(1L).checksum("aa").storagePath(location).size(3L).refCount(refs).createdAt(Instant.now()).build();
+    }
+}
@@ -0,0 +1,228 @@
+package ind.arvind.storage;
+
+import ind.arvind.config.StorageProperties;
+import ind.arvind.entity.ContentEncoding;
+import ind.arvind.entity.StorageTier;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LocalBlobStoreTest {
+    @TempDir
+    Path root;
+    private LocalBlobStore blobStore;
+
+    @BeforeEach
+    void setUp() {
+        StorageProperties properties = new StorageProperties();
+        properties.setRootDir(root.resolve("hot").toString());
+        properties.getTiering().setColdRootDir(root.resolve("cold").toString());
+        blobStore = new LocalBlobStore(properties, new ByteBufferPool(16, 1));
+    }
+
+    @Test
+    void write_streamsContentAndComputesChecksum() throws Exception {
+        byte[] content = "hello".getBytes(StandardCharsets.UTF_8);
+        BlobWriteResult result = blobStore.write(new ByteArrayInputStream(content));
+        assertEquals(5L, result.size());
+        assertEquals("2cf24dba5fb0a30e26e83b2ac5b9e29e1b161e5c1fa7425e73043362938b9824", result.sha256());
+        assertTrue(blobStore.exists(result.location()));
+        try (InputStream in = blobStore.open(result.location())) {
+            assertArrayEquals(content, in.readAllBytes());
+        }
+    }
+
+    @Test
+    void write_largerThanBuffer_success() throws Exception {
+        byte[] content = new byte[1000];
+        Arrays.fill(content, (byte) 7);
+        BlobWriteResult result = blobStore.write(new ByteArrayInputStream(content));
+        assertEquals(1000L, result.size());
+        try (InputStream in = blobStore.open(result.location())) {
+            assertArrayEquals(content, in.readAllBytes());
+        }
+    }
+
+    @Test
+    void delete_removesBlob() throws Exception {
+        BlobWriteResult result = blobStore.write(new ByteArrayInputStream(new byte[]{1}));
+        blobStore.delete(result.location());
+        assertFalse(blobStore.exists(result.location()));
+    }
+
+    @Test
+    void resolve_locationOutsideRoot_throwsException() {
+        assertThrows(IllegalArgumentException.class, () -> blobStore.exists("../../etc/passwd"));
+    }
+
+    @Test
+    void compose_readsSegmentsAsOneBlob() throws Exception {
+        BlobWriteResult first = blobStore.write(new ByteArrayInputStream("hello ".getBytes(StandardCharsets.UTF_8)));
+        BlobWriteResult second = blobStore.write(new ByteArrayInputStream("world".getBytes(StandardCharsets.UTF_8)));
+        String composed = blobStore.compose(List.of(first.location(), second.location()));
+        try (InputStream in = blobStore.open(composed)) {
+            assertEquals("hello world", new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (BlobReader reader = blobStore.openReader(composed)) {
+            assertEquals(11L, reader.length());
+            reader.transferTo(4, 4, Channels.newChannel(out));
+        }
+        assertEquals("o wo", out.toString(StandardCharsets.UTF_8));
+        blobStore.delete(composed);
+        assertFalse(blobStore.exists(first.location()));
+        assertFalse(blobStore.exists(second.location()));
+    }
+
+    @Test
+    void deleteManifest_keepsSegments() throws Exception {
+        BlobWriteResult first = blobStore.write(new ByteArrayInputStream("ab".getBytes(StandardCharsets.UTF_8)));
+        BlobWriteResult second = blobStore.write(new ByteArrayInputStream("cd".getBytes(StandardCharsets.UTF_8)));
+        String composed = blobStore.compose(List.of(first.location(), second.location()));
+        blobStore.deleteManifest(composed);
+        assertFalse(blobStore.exists(composed));
+        assertTrue(blobStore.exists(first.location()));
+        assertTrue(blobStore.exists(second.location()));
+        assertThrows(IllegalArgumentException.class, () -> blobStore.deleteManifest(first.location()));
+    }
+
+    @Test
+    void listBlobs_pagesHotThenColdInStableOrderSkippingPacks() throws Exception {
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            expected.add(blobStore.write(new ByteArrayInputStream(new byte[]{(byte) i})).location());
+        }
+        String cold = blobStore.write(new ByteArrayInputStream(new byte[]{9}), ContentEncoding.IDENTITY, StorageTier.COLD)
+                .location();
+        blobStore.writePacked(new ByteArrayInputStream(new byte[]{8}), ContentEncoding.IDENTITY, StorageTier.HOT);
+        List<String> parts = List.copyOf(expected.subList(2, 4));
+        String composed = blobStore.compose(parts);
+        expected.add(composed);
+        Collections.sort(expected);
+        expected.add(cold);
+
+        List<String> listed = new ArrayList<>();
+        String after = null;
+        List<BlobEntry> page;
+        do {
+            page = blobStore.listBlobs(after, 2);
+            page.forEach(entry -> listed.add(entry.location()));
+            after = page.isEmpty() ? after : page.get(page.size() - 1).location();
+        } while (page.size() == 2);
+
+        assertEquals(expected, listed);
+        assertEquals(parts, blobStore.segments(composed));
+        assertTrue(blobStore.segments(cold).isEmpty());
+    }
+
+    @Test
+    void write_gzip_storesCompressedAndDecodesRanges() throws Exception {
+        byte[] content = "compressible ".repeat(500).getBytes(StandardCharsets.UTF_8);
+        BlobWriteResult result = blobStore.write(new ByteArrayInputStream(content), ContentEncoding.GZIP);
+        assertEquals(ContentEncoding.GZIP, result.encoding());
+        assertEquals(content.length, result.size());
+        assertTrue(result.storedSize() < content.length / 10);
+        assertEquals(blobStore.write(new ByteArrayInputStream(content)).sha256(), result.sha256());
+        try (InputStream in = new GZIPInputStream(blobStore.open(result.location()))) {
+            assertArrayEquals(content, in.readAllBytes());
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (BlobReader reader = ContentCodecs.decode(blobStore.openReader(result.location()), result.encoding(), result.size())) {
+            assertEquals(content.length, reader.length());
+            assertTrue(reader.fileRegion().isEmpty());
+            reader.transferTo(13 * 100, 12, Channels.newChannel(out));
+        }
+        assertEquals("compressible", out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void transfer_composedBlobToColdTier_copiesStoredBytes() throws Exception {
+        BlobWriteResult first = blobStore.write(new ByteArrayInputStream("cold ".getBytes(StandardCharsets.UTF_8)));
+        BlobWriteResult second = blobStore.write(new ByteArrayInputStream("storage".getBytes(StandardCharsets.UTF_8)));
+        String composed = blobStore.compose(List.of(first.location(), second.location()));
+        String cold = blobStore.transfer(composed, StorageTier.COLD);
+        assertTrue(cold.startsWith("cold/"));
+        assertTrue(blobStore.resolve(cold).startsWith(root.resolve("cold")));
+        try (InputStream in = blobStore.open(cold)) {
+            assertEquals("cold storage", new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+        assertTrue(blobStore.exists(composed));
+    }
+
+    @Test
+    void writePacked_appendsSmallBlobsToOneSegmentAndServesRegions() throws Exception {
+        BlobWriteResult first = blobStore.writePacked(new ByteArrayInputStream("packed ".getBytes(StandardCharsets.UTF_8)),
+                ContentEncoding.IDENTITY, StorageTier.HOT);
+        BlobWriteResult second = blobStore.writePacked(new ByteArrayInputStream("content".getBytes(StandardCharsets.UTF_8)),
+                ContentEncoding.IDENTITY, StorageTier.HOT);
+        assertTrue(first.location().startsWith("pack/"));
+        assertEquals(first.location().split("/")[1], second.location().split("/")[1]);
+        try (InputStream in = blobStore.open(second.location())) {
+            assertEquals("content", new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (BlobReader reader = blobStore.openReader(second.location())) {
+            assertEquals(7L, reader.length());
+            FileRegion region = reader.fileRegion().orElseThrow();
+            assertEquals(7L, region.offset());
+            reader.transferTo(3, 4, Channels.newChannel(out));
+        }
+        assertEquals("tent", out.toString(StandardCharsets.UTF_8));
+        blobStore.delete(first.location());
+        assertTrue(blobStore.exists(first.location()));
+        assertTrue(blobStore.sealedPackSegments().isEmpty());
+    }
+
+    @Test
+    void writePacked_largerThanLimit_writesStandaloneBlob() throws Exception {
+        byte[] content = new byte[100_000];
+        Arrays.fill(content, (byte) 3);
+        BlobWriteResult result = blobStore.writePacked(new ByteArrayInputStream(content), ContentEncoding.IDENTITY,
+                StorageTier.HOT);
+        assertFalse(result.location().startsWith("pack/"));
+        assertEquals(content.length, result.size());
+        try (InputStream in = blobStore.open(result.location())) {
+            assertArrayEquals(content, in.readAllBytes());
+        }
+    }
+
+    @Test
+    void sealedPackSegments_rollsOverFullSegmentsAndDeletesOnlySealedOnes() throws Exception {
+        StorageProperties properties = new StorageProperties();
+        properties.setRootDir(root.resolve("small").toString());
+        properties.getTiering().setColdRootDir(root.resolve("small-cold").toString());
+        properties.getPacking().setSegmentSize(8);
+        LocalBlobStore store = new LocalBlobStore(properties, new ByteBufferPool(16, 1));
+        BlobWriteResult first = store.writePacked(new ByteArrayInputStream("123456".getBytes(StandardCharsets.UTF_8)),
+                ContentEncoding.GZIP, StorageTier.COLD);
+        BlobWriteResult second = store.writePacked(new ByteArrayInputStream("7890".getBytes(StandardCharsets.UTF_8)),
+                ContentEncoding.IDENTITY, StorageTier.COLD);
+        assertTrue(first.location().startsWith("cold/pack/"));
+        try (InputStream in = new GZIPInputStream(store.open(first.location()))) {
+            assertEquals("123456", new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+
+        List<PackSegment> sealed = store.sealedPackSegments();
+        assertEquals(1, sealed.size());
+        assertTrue(first.location().startsWith(sealed.get(0).locationPrefix()));
+        assertEquals(first.storedSize(), sealed.get(0).size());
+        store.deletePackSegment(sealed.get(0));
+        assertFalse(store.exists(first.location()));
+        assertTrue(store.exists(second.location()));
+        store.close();
+    }
+}